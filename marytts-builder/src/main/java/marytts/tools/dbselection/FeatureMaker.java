@@ -33,13 +33,18 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import marytts.datatypes.MaryData;
 import marytts.datatypes.MaryDataType;
 import marytts.datatypes.MaryXML;
+import marytts.features.FeatureColumns;
 import marytts.features.FeatureDefinition;
 import marytts.features.FeatureRegistry;
-import marytts.features.FeatureVector;
 import marytts.features.TargetFeatureComputer;
 import marytts.modules.TargetFeatureLister;
 import marytts.server.Mary;
@@ -87,6 +92,8 @@ public class FeatureMaker {
 	private static String mysqlDB = null;
 	private static String mysqlUser = null;
 	private static String mysqlPasswd = null;
+	// number of sentences processed in parallel
+	private static int numThreads = Runtime.getRuntime().availableProcessors();
 
 	public static void main(String[] args) throws Exception {
 		boolean test = false;
@@ -174,56 +181,62 @@ public class FeatureMaker {
 			fdef.writeTo(pw, false);
 			pw.close();
 			System.out.println("\nCreated featureDefinition file:" + locale + "_featureDefinition.txt");
+			ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+			try {
+				for (i = 0; i < textId.length; i++) {
+					// get next unprocessed text
+					text = wikiToDB.getCleanText(textId[i]);
+					System.out.println("Processing(" + i + ") text id=" + textId[i] + " text length=" + text.length());
+					sentenceList = splitIntoSentences(text, textId[i], test);
+
+					if (sentenceList != null) {
+						int index = 0;
+						// loop over the sentences
+						int numSentencesInText = 0;
+						/*
+						 * String newSentence; byte feas[]; // for directly saving a vector of bytes as BLOB in mysql DB for(j=0;
+						 * j<sentenceList.size(); j++) { newSentence = sentenceList.elementAt(j); MaryData d =
+						 * processSentence(newSentence,textId[i],targetFeatures); if (d!=null){ // get the features of the sentence
+						 * feas = getFeatures(d); // Insert in the database the new sentence and its features. numSentencesInText++;
+						 * if(!test) wikiToDB.insertSentence(newSentence,feas, true, false, false, textId[i]); feas = null; } }//end
+						 * of loop over list of sentences
+						 */
 
-			for (i = 0; i < textId.length; i++) {
-				// get next unprocessed text
-				text = wikiToDB.getCleanText(textId[i]);
-				System.out.println("Processing(" + i + ") text id=" + textId[i] + " text length=" + text.length());
-				sentenceList = splitIntoSentences(text, textId[i], test);
-
-				if (sentenceList != null) {
-					int index = 0;
-					// loop over the sentences
-					int numSentencesInText = 0;
-					/*
-					 * String newSentence; byte feas[]; // for directly saving a vector of bytes as BLOB in mysql DB for(j=0;
-					 * j<sentenceList.size(); j++) { newSentence = sentenceList.elementAt(j); MaryData d =
-					 * processSentence(newSentence,textId[i],targetFeatures); if (d!=null){ // get the features of the sentence
-					 * feas = getFeatures(d); // Insert in the database the new sentence and its features. numSentencesInText++;
-					 * if(!test) wikiToDB.insertSentence(newSentence,feas, true, false, false, textId[i]); feas = null; } }//end
-					 * of loop over list of sentences
-					 */
-
-					for (String sentence : sentenceList) {
-						byte[] feas = processSentenceToFeatures(sentence, textId[i], featureComputer);
-						if (feas == null)
-							continue;
-						if (false) { // turn on for debugging, to check the features computed make sense
-							int numFeatures = selectionFeature.size();
-							System.out.println(sentence);
-							for (int t = 0; t < feas.length; t += numFeatures) {
-								for (int f = 0; f < numFeatures; f++) {
-									int featureIndex = fdef.getFeatureIndex(selectionFeature.get(f));
-									byte val = feas[t + f];
-									String sVal = fdef.getFeatureValueAsString(featureIndex, val);
-									System.out.print(sVal + " ");
+						List<byte[]> sentenceFeatures = processSentencesToFeatures(sentenceList, textId[i], featureComputer, executor);
+						for (j = 0; j < sentenceList.size(); j++) {
+							String sentence = sentenceList.get(j);
+							byte[] feas = sentenceFeatures.get(j);
+							if (feas == null)
+								continue;
+							if (false) { // turn on for debugging, to check the features computed make sense
+								int numFeatures = selectionFeature.size();
+								System.out.println(sentence);
+								for (int t = 0; t < feas.length; t += numFeatures) {
+									for (int f = 0; f < numFeatures; f++) {
+										int featureIndex = fdef.getFeatureIndex(selectionFeature.get(f));
+										byte val = feas[t + f];
+										String sVal = fdef.getFeatureValueAsString(featureIndex, val);
+										System.out.print(sVal + " ");
+									}
+									System.out.println();
 								}
-								System.out.println();
 							}
+							// Insert in the database the new sentence and its features.
+							numSentencesInText++;
+							if (!test)
+								wikiToDB.insertSentence(sentence, feas, true, false, false, textId[i]);
 						}
-						// Insert in the database the new sentence and its features.
-						numSentencesInText++;
-						if (!test)
-							wikiToDB.insertSentence(sentence, feas, true, false, false, textId[i]);
-					}
-					sentenceList.clear();
-					sentenceList = null;
-
-					numSentences += numSentencesInText;
-					System.out.println("Inserted " + numSentencesInText + " sentences from text id=" + textId[i]
-							+ " (Total reliable = " + numSentences + ") \n");
-				} // if sentenceList is not null
-			} // end of loop over articles
+						sentenceList.clear();
+						sentenceList = null;
+
+						numSentences += numSentencesInText;
+						System.out.println("Inserted " + numSentencesInText + " sentences from text id=" + textId[i]
+								+ " (Total reliable = " + numSentences + ") \n");
+					} // if sentenceList is not null
+				} // end of loop over articles
+			} finally {
+				executor.shutdown();
+			}
 			wikiToDB.closeDBConnection();
 
 			Date dateEnd = new Date();
@@ -246,12 +259,13 @@ public class FeatureMaker {
 	protected static void printUsage() {
 		System.out.println("\nUsage: " + "java FeatureMaker -locale language -mysqlHost host -mysqlUser user\n"
 				+ "                 -mysqlPasswd passwd -mysqlDB wikiDB\n" + "                 [-reliability strict]\n"
-				+ "                 [-featuresForSelection phone,next_phone,selection_prosody]\n\n"
+				+ "                 [-featuresForSelection phone,next_phone,selection_prosody] [-threads n]\n\n"
 				+ "  required: This program requires a MARY server running and an already created cleanText table in the DB. \n"
 				+ "            The cleanText table can be created with the WikipediaProcess program. \n"
 				+ "  default/optional: [-maryHost localhost -maryPort 59125]\n"
 				+ "  default/optional: [-featuresForSelection phone,next_phone,selection_prosody] (features separated by ,) \n"
-				+ "  optional: [-reliability [strict|lax]]\n\n"
+				+ "  optional: [-reliability [strict|lax]]\n"
+				+ "  optional: [-threads n] number of sentences processed in parallel (default: number of processors)\n\n"
 				+ "  -reliability: setting that determines what kind of sentences \n"
 				+ "  are regarded as credible. There are two settings: strict and lax. With \n"
 				+ "  setting strict, only those sentences that contain words in the lexicon \n"
@@ -271,6 +285,7 @@ public class FeatureMaker {
 			System.out.println("  -reliability strict");
 		else
 			System.out.println("  -reliability lax");
+		System.out.println("  -threads " + numThreads);
 
 		System.out.print("  -featuresForselection ");
 		int i = 0;
@@ -336,6 +351,9 @@ public class FeatureMaker {
 				else if (args[i].contentEquals("-mysqlDB") && args.length >= (i + 1))
 					mysqlDB = args[++i];
 
+				else if (args[i].contentEquals("-threads") && args.length >= (i + 1))
+					numThreads = Integer.parseInt(args[++i]);
+
 				else { // unknown argument
 					System.out.println("\nOption not known: " + args[i]);
 					return false;
@@ -361,6 +379,44 @@ public class FeatureMaker {
 		return true;
 	}
 
+	/**
+	 * Process the sentences of one text from text to target features, in parallel.
+	 * 
+	 * @param sentences
+	 *            the sentences
+	 * @param textId
+	 *            the text id
+	 * @param featureComputer
+	 *            the feature computer
+	 * @param executor
+	 *            the threads to use
+	 * @return for each sentence, its feature vectors as computed by
+	 *         {@link #processSentenceToFeatures(String, int, TargetFeatureComputer)}, or null if it could not be processed
+	 * @throws InterruptedException
+	 *             InterruptedException
+	 */
+	protected static List<byte[]> processSentencesToFeatures(List<String> sentences, final int textId,
+			final TargetFeatureComputer featureComputer, ExecutorService executor) throws InterruptedException {
+		List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>(sentences.size());
+		for (final String sentence : sentences) {
+			futures.add(executor.submit(new Callable<byte[]>() {
+				public byte[] call() {
+					return processSentenceToFeatures(sentence, textId, featureComputer);
+				}
+			}));
+		}
+		List<byte[]> features = new ArrayList<byte[]>(sentences.size());
+		for (Future<byte[]> f : futures) {
+			try {
+				features.add(f.get());
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+				features.add(null);
+			}
+		}
+		return features;
+	}
+
 	/**
 	 * Process one sentences from text to target features
 	 * 
@@ -468,12 +524,14 @@ public class FeatureMaker {
 			String silenceSymbol = featureComputer.getPauseSymbol();
 			int numFeatures = featureComputer.getByteValuedFeatureProcessors().length;
 			List<Target> targets = TargetFeatureLister.createTargetsWithPauses(segmentsAndBoundaries, silenceSymbol);
+			// compute the features of all targets in one batch, then store them target by target:
+			FeatureColumns columns = featureComputer.computeFeatures(targets);
 			byte[] featureData = new byte[targets.size() * numFeatures];
 			int off = 0;
-			for (Target target : targets) {
-				FeatureVector features = featureComputer.computeFeatureVector(target);
-				System.arraycopy(features.getByteValuedDiscreteFeatures(), 0, featureData, off, numFeatures);
-				off += numFeatures;
+			for (int t = 0; t < targets.size(); t++) {
+				for (int f = 0; f < numFeatures; f++) {
+					featureData[off++] = columns.getByteFeature(t, f);
+				}
 			}
 			return featureData;
 
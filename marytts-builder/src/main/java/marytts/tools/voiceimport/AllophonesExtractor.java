@@ -252,4 +252,12 @@ public class AllophonesExtractor extends VoiceImportComponent {
 		return percent;
 	}
 
+	/**
+	 * Allophones are computed from the text files only.
+	 */
+	@Override
+	public String[] getDependencies() {
+		return new String[] { "Festvox2MaryTranscripts" };
+	}
+
 }
@@ -44,8 +44,6 @@ public class AutocorrelationPitchmarker extends VoiceImportComponent {
 
 	protected String ptcExt = ".ptc";
 
-	private int percent = 0;
-
 	public final String WINSIZE = "AutocorrelationPitchmarker.windowSizeInSeconds"; // Window size in seconds
 	public final String SKIPSIZE = "AutocorrelationPitchmarker.skipSizeInSeconds"; // Skip size in seconds
 	public final String VOICINGTH = "AutocorrelationPitchmarker.voicingThreshold"; // Voicing threshold
@@ -133,10 +131,10 @@ public class AutocorrelationPitchmarker extends VoiceImportComponent {
 	/**
 	 * The standard compute() method of the VoiceImportComponent interface.
 	 * 
-	 * @throws IOException
-	 *             IOException
+	 * @throws Exception
+	 *             Exception
 	 */
-	public boolean compute() throws IOException {
+	public boolean compute() throws Exception {
 
 		String[] baseNameArray = bnl.getListAsArray();
 		System.out.println("Computing pitchmarks for " + baseNameArray.length + " utterances.");
@@ -154,7 +152,7 @@ public class AutocorrelationPitchmarker extends VoiceImportComponent {
 			dir.mkdir();
 		}
 
-		PitchFileHeader params = new PitchFileHeader();
+		final PitchFileHeader params = new PitchFileHeader();
 		params.windowSizeInSeconds = Double.valueOf(getProp(WINSIZE));
 		params.skipSizeInSeconds = Double.valueOf(getProp(SKIPSIZE));
 		params.voicingThreshold = Double.valueOf(getProp(VOICINGTH));
@@ -162,10 +160,12 @@ public class AutocorrelationPitchmarker extends VoiceImportComponent {
 		params.maximumF0 = Double.valueOf(getProp(MAXF0));
 
 		System.out.println("Running autocorrelation based pitch marker...");
-		for (int i = 0; i < baseNameArray.length; i++) {
-			percent = 100 * i / baseNameArray.length;
-			extractPitchmarks(baseNameArray[i], params);
-		}
+		// the pitch detector copies params, so the files can be processed in parallel:
+		computeForEachBasename(baseNameArray, new VoiceImportExecutor.BasenameTask() {
+			public void compute(String basename) throws Exception {
+				extractPitchmarks(basename, params);
+			}
+		});
 		System.out.println("Autocorrelation based pitch marking completed.");
 
 		return true;
@@ -177,7 +177,15 @@ public class AutocorrelationPitchmarker extends VoiceImportComponent {
 	 * @return -1 if not implemented, or an integer between 0 and 100.
 	 */
 	public int getProgress() {
-		return percent;
+		return getBasenameProgress();
+	}
+
+	/**
+	 * Pitchmarks are computed from the wave files only.
+	 */
+	@Override
+	public String[] getDependencies() {
+		return new String[0];
 	}
 
 	public static void main(String[] args) throws Exception {
@@ -53,6 +53,7 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -415,6 +416,7 @@ public class DatabaseImportMain extends JFrame {
 			return;
 
 		if (args.length > 0) { // non-gui mode: arguments are expected to be component names, in order or application
+			List<VoiceImportComponent> toRun = new ArrayList<VoiceImportComponent>();
 			for (String compName : args) {
 				VoiceImportComponent component = null;
 				for (VoiceImportComponent comp : components) {
@@ -424,12 +426,16 @@ public class DatabaseImportMain extends JFrame {
 					}
 				}
 				if (component != null) {
-					System.out.println("Running " + compName);
-					component.compute();
+					toRun.add(component);
 				} else {
 					throw new IllegalArgumentException("No such voice import component: " + compName);
 				}
-
+			}
+			// components whose dependencies allow it run in parallel, all others in the given order:
+			System.out.println("Running " + Arrays.toString(args) + " using " + VoiceImportExecutor.getThreadCount()
+					+ " threads per component");
+			if (!VoiceImportExecutor.runComponents(toRun)) {
+				System.out.println("Not all components completed successfully");
 			}
 		} else {
 			/* Display GUI */
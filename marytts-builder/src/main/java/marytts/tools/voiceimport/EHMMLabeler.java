@@ -749,6 +749,14 @@ public class EHMMLabeler extends VoiceImportComponent {
 		return progress;
 	}
 
+	/**
+	 * The labels are computed from the wave files and the allophones.
+	 */
+	@Override
+	public String[] getDependencies() {
+		return new String[] { "AllophonesExtractor" };
+	}
+
 	/**
 	 * @param args
 	 *            args
@@ -224,35 +224,50 @@ public class ESTCaller {
 
 		System.out.println("---- Calculating the Mel-Cepstrum coefficents...");
 
-		String cmdLine = null;
+		/* Ensure the existence of the target mel cepstrum directory */
+		File dir = new File(mcepDirName);
+		if (!dir.exists()) {
+			System.out.println("Creating the directory [" + mcepDirName + "].");
+			dir.mkdir();
+		}
 
 		/* For each file (or each basename): */
 		for (int i = 0; i < baseNameArray.length; i++) {
-
-			/* Ensure the existence of the target mel cepstrum directory */
-			File dir = new File(mcepDirName);
-			if (!dir.exists()) {
-				System.out.println("Creating the directory [" + mcepDirName + "].");
-				dir.mkdir();
-			}
-
-			/* Make the command line */
-			cmdLine = ESTDIR
-					+ "/bin/sig2fv "
-					+ "-window_type hamming -factor 2.5 -otype est_binary -coefs melcep -melcep_order 12 -fbank_order 24 -shift 0.01 -preemph 0.97 "
-					+ "-pm " + correctedPitchmarksDirName + baseNameArray[i] + correctedPitchmarksExt + " -o " + mcepDirName
-					+ baseNameArray[i] + mcepExt + " " + db.getProp(db.WAVDIR) + baseNameArray[i] + db.getProp(db.WAVEXT);
-			// System.out.println( cmdLine );
-			/*
-			 * Note: parameter "-delta melcep" has been commented out in the original script. Refer to the EST docs on
-			 * http://www.cstr.ed.ac.uk/projects/speech_tools/manual-1.2.0/ for the meaning of the command line parameters.
-			 */
-
-			/* Launch the relevant process */
-			System.out.println(baseNameArray[i]); // some feedback is always nice
-			General.launchProc(cmdLine, "Mel-Cepstrum ", baseNameArray[i]);
+			make_mcep(baseNameArray[i], correctedPitchmarksDirName, correctedPitchmarksExt, mcepDirName, mcepExt);
 		}
 		System.out.println("---- Mel-Cepstrum coefficients done.");
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Compute the mel cepstrum for a single file; the target directory must exist. Can be called from several threads at once.
+	 * 
+	 * @param baseName
+	 *            The basename of the .wav file to process
+	 * @param correctedPitchmarksDirName
+	 *            correctedPitchmarksDirName
+	 * @param correctedPitchmarksExt
+	 *            correctedPitchmarksExt
+	 * @param mcepDirName
+	 *            mcepDirName
+	 * @param mcepExt
+	 *            mcepExt
+	 */
+	public void make_mcep(String baseName, String correctedPitchmarksDirName, String correctedPitchmarksExt, String mcepDirName,
+			String mcepExt) {
+		/* Make the command line */
+		String cmdLine = ESTDIR
+				+ "/bin/sig2fv "
+				+ "-window_type hamming -factor 2.5 -otype est_binary -coefs melcep -melcep_order 12 -fbank_order 24 -shift 0.01 -preemph 0.97 "
+				+ "-pm " + correctedPitchmarksDirName + baseName + correctedPitchmarksExt + " -o " + mcepDirName + baseName
+				+ mcepExt + " " + db.getProp(db.WAVDIR) + baseName + db.getProp(db.WAVEXT);
+		/*
+		 * Note: parameter "-delta melcep" has been commented out in the original script. Refer to the EST docs on
+		 * http://www.cstr.ed.ac.uk/projects/speech_tools/manual-1.2.0/ for the meaning of the command line parameters.
+		 */
+
+		/* Launch the relevant process */
+		System.out.println(baseName); // some feedback is always nice
+		General.launchProc(cmdLine, "Mel-Cepstrum ", baseName);
+	}
+
+}
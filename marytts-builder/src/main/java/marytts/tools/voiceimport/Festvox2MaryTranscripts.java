@@ -116,6 +116,14 @@ public class Festvox2MaryTranscripts extends VoiceImportComponent {
 		return -1;
 	}
 
+	/**
+	 * The text files are created from the transcript file only.
+	 */
+	@Override
+	public String[] getDependencies() {
+		return new String[0];
+	}
+
 	/**
 	 * @param args
 	 *            args
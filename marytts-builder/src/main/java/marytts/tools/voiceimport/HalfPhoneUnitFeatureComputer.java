@@ -45,12 +45,14 @@ public class HalfPhoneUnitFeatureComputer extends PhoneUnitFeatureComputer {
 		FEATURELIST = "HalfPhoneUnitFeatureComputer.featureFile";
 		MARYSERVERHOST = "HalfPhoneUnitFeatureComputer.maryServerHost";
 		MARYSERVERPORT = "HalfPhoneUnitFeatureComputer.maryServerPort";
+		USELOCALMARY = "HalfPhoneUnitFeatureComputer.useLocalMary";
 	}
 
 	@Override
 	protected void initialiseComp() throws Exception {
 		locale = db.getProp(db.LOCALE);
 		mary = null; // initialised only if needed
+		localMary = null;
 		unitfeatureDir = new File(getProp(FEATUREDIR));
 		if (!unitfeatureDir.exists()) {
 			System.out.print(FEATUREDIR + " " + getProp(FEATUREDIR) + " does not exist; ");
@@ -72,6 +74,7 @@ public class HalfPhoneUnitFeatureComputer extends PhoneUnitFeatureComputer {
 			props.put(FEATURELIST, db.getProp(db.CONFIGDIR) + "features.txt");
 			props.put(MARYSERVERHOST, "localhost");
 			props.put(MARYSERVERPORT, "59125");
+			props.put(USELOCALMARY, "false");
 		}
 		return props;
 	}
@@ -82,6 +85,8 @@ public class HalfPhoneUnitFeatureComputer extends PhoneUnitFeatureComputer {
 		props2Help.put(ALLOPHONES, "Directory of corrected Allophones files.");
 		props2Help.put(MARYSERVERHOST, "the host were the Mary server is running, default: \"localhost\"");
 		props2Help.put(MARYSERVERPORT, "the port were the Mary server is listening, default: \"59125\"");
+		props2Help.put(USELOCALMARY, "if true, compute the features inside the voice import tool instead of asking the Mary server; "
+				+ "the language module for the voice's locale must then be in the classpath. Default: \"false\"");
 	}
 
 	@Override
@@ -85,7 +85,7 @@ public class HalfPhoneUnitLabelComputer extends PhoneUnitLabelComputer {
 	}
 
 	@Override
-	protected List<Double> getMidTimes(List<String> labels, List<Double> endTimes) {
+	protected List<Double> getMidTimes(String baseName, List<String> labels, List<Double> endTimes) {
 		assert labels.size() == endTimes.size();
 
 		List<Double> midTimes = new ArrayList<Double>(endTimes.size());
@@ -101,7 +101,7 @@ public class HalfPhoneUnitLabelComputer extends PhoneUnitLabelComputer {
 					Allophone allophone = db.getAllophoneSet().getAllophone(label);
 					isTransient = allophone.isPlosive() || allophone.isAffricate();
 					if (isTransient) {
-						peakTime = getEnergyPeak(startTime, endTime);
+						peakTime = getEnergyPeak(baseName, startTime, endTime);
 					}
 				} catch (NullPointerException e) {
 					// ignore for now
@@ -123,26 +123,27 @@ public class HalfPhoneUnitLabelComputer extends PhoneUnitLabelComputer {
 	}
 
 	/**
-	 * Get time of energy peak difference between startTime and endTime, based on energy analysis of the wav file for the current
+	 * Get time of energy peak difference between startTime and endTime, based on energy analysis of the wav file for the given
 	 * baseName.
 	 * <p>
 	 * The energy analysis (based on the provided parameters {@link #windowSizeInSeconds} and {@link #skipSizeInSeconds}) is saved
 	 * to a binary file, which is reused if present (and if the parameter values match those encountered in the file header).
 	 * 
+	 * @param baseName
+	 *            of the utterance
 	 * @param startTime
 	 *            of energy analysis
 	 * @param endTime
 	 *            of energy analysis
 	 * @return the time of the greatest increase in energy between startTime and endTime, or {@link Double#NaN} if no such time
-	 *         can be determined from the signal (this is then handled in {@link #getMidTimes(List, List)})
+	 *         can be determined from the signal (this is then handled in {@link #getMidTimes(String, List, List)})
 	 * @throws IOException
 	 *             if the energy analysis file cannot be read or (initially) created
 	 * @see EnergyContourRms#WriteEnergyFile(EnergyContourRms, String)
 	 */
-	private double getEnergyPeak(double startTime, double endTime) throws IOException {
+	private double getEnergyPeak(String baseName, double startTime, double endTime) throws IOException {
 		// determine wav file name and energy analysis file name:
 		String wavDir = db.getProperty(DatabaseLayout.WAVDIR);
-		String baseName = bnl.getName(basenameIndex);
 		String wavExt = db.getProperty(DatabaseLayout.WAVEXT);
 		File wavFile = new File(wavDir, baseName + wavExt);
 		File energyFile = new File(unitlabelDir, baseName + energyExt);
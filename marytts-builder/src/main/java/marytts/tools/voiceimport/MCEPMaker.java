@@ -246,10 +246,10 @@ public class MCEPMaker extends VoiceImportComponent {
 	/**
 	 * The standard compute() method of the VoiceImportComponent interface.
 	 * 
-	 * @throws IOException
-	 *             IOException
+	 * @throws Exception
+	 *             Exception
 	 */
-	public boolean compute() throws IOException {
+	public boolean compute() throws Exception {
 
 		// do not attempt to launch ESTCaller if bnl is empty
 		if (bnl.getLength() < 1) {
@@ -259,9 +259,22 @@ public class MCEPMaker extends VoiceImportComponent {
 
 		String[] baseNameArray = bnl.getListAsArray();
 		System.out.println("Computing Mel cepstra for [" + baseNameArray.length + "] utterances.");
-		ESTCaller caller = new ESTCaller(db);
-		caller.make_mcep(baseNameArray, db.getProp(DatabaseLayout.PMDIR), db.getProp(DatabaseLayout.PMEXT), getProp(MCEPDIR),
-				mcepExt);
+		final ESTCaller caller = new ESTCaller(db);
+		final String pmDir = db.getProp(DatabaseLayout.PMDIR);
+		final String pmExt = db.getProp(DatabaseLayout.PMEXT);
+		final String mcepDir = getProp(MCEPDIR);
+		File dir = new File(mcepDir);
+		if (!dir.exists()) {
+			System.out.println("Creating the directory [" + mcepDir + "].");
+			dir.mkdir();
+		}
+		// sig2fv runs as a separate process per file, so run several at once:
+		computeForEachBasename(baseNameArray, new VoiceImportExecutor.BasenameTask() {
+			public void compute(String basename) {
+				caller.make_mcep(basename, pmDir, pmExt, mcepDir, mcepExt);
+			}
+		});
+		System.out.println("---- Mel-Cepstrum coefficients done.");
 
 		return (true);
 	}
@@ -272,7 +285,15 @@ public class MCEPMaker extends VoiceImportComponent {
 	 * @return -1 if not implemented, or an integer between 0 and 100.
 	 */
 	public int getProgress() {
-		return -1;
+		return getBasenameProgress();
+	}
+
+	/**
+	 * Mel cepstra are computed at the pitchmarks, so this only needs to wait for the pitchmarkers.
+	 */
+	@Override
+	public String[] getDependencies() {
+		return new String[] { "PraatPitchmarker", "SnackPitchmarker", "AutocorrelationPitchmarker" };
 	}
 
 }
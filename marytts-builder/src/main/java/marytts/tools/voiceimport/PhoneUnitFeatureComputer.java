@@ -24,10 +24,16 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
+import marytts.LocalMaryInterface;
+import marytts.MaryInterface;
 import marytts.client.http.MaryHttpClient;
+import marytts.util.MaryUtils;
+import marytts.util.dom.DomUtils;
 import marytts.util.http.Address;
 import marytts.util.io.FileUtils;
 
@@ -47,17 +53,18 @@ public class PhoneUnitFeatureComputer extends VoiceImportComponent {
 	protected String xmlExt = ".xml";
 	protected String locale;
 	protected MaryHttpClient mary;
+	protected MaryInterface localMary;
 	protected String maryInputType;
 	protected String maryOutputType;
 
 	protected DatabaseLayout db = null;
-	protected int percent = 0;
 
 	public String FEATUREDIR = "PhoneUnitFeatureComputer.featureDir";
 	public String ALLOPHONES = "PhoneUnitFeatureComputer.allophonesDir";
 	public String FEATURELIST = "PhoneUnitFeatureComputer.featureFile";
 	public String MARYSERVERHOST = "PhoneUnitFeatureComputer.maryServerHost";
 	public String MARYSERVERPORT = "PhoneUnitFeatureComputer.maryServerPort";
+	public String USELOCALMARY = "PhoneUnitFeatureComputer.useLocalMary";
 
 	public String getName() {
 		return "PhoneUnitFeatureComputer";
@@ -75,6 +82,7 @@ public class PhoneUnitFeatureComputer extends VoiceImportComponent {
 		locale = db.getProp(db.LOCALE);
 
 		mary = null; // initialised only if needed
+		localMary = null;
 		unitfeatureDir = new File(getProp(FEATUREDIR));
 		if (!unitfeatureDir.exists()) {
 			System.out.print(FEATUREDIR + " " + getProp(FEATUREDIR) + " does not exist; ");
@@ -97,6 +105,7 @@ public class PhoneUnitFeatureComputer extends VoiceImportComponent {
 			props.put(FEATURELIST, db.getProp(db.CONFIGDIR) + "features.txt");
 			props.put(MARYSERVERHOST, "localhost");
 			props.put(MARYSERVERPORT, "59125");
+			props.put(USELOCALMARY, "false");
 		}
 
 		return props;
@@ -108,9 +117,11 @@ public class PhoneUnitFeatureComputer extends VoiceImportComponent {
 		props2Help.put(ALLOPHONES, "Directory of corrected allophones files.");
 		props2Help.put(MARYSERVERHOST, "the host were the Mary server is running, default: \"localhost\"");
 		props2Help.put(MARYSERVERPORT, "the port were the Mary server is listening, default: \"59125\"");
+		props2Help.put(USELOCALMARY, "if true, compute the features inside the voice import tool instead of asking the Mary server; "
+				+ "the language module for the voice's locale must then be in the classpath. Default: \"false\"");
 	}
 
-	public MaryHttpClient getMaryClient() throws IOException {
+	public synchronized MaryHttpClient getMaryClient() throws IOException {
 		if (mary == null) {
 			try {
 				mary = new MaryHttpClient(new Address(getProp(MARYSERVERHOST), Integer.parseInt(getProp(MARYSERVERPORT))));
@@ -122,6 +133,25 @@ public class PhoneUnitFeatureComputer extends VoiceImportComponent {
 		return mary;
 	}
 
+	/**
+	 * The Mary system running in this JVM, set up to compute the features of this component from allophones.
+	 * 
+	 * @return the local Mary interface, created and started when first needed
+	 * @throws Exception
+	 *             if Mary cannot be started or does not support the locale
+	 */
+	public synchronized MaryInterface getLocalMary() throws Exception {
+		if (localMary == null) {
+			MaryInterface m = new LocalMaryInterface();
+			m.setLocale(MaryUtils.string2locale(locale));
+			m.setInputType(maryInputType);
+			m.setOutputType(maryOutputType);
+			m.setOutputTypeParams(featureList);
+			localMary = m;
+		}
+		return localMary;
+	}
+
 	protected void loadFeatureList() throws IOException {
 		File featureFile = new File(getProp(FEATURELIST));
 		if (!featureFile.exists()) {
@@ -155,31 +185,46 @@ public class PhoneUnitFeatureComputer extends VoiceImportComponent {
 
 	}
 
-	public boolean compute() throws IOException {
+	public boolean compute() throws Exception {
 
 		loadFeatureList();
 
 		textDir = new File(db.getProp(db.TEXTDIR));
 		System.out.println("Computing unit features for " + bnl.getLength() + " files");
-		for (int i = 0; i < bnl.getLength(); i++) {
-			percent = 100 * i / bnl.getLength();
-			computeFeaturesFor(bnl.getName(i));
-			System.out.println("    " + bnl.getName(i));
-		}
+		// the mary server processes several requests at once, so keep it busy:
+		computeForEachBasename(bnl.getListAsArray(), new VoiceImportExecutor.BasenameTask() {
+			public void compute(String basename) throws Exception {
+				computeFeaturesFor(basename);
+				System.out.println("    " + basename);
+			}
+		});
 		System.out.println("Finished computing the unit features.");
 		return true;
 	}
 
-	public void computeFeaturesFor(String basename) throws IOException {
+	public void computeFeaturesFor(String basename) throws Exception {
 		File allophoneFile = new File(getProp(ALLOPHONES) + basename + xmlExt);
+		if (Boolean.parseBoolean(getProp(USELOCALMARY))) {
+			// no text round trip and no server: parse the allophones, write the features as the server would send them
+			String features = getLocalMary().generateText(DomUtils.parseDocument(allophoneFile));
+			Writer out = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(new File(unitfeatureDir, basename
+					+ featsExt))), "UTF-8");
+			try {
+				out.write(features);
+			} finally {
+				out.close();
+			}
+			return;
+		}
 		String text = FileUtils.getFileAsString(allophoneFile, "UTF-8");
 
-		OutputStream os = new BufferedOutputStream(new FileOutputStream(new File(unitfeatureDir, basename + featsExt)));
 		MaryHttpClient maryClient = getMaryClient();
-
-		maryClient.process(text, maryInputType, maryOutputType, locale, null, null, "", null, featureList, os);
-		os.flush();
-		os.close();
+		OutputStream os = new BufferedOutputStream(new FileOutputStream(new File(unitfeatureDir, basename + featsExt)));
+		try {
+			maryClient.process(text, maryInputType, maryOutputType, locale, null, null, "", null, featureList, os);
+		} finally {
+			os.close();
+		}
 	}
 
 	/**
@@ -188,7 +233,7 @@ public class PhoneUnitFeatureComputer extends VoiceImportComponent {
 	 * @return -1 if not implemented, or an integer between 0 and 100.
 	 */
 	public int getProgress() {
-		return percent;
+		return getBasenameProgress();
 	}
 
 }
@@ -46,8 +46,6 @@ public class PhoneUnitLabelComputer extends VoiceImportComponent {
 	protected String pauseSymbol;
 
 	protected DatabaseLayout db = null;
-	protected int percent = 0;
-	protected int basenameIndex;
 
 	public String getName() {
 		return "PhoneUnitLabelComputer";
@@ -91,10 +89,11 @@ public class PhoneUnitLabelComputer extends VoiceImportComponent {
 		System.out.println("From phonetic label files: " + db.getProp(DatabaseLayout.LABDIR) + "*"
 				+ db.getProp(DatabaseLayout.LABEXT));
 		System.out.println("To       unit label files: " + unitlabelDir + "*" + unitlabelExt);
-		for (basenameIndex = 0; basenameIndex < bnl.getLength(); basenameIndex++) {
-			percent = 100 * basenameIndex / bnl.getLength();
-			computePhoneLabel(bnl.getName(basenameIndex));
-		}
+		computeForEachBasename(bnl.getListAsArray(), new VoiceImportExecutor.BasenameTask() {
+			public void compute(String basename) throws Exception {
+				computePhoneLabel(basename);
+			}
+		});
 		System.out.println("Finished computing unit labels");
 		return true;
 	}
@@ -105,7 +104,6 @@ public class PhoneUnitLabelComputer extends VoiceImportComponent {
 			System.out.println("Utterance [" + baseName + "] does not have a phonetic label file.");
 			System.out.println("Removing this utterance from the base utterance list.");
 			bnl.remove(baseName);
-			basenameIndex--;
 			return;
 		}
 
@@ -146,7 +144,7 @@ public class PhoneUnitLabelComputer extends VoiceImportComponent {
 		}
 
 		// get midtimes:
-		List<Double> midTimes = getMidTimes(labels, endTimes);
+		List<Double> midTimes = getMidTimes(baseName, labels, endTimes);
 
 		// convert labels to unit labels:
 		String[] unitLabelLines = toUnitLabels(labels, endTimes, midTimes);
@@ -170,13 +168,15 @@ public class PhoneUnitLabelComputer extends VoiceImportComponent {
 	/**
 	 * Get mid points for an utterance, given a list its phone labels and a list of corresponding end points.
 	 * 
+	 * @param baseName
+	 *            of the utterance
 	 * @param labels
 	 *            of the phones
 	 * @param endTimes
 	 *            of the phones
 	 * @return a list of midpoint times (in seconds) for the phones
 	 */
-	protected List<Double> getMidTimes(List<String> labels, List<Double> endTimes) {
+	protected List<Double> getMidTimes(String baseName, List<String> labels, List<Double> endTimes) {
 		// in this class, we don't actually need any midpoint times, so return null:
 		return null;
 	}
@@ -251,7 +251,7 @@ public class PhoneUnitLabelComputer extends VoiceImportComponent {
 	 * @return -1 if not implemented, or an integer between 0 and 100.
 	 */
 	public int getProgress() {
-		return percent;
+		return getBasenameProgress();
 	}
 
 }
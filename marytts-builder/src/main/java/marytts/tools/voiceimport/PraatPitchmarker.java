@@ -324,4 +324,12 @@ public class PraatPitchmarker extends VoiceImportComponent {
 		}
 		return percent;
 	}
+
+	/**
+	 * Pitchmarks are computed from the wave files only.
+	 */
+	@Override
+	public String[] getDependencies() {
+		return new String[0];
+	}
 }
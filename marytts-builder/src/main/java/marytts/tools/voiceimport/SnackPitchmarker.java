@@ -320,4 +320,12 @@ public class SnackPitchmarker extends VoiceImportComponent {
 	public int getProgress() {
 		return percent;
 	}
+
+	/**
+	 * Pitchmarks are computed from the wave files only.
+	 */
+	@Override
+	public String[] getDependencies() {
+		return new String[0];
+	}
 }
@@ -20,6 +20,7 @@
 package marytts.tools.voiceimport;
 
 import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import marytts.util.MaryUtils;
 import marytts.util.io.BasenameList;
@@ -39,6 +40,8 @@ public abstract class VoiceImportComponent {
 	protected BasenameList bnl;
 	protected DatabaseLayout db;
 	protected Logger logger;
+	private final AtomicInteger basenamesDone = new AtomicInteger();
+	private volatile int basenamesToDo = 0;
 
 	protected VoiceImportComponent() {
 		if (!Logger.getRootLogger().getAllAppenders().hasMoreElements()) {
@@ -134,6 +137,48 @@ public abstract class VoiceImportComponent {
 	 */
 	public abstract int getProgress();
 
+	/**
+	 * The names of the components whose results this component needs. When the import runs several components,
+	 * {@link VoiceImportExecutor#runComponents(java.util.List)} starts this component as soon as the listed ones have finished,
+	 * possibly in parallel with other components.
+	 * 
+	 * @return the names of the components this one depends on, or null (the default) if this component must wait for all
+	 *         components before it.
+	 */
+	public String[] getDependencies() {
+		return null;
+	}
+
+	/**
+	 * Run the given task for each of the basenames, in parallel on the shared voice import threads (see
+	 * {@link VoiceImportExecutor}), and keep track of progress for {@link #getBasenameProgress()}.
+	 * 
+	 * @param basenames
+	 *            the basenames to process
+	 * @param task
+	 *            the per-file work; must not modify shared state such as the basename list
+	 * @throws Exception
+	 *             the exception thrown by the first failing task
+	 */
+	protected void computeForEachBasename(String[] basenames, VoiceImportExecutor.BasenameTask task) throws Exception {
+		basenamesDone.set(0);
+		basenamesToDo = basenames.length;
+		VoiceImportExecutor.forEachBasename(basenames, task, basenamesDone);
+	}
+
+	/**
+	 * The progress of {@link #computeForEachBasename(String[], VoiceImportExecutor.BasenameTask)}; safe to call from any thread.
+	 * 
+	 * @return an integer between 0 and 100.
+	 */
+	protected int getBasenameProgress() {
+		int toDo = basenamesToDo;
+		if (toDo == 0) {
+			return 0;
+		}
+		return Math.min(100, 100 * basenamesDone.get() / toDo);
+	}
+
 	public String getHelpText() {
 		StringBuilder helpText = new StringBuilder();
 		helpText.append("<html>\n<head>\n<title>SETTINGS HELP</title>\n" + "</head>\n<body>\n"
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.tools.voiceimport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import marytts.util.MaryUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs the work of voice import components in parallel. Per-file work of a component is spread over a shared pool of
+ * <code>voiceimport.threads</code> worker threads (system property, default: the number of processors; 1 restores the old
+ * sequential behaviour); whole components are run concurrently when their declared dependencies allow it (see
+ * {@link VoiceImportComponent#getDependencies()}).
+ * 
+ * @author agent
+ */
+public class VoiceImportExecutor {
+	/**
+	 * The work to do for one basename.
+	 */
+	public static interface BasenameTask {
+		public void compute(String basename) throws Exception;
+	}
+
+	private static Logger logger = MaryUtils.getLogger("VoiceImportExecutor");
+	private static ExecutorService basenameExecutor;
+
+	private static ThreadFactory daemonThreads(final String prefix) {
+		return new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, prefix + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+
+	/**
+	 * The number of threads used for per-basename work.
+	 * 
+	 * @return the value of system property voiceimport.threads, or the number of processors.
+	 */
+	public static int getThreadCount() {
+		return Math.max(1, Integer.getInteger("voiceimport.threads", Runtime.getRuntime().availableProcessors()));
+	}
+
+	private static synchronized ExecutorService getBasenameExecutor() {
+		if (basenameExecutor == null) {
+			basenameExecutor = Executors.newFixedThreadPool(getThreadCount(), daemonThreads("voiceimport-"));
+		}
+		return basenameExecutor;
+	}
+
+	/**
+	 * Run the given task for each basename, in parallel on the shared worker threads, and wait until all are done. If a task
+	 * fails, the remaining ones are cancelled and the failure is thrown.
+	 * 
+	 * @param basenames
+	 *            the basenames to process
+	 * @param task
+	 *            the task to run for each basename; must be safe to call from several threads at once
+	 * @param done
+	 *            incremented after each basename that has been processed, for progress reporting; may be null
+	 * @throws Exception
+	 *             the exception thrown by the first failing task
+	 */
+	public static void forEachBasename(String[] basenames, final BasenameTask task, final AtomicInteger done) throws Exception {
+		if (getThreadCount() == 1 || basenames.length < 2) {
+			for (String basename : basenames) {
+				task.compute(basename);
+				if (done != null) {
+					done.incrementAndGet();
+				}
+			}
+			return;
+		}
+		ExecutorService executor = getBasenameExecutor();
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(basenames.length);
+		for (final String basename : basenames) {
+			futures.add(executor.submit(new Callable<Void>() {
+				public Void call() throws Exception {
+					task.compute(basename);
+					if (done != null) {
+						done.incrementAndGet();
+					}
+					return null;
+				}
+			}));
+		}
+		try {
+			for (Future<Void> f : futures) {
+				f.get();
+			}
+		} catch (ExecutionException e) {
+			throw rethrow(e);
+		} finally {
+			for (Future<Void> f : futures) {
+				f.cancel(true);
+			}
+		}
+	}
+
+	private static Exception rethrow(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof Exception) {
+			return (Exception) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return e;
+	}
+
+	/**
+	 * For each component, determine the indices of the earlier components it must wait for.
+	 * 
+	 * @param components
+	 *            the components, in the order in which they would be run sequentially
+	 * @return for each component, the list of indices of its predecessors
+	 */
+	static List<List<Integer>> getPredecessors(List<VoiceImportComponent> components) {
+		List<List<Integer>> predecessors = new ArrayList<List<Integer>>(components.size());
+		for (int i = 0; i < components.size(); i++) {
+			List<Integer> pred = new ArrayList<Integer>();
+			String[] deps = components.get(i).getDependencies();
+			for (int j = 0; j < i; j++) {
+				if (deps == null) {
+					pred.add(j);
+				} else {
+					for (String dep : deps) {
+						if (dep.equals(components.get(j).getName())) {
+							pred.add(j);
+							break;
+						}
+					}
+				}
+			}
+			predecessors.add(pred);
+		}
+		return predecessors;
+	}
+
+	/**
+	 * Run the given components, each in its own thread, starting each one as soon as the components it depends on have
+	 * finished. Dependencies on components not in the list count as fulfilled. When a component fails, no further components
+	 * are started, but those already running are allowed to finish.
+	 * 
+	 * @param components
+	 *            the components to run, in the order in which they would be run sequentially
+	 * @return true if all components succeeded, false if one of them reported failure
+	 * @throws Exception
+	 *             the exception thrown by the first failing component
+	 */
+	public static boolean runComponents(final List<VoiceImportComponent> components) throws Exception {
+		int n = components.size();
+		List<List<Integer>> predecessors = getPredecessors(components);
+		boolean[] started = new boolean[n];
+		boolean[] finished = new boolean[n];
+		ExecutorService executor = Executors.newCachedThreadPool(daemonThreads("voiceimport-component-"));
+		CompletionService<Integer> completion = new ExecutorCompletionService<Integer>(executor);
+		int running = 0;
+		int nFinished = 0;
+		boolean success = true;
+		Exception failure = null;
+		try {
+			while (nFinished < n) {
+				if (success) {
+					for (int i = 0; i < n; i++) {
+						if (started[i] || !allFinished(predecessors.get(i), finished)) {
+							continue;
+						}
+						started[i] = true;
+						running++;
+						final int index = i;
+						final VoiceImportComponent component = components.get(i);
+						logger.info("Starting " + component.getName());
+						completion.submit(new Callable<Integer>() {
+							public Integer call() throws Exception {
+								if (!component.compute()) {
+									throw new ComponentFailedException(component.getName() + " failed");
+								}
+								return index;
+							}
+						});
+					}
+				}
+				if (running == 0) {
+					break;
+				}
+				Future<Integer> done = completion.take();
+				running--;
+				try {
+					int index = done.get();
+					finished[index] = true;
+					nFinished++;
+					logger.info("Finished " + components.get(index).getName());
+				} catch (ExecutionException e) {
+					success = false;
+					Throwable cause = e.getCause();
+					if (cause instanceof ComponentFailedException) {
+						logger.warn(cause.getMessage());
+					} else if (failure == null) {
+						failure = cause instanceof Exception ? (Exception) cause : e;
+					}
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return success;
+	}
+
+	/**
+	 * Signals that a component's compute() returned false.
+	 */
+	private static class ComponentFailedException extends Exception {
+		ComponentFailedException(String message) {
+			super(message);
+		}
+	}
+
+	private static boolean allFinished(List<Integer> indices, boolean[] finished) {
+		for (int i : indices) {
+			if (!finished[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
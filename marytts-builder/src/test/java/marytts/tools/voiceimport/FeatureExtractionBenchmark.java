@@ -0,0 +1,97 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.tools.voiceimport;
+
+import java.io.File;
+import java.io.IOException;
+
+import marytts.server.Mary;
+
+/**
+ * Compares the speed of unit feature computation inside the voice import tool (as done by {@link PhoneUnitFeatureComputer} with
+ * <code>useLocalMary</code> set) with that of the Mary server's processing of the same request, and, if a server is given, with
+ * that of asking a Mary server over HTTP, in sentences per second, both one sentence at a time and with
+ * <code>voiceimport.threads</code> sentences in parallel. The sentences are copies of the allophones file of
+ * {@link UnitFeatureFixtures}.
+ * <p>
+ * Usage, with the builder's classes and test classes and the English language module on the classpath:
+ * <code>java marytts.tools.voiceimport.FeatureExtractionBenchmark [numSentences [host:port]]</code>
+ *
+ * @author agent
+ */
+public class FeatureExtractionBenchmark {
+	private static void measure(String name, String[] basenames, VoiceImportExecutor.BasenameTask task) throws Exception {
+		// warm-up:
+		for (String basename : basenames) {
+			task.compute(basename);
+		}
+		long start = System.nanoTime();
+		for (String basename : basenames) {
+			task.compute(basename);
+		}
+		double sequential = (System.nanoTime() - start) * 1e-9;
+		start = System.nanoTime();
+		VoiceImportExecutor.forEachBasename(basenames, task, null);
+		double parallel = (System.nanoTime() - start) * 1e-9;
+		System.out.printf("%-10s %15.1f %15.1f%n", name, basenames.length / sequential, basenames.length / parallel);
+	}
+
+	private static File createTempDir(String prefix) throws IOException {
+		File dir = File.createTempFile(prefix, "");
+		if (!dir.delete() || !dir.mkdir()) {
+			throw new IOException("Cannot create directory " + dir);
+		}
+		return dir;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int numSentences = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		String server = args.length > 1 ? args[1] : null;
+		final File dir = createTempDir("allophones");
+		File featureDir = createTempDir("features");
+		String[] basenames = UnitFeatureFixtures.copyFixtures(dir, numSentences);
+		Mary.startup();
+		System.out.println(basenames.length + " sentences, " + VoiceImportExecutor.getThreadCount() + " threads");
+		System.out.printf("%-10s %15s %15s%n", "", "sentences/s", "parallel");
+
+		final PhoneUnitFeatureComputer local = UnitFeatureFixtures.configure(new PhoneUnitFeatureComputer(), dir, featureDir,
+				null);
+		measure("embedded", basenames, new VoiceImportExecutor.BasenameTask() {
+			public void compute(String basename) throws Exception {
+				local.computeFeaturesFor(basename);
+			}
+		});
+		measure("request", basenames, new VoiceImportExecutor.BasenameTask() {
+			public void compute(String basename) throws Exception {
+				UnitFeatureFixtures.requestFeatures(local, new File(dir, basename + ".xml"));
+			}
+		});
+		if (server != null) {
+			final PhoneUnitFeatureComputer remote = UnitFeatureFixtures.configure(new PhoneUnitFeatureComputer(), dir,
+					featureDir, server);
+			measure("http", basenames, new VoiceImportExecutor.BasenameTask() {
+				public void compute(String basename) throws Exception {
+					remote.computeFeaturesFor(basename);
+				}
+			});
+		}
+		Mary.shutdown();
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.tools.voiceimport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import marytts.server.Mary;
+import marytts.util.io.FileUtils;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that unit features computed inside the voice import tool (<code>useLocalMary</code>) are the same text as those the
+ * Mary server sends for the same allophones file.
+ *
+ * @author agent
+ */
+public class UnitFeatureComputerIT {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File dir;
+
+	@BeforeClass
+	public static void startMary() throws Exception {
+		if (Mary.currentState() == Mary.STATE_OFF) {
+			Mary.startup();
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		dir = folder.newFolder("allophones");
+		UnitFeatureFixtures.copyFixtures(dir, 1);
+	}
+
+	private void assertLocalFeaturesAsFromServer(PhoneUnitFeatureComputer computer, String featsExt) throws Exception {
+		File featureDir = folder.newFolder();
+		UnitFeatureFixtures.configure(computer, dir, featureDir, null);
+		computer.computeFeaturesFor(UnitFeatureFixtures.BASENAME);
+		String local = FileUtils.getFileAsString(new File(featureDir, UnitFeatureFixtures.BASENAME + featsExt), "UTF-8");
+		String fromServer = UnitFeatureFixtures.requestFeatures(computer, new File(dir, UnitFeatureFixtures.BASENAME + ".xml"));
+		assertTrue(local.length() > 0);
+		assertEquals(fromServer, local);
+	}
+
+	@Test
+	public void phoneFeatures() throws Exception {
+		assertLocalFeaturesAsFromServer(new PhoneUnitFeatureComputer(), ".pfeats");
+	}
+
+	@Test
+	public void halfphoneFeatures() throws Exception {
+		assertLocalFeaturesAsFromServer(new HalfPhoneUnitFeatureComputer(), ".hpfeats");
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.tools.voiceimport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.TreeMap;
+
+import marytts.datatypes.MaryDataType;
+import marytts.server.Request;
+import marytts.util.MaryUtils;
+import marytts.util.io.FileUtils;
+
+/**
+ * The allophones file "Hello world" (en_US) and a feature list, for computing unit features, and the unit feature computers set
+ * up to use them without a voice import database.
+ *
+ * @author agent
+ */
+public class UnitFeatureFixtures {
+	static final String LOCALE = "en_US";
+	static final String BASENAME = "hello";
+
+	/**
+	 * Copy the fixture files into dir: the feature list as features.txt, and the allophones file as BASENAME.xml, or, if copies
+	 * is more than 1, as BASENAME0000.xml, BASENAME0001.xml etc.
+	 *
+	 * @return the basenames of the allophones files
+	 */
+	static String[] copyFixtures(File dir, int copies) throws IOException {
+		copyResource("features.txt", new File(dir, "features.txt"));
+		String[] basenames = new String[copies];
+		for (int i = 0; i < copies; i++) {
+			basenames[i] = copies == 1 ? BASENAME : String.format("%s%04d", BASENAME, i);
+			copyResource(BASENAME + ".xml", new File(dir, basenames[i] + ".xml"));
+		}
+		return basenames;
+	}
+
+	private static void copyResource(String name, File file) throws IOException {
+		InputStream in = UnitFeatureFixtures.class.getResourceAsStream(name);
+		OutputStream out = new FileOutputStream(file);
+		try {
+			byte[] buf = new byte[4096];
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				out.write(buf, 0, n);
+			}
+		} finally {
+			in.close();
+			out.close();
+		}
+	}
+
+	/**
+	 * Set up computer as its initialiseComp() would for a database whose allophones files and features.txt are in dir, and load
+	 * the feature list. The features are written to featureDir.
+	 *
+	 * @param computer
+	 *            a new PhoneUnitFeatureComputer or HalfPhoneUnitFeatureComputer
+	 * @param maryServer
+	 *            host:port of the Mary server to use, or null to compute the features in this JVM
+	 */
+	static <T extends PhoneUnitFeatureComputer> T configure(T computer, File dir, File featureDir, String maryServer)
+			throws IOException {
+		computer.props = new TreeMap<String, String>();
+		computer.props.put(computer.ALLOPHONES, dir.getPath() + File.separator);
+		computer.props.put(computer.FEATURELIST, new File(dir, "features.txt").getPath());
+		computer.props.put(computer.USELOCALMARY, String.valueOf(maryServer == null));
+		if (maryServer != null) {
+			String[] hostAndPort = maryServer.split(":");
+			computer.props.put(computer.MARYSERVERHOST, hostAndPort[0]);
+			computer.props.put(computer.MARYSERVERPORT, hostAndPort[1]);
+		}
+		computer.locale = LOCALE;
+		computer.unitfeatureDir = featureDir;
+		computer.maryInputType = "ALLOPHONES";
+		computer.maryOutputType = computer instanceof HalfPhoneUnitFeatureComputer ? "HALFPHONE_TARGETFEATURES"
+				: "TARGETFEATURES";
+		computer.loadFeatureList();
+		return computer;
+	}
+
+	/**
+	 * Compute the features of an allophones file as the Mary server does for a request from computer: a {@link Request} from
+	 * ALLOPHONES to the computer's output type, with its feature list, whose output is sent to the client as text.
+	 *
+	 * @return the text the server sends
+	 */
+	static String requestFeatures(PhoneUnitFeatureComputer computer, File allophonesFile) throws Exception {
+		Request request = new Request(MaryDataType.get(computer.maryInputType), MaryDataType.get(computer.maryOutputType),
+				MaryUtils.string2locale(computer.locale), null, "", "", 1, null, false, computer.featureList);
+		request.setInputData(FileUtils.getFileAsString(allophonesFile, "UTF-8"));
+		request.process();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		request.writeOutputData(out);
+		return out.toString("UTF-8");
+	}
+}
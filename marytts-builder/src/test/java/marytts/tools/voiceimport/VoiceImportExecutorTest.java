@@ -0,0 +1,161 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.tools.voiceimport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Checks that per-basename work is done exactly once for each basename, and that components are run in parallel only where
+ * their dependencies allow it.
+ *
+ * @author agent
+ */
+public class VoiceImportExecutorTest {
+	private static class TestComponent extends VoiceImportComponent {
+		private final String name;
+		private final String[] dependencies;
+		private final List<String> log;
+		private final CountDownLatch latch;
+
+		TestComponent(String name, String[] dependencies, List<String> log, CountDownLatch latch) {
+			this.name = name;
+			this.dependencies = dependencies;
+			this.log = log;
+			this.latch = latch;
+		}
+
+		protected void setupHelp() {
+		}
+
+		public SortedMap<String, String> getDefaultProps(DatabaseLayout theDb) {
+			return null;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String[] getDependencies() {
+			return dependencies;
+		}
+
+		public boolean compute() throws Exception {
+			log.add("start " + name);
+			if (latch != null) {
+				// two components counting down the same latch can only both finish if they run at the same time:
+				latch.countDown();
+				if (!latch.await(10, TimeUnit.SECONDS)) {
+					return false;
+				}
+			}
+			log.add("end " + name);
+			return true;
+		}
+
+		public int getProgress() {
+			return -1;
+		}
+	}
+
+	@Test
+	public void eachBasenameOnce() throws Exception {
+		String[] basenames = new String[100];
+		for (int i = 0; i < basenames.length; i++) {
+			basenames[i] = "file" + i;
+		}
+		final ConcurrentHashMap<String, AtomicInteger> counts = new ConcurrentHashMap<String, AtomicInteger>();
+		AtomicInteger done = new AtomicInteger();
+		VoiceImportExecutor.forEachBasename(basenames, new VoiceImportExecutor.BasenameTask() {
+			public void compute(String basename) {
+				counts.putIfAbsent(basename, new AtomicInteger());
+				counts.get(basename).incrementAndGet();
+			}
+		}, done);
+		assertEquals(basenames.length, done.get());
+		assertEquals(basenames.length, counts.size());
+		for (AtomicInteger count : counts.values()) {
+			assertEquals(1, count.get());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void failureIsThrown() throws Exception {
+		VoiceImportExecutor.forEachBasename(new String[] { "a", "b", "c" }, new VoiceImportExecutor.BasenameTask() {
+			public void compute(String basename) {
+				if (basename.equals("b")) {
+					throw new IllegalStateException();
+				}
+			}
+		}, null);
+	}
+
+	@Test
+	public void independentComponentsRunInParallel() throws Exception {
+		List<String> log = Collections.synchronizedList(new ArrayList<String>());
+		CountDownLatch latch = new CountDownLatch(2);
+		List<VoiceImportComponent> components = new ArrayList<VoiceImportComponent>();
+		components.add(new TestComponent("A", new String[0], log, latch));
+		components.add(new TestComponent("B", new String[0], log, latch));
+		components.add(new TestComponent("C", null, log, null));
+		assertTrue(VoiceImportExecutor.runComponents(components));
+		assertEquals(6, log.size());
+		assertEquals(Arrays.asList("start C", "end C"), log.subList(4, 6));
+	}
+
+	@Test
+	public void dependenciesAreRespected() throws Exception {
+		List<String> log = Collections.synchronizedList(new ArrayList<String>());
+		List<VoiceImportComponent> components = new ArrayList<VoiceImportComponent>();
+		components.add(new TestComponent("A", new String[0], log, null));
+		components.add(new TestComponent("B", new String[] { "A", "NotSelected" }, log, null));
+		components.add(new TestComponent("C", new String[] { "B" }, log, null));
+		assertTrue(VoiceImportExecutor.runComponents(components));
+		assertEquals(Arrays.asList("start A", "end A", "start B", "end B", "start C", "end C"), log);
+	}
+
+	@Test
+	public void failureStopsDependents() throws Exception {
+		final List<String> log = Collections.synchronizedList(new ArrayList<String>());
+		List<VoiceImportComponent> components = new ArrayList<VoiceImportComponent>();
+		components.add(new TestComponent("A", new String[0], log, null) {
+			public boolean compute() {
+				log.add("start A");
+				return false;
+			}
+		});
+		components.add(new TestComponent("B", null, log, null));
+		assertFalse(VoiceImportExecutor.runComponents(components));
+		assertFalse(log.contains("start B"));
+	}
+}
@@ -23,10 +23,15 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import marytts.client.http.MaryHttpClient;
+import marytts.client.http.MaryHttpClientPool;
+import marytts.util.http.Address;
 
 /**
  * Copyright 2006 DFKI GmbH. All Rights Reserved. Use is subject to license terms.
@@ -51,6 +56,15 @@ public class BatchSynth {
 	 * Generate a set of audio files from text. Example call: java -cp maryclient.jar -Dserver.host=localhost -Dserver.port=59125
 	 * -Dvoice=kevin16 marytts.client.BatchSynth target/dir path/to/texts.txt The text file must contain a target audio file name
 	 * and the corresponding text in each line.
+	 * <p>
+	 * Sentences are synthesized in parallel, and each file is written as soon as its audio arrives. The following system
+	 * properties control this:
+	 * <ul>
+	 * <li><code>parallel</code> - the number of requests in flight at the same time (default: 1);</li>
+	 * <li><code>retries</code> - how often a failed request is retried (default: 2);</li>
+	 * <li><code>servers</code> - a comma-separated list of servers as host:port, to distribute the requests over several
+	 * servers (default: the server given by <code>server.host</code> and <code>server.port</code>).</li>
+	 * </ul>
 	 * 
 	 * @param args
 	 *            first argument, the output directory; the rest, file names containing text files. Each text file contains, in
@@ -60,7 +74,18 @@ public class BatchSynth {
 	 */
 	public static void main(String[] args) throws Exception {
 		File globalOutputDir = new File(args[0]);
-		MaryHttpClient mary = new MaryHttpClient();
+		int parallel = Integer.getInteger("parallel", 1);
+		int retries = Integer.getInteger("retries", 2);
+		List<Address> servers = new ArrayList<Address>();
+		String serverList = System.getProperty("servers");
+		if (serverList != null) {
+			for (String server : serverList.split(",")) {
+				servers.add(new Address(server));
+			}
+		} else {
+			servers.add(new MaryFormData().hostAddress); // from server.host and server.port
+		}
+		MaryHttpClientPool mary = MaryHttpClientPool.create(servers, parallel, retries);
 		String voice = System.getProperty("voice", "us1");
 		boolean haveBasename = "true".equals(System.getProperty("lines-contain-basename", "true")); // default: true, for backward
 																									// compatibility
@@ -70,6 +95,23 @@ public class BatchSynth {
 		String extension = outputFormat.equals("AUDIO") ? ".wav" : "." + outputFormat.toLowerCase();
 		long globalStartTime = System.currentTimeMillis();
 		int globalCounter = 0;
+		final AtomicInteger failures = new AtomicInteger();
+		MaryHttpClientPool.ResultHandler<File> writer = new MaryHttpClientPool.ResultHandler<File>() {
+			public void completed(File file, byte[] result) throws IOException {
+				FileOutputStream out = new FileOutputStream(file);
+				try {
+					out.write(result);
+				} finally {
+					out.close();
+				}
+				System.out.println(file.getName() + " synthesized");
+			}
+
+			public void failed(File file, Exception e) {
+				failures.incrementAndGet();
+				System.err.println("Cannot synthesize " + file.getName() + ": " + e.getMessage());
+			}
+		};
 		for (int i = 1; i < args.length; i++) {
 			long genreStartTime = System.currentTimeMillis();
 			int genreCounter = 0;
@@ -83,7 +125,6 @@ public class BatchSynth {
 				line = line.trim();
 				if (line.length() == 0)
 					continue;
-				long startTime = System.currentTimeMillis();
 				if (line.trim().startsWith("(")) {
 					line = line.substring(line.indexOf("(") + 1, line.lastIndexOf(")"));
 				}
@@ -100,21 +141,23 @@ public class BatchSynth {
 
 				// remove all backslashes
 				sentence = sentence.replaceAll("\\\\", "");
-				FileOutputStream audio = new FileOutputStream(outputDir + "/" + basename + extension);
-				mary.process(sentence, inputFormat, outputFormat, locale, "WAVE", voice, audio);
-				audio.close();
-				long endTime = System.currentTimeMillis();
-				System.out.println(basename + " synthesized in " + ((float) (endTime - startTime) / 1000.) + " s");
+				// blocks while the maximum number of requests is in flight:
+				mary.submit(sentence, inputFormat, outputFormat, locale, "WAVE", voice, new File(outputDir, basename + extension),
+						writer);
 				globalCounter++;
 				genreCounter++;
 			}
+			textReader.close();
+			mary.awaitCompletion();
 			long genreEndTime = System.currentTimeMillis();
 			System.out.println("Genre '" + genre + "' (" + genreCounter + " sentences) synthesized in "
 					+ ((float) (genreEndTime - genreStartTime) / 1000.) + " s");
 		}
+		mary.shutdown();
 		long globalEndTime = System.currentTimeMillis();
 		System.out.println("Total: " + globalCounter + " sentences synthesized in "
-				+ ((float) (globalEndTime - globalStartTime) / 1000.) + " s");
+				+ ((float) (globalEndTime - globalStartTime) / 1000.) + " s (" + failures.get() + " failed, "
+				+ mary.getRetries() + " retries)");
 
 	}
 
@@ -24,7 +24,6 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
@@ -60,6 +59,25 @@ import marytts.util.string.StringUtils;
 
 public class MaryHttpClient extends MaryClient {
 
+	/**
+	 * A request which the server answered with an error status, such as "400 bad request" or "503 server busy".
+	 */
+	public static class HttpStatusException extends IOException {
+		private final int statusCode;
+
+		public HttpStatusException(int statusCode, String message, Throwable cause) {
+			super(message, cause);
+			this.statusCode = statusCode;
+		}
+
+		/**
+		 * @return the HTTP status code of the response
+		 */
+		public int getStatusCode() {
+			return statusCode;
+		}
+	}
+
 	/**
 	 * The simplest way to create a mary client. It will connect to the MARY server running at DFKI. Only use this for testing
 	 * purposes!
@@ -285,12 +303,12 @@ public class MaryHttpClient extends MaryClient {
 		if (http.getResponseCode() != HttpURLConnection.HTTP_OK) {
 			String errorData = "";
 			try {
-				errorData = FileUtils.getStreamAsString(http.getErrorStream(), "UTF-8");
+				errorData = readFullyAndClose(http.getErrorStream());
 			} catch (Exception e) {
 			}
 			throw new IOException(http.getResponseCode() + ":" + http.getResponseMessage() + "\n" + errorData);
 		}
-		return FileUtils.getStreamAsString(http.getInputStream(), "UTF-8");
+		return readFullyAndClose(http.getInputStream());
 		/*
 		 * The following is example code if we were to use HttpClient: HttpClient httpclient = new DefaultHttpClient();
 		 * 
@@ -303,6 +321,18 @@ public class MaryHttpClient extends MaryClient {
 		 */
 	}
 
+	/**
+	 * Read a response body as UTF-8 text, then close it. Reading to the end and closing lets HttpURLConnection reuse the
+	 * connection for the next request to the same server (HTTP keep-alive).
+	 */
+	private static String readFullyAndClose(InputStream in) throws IOException {
+		try {
+			return FileUtils.getStreamAsString(in, "UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
 	/*
 	 * private String getFromServer(String key) throws IOException { return getFromServer(key, null); }
 	 * 
@@ -362,32 +392,53 @@ public class MaryHttpClient extends MaryClient {
 		URL url = new URL(data.hostAddress.getHttpAddress() + "/process");
 		HttpURLConnection conn = (HttpURLConnection) url.openConnection();
 
+		// the body is all ASCII after URL encoding
+		byte[] body = params.toString().getBytes("US-ASCII");
 		conn.setRequestMethod("POST");
 		conn.setAllowUserInteraction(false); // no user interact [like pop up]
 		conn.setDoOutput(true); // want to send
 		conn.setRequestProperty("Content-type", "application/x-www-form-urlencoded");
+		// send the body as it is written, instead of buffering it again in the connection:
+		conn.setFixedLengthStreamingMode(body.length);
 		OutputStream ost = conn.getOutputStream();
-		PrintWriter pw = new PrintWriter(ost);
-		pw.print(params.toString()); // here we "send" our body!
-		pw.flush();
-		pw.close();
+		ost.write(body); // here we "send" our body!
+		ost.close();
 
 		// and InputStream from here will be body
 		try {
 			return conn.getInputStream();
 		} catch (IOException e) {
+			int status = getResponseCode(conn);
+			if (status == -1) { // no response, e.g. the server cannot be reached
+				throw e;
+			}
+			InputStream errorStream = conn.getErrorStream();
+			if (errorStream == null) { // e.g., "server busy" without a message
+				throw new HttpStatusException(status, status + ":" + conn.getResponseMessage(), e);
+			}
 			String error;
 			try {
-				error = FileUtils.getStreamAsString(conn.getErrorStream(), "UTF-8");
+				error = readFullyAndClose(errorStream);
 			} catch (IOException errE) {
-				// ok cannot get error message, just re-throw original e
-				throw new IOException("No detailed error message available", e);
+				// ok cannot get error message
+				throw new HttpStatusException(status, "No detailed error message available", e);
 			}
-			throw new IOException("Error message from server:\n" + error, e);
+			throw new HttpStatusException(status, "Error message from server:\n" + error, e);
 		}
 
 	}
 
+	/**
+	 * The status code of the server's response, or -1 if there is no response.
+	 */
+	private static int getResponseCode(HttpURLConnection conn) {
+		try {
+			return conn.getResponseCode();
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+
 	private Map<String, String> effectsString2EffectsMap(String effectsString) {
 		if (effectsString == null)
 			return null;
@@ -527,11 +578,16 @@ public class MaryHttpClient extends MaryClient {
 					throw new IOException(e.getMessage(), e);
 				}
 			}
-			byte[] bbuf = new byte[1024];
+			byte[] bbuf = new byte[8192];
 			int nr;
-			while ((nr = bis.read(bbuf, 0, bbuf.length)) != -1) {
-				// System.err.println("Read " + nr + " bytes from server.");
-				os.write(bbuf, 0, nr);
+			try {
+				while ((nr = bis.read(bbuf, 0, bbuf.length)) != -1) {
+					// System.err.println("Read " + nr + " bytes from server.");
+					os.write(bbuf, 0, nr);
+				}
+			} finally {
+				// lets the connection be reused if everything was read
+				bis.close();
 			}
 			os.flush();
 
@@ -0,0 +1,305 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.client.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import marytts.util.http.Address;
+
+/**
+ * Sends many requests to one or more MARY servers in parallel, for batch processing. Each request is processed asynchronously;
+ * its result is available through a {@link Future} and, optionally, is handed to a {@link ResultHandler} as soon as it arrives,
+ * e.g. to write it to disk.
+ * <p>
+ * At most a given number of requests is in flight at any time; submitting further requests blocks until one of them has
+ * completed, so that arbitrarily long inputs can be streamed through the pool. Each request goes to the server with the fewest
+ * requests in flight, and a request which fails because of a connection problem or a server error (5xx) is retried, on another
+ * server if there is one. HTTP connections are kept alive and reused between requests to the same server.
+ *
+ * @author agent
+ */
+public class MaryHttpClientPool {
+	/** The delay before the first retry of a failed request; it doubles with every further retry */
+	private static final long RETRY_DELAY_MILLIS = 500;
+
+	/**
+	 * Receives the results of requests as soon as they are available. Methods are called from the pool's worker threads, and
+	 * may be called concurrently for different requests.
+	 *
+	 * @param <T>
+	 *            the type of the keys identifying the requests
+	 */
+	public static interface ResultHandler<T> {
+		/**
+		 * @param key
+		 *            the key given when submitting the request
+		 * @param result
+		 *            the data received from the server
+		 * @throws IOException
+		 *             if the result cannot be stored; the request then fails.
+		 */
+		public void completed(T key, byte[] result) throws IOException;
+
+		/**
+		 * @param key
+		 *            the key given when submitting the request
+		 * @param e
+		 *            the problem which occurred in the last attempt
+		 */
+		public void failed(T key, Exception e);
+	}
+
+	/**
+	 * Create a pool for the given servers. The maximum number of connections kept alive per server is raised to maxInFlight,
+	 * unless the system property <code>http.maxConnections</code> was set; this only has an effect if no HTTP connection was
+	 * made before.
+	 *
+	 * @param servers
+	 *            the addresses of the MARY servers to use
+	 * @param maxInFlight
+	 *            maxInFlight
+	 * @param maxRetries
+	 *            maxRetries
+	 * @return a new pool
+	 * @throws IOException
+	 *             if a server cannot be contacted
+	 */
+	public static MaryHttpClientPool create(List<Address> servers, int maxInFlight, int maxRetries) throws IOException {
+		if (System.getProperty("http.maxConnections") == null) {
+			System.setProperty("http.maxConnections", String.valueOf(maxInFlight));
+		}
+		List<MaryHttpClient> clients = new ArrayList<MaryHttpClient>(servers.size());
+		for (Address server : servers) {
+			clients.add(new MaryHttpClient(server));
+		}
+		return new MaryHttpClientPool(clients, maxInFlight, maxRetries);
+	}
+
+	private final List<MaryHttpClient> clients;
+	private final AtomicInteger[] load;
+	private final int maxInFlight;
+	private final int maxRetries;
+	private final Semaphore inFlight;
+	private final ExecutorService executor;
+	private final AtomicInteger retries = new AtomicInteger();
+
+	/**
+	 * @param clients
+	 *            one client per server
+	 * @param maxInFlight
+	 *            the maximum number of requests in flight at any time
+	 * @param maxRetries
+	 *            the number of times a failed request is retried before it is given up
+	 */
+	public MaryHttpClientPool(List<MaryHttpClient> clients, int maxInFlight, int maxRetries) {
+		if (clients.isEmpty()) {
+			throw new IllegalArgumentException("Need at least one client");
+		}
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("Need to allow at least one request in flight, not " + maxInFlight);
+		}
+		this.clients = new ArrayList<MaryHttpClient>(clients);
+		this.load = new AtomicInteger[clients.size()];
+		for (int i = 0; i < load.length; i++) {
+			load[i] = new AtomicInteger();
+		}
+		this.maxInFlight = maxInFlight;
+		this.maxRetries = maxRetries;
+		this.inFlight = new Semaphore(maxInFlight);
+		this.executor = Executors.newFixedThreadPool(maxInFlight, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "MaryHttpClientPool-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Submit a request. If the maximum number of requests is in flight, this blocks until one of them has completed.
+	 *
+	 * @param input
+	 *            a textual representation of the input data
+	 * @param inputType
+	 *            the name of the input data type, e.g. TEXT or RAWMARYXML.
+	 * @param outputType
+	 *            the name of the output data type, e.g. AUDIO or ACOUSTPARAMS.
+	 * @param locale
+	 *            locale
+	 * @param audioType
+	 *            the name of the audio format, e.g. "WAVE" or "MP3".
+	 * @param voice
+	 *            the name of the voice to use
+	 * @return the result of the request
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for a request to complete
+	 */
+	public Future<byte[]> submit(String input, String inputType, String outputType, String locale, String audioType,
+			String voice) throws InterruptedException {
+		return submit(input, inputType, outputType, locale, audioType, voice, null, null);
+	}
+
+	/**
+	 * Submit a request whose result is passed to handler when it arrives. If the maximum number of requests is in flight, this
+	 * blocks until one of them has completed.
+	 *
+	 * @param input
+	 *            a textual representation of the input data
+	 * @param inputType
+	 *            the name of the input data type, e.g. TEXT or RAWMARYXML.
+	 * @param outputType
+	 *            the name of the output data type, e.g. AUDIO or ACOUSTPARAMS.
+	 * @param locale
+	 *            locale
+	 * @param audioType
+	 *            the name of the audio format, e.g. "WAVE" or "MP3".
+	 * @param voice
+	 *            the name of the voice to use
+	 * @param key
+	 *            identifies the request for the handler
+	 * @param handler
+	 *            receives the result or the failure, or null.
+	 * @param <T>
+	 *            the type of key
+	 * @return the result of the request
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for a request to complete
+	 */
+	public <T> Future<byte[]> submit(final String input, final String inputType, final String outputType, final String locale,
+			final String audioType, final String voice, final T key, final ResultHandler<T> handler)
+			throws InterruptedException {
+		inFlight.acquire();
+		// the request counts as in flight until its future is done, so that awaitCompletion() returns with all results:
+		FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+			public byte[] call() throws Exception {
+				try {
+					byte[] result = process(input, inputType, outputType, locale, audioType, voice);
+					if (handler != null) {
+						handler.completed(key, result);
+					}
+					return result;
+				} catch (Exception e) {
+					if (handler != null) {
+						handler.failed(key, e);
+					}
+					throw e;
+				}
+			}
+		}) {
+			@Override
+			protected void done() {
+				inFlight.release();
+			}
+		};
+		try {
+			executor.execute(task);
+			return task;
+		} catch (RuntimeException e) { // rejected after shutdown()
+			inFlight.release();
+			throw e;
+		}
+	}
+
+	private byte[] process(String input, String inputType, String outputType, String locale, String audioType, String voice)
+			throws IOException, InterruptedException {
+		int failedServer = -1;
+		for (int attempt = 0;; attempt++) {
+			int server = leastLoadedServer(failedServer);
+			load[server].incrementAndGet();
+			try {
+				ByteArrayOutputStream result = new ByteArrayOutputStream();
+				clients.get(server).process(input, inputType, outputType, locale, audioType, voice, result);
+				return result.toByteArray();
+			} catch (IOException e) {
+				if (attempt >= maxRetries || !isTransient(e)) {
+					throw e;
+				}
+				failedServer = server;
+			} finally {
+				load[server].decrementAndGet();
+			}
+			retries.incrementAndGet();
+			Thread.sleep(RETRY_DELAY_MILLIS << attempt);
+		}
+	}
+
+	/**
+	 * Whether a request which failed with the given exception may succeed when it is sent again: if the server could not be
+	 * reached or the connection broke, or if the server reported an error of its own (5xx, e.g. "503 server busy"). Requests
+	 * which the server rejected as invalid (4xx) fail again anywhere.
+	 */
+	static boolean isTransient(IOException e) {
+		if (e instanceof MaryHttpClient.HttpStatusException) {
+			return ((MaryHttpClient.HttpStatusException) e).getStatusCode() >= 500;
+		}
+		return true;
+	}
+
+	/**
+	 * The server with the fewest requests in flight, avoiding the given server if there is any other.
+	 */
+	private int leastLoadedServer(int avoid) {
+		int best = -1;
+		for (int i = 0; i < load.length; i++) {
+			if (i != avoid && (best == -1 || load[i].get() < load[best].get())) {
+				best = i;
+			}
+		}
+		return best != -1 ? best : avoid;
+	}
+
+	/**
+	 * Wait until all submitted requests have completed.
+	 *
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public void awaitCompletion() throws InterruptedException {
+		inFlight.acquire(maxInFlight);
+		inFlight.release(maxInFlight);
+	}
+
+	/**
+	 * Complete the requests already submitted, and stop the worker threads afterwards.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * @return the number of times a request was retried so far
+	 */
+	public int getRetries() {
+		return retries.get();
+	}
+}
@@ -0,0 +1,259 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.client.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import marytts.util.http.Address;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the pool against MARY server stubs in the same process.
+ *
+ * @author agent
+ */
+public class MaryHttpClientPoolTest {
+
+	/**
+	 * A server which answers the information requests a client makes when it is created, and answers /process requests with
+	 * the input text after a delay of as many milliseconds as the text says, e.g. "slow 300", or with an error status.
+	 */
+	private static class StubServer {
+		final HttpServer server;
+		final AtomicInteger requests = new AtomicInteger();
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		volatile int status = 200;
+
+		StubServer() throws IOException {
+			server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			server.createContext("/version", new HttpHandler() {
+				public void handle(HttpExchange exchange) throws IOException {
+					respond(exchange, 200, "Mary TTS server 5.0 (stub)");
+				}
+			});
+			server.createContext("/voices", new HttpHandler() {
+				public void handle(HttpExchange exchange) throws IOException {
+					respond(exchange, 200, "");
+				}
+			});
+			server.createContext("/process", new HttpHandler() {
+				public void handle(HttpExchange exchange) throws IOException {
+					requests.incrementAndGet();
+					int now = running.incrementAndGet();
+					try {
+						synchronized (maxRunning) {
+							maxRunning.set(Math.max(maxRunning.get(), now));
+						}
+						String text = getInputText(exchange);
+						if (status != 200) {
+							respond(exchange, status, "stub error " + status);
+							return;
+						}
+						String[] parts = text.split(" ");
+						if (parts.length > 1) {
+							Thread.sleep(Integer.parseInt(parts[1]));
+						}
+						respond(exchange, 200, text);
+					} catch (InterruptedException e) {
+						throw new IOException(e);
+					} finally {
+						running.decrementAndGet();
+					}
+				}
+			});
+			server.setExecutor(Executors.newCachedThreadPool());
+			server.start();
+		}
+
+		MaryHttpClient createClient() throws IOException {
+			return new MaryHttpClient(new Address("localhost", server.getAddress().getPort()), false, true);
+		}
+
+		void stop() {
+			server.stop(0);
+		}
+
+		private static String getInputText(HttpExchange exchange) throws IOException {
+			InputStream in = exchange.getRequestBody();
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buf = new byte[1024];
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				body.write(buf, 0, n);
+			}
+			in.close();
+			for (String param : body.toString("US-ASCII").split("&")) {
+				if (param.startsWith("INPUT_TEXT=")) {
+					return URLDecoder.decode(param.substring("INPUT_TEXT=".length()), "UTF-8");
+				}
+			}
+			throw new IOException("no input text");
+		}
+
+		private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+			byte[] bytes = text.getBytes("UTF-8");
+			exchange.sendResponseHeaders(status, bytes.length);
+			OutputStream out = exchange.getResponseBody();
+			out.write(bytes);
+			out.close();
+		}
+	}
+
+	/**
+	 * Records the calls it receives, in the order of the calls.
+	 */
+	private static class RecordingHandler implements MaryHttpClientPool.ResultHandler<String> {
+		final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+
+		public void completed(String key, byte[] result) {
+			calls.add("completed " + key);
+		}
+
+		public void failed(String key, Exception e) {
+			calls.add("failed " + key);
+		}
+	}
+
+	private final List<StubServer> servers = new ArrayList<StubServer>();
+	private MaryHttpClientPool pool;
+
+	private MaryHttpClientPool createPool(int numServers, int maxInFlight, int maxRetries) throws IOException {
+		List<MaryHttpClient> clients = new ArrayList<MaryHttpClient>();
+		for (int i = 0; i < numServers; i++) {
+			StubServer server = new StubServer();
+			servers.add(server);
+			clients.add(server.createClient());
+		}
+		pool = new MaryHttpClientPool(clients, maxInFlight, maxRetries);
+		return pool;
+	}
+
+	private static Future<byte[]> submit(MaryHttpClientPool pool, String text, RecordingHandler handler)
+			throws InterruptedException {
+		return pool.submit(text, "TEXT", "AUDIO", "en_US", "WAVE", null, text, handler);
+	}
+
+	@After
+	public void tearDown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+		for (StubServer server : servers) {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void inFlightLimitHolds() throws Exception {
+		MaryHttpClientPool pool = createPool(1, 3, 0);
+		List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+		for (int i = 0; i < 12; i++) {
+			results.add(submit(pool, "request" + i + " 50", null));
+		}
+		pool.awaitCompletion();
+		for (int i = 0; i < 12; i++) {
+			assertTrue(results.get(i).isDone());
+			assertArrayEquals(("request" + i + " 50").getBytes("UTF-8"), results.get(i).get());
+		}
+		assertEquals(12, servers.get(0).requests.get());
+		assertEquals(3, servers.get(0).maxRunning.get());
+	}
+
+	@Test
+	public void busyServerIsRetriedOnTheOther() throws Exception {
+		MaryHttpClientPool pool = createPool(2, 1, 2);
+		servers.get(0).status = 503;
+		RecordingHandler handler = new RecordingHandler();
+		byte[] result = submit(pool, "hello", handler).get();
+		assertArrayEquals("hello".getBytes("UTF-8"), result);
+		// the first attempt goes to the first server, which is equally idle:
+		assertEquals(1, servers.get(0).requests.get());
+		assertEquals(1, servers.get(1).requests.get());
+		assertEquals(1, pool.getRetries());
+		assertEquals(Arrays.asList("completed hello"), handler.calls);
+	}
+
+	@Test
+	public void invalidRequestIsNotRetried() throws Exception {
+		MaryHttpClientPool pool = createPool(2, 1, 2);
+		servers.get(0).status = 400;
+		RecordingHandler handler = new RecordingHandler();
+		try {
+			submit(pool, "hello", handler).get();
+			fail("expected the request to fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof MaryHttpClient.HttpStatusException);
+			assertEquals(400, ((MaryHttpClient.HttpStatusException) e.getCause()).getStatusCode());
+		}
+		assertEquals(1, servers.get(0).requests.get());
+		assertEquals(0, servers.get(1).requests.get());
+		assertEquals(0, pool.getRetries());
+		assertEquals(Arrays.asList("failed hello"), handler.calls);
+	}
+
+	@Test
+	public void unreachableServerIsRetriedOnTheOther() throws Exception {
+		MaryHttpClientPool pool = createPool(2, 1, 2);
+		servers.get(0).stop();
+		assertArrayEquals("hello".getBytes("UTF-8"), submit(pool, "hello", null).get());
+		assertEquals(1, servers.get(1).requests.get());
+		assertEquals(1, pool.getRetries());
+	}
+
+	@Test
+	public void resultsAreHandledAsTheyArrive() throws Exception {
+		MaryHttpClientPool pool = createPool(1, 2, 0);
+		RecordingHandler handler = new RecordingHandler();
+		Future<byte[]> slow = submit(pool, "slow 400", handler);
+		Future<byte[]> fast = submit(pool, "fast 0", handler);
+		fast.get();
+		// the handler has the result by the time the future has it:
+		assertEquals(Arrays.asList("completed fast 0"), handler.calls);
+		assertFalse(slow.isDone());
+		slow.get();
+		assertEquals(Arrays.asList("completed fast 0", "completed slow 400"), handler.calls);
+	}
+}
@@ -19,32 +19,38 @@
  */
 package marytts.fst;
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
 
 /**
  * An implementation of a finite state transducer. This class does nothing but load and represent the FST. It is used by other
  * classes doing something reasonable with it.
+ * <p>
+ * When the FST is loaded from a file, the file is memory mapped and the arcs are read directly from the mapping, so that even
+ * large lexicons load without copying. From other streams, the data is read into memory once. Only the strings that are actually
+ * used as labels are decoded.
  * 
  * @author Andreas Eisele
  */
 public class FST {
 	// The following variables are package-readable, so that they can be
 	// directly accessed by all classes in this package.
-	int[] targets;
-	short[] labels;
-	boolean[] isLast;
-
-	short[] offsets;
-	byte[] bytes;
-	int[] mapping;
-	ArrayList strings = new ArrayList();
+	/**
+	 * The arcs, each one packed into an int: the target arc in the lower 20 bits, the label in the next 11 bits, and in the sign
+	 * bit whether it is the last arc of its state.
+	 */
+	IntBuffer arcs;
+	/** For each label, the string on the input side. */
+	String[] inputs;
+	/** For each label, the string on the output side. */
+	String[] outputs;
 
 	public FST(String fileName) throws IOException {
 		FileInputStream fis = new FileInputStream(fileName);
@@ -56,7 +62,7 @@ public class FST {
 	}
 
 	/**
-	 * Load the fst from the given input stream. Assumes header.
+	 * Load the fst from the given input stream. Assumes header. The stream is closed once it has been read.
 	 * 
 	 * @param inStream
 	 *            in stream
@@ -124,7 +130,8 @@ public class FST {
 	}
 
 	/**
-	 * Load the fst from the given input stream. Assumes headerless legacy file format.
+	 * Load the fst from the given input stream. Assumes headerless legacy file format. The stream is closed once it has been
+	 * read.
 	 * 
 	 * @param inStream
 	 *            inStream
@@ -139,23 +146,54 @@ public class FST {
 		loadHeaderless(inStream, encoding, false);
 	}
 
-	private void load(InputStream inStream) throws IOException, UnsupportedEncodingException {
-		int i;
-		DataInputStream in = new DataInputStream(new BufferedInputStream(inStream));
-		// int fileSize= (int) f.length();
-		int fileSize = in.available(); // TODO: how robust is this??
+	static int target(int arc) {
+		return arc & 1048575;
+	}
 
-		int encLen = in.readInt();
-		byte[] encBytes = new byte[encLen];
+	static int label(int arc) {
+		return (arc >> 20) & 2047;
+	}
+
+	static boolean isLast(int arc) {
+		return arc < 0;
+	}
+
+	/**
+	 * The contents of the stream: memory mapped if it is a file, read into memory otherwise. The stream is closed in either
+	 * case, since nothing is read from it after this.
+	 */
+	private static ByteBuffer read(InputStream inStream) throws IOException {
+		try {
+			if (inStream instanceof FileInputStream) {
+				FileChannel channel = ((FileInputStream) inStream).getChannel();
+				long position = channel.position();
+				// the mapping stays valid after the channel is closed
+				return channel.map(FileChannel.MapMode.READ_ONLY, position, channel.size() - position);
+			}
+			ByteArrayOutputStream data = new ByteArrayOutputStream();
+			byte[] buf = new byte[65536];
+			int nRead;
+			while ((nRead = inStream.read(buf)) != -1) {
+				data.write(buf, 0, nRead);
+			}
+			return ByteBuffer.wrap(data.toByteArray());
+		} finally {
+			inStream.close();
+		}
+	}
 
-		in.read(encBytes, 0, encLen);
+	private void load(InputStream inStream) throws IOException, UnsupportedEncodingException {
+		ByteBuffer in = read(inStream);
+		int encLen = in.getInt();
+		byte[] encBytes = new byte[encLen];
+		in.get(encBytes);
 		String encoding = new String(encBytes, "UTF-8");
 
 		if (!Charset.isSupported(encoding))
 			throw new IOException("Encoding of FST file not correctly specified. Maybe file in old format.");
 
-		int overallBits = in.readInt();
-		int arcOffBits = in.readInt();
+		int overallBits = in.getInt();
+		int arcOffBits = in.getInt();
 
 		// System.out.println("bits: " + overallBits + "-" + arcOffBits);
 
@@ -163,96 +201,60 @@ public class FST {
 		if (overallBits != 32 || arcOffBits != 20) {
 			throw new IOException("Cannot handle non-standard bit allocation for label and arc id's.");
 		}
-
-		int nArcs = in.readInt();
-		// arcs = new int[nArcs];
-
-		targets = new int[nArcs];
-		labels = new short[nArcs];
-		isLast = new boolean[nArcs];
-
-		for (i = 0; i < nArcs; i++) {
-			int thisArc = in.readInt();
-
-			targets[i] = thisArc & 1048575;
-			labels[i] = (short) ((thisArc >> 20) & 2047);
-			isLast[i] = ((byte) (thisArc >> 31)) != 0;
-
-		}
-
-		int nPairs = in.readInt();
-		offsets = new short[2 * nPairs];
-		for (i = 0; i < 2 * nPairs; i++)
-			offsets[i] = in.readShort();
-		// int nBytes = fileSize - 8 - 4 * (nPairs + nArcs);
-		int nBytes = fileSize - 20 - encLen - 4 * (nPairs + nArcs);
-		mapping = new int[nBytes];
-		bytes = new byte[nBytes];
-		in.readFully(bytes);
-		assert in.available() == 0 : "Partial file read... not good";
-
-		in.close();
-		createMapping(mapping, bytes, encoding);
+		loadArcsAndLabels(in, encoding);
 	}
 
 	private void loadHeaderless(InputStream inStream, String encoding, boolean verbose) throws IOException,
 			UnsupportedEncodingException {
-		int i;
-		DataInputStream in = new DataInputStream(new BufferedInputStream(inStream));
-		// int fileSize= (int) f.length();
-		int fileSize = in.available(); // TODO: how robust is this??
-		int nArcs = in.readInt();
-		// arcs = new int[nArcs];
-
-		targets = new int[nArcs];
-		labels = new short[nArcs];
-		isLast = new boolean[nArcs];
-
-		for (i = 0; i < nArcs; i++) {
-			int thisArc = in.readInt();
-
-			targets[i] = thisArc & 1048575;
-			labels[i] = (short) ((thisArc >> 20) & 2047);
-			isLast[i] = ((byte) (thisArc >> 31)) != 0;
+		ByteBuffer in = read(inStream);
+		int fileSize = in.remaining();
+		loadArcsAndLabels(in, encoding);
+		if (verbose) {
+			System.err.println("FST (" + fileSize + " Bytes, " + arcs.limit() + " Arcs, " + inputs.length + " Labels)"
+					+ " loaded");
+		}
+	}
 
+	private void loadArcsAndLabels(ByteBuffer in, String encoding) throws IOException, UnsupportedEncodingException {
+		int nArcs = in.getInt();
+		IntBuffer arcView = in.slice().asIntBuffer();
+		arcView.limit(nArcs);
+		if (in.isDirect()) {
+			arcs = arcView;
+		} else {
+			// reading from an int[] is faster than assembling each int from a heap byte buffer:
+			int[] arcArray = new int[nArcs];
+			arcView.get(arcArray);
+			arcs = IntBuffer.wrap(arcArray);
 		}
+		in.position(in.position() + 4 * nArcs);
 
-		int nPairs = in.readInt();
-		offsets = new short[2 * nPairs];
-		for (i = 0; i < 2 * nPairs; i++)
-			offsets[i] = in.readShort();
-		int nBytes = fileSize - 8 - 4 * (nPairs + nArcs);
-		mapping = new int[nBytes];
-		bytes = new byte[nBytes];
-		in.readFully(bytes);
-		if (verbose) {
-			System.err.println("FST (" + fileSize + " Bytes, " + nArcs + " Arcs, " + nPairs + " Labels)" + " loaded");
+		int nPairs = in.getInt();
+		int[] offsets = new int[2 * nPairs];
+		for (int i = 0; i < 2 * nPairs; i++) {
+			offsets[i] = in.getShort() & 0xffff;
+		}
+		ByteBuffer bytes = in.slice();
+		inputs = new String[nPairs];
+		outputs = new String[nPairs];
+		for (int label = 0; label < nPairs; label++) {
+			inputs[label] = decode(bytes, offsets[2 * label], encoding);
+			outputs[label] = decode(bytes, offsets[2 * label + 1], encoding);
 		}
-		in.close();
-		createMapping(mapping, bytes, encoding);
 	}
 
-	private void createMapping(int[] mapping, byte[] bytes, String encoding) throws UnsupportedEncodingException {
-		mapping[0] = 0;
-		int last0 = -1;
-		String s;
-		int len;
-		for (int i = 0; i < bytes.length; i++) {
-			if (bytes[i] == 0) {
-				len = i - last0 - 1;
-				if (len == 0)
-					strings.add("");
-				else {
-					String str;
-					if (encoding != null)
-						str = new String(bytes, last0 + 1, len, encoding);
-					else
-						str = new String(bytes, last0 + 1, len);
-					strings.add(str);
-				}
-				mapping[last0 + 1] = strings.size() - 1;
-				last0 = i;
-			}
+	/**
+	 * Decode the zero-terminated string starting at the given position.
+	 */
+	private static String decode(ByteBuffer bytes, int start, String encoding) throws UnsupportedEncodingException {
+		int end = start;
+		while (bytes.get(end) != 0) {
+			end++;
+		}
+		byte[] b = new byte[end - start];
+		for (int i = 0; i < b.length; i++) {
+			b[i] = bytes.get(start + i);
 		}
+		return encoding != null ? new String(b, encoding) : new String(b);
 	}
 }
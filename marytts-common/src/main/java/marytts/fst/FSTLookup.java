@@ -25,10 +25,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * An implementation of a finite state transducer lookup.
@@ -38,13 +41,18 @@ import java.util.Map;
 public class FSTLookup {
 	// ///////////////////// Static FST repository ////////////////////
 	/**
-	 * Map "filename encoding" or "filename" to FST.
+	 * Map "filename encoding" or "filename" to FST. Modules may be started in parallel, so the map can be used by several
+	 * threads at once.
 	 */
-	private static Map<String, FST> knownFSTs = new HashMap<String, FST>();
+	private static ConcurrentMap<String, FST> knownFSTs = new ConcurrentHashMap<String, FST>();
 
 	// //////////////////// An individual FSTLookup class //////////////
 
+	private static final String[] NO_RESULTS = new String[0];
+
 	private FST fst;
+	private volatile LookupCache cache;
+	private volatile LookupCache generateCache;
 
 	/**
 	 * Initialise the finite state transducer lookup. This constructor will assume that the file contains a header indicating the
@@ -66,7 +74,7 @@ public class FSTLookup {
 
 	/**
 	 * Initialise the finite state transducer lookup. This constructor will assume that the stream contains a header indicating
-	 * the proper encoding.
+	 * the proper encoding. The stream is closed.
 	 * 
 	 * @param inStream
 	 *            the stream from which to load the FST.
@@ -82,10 +90,15 @@ public class FSTLookup {
 	private void init(InputStream inStream, String identifier) throws IOException {
 		fst = knownFSTs.get(identifier);
 		if (fst == null) {
+			// Need to load it; if another thread loads the same FST meanwhile, the first one registered is used:
 			fst = new FST(inStream);
-			knownFSTs.put(identifier, fst);
+			FST registered = knownFSTs.putIfAbsent(identifier, fst);
+			if (registered != null) {
+				fst = registered;
+			}
+		} else {
+			inStream.close();
 		}
-
 	}
 
 	/**
@@ -110,7 +123,7 @@ public class FSTLookup {
 	}
 
 	/**
-	 * Initialise the finite state transducer lookup. This is a constructor for legacy headerless FST files.
+	 * Initialise the finite state transducer lookup. This is a constructor for legacy headerless FST files. The stream is closed.
 	 * 
 	 * @param inStream
 	 *            the stream from which to load the FST.
@@ -132,7 +145,38 @@ public class FSTLookup {
 		fst = knownFSTs.get(key);
 		if (fst == null) {
 			fst = new FST(inStream, encoding);
-			knownFSTs.put(key, fst);
+			FST registered = knownFSTs.putIfAbsent(key, fst);
+			if (registered != null) {
+				fst = registered;
+			}
+		} else {
+			inStream.close();
+		}
+	}
+
+	/**
+	 * The FST used by this lookup, which is shared by all lookups created with the same identifier.
+	 * 
+	 * @return the FST
+	 */
+	FST getFST() {
+		return fst;
+	}
+
+	/**
+	 * Keep the results of up to the given number of recent lookups, so that frequent words are not looked up in the FST again
+	 * and again. Lookups which find nothing are remembered as well.
+	 * 
+	 * @param entries
+	 *            the maximum number of results to keep for each direction of lookup; 0 switches the cache off.
+	 */
+	public void setCacheSize(int entries) {
+		if (entries > 0) {
+			cache = new LookupCache(entries);
+			generateCache = new LookupCache(entries);
+		} else {
+			cache = null;
+			generateCache = null;
 		}
 	}
 
@@ -144,7 +188,7 @@ public class FSTLookup {
 	 *            the word to look up.
 	 * @return a string array containing all expansions of word. If no expansion is found, an array of length 0 is returned.
 	 */
-	public String[] lookup(String word) {
+	public String[] lookup(CharSequence word) {
 		return lookup(word, false);
 	}
 
@@ -157,44 +201,62 @@ public class FSTLookup {
 	 *            whether the FST is to run in inverse direction, i.e. generating the original form from the expanded form.
 	 * @return a string array containing all expansions of word. If no expansion is found, an array of length 0 is returned.
 	 */
-	public String[] lookup(String word, boolean generate) {
-		StringBuilder buffer2 = new StringBuilder();
-		List<String> results = new ArrayList<String>();
-
-		lookup(word, 0, 0, generate, buffer2, results);
+	public String[] lookup(CharSequence word, boolean generate) {
+		LookupCache c = generate ? generateCache : cache;
+		if (c == null) {
+			return lookupInFST(word, generate);
+		}
+		String key = word.toString();
+		String[] result = c.get(key);
+		if (result == null) {
+			result = lookupInFST(word, generate);
+			c.put(key, result);
+		}
+		// callers may modify the array they get:
+		return result.length == 0 ? result : result.clone();
+	}
 
-		String[] resultArray = new String[results.size()];
-		resultArray = (String[]) results.toArray(resultArray);
-		return resultArray;
+	private String[] lookupInFST(CharSequence word, boolean generate) {
+		List<String> results = new ArrayList<String>(1);
+		lookup(word, 0, 0, generate ? fst.outputs : fst.inputs, generate ? fst.inputs : fst.outputs, new StringBuilder(),
+				results);
+		return results.isEmpty() ? NO_RESULTS : results.toArray(new String[results.size()]);
 	}
 
-	private void lookup(String word, int offset1, int arc, boolean generate, StringBuilder buffer2, List<String> results) {
+	private void lookup(CharSequence word, int offset1, int index, String[] from, String[] to, StringBuilder buffer2,
+			List<String> results) {
+		IntBuffer arcs = fst.arcs;
+		int arc;
 		do {
-			int label = fst.labels[arc];
-			int offset2 = buffer2.length();
+			arc = arcs.get(index++);
+			int label = FST.label(arc);
 			if (label == 0) {
 				if (offset1 == word.length()) {
 					results.add(buffer2.toString());
 				}
 			} else {
-				String s1;
-				if (generate)
-					s1 = (String) fst.strings.get(fst.mapping[fst.offsets[2 * label + 1]]);
-				else
-					s1 = (String) fst.strings.get(fst.mapping[fst.offsets[2 * label]]);
-				if (word.startsWith(s1, offset1)) {
-					String s2;
-					if (generate)
-						s2 = (String) fst.strings.get(fst.mapping[fst.offsets[2 * label]]);
-					else
-						s2 = (String) fst.strings.get(fst.mapping[fst.offsets[2 * label + 1]]);
-					buffer2.append(s2);
-					lookup(word, offset1 + s1.length(), fst.targets[arc], generate, buffer2, results);
-					if (offset2 < buffer2.length())
-						buffer2.delete(offset2, buffer2.length());
+				String s1 = from[label];
+				if (startsWith(word, s1, offset1)) {
+					int offset2 = buffer2.length();
+					buffer2.append(to[label]);
+					lookup(word, offset1 + s1.length(), FST.target(arc), from, to, buffer2, results);
+					buffer2.setLength(offset2);
 				}
 			}
-		} while (!fst.isLast[arc++]);
+		} while (!FST.isLast(arc));
+	}
+
+	private static boolean startsWith(CharSequence word, String prefix, int offset) {
+		int len = prefix.length();
+		if (offset + len > word.length()) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (word.charAt(offset + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -250,4 +312,51 @@ public class FSTLookup {
 			System.out.println(args[i]);
 		System.out.println();
 	}
+
+	/**
+	 * The most recently used lookup results, in stripes which are locked separately so that concurrent lookups rarely wait for
+	 * each other.
+	 */
+	private static class LookupCache {
+		private static final int NUM_STRIPES = 16;
+		private final Stripe[] stripes = new Stripe[NUM_STRIPES];
+
+		LookupCache(int maxEntries) {
+			for (int i = 0; i < NUM_STRIPES; i++) {
+				stripes[i] = new Stripe(Math.max(1, maxEntries / NUM_STRIPES));
+			}
+		}
+
+		private Stripe stripe(String key) {
+			return stripes[(key.hashCode() & 0x7fffffff) % NUM_STRIPES];
+		}
+
+		String[] get(String key) {
+			Stripe stripe = stripe(key);
+			synchronized (stripe) {
+				return stripe.get(key);
+			}
+		}
+
+		void put(String key, String[] result) {
+			Stripe stripe = stripe(key);
+			synchronized (stripe) {
+				stripe.put(key, result);
+			}
+		}
+
+		private static class Stripe extends LinkedHashMap<String, String[]> {
+			private final int maxEntries;
+
+			Stripe(int maxEntries) {
+				super(16, 0.75f, true);
+				this.maxEntries = maxEntries;
+			}
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+				return size() > maxEntries;
+			}
+		}
+	}
 }
@@ -27,7 +27,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -36,6 +35,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import marytts.exceptions.MaryConfigurationException;
 import marytts.util.MaryUtils;
@@ -47,7 +48,8 @@ import org.w3c.dom.Element;
 import org.w3c.dom.traversal.NodeIterator;
 
 public class AllophoneSet {
-	private static Map<String, AllophoneSet> allophoneSets = new HashMap<String, AllophoneSet>();
+	// Modules and voices are started in parallel, so the registry can be used by several threads at once:
+	private static ConcurrentMap<String, AllophoneSet> allophoneSets = new ConcurrentHashMap<String, AllophoneSet>();
 
 	/**
 	 * Return the allophone set specified by the given filename. It will only be loaded if it was not loaded before.
@@ -96,7 +98,8 @@ public class AllophoneSet {
 
 	/**
 	 * Return the allophone set that can be read from the given input stream, identified by the given identifier. It will only be
-	 * loaded if it was not loaded before.
+	 * loaded if it was not loaded before. If several threads load the same allophone set at the same time, all of them get the
+	 * one that was registered first.
 	 * 
 	 * @param inStream
 	 *            an open stream from which the allophone set can be loaded. it will be closed when this method returns.
@@ -116,7 +119,10 @@ public class AllophoneSet {
 			} catch (MaryConfigurationException e) {
 				throw new MaryConfigurationException("Problem loading allophone set from " + identifier, e);
 			}
-			allophoneSets.put(identifier, as);
+			AllophoneSet registered = allophoneSets.putIfAbsent(identifier, as);
+			if (registered != null) {
+				as = registered;
+			}
 		} else {
 			try {
 				inStream.close();
@@ -57,6 +57,7 @@ public class MaryHeader {
 	public final static int UNKNOWN = 0;
 	public final static int CARTS = 100;
 	public final static int DIRECTED_GRAPH = 110;
+	public final static int HTS_TREES = 120;
 	public final static int UNITS = 200;
 	public final static int LISTENERUNITS = 225;
 	public final static int UNITFEATS = 300;
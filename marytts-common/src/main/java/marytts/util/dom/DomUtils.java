@@ -188,6 +188,13 @@ public class DomUtils {
 		return builder.parse(is);
 	}
 
+	/**
+	 * Document builders are expensive to create and not thread-safe, so each thread keeps one of each kind and resets it before
+	 * every parse.
+	 */
+	private static final ThreadLocal<DocumentBuilder> builders = new ThreadLocal<DocumentBuilder>();
+	private static final ThreadLocal<DocumentBuilder> validatingBuilders = new ThreadLocal<DocumentBuilder>();
+
 	/**
 	 * @param validating
 	 *            validating
@@ -196,15 +203,15 @@ public class DomUtils {
 	 *             ParserConfigurationException
 	 */
 	private static DocumentBuilder createDocumentBuilder(boolean validating) throws ParserConfigurationException {
-		DocumentBuilder builder;
+		ThreadLocal<DocumentBuilder> cache = validating ? validatingBuilders : builders;
+		DocumentBuilder builder = cache.get();
+		if (builder == null) {
+			builder = newDocumentBuilder(validating);
+			cache.set(builder);
+		} else {
+			builder.reset();
+		}
 		if (validating) {
-			if (validatingFactory == null) {
-				throw new ParserConfigurationException("No validating parser factory available");
-			} else if (!validatingFactory.isValidating()) {
-				throw new ParserConfigurationException("factory should be validating but isn't");
-			}
-			builder = validatingFactory.newDocumentBuilder();
-			assert builder.isValidating();
 			builder.setErrorHandler(new ErrorHandler() {
 				public void error(SAXParseException e) throws SAXParseException {
 					throw e;
@@ -218,6 +225,20 @@ public class DomUtils {
 					throw e;
 				}
 			});
+		}
+		return builder;
+	}
+
+	private static DocumentBuilder newDocumentBuilder(boolean validating) throws ParserConfigurationException {
+		DocumentBuilder builder;
+		if (validating) {
+			if (validatingFactory == null) {
+				throw new ParserConfigurationException("No validating parser factory available");
+			} else if (!validatingFactory.isValidating()) {
+				throw new ParserConfigurationException("factory should be validating but isn't");
+			}
+			builder = validatingFactory.newDocumentBuilder();
+			assert builder.isValidating();
 		} else {
 			builder = factory.newDocumentBuilder();
 		}
@@ -933,6 +954,67 @@ public class DomUtils {
 		}
 	}
 
+	/**
+	 * A compact XML form of the given node and everything below it, for use as a lookup key, e.g. in a cache. The nodes are
+	 * walked directly rather than serialised with a Transformer or LSSerializer, and only elements with their attributes and
+	 * text are written, in the order in which the DOM holds them; two nodes with equal content give equal keys, and the markup
+	 * characters in attribute values and text are escaped so that different content gives different keys.
+	 * 
+	 * @param node
+	 *            a document or element
+	 * @return the key
+	 */
+	public static String toKeyString(Node node) {
+		StringBuilder key = new StringBuilder();
+		appendKeyString(node.getNodeType() == Node.DOCUMENT_NODE ? ((Document) node).getDocumentElement() : node, key);
+		return key.toString();
+	}
+
+	private static void appendKeyString(Node node, StringBuilder key) {
+		switch (node.getNodeType()) {
+		case Node.ELEMENT_NODE:
+			key.append('<').append(node.getNodeName());
+			NamedNodeMap attributes = node.getAttributes();
+			for (int i = 0, len = attributes.getLength(); i < len; i++) {
+				Node a = attributes.item(i);
+				key.append(' ').append(a.getNodeName()).append("=\"");
+				appendEscaped(a.getNodeValue(), key);
+				key.append('"');
+			}
+			key.append('>');
+			for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+				appendKeyString(child, key);
+			}
+			key.append("</").append(node.getNodeName()).append('>');
+			break;
+		case Node.TEXT_NODE:
+		case Node.CDATA_SECTION_NODE:
+			appendEscaped(node.getNodeValue(), key);
+			break;
+		default: // comments, processing instructions
+			break;
+		}
+	}
+
+	private static void appendEscaped(String value, StringBuilder key) {
+		for (int i = 0, len = value.length(); i < len; i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '<':
+				key.append("&lt;");
+				break;
+			case '&':
+				key.append("&amp;");
+				break;
+			case '"':
+				key.append("&quot;");
+				break;
+			default:
+				key.append(c);
+			}
+		}
+	}
+
 	public static void replaceElement(Element oldElement, NodeList newNodes) {
 		Document doc = oldElement.getOwnerDocument();
 		Node parent = oldElement.getParentNode();
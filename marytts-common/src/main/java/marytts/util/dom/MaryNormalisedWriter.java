@@ -58,7 +58,10 @@ public class MaryNormalisedWriter {
 
 	private static Logger logger; // only used for extensive debug output
 
-	private Transformer transformer;
+	/**
+	 * Transformers are not thread-safe but can be reused, so each thread keeps its own instead of creating one per writer.
+	 */
+	private static final ThreadLocal<Transformer> transformers = new ThreadLocal<Transformer>();
 
 	/**
 	 * Default constructor. Calls <code>startup()</code> if it has not been called before.
@@ -71,7 +74,6 @@ public class MaryNormalisedWriter {
 		try {
 			// startup every time:
 			startup();
-			transformer = stylesheet.newTransformer();
 		} catch (Exception e) {
 			throw new MaryConfigurationException("Cannot initialise XML writing code", e);
 		}
@@ -89,7 +91,7 @@ public class MaryNormalisedWriter {
 	 * @exception TransformerConfigurationException
 	 *                if the templates stylesheet cannot be generated.
 	 */
-	private static void startup() throws TransformerFactoryConfigurationError, TransformerConfigurationException {
+	private static synchronized void startup() throws TransformerFactoryConfigurationError, TransformerConfigurationException {
 		// only start the stuff if it hasn't been started yet.
 		if (tFactory == null) {
 			tFactory = TransformerFactory.newInstance();
@@ -116,6 +118,13 @@ public class MaryNormalisedWriter {
 	 *                if the transformation cannot be performed.
 	 */
 	public void output(Source input, Result destination) throws TransformerException {
+		Transformer transformer = transformers.get();
+		if (transformer == null) {
+			transformer = stylesheet.newTransformer();
+			transformers.set(transformer);
+		} else {
+			transformer.reset();
+		}
 		// logger.debug("Before transform");
 		transformer.transform(input, destination);
 		// logger.debug("After transform");
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.fst;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * @author agent
+ * 
+ */
+public class FSTLookupTest {
+	private static final String LEXICON = "hello|h @ l @U|UH\nhouse|h aU s|NN\nhouses|h aU z I z|NNS\nworld|w 3r l d|NN\n";
+
+	private byte[] fstBytes;
+	private File fstFile;
+
+	@BeforeClass
+	public void createFST() throws Exception {
+		AlignerTrainer at = new AlignerTrainer(false, true);
+		at.readLexicon(new BufferedReader(new StringReader(LEXICON)), "\\|");
+		for (int i = 0; i < 4; i++) {
+			at.alignIteration();
+		}
+		TransducerTrie t = new TransducerTrie();
+		for (int i = 0, size = at.lexiconSize(); i < size; i++) {
+			t.add(at.getAlignment(i));
+			t.add(at.getInfoAlignment(i));
+		}
+		t.computeMinimization();
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream os = new DataOutputStream(baos);
+		t.writeFST(os, "UTF-8");
+		os.close();
+		fstBytes = baos.toByteArray();
+		fstFile = File.createTempFile("lexicon", ".fst");
+		fstFile.deleteOnExit();
+		FileOutputStream fos = new FileOutputStream(fstFile);
+		fos.write(fstBytes);
+		fos.close();
+	}
+
+	private void assertLookups(FSTLookup lookup) {
+		Assert.assertEquals(lookup.lookup("hello"), new String[] { "h @ l @U" });
+		Assert.assertEquals(lookup.lookup("houseNN"), new String[] { "h aU s" });
+		Assert.assertEquals(lookup.lookup(new StringBuilder("houses")), new String[] { "h aU z I z" });
+		Assert.assertEquals(lookup.lookup("hous").length, 0);
+		Assert.assertEquals(lookup.lookup("worlds").length, 0);
+		Assert.assertEquals(lookup.lookup("w 3r l d", true), new String[] { "worldNN", "world" });
+	}
+
+	@Test
+	public void mappedFile() throws Exception {
+		assertLookups(new FSTLookup(fstFile.getPath()));
+	}
+
+	@Test
+	public void stream() throws Exception {
+		assertLookups(new FSTLookup(new ByteArrayInputStream(fstBytes), "FSTLookupTest stream"));
+	}
+
+	@Test
+	public void cachedResultsCannotBeModified() throws Exception {
+		FSTLookup lookup = new FSTLookup(new ByteArrayInputStream(fstBytes), "FSTLookupTest cache");
+		lookup.setCacheSize(2);
+		for (int i = 0; i < 3; i++) {
+			assertLookups(lookup);
+		}
+		lookup.lookup("hello")[0] = "changed";
+		Assert.assertEquals(lookup.lookup("hello"), new String[] { "h @ l @U" });
+	}
+
+	/**
+	 * A stream over the FST bytes which remembers whether it was closed.
+	 */
+	private class ClosingStream extends ByteArrayInputStream {
+		boolean closed = false;
+
+		ClosingStream() {
+			super(fstBytes);
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+			super.close();
+		}
+	}
+
+	@Test
+	public void streamsAreClosed() throws Exception {
+		ClosingStream first = new ClosingStream();
+		assertLookups(new FSTLookup(first, "FSTLookupTest close"));
+		Assert.assertTrue(first.closed);
+		// the FST is known by now, so the second stream is not read, but closed as well:
+		ClosingStream second = new ClosingStream();
+		assertLookups(new FSTLookup(second, "FSTLookupTest close"));
+		Assert.assertTrue(second.closed);
+		Assert.assertEquals(second.available(), fstBytes.length);
+	}
+
+	@Test
+	public void mappedStreamIsClosed() throws Exception {
+		FileInputStream in = new FileInputStream(fstFile);
+		FST fst = new FST(in);
+		try {
+			in.read();
+			Assert.fail("stream is still open");
+		} catch (IOException e) {
+			// expected
+		}
+		Assert.assertTrue(fst.arcs.isDirect());
+		Assert.assertEquals(fst.arcs.limit(), new FST(new ByteArrayInputStream(fstBytes)).arcs.limit());
+	}
+
+	@Test
+	public void parallelInitSharesOneFST() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<FSTLookup>> futures = new ArrayList<Future<FSTLookup>>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(new Callable<FSTLookup>() {
+					public FSTLookup call() throws Exception {
+						InputStream in = new ByteArrayInputStream(fstBytes);
+						return new FSTLookup(in, "FSTLookupTest parallel");
+					}
+				}));
+			}
+			FSTLookup first = futures.get(0).get();
+			for (Future<FSTLookup> f : futures) {
+				assertLookups(f.get());
+				Assert.assertSame(f.get().getFST(), first.getFST());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
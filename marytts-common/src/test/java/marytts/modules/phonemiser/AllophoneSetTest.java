@@ -1,8 +1,14 @@
 package marytts.modules.phonemiser;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import marytts.exceptions.MaryConfigurationException;
 
@@ -27,6 +33,36 @@ public class AllophoneSetTest {
 		Assert.assertEquals(allophoneSet, allo1b);
 	}
 
+	@Test
+	public void testConcurrentLoadGivesOneInstance() throws Exception {
+		final int numThreads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			List<Future<AllophoneSet>> results = new ArrayList<Future<AllophoneSet>>();
+			for (int i = 0; i < numThreads; i++) {
+				results.add(executor.submit(new Callable<AllophoneSet>() {
+					public AllophoneSet call() throws Exception {
+						InputStream alloStream = AllophoneSetTest.class.getResourceAsStream("allophones.de.xml");
+						start.await();
+						return AllophoneSet.getAllophoneSet(alloStream, "concurrent");
+					}
+				}));
+			}
+			start.countDown();
+			List<AllophoneSet> loaded = new ArrayList<AllophoneSet>();
+			for (Future<AllophoneSet> result : results) {
+				loaded.add(result.get());
+			}
+			AllophoneSet registered = AllophoneSet.getAllophoneSetById("concurrent");
+			for (AllophoneSet as : loaded) {
+				Assert.assertSame(as, registered);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void testUnloadedIsUnavailable() {
 		Assert.assertFalse(AllophoneSet.hasAllophoneSet("laaleeloo"));
@@ -1,10 +1,14 @@
 package marytts.util.dom;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 
 import marytts.util.io.FileUtils;
 
+import org.testng.Assert;
 import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
 
 public class DomUtilsTest {
 
@@ -19,4 +23,46 @@ public class DomUtilsTest {
 		DomUtils.parseDocument(DomUtilsTest.class.getResourceAsStream("sample.maryxml"), true);
 	}
 
+	@Test
+	public void reusedParserStillValidates() throws Exception {
+		String docAsString = FileUtils.getStreamAsString(DomUtilsTest.class.getResourceAsStream("sample.maryxml"), "UTF-8");
+		Document first = DomUtils.parseDocument(docAsString, true);
+		DomUtils.parseDocument(docAsString, false);
+		try {
+			DomUtils.parseDocument("<maryxml xmlns=\"http://mary.dfki.de/2002/MaryXML\" version=\"0.5\"><bogus/></maryxml>", true);
+			Assert.fail("expected validation error");
+		} catch (SAXException e) {
+			// expected
+		}
+		Document third = DomUtils.parseDocument(docAsString, true);
+		Assert.assertNotSame(first, third);
+		Assert.assertEquals(DomUtils.serializeToString(first), DomUtils.serializeToString(third));
+	}
+
+	@Test
+	public void writersShareTransformer() throws Exception {
+		Document doc = DomUtils.parseDocument(DomUtilsTest.class.getResourceAsStream("sample.maryxml"), false);
+		ByteArrayOutputStream first = new ByteArrayOutputStream();
+		ByteArrayOutputStream second = new ByteArrayOutputStream();
+		new MaryNormalisedWriter().output(doc, first);
+		new MaryNormalisedWriter().output(doc, second);
+		Assert.assertTrue(first.size() > 0);
+		Assert.assertEquals(first.toString("UTF-8"), second.toString("UTF-8"));
+	}
+
+	@Test
+	public void keyStringsDistinguishContent() throws Exception {
+		Document doc = DomUtils.parseDocument(DomUtilsTest.class.getResourceAsStream("sample.maryxml"), false);
+		Document same = DomUtils.parseDocument(DomUtilsTest.class.getResourceAsStream("sample.maryxml"), false);
+		Assert.assertEquals(DomUtils.toKeyString(doc), DomUtils.toKeyString(same));
+		Assert.assertEquals(DomUtils.toKeyString(doc), DomUtils.toKeyString(doc.getDocumentElement()));
+
+		String text = "<p xmlns=\"http://mary.dfki.de/2002/MaryXML\">a<t>b</t></p>";
+		String escaped = "<p xmlns=\"http://mary.dfki.de/2002/MaryXML\">a&lt;t&gt;b&lt;/t&gt;</p>";
+		String attribute = "<p xmlns=\"http://mary.dfki.de/2002/MaryXML\" a=\"1\">a<t>b</t></p>";
+		String key = DomUtils.toKeyString(DomUtils.parseDocument(text));
+		Assert.assertEquals(key, DomUtils.toKeyString(DomUtils.parseDocument(text)));
+		Assert.assertFalse(key.equals(DomUtils.toKeyString(DomUtils.parseDocument(escaped))));
+		Assert.assertFalse(key.equals(DomUtils.toKeyString(DomUtils.parseDocument(attribute))));
+	}
 }
@@ -33,6 +33,7 @@ package marytts.cart;
 
 import java.util.Properties;
 
+import marytts.features.FeatureColumns;
 import marytts.features.FeatureDefinition;
 import marytts.features.FeatureVector;
 import marytts.unitselection.select.Target;
@@ -46,6 +47,9 @@ import marytts.unitselection.select.Target;
  */
 public class CART extends DirectedGraph {
 
+	/** A flat copy of the tree used for interpretation, or null if the tree has not been compiled */
+	private volatile CompiledCART compiledCART;
+
 	/**
 	 * Build a new empty cart
 	 * 
@@ -115,6 +119,10 @@ public class CART extends DirectedGraph {
 	 * @return the Node
 	 */
 	public Node interpretToNode(FeatureVector featureVector, int minNumberOfData) {
+		CompiledCART compiled = compiledCART;
+		if (compiled != null) {
+			return compiled.interpretToNode(featureVector, minNumberOfData);
+		}
 		Node currentNode = rootNode;
 		Node prevNode = null;
 
@@ -161,6 +169,101 @@ public class CART extends DirectedGraph {
 
 	}
 
+	/**
+	 * Walk down the tree according to the features in fv, and return the data in the leaf node found there.
+	 * 
+	 * @param fv
+	 *            a feature vector which must be consistent with the tree's feature definition.
+	 * @return the data of the leaf node reached, or null if the path ends in an empty daughter.
+	 */
+	@Override
+	public Object interpret(FeatureVector fv) {
+		CompiledCART compiled = compiledCART;
+		if (compiled != null) {
+			Node leaf = compiled.interpretToLeaf(fv);
+			return leaf == null ? null : leaf.getAllData();
+		}
+		return super.interpret(fv);
+	}
+
+	/**
+	 * Walk down the tree for each target in the given feature columns, and return the data in the leaf nodes found there.
+	 * 
+	 * @param columns
+	 *            feature columns which must be consistent with the tree's feature definition.
+	 * @return for each target in columns, the data of the leaf node reached, or null if the path ends in an empty daughter.
+	 */
+	public Object[] interpret(FeatureColumns columns) {
+		Object[] results = new Object[columns.getNumberOfTargets()];
+		CompiledCART compiled = compiledCART;
+		for (int t = 0; t < results.length; t++) {
+			if (compiled != null) {
+				Node leaf = compiled.interpretToLeaf(columns, t);
+				results[t] = leaf == null ? null : leaf.getAllData();
+			} else {
+				results[t] = super.interpret(columns.getFeatureVector(t));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Passes each target in the given feature columns through this CART and returns the leaf Nodes, or the Nodes it stopped
+	 * walking down, as {@link #interpretToNode(FeatureVector, int)} does for one feature vector.
+	 * 
+	 * @param columns
+	 *            feature columns which must be consistent with the tree's feature definition.
+	 * @param minNumberOfData
+	 *            the minimum number of data requested. If this is 0, walk down the CART until the leaf level.
+	 * @return for each target in columns, the Node reached
+	 */
+	public Node[] interpretToNodes(FeatureColumns columns, int minNumberOfData) {
+		Node[] results = new Node[columns.getNumberOfTargets()];
+		CompiledCART compiled = compiledCART;
+		for (int t = 0; t < results.length; t++) {
+			if (compiled != null) {
+				results[t] = compiled.interpretToNode(columns, t, minNumberOfData);
+			} else {
+				results[t] = interpretToNode(columns.getFeatureVector(t), minNumberOfData);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Compile this tree into a flat representation which is used by {@link #interpretToNode(FeatureVector, int)} and
+	 * {@link #interpret(FeatureVector)} from now on. The results are the same as when walking the tree's nodes, but faster. Call
+	 * this once the tree is complete; if the nodes of the tree are modified afterwards, it must be called again.
+	 * 
+	 * @return true if the tree could be compiled, false if it contains nodes that can only be interpreted by walking the node
+	 *         objects.
+	 */
+	public boolean compile() {
+		compiledCART = CompiledCART.compile(rootNode);
+		return compiledCART != null;
+	}
+
+	/**
+	 * Whether this tree is interpreted in its compiled form.
+	 * 
+	 * @return true if {@link #compile()} has succeeded for the current root node.
+	 */
+	public boolean isCompiled() {
+		return compiledCART != null;
+	}
+
+	/**
+	 * Set the root node of this CART. This discards the compiled form of the tree, if any.
+	 * 
+	 * @param rNode
+	 *            root node
+	 */
+	@Override
+	public void setRootNode(Node rNode) {
+		compiledCART = null;
+		super.setRootNode(rNode);
+	}
+
 	/**
 	 * In this tree, replace the given leaf with the given CART
 	 * 
@@ -0,0 +1,382 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.cart;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import marytts.features.FeatureColumns;
+import marytts.features.FeatureVector;
+
+/**
+ * A flat representation of a CART, for fast interpretation. The nodes of the tree are numbered in depth-first order, and the
+ * decision criterion of each node is held in a fixed-size record of ints in a single array, so that walking down the tree is a
+ * loop over array lookups, touching one cache line per node, rather than a chain of virtual calls on node objects. The original
+ * nodes are kept for returning the result.
+ * <p>
+ * A compiled CART is a snapshot of the tree it was made from; if the tree is modified afterwards, it must be compiled again.
+ *
+ * @author agent
+ *
+ */
+final class CompiledCART {
+	static final int LEAF = 0;
+	static final int BINARY_BYTE = 1;
+	static final int BINARY_SHORT = 2;
+	static final int BINARY_FLOAT_ON_BYTE = 3;
+	static final int BINARY_FLOAT = 4;
+	static final int BYTE = 5;
+	static final int SHORT = 6;
+
+	// the fields of a node record
+	private static final int KIND = 0;
+	private static final int FEATURE = 1;
+	/** the byte or short value compared with, or the raw bits of the float threshold */
+	private static final int VALUE = 2;
+	private static final int NUM_DATA = 3;
+	/** binary nodes: the first daughter; multi-way nodes: the index of the first daughter in {@link #daughters} */
+	private static final int DAUGHTER_0 = 4;
+	/** binary nodes: the second daughter; multi-way nodes: the number of daughters */
+	private static final int DAUGHTER_1 = 5;
+	private static final int RECORD_SIZE = 6;
+
+	/** Marks an empty daughter. */
+	private static final int NONE = -1;
+
+	/**
+	 * The node records; nodes are referred to by the position of their record in this array, the root being at 0.
+	 */
+	private final int[] tree;
+	/** the daughters of multi-way nodes */
+	private final int[] daughters;
+	private final Node[] nodes;
+
+	private CompiledCART(List<Node> nodeList, Map<Node, Integer> numbers) {
+		int n = nodeList.size();
+		tree = new int[n * RECORD_SIZE];
+		nodes = nodeList.toArray(new Node[n]);
+		int totalDaughters = 0;
+		for (Node node : nodes) {
+			int kind = kindOf(node);
+			if (kind == BYTE || kind == SHORT) {
+				totalDaughters += ((DecisionNode) node).getNumberOfDaugthers();
+			}
+		}
+		daughters = new int[totalDaughters];
+		int pos = 0;
+		for (int i = 0; i < n; i++) {
+			Node node = nodes[i];
+			int r = i * RECORD_SIZE;
+			tree[r + KIND] = kindOf(node);
+			tree[r + NUM_DATA] = node.getNumberOfData();
+			if (tree[r + KIND] == LEAF) {
+				continue;
+			}
+			DecisionNode dec = (DecisionNode) node;
+			tree[r + FEATURE] = dec.getFeatureIndex();
+			switch (tree[r + KIND]) {
+			case BINARY_BYTE:
+				tree[r + VALUE] = ((DecisionNode.BinaryByteDecisionNode) dec).getCriterionValueAsByte();
+				break;
+			case BINARY_SHORT:
+				tree[r + VALUE] = ((DecisionNode.BinaryShortDecisionNode) dec).getCriterionValueAsShort();
+				break;
+			case BINARY_FLOAT_ON_BYTE:
+			case BINARY_FLOAT:
+				tree[r + VALUE] = Float.floatToRawIntBits(((DecisionNode.BinaryFloatDecisionNode) dec).getCriterionValueAsFloat());
+				break;
+			default: // multi-way
+				tree[r + DAUGHTER_0] = pos;
+				tree[r + DAUGHTER_1] = dec.getNumberOfDaugthers();
+				for (int d = 0; d < dec.getNumberOfDaugthers(); d++) {
+					daughters[pos++] = position(dec.getDaughter(d), numbers);
+				}
+				continue;
+			}
+			tree[r + DAUGHTER_0] = position(dec.getDaughter(0), numbers);
+			tree[r + DAUGHTER_1] = position(dec.getDaughter(1), numbers);
+		}
+	}
+
+	private static int position(Node node, Map<Node, Integer> numbers) {
+		return node == null ? NONE : numbers.get(node) * RECORD_SIZE;
+	}
+
+	/**
+	 * Compile the tree below the given root node.
+	 *
+	 * @param rootNode
+	 *            the root node of a CART
+	 * @return the compiled tree, or null if the tree contains nodes that cannot be compiled, such as directed graph nodes or
+	 *         decision node types not known here.
+	 */
+	static CompiledCART compile(Node rootNode) {
+		if (rootNode == null) {
+			return null;
+		}
+		List<Node> nodeList = new ArrayList<Node>();
+		Map<Node, Integer> numbers = new IdentityHashMap<Node, Integer>();
+		// iterative depth-first walk, to cope with deep trees
+		List<Node> stack = new ArrayList<Node>();
+		stack.add(rootNode);
+		while (!stack.isEmpty()) {
+			Node node = stack.remove(stack.size() - 1);
+			if (numbers.containsKey(node)) {
+				return null; // not a tree
+			}
+			if (kindOf(node) < 0) {
+				return null;
+			}
+			numbers.put(node, nodeList.size());
+			nodeList.add(node);
+			if (node instanceof DecisionNode) {
+				DecisionNode dec = (DecisionNode) node;
+				for (int d = dec.getNumberOfDaugthers() - 1; d >= 0; d--) {
+					if (dec.getDaughter(d) != null) {
+						stack.add(dec.getDaughter(d));
+					}
+				}
+			}
+		}
+		return new CompiledCART(nodeList, numbers);
+	}
+
+	/**
+	 * Determine how a node is evaluated. Only the exact node classes defined in this package are compiled, since a subclass could
+	 * override the way the next node is selected.
+	 *
+	 * @param node
+	 *            node
+	 * @return the node kind, or -1 if the node cannot be compiled.
+	 */
+	private static int kindOf(Node node) {
+		if (node instanceof LeafNode) {
+			return LEAF;
+		}
+		if (!(node instanceof DecisionNode) || ((DecisionNode) node).TRACE) {
+			return -1;
+		}
+		Class<?> c = node.getClass();
+		if (c == DecisionNode.BinaryByteDecisionNode.class) {
+			return BINARY_BYTE;
+		} else if (c == DecisionNode.BinaryShortDecisionNode.class) {
+			return BINARY_SHORT;
+		} else if (c == DecisionNode.BinaryFloatDecisionNode.class) {
+			return ((DecisionNode.BinaryFloatDecisionNode) node).isByteFeature() ? BINARY_FLOAT_ON_BYTE : BINARY_FLOAT;
+		} else if (c == DecisionNode.ByteDecisionNode.class) {
+			return BYTE;
+		} else if (c == DecisionNode.ShortDecisionNode.class) {
+			return SHORT;
+		}
+		return -1;
+	}
+
+	/**
+	 * Number of nodes in the compiled tree.
+	 *
+	 * @return the number of decision and leaf nodes
+	 */
+	int getNumberOfNodes() {
+		return nodes.length;
+	}
+
+	/**
+	 * Select the next node for the given feature vector.
+	 *
+	 * @param r
+	 *            the position of a decision node
+	 * @param bytes
+	 *            the byte features of the feature vector
+	 * @param shorts
+	 *            the short features of the feature vector
+	 * @param floats
+	 *            the continuous features of the feature vector
+	 * @return the position of the next node, or {@link #NONE}
+	 */
+	private int next(int r, byte[] bytes, short[] shorts, float[] floats) {
+		int[] tree = this.tree;
+		int f = tree[r + FEATURE];
+		int d;
+		switch (tree[r + KIND]) {
+		case BINARY_BYTE:
+			return tree[r + (bytes[f] == tree[r + VALUE] ? DAUGHTER_0 : DAUGHTER_1)];
+		case BINARY_SHORT:
+			return tree[r + (shorts[f - bytes.length] == tree[r + VALUE] ? DAUGHTER_0 : DAUGHTER_1)];
+		case BINARY_FLOAT_ON_BYTE:
+			return tree[r + (bytes[f] < Float.intBitsToFloat(tree[r + VALUE]) ? DAUGHTER_0 : DAUGHTER_1)];
+		case BINARY_FLOAT:
+			return tree[r
+					+ (floats[f - bytes.length - shorts.length] < Float.intBitsToFloat(tree[r + VALUE]) ? DAUGHTER_0 : DAUGHTER_1)];
+		case BYTE:
+			d = bytes[f];
+			break;
+		default: // SHORT
+			d = shorts[f - bytes.length];
+			break;
+		}
+		if (d < 0 || d >= tree[r + DAUGHTER_1]) {
+			throw new ArrayIndexOutOfBoundsException(d);
+		}
+		return daughters[tree[r + DAUGHTER_0] + d];
+	}
+
+	/**
+	 * Walk down the tree as {@link CART#interpretToNode(FeatureVector, int)} does.
+	 *
+	 * @param featureVector
+	 *            the feature vector
+	 * @param minNumberOfData
+	 *            the minimum number of data requested
+	 * @return the node reached
+	 */
+	Node interpretToNode(FeatureVector featureVector, int minNumberOfData) {
+		byte[] bytes = featureVector.byteValuedDiscreteFeatures;
+		short[] shorts = featureVector.shortValuedDiscreteFeatures;
+		float[] floats = featureVector.continuousFeatures;
+		int[] tree = this.tree;
+		int current = 0;
+		int prev = NONE;
+		while (current != NONE && tree[current + NUM_DATA] > minNumberOfData && tree[current + KIND] != LEAF) {
+			prev = current;
+			current = next(current, bytes, shorts, floats);
+		}
+		if (current == NONE || tree[current + NUM_DATA] < minNumberOfData && prev != NONE) {
+			current = prev;
+		}
+		return current == NONE ? null : nodes[current / RECORD_SIZE];
+	}
+
+	/**
+	 * Walk down the tree to a leaf, as {@link DirectedGraph#interpret(FeatureVector)} does.
+	 *
+	 * @param featureVector
+	 *            the feature vector
+	 * @return the leaf node reached, or null if the walk ends in an empty daughter
+	 */
+	Node interpretToLeaf(FeatureVector featureVector) {
+		byte[] bytes = featureVector.byteValuedDiscreteFeatures;
+		short[] shorts = featureVector.shortValuedDiscreteFeatures;
+		float[] floats = featureVector.continuousFeatures;
+		int[] tree = this.tree;
+		int current = 0;
+		while (tree[current + KIND] != LEAF) {
+			current = next(current, bytes, shorts, floats);
+			if (current == NONE) {
+				return null;
+			}
+		}
+		return nodes[current / RECORD_SIZE];
+	}
+
+	/**
+	 * Walk down the tree to a leaf for one target in feature columns, as {@link #interpretToLeaf(FeatureVector)} does for a
+	 * feature vector.
+	 *
+	 * @param columns
+	 *            the feature columns
+	 * @param target
+	 *            the index of the target in columns
+	 * @return the leaf node reached, or null if the walk ends in an empty daughter
+	 */
+	Node interpretToLeaf(FeatureColumns columns, int target) {
+		int[] tree = this.tree;
+		int r = 0;
+		while (tree[r + KIND] != LEAF) {
+			r = next(r, columns, target);
+			if (r == NONE) {
+				return null;
+			}
+		}
+		return nodes[r / RECORD_SIZE];
+	}
+
+	/**
+	 * Walk down the tree for one target in feature columns, as {@link #interpretToNode(FeatureVector, int)} does for a feature
+	 * vector.
+	 *
+	 * @param columns
+	 *            the feature columns
+	 * @param target
+	 *            the index of the target in columns
+	 * @param minNumberOfData
+	 *            the minimum number of data requested
+	 * @return the node reached
+	 */
+	Node interpretToNode(FeatureColumns columns, int target, int minNumberOfData) {
+		int[] tree = this.tree;
+		int current = 0;
+		int prev = NONE;
+		while (current != NONE && tree[current + NUM_DATA] > minNumberOfData && tree[current + KIND] != LEAF) {
+			prev = current;
+			current = next(current, columns, target);
+		}
+		if (current == NONE || tree[current + NUM_DATA] < minNumberOfData && prev != NONE) {
+			current = prev;
+		}
+		return current == NONE ? null : nodes[current / RECORD_SIZE];
+	}
+
+	/**
+	 * The next node after the decision node at position r, for one target in feature columns.
+	 *
+	 * @param r
+	 *            the position of a decision node
+	 * @param columns
+	 *            the feature columns
+	 * @param target
+	 *            the index of the target in columns
+	 * @return the position of the next node, or {@link #NONE}
+	 */
+	private int next(int r, FeatureColumns columns, int target) {
+		int[] tree = this.tree;
+		int stride = columns.getCapacity();
+		int numBytes = columns.getNumberOfByteFeatures();
+		int numShorts = columns.getNumberOfShortFeatures();
+		int f = tree[r + FEATURE];
+		int d;
+		switch (tree[r + KIND]) {
+		case BINARY_BYTE:
+			return tree[r + (columns.getByteColumns()[f * stride + target] == tree[r + VALUE] ? DAUGHTER_0 : DAUGHTER_1)];
+		case BINARY_SHORT:
+			return tree[r
+					+ (columns.getShortColumns()[(f - numBytes) * stride + target] == tree[r + VALUE] ? DAUGHTER_0 : DAUGHTER_1)];
+		case BINARY_FLOAT_ON_BYTE:
+			return tree[r
+					+ (columns.getByteColumns()[f * stride + target] < Float.intBitsToFloat(tree[r + VALUE]) ? DAUGHTER_0
+							: DAUGHTER_1)];
+		case BINARY_FLOAT:
+			return tree[r
+					+ (columns.getContinuousColumns()[(f - numBytes - numShorts) * stride + target] < Float
+							.intBitsToFloat(tree[r + VALUE]) ? DAUGHTER_0 : DAUGHTER_1)];
+		case BYTE:
+			d = columns.getByteColumns()[f * stride + target];
+			break;
+		default: // SHORT
+			d = columns.getShortColumns()[(f - numBytes) * stride + target];
+			break;
+		}
+		if (d < 0 || d >= tree[r + DAUGHTER_1]) {
+			throw new ArrayIndexOutOfBoundsException(d);
+		}
+		return daughters[tree[r + DAUGHTER_0] + d];
+	}
+}
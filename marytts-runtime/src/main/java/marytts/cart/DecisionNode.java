@@ -561,6 +561,15 @@ public abstract class DecisionNode extends Node {
 			return value;
 		}
 
+		/**
+		 * Whether the feature tested is a byte feature used as a float.
+		 *
+		 * @return true for a byte feature, false for a continuous feature
+		 */
+		boolean isByteFeature() {
+			return isByteFeature;
+		}
+
 		public String getCriterionValueAsString() {
 			return String.valueOf(value);
 		}
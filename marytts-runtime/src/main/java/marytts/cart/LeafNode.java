@@ -487,6 +487,25 @@ public abstract class LeafNode extends Node {
 
 		}
 
+		/**
+		 * @param idx
+		 *            , a unique index number
+		 * @param mean
+		 *            , the mean vector
+		 * @param variance
+		 *            , the diagonal covariance
+		 * @param voicedWeight
+		 *            , the voiced weight for lf0 trees, 0 otherwise
+		 */
+		public PdfLeafNode(int idx, double[] mean, double[] variance, double voicedWeight) {
+			super();
+			this.setUniqueLeafId(idx);
+			this.vectorSize = mean.length;
+			this.mean = mean;
+			this.variance = variance;
+			this.voicedWeight = voicedWeight;
+		}
+
 		public int getDataLength() {
 			return mean.length;
 		}
@@ -57,6 +57,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.StringTokenizer;
 
@@ -163,6 +166,7 @@ public class HTSCARTReader {
 				// will return the correct figure.
 				if (treeSet[state - 2].getRootNode() instanceof DecisionNode)
 					((DecisionNode) treeSet[state - 2].getRootNode()).countData();
+				MaryCARTReader.compile(treeSet[state - 2]);
 
 				logger.debug("load: CART[" + (state - 2) + "], total number of nodes in this CART: "
 						+ treeSet[state - 2].getNumNodes());
@@ -180,6 +184,102 @@ public class HTSCARTReader {
 
 	}
 
+	/**
+	 * Load the trees of one model type from the binary form written by {@link HTSCARTWriter#dumpBinary}. Feature indices and
+	 * values were resolved when the trees were written, so the feature definition must be the same as then.
+	 * 
+	 * @param bb
+	 *            the buffer holding the trees, positioned at their start; on return, it is positioned after them.
+	 * @param featDefinition
+	 *            the feature definition
+	 * @return one cart per state
+	 * @throws MaryConfigurationException
+	 *             if the data is not consistent
+	 */
+	public CART[] loadBinary(ByteBuffer bb, FeatureDefinition featDefinition) throws MaryConfigurationException {
+		featDef = featDefinition;
+		vectorSize = bb.getInt();
+		int numTrees = bb.getInt();
+		if (numTrees <= 0) {
+			throw new MaryConfigurationException("loadBinary: number of trees must be positive: " + numTrees);
+		}
+		CART[] treeSet = new CART[numTrees];
+		for (int i = 0; i < numTrees; i++) {
+			treeSet[i] = new CART();
+			treeSet[i].setRootNode(loadBinaryTree(bb));
+			if (treeSet[i].getRootNode() instanceof DecisionNode)
+				((DecisionNode) treeSet[i].getRootNode()).countData();
+			MaryCARTReader.compile(treeSet[i]);
+		}
+		return treeSet;
+	}
+
+	private Node loadBinaryTree(ByteBuffer bb) throws MaryConfigurationException {
+		int numDecisionNodes = bb.getInt();
+		int numLeaves = bb.getInt();
+		int pdfLength = bb.getInt();
+		if (numDecisionNodes < 0 || numLeaves < 0 || pdfLength < 0) {
+			throw new MaryConfigurationException("loadBinary: negative tree size");
+		}
+		int[] decisions = new int[5 * numDecisionNodes];
+		bb.asIntBuffer().get(decisions);
+		bb.position(bb.position() + 4 * decisions.length);
+		int[] leafIds = new int[numLeaves];
+		bb.asIntBuffer().get(leafIds);
+		bb.position(bb.position() + 4 * leafIds.length);
+		// mean, variance and voiced weight of all leaves, in one block
+		int leafSize = 2 * pdfLength + 1;
+		float[] pdfs = new float[numLeaves * leafSize];
+		bb.asFloatBuffer().get(pdfs);
+		bb.position(bb.position() + 4 * pdfs.length);
+
+		int numByteFeatures = featDef.getNumberOfByteFeatures();
+		BinaryByteDecisionNode[] dns = new BinaryByteDecisionNode[numDecisionNodes];
+		for (int i = 0; i < numDecisionNodes; i++) {
+			int featureIndex = decisions[5 * i + 1];
+			if (featureIndex < 0 || featureIndex >= numByteFeatures) {
+				throw new MaryConfigurationException("loadBinary: not a byte feature: " + featureIndex);
+			}
+			dns[i] = new DecisionNode.BinaryByteDecisionNode(featureIndex, (byte) decisions[5 * i + 2], featDef);
+			dns[i].setUniqueDecisionNodeId(decisions[5 * i]);
+		}
+		PdfLeafNode[] lns = new PdfLeafNode[numLeaves];
+		for (int i = 0; i < numLeaves; i++) {
+			double[] mean = new double[pdfLength];
+			double[] variance = new double[pdfLength];
+			int pos = i * leafSize;
+			for (int k = 0; k < pdfLength; k++) {
+				mean[k] = pdfs[pos + k];
+				variance[k] = pdfs[pos + pdfLength + k];
+			}
+			lns[i] = new LeafNode.PdfLeafNode(leafIds[i], mean, variance, pdfs[pos + 2 * pdfLength]);
+		}
+		for (int i = 0; i < numDecisionNodes; i++) {
+			for (int d = 0; d < 2; d++) {
+				int daughter = decisions[5 * i + 3 + d];
+				if (daughter == HTSCARTWriter.EMPTY) {
+					dns[i].addDaughter(null);
+				} else if (daughter >= 0 && daughter < numDecisionNodes) {
+					dns[i].addDaughter(dns[daughter]);
+				} else if (daughter < 0 && -daughter - 1 < numLeaves) {
+					dns[i].addDaughter(lns[-daughter - 1]);
+				} else {
+					throw new MaryConfigurationException("loadBinary: daughter out of range: " + daughter);
+				}
+			}
+		}
+		Node rootNode;
+		if (numDecisionNodes > 0) {
+			rootNode = dns[0];
+		} else if (numLeaves > 0) {
+			rootNode = lns[0];
+		} else {
+			return null;
+		}
+		rootNode.setIsRoot(true);
+		return rootNode;
+	}
+
 	/**
 	 * Load a tree per state
 	 * 
@@ -207,6 +307,9 @@ public class HTSCARTReader {
 		ndec = 0;
 		nleaf = 0;
 		Node node = null;
+		// the decision nodes created so far, by their unique id
+		Map<Integer, Node> decisionNodes = new HashMap<Integer, Node>();
+		decisionNodes.put(0, rootNode);
 		aux = s.readLine(); /* next line for this state tree must be { */
 		int id;
 
@@ -227,7 +330,7 @@ public class HTSCARTReader {
 					throw new MaryConfigurationException("LoadStateTree: line does not start with a decision node (-id), line="
 							+ aux);
 				// 1. find the node in the tree, it has to be already created.
-				node = findDecisionNode(rootNode, id);
+				node = decisionNodes.get(id);
 
 				if (node == null)
 					throw new MaryConfigurationException("LoadStateTree: Node not found, index = " + buf);
@@ -265,6 +368,7 @@ public class HTSCARTReader {
 						// create an empty binary decision node with unique id
 						BinaryByteDecisionNode auxnode = new DecisionNode.BinaryByteDecisionNode(iaux, featDef);
 						((DecisionNode) node).replaceDaughter(auxnode, 1);
+						decisionNodes.put(iaux, auxnode);
 					} else { // LeafNode
 						iaux = Integer.parseInt(buf.substring(buf.lastIndexOf("_") + 1, buf.length() - 1));
 						// create an empty PdfLeafNode
@@ -280,6 +384,7 @@ public class HTSCARTReader {
 						// create an empty binary decision node with unique id=0
 						BinaryByteDecisionNode auxnode = new DecisionNode.BinaryByteDecisionNode(iaux, featDef);
 						((DecisionNode) node).replaceDaughter(auxnode, 0);
+						decisionNodes.put(iaux, auxnode);
 					} else { // LeafNode
 						iaux = Integer.parseInt(buf.substring(buf.lastIndexOf("_") + 1, buf.length() - 1));
 						// create an empty PdfLeafNode
@@ -297,33 +402,6 @@ public class HTSCARTReader {
 
 	} /* method loadTree() */
 
-	/**
-	 * @param node
-	 *            , decision node
-	 * @param numId
-	 *            , index to look for.
-	 * @return node if node is instance of decision node, aux if aux != null, return aux otherwise
-	 */
-	private Node findDecisionNode(Node node, int numId) {
-
-		Node aux = null;
-
-		if (node instanceof DecisionNode) {
-			// System.out.print(" id=" + ((DecisionNode)node).getUniqueDecisionNodeId());
-			if (((DecisionNode) node).getUniqueDecisionNodeId() == numId)
-				return node;
-			else {
-				for (int i = 0; i < ((DecisionNode) node).getNumberOfDaugthers(); i++) {
-					aux = findDecisionNode(((DecisionNode) node).getDaughter(i), numId);
-					if (aux != null)
-						return aux;
-				}
-			}
-		}
-		return aux;
-
-	} /* method findDecisionNode */
-
 	/**
 	 * Load pdf's, mean and variance the #leaves corresponds to the unique leaf node id pdf -->
 	 * [#states][#leaves][#streams][vectorsize] The format of pdf files for mgc, str or mag is: header: 4 byte int: dimension
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.cart.io;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import marytts.cart.CART;
+import marytts.cart.DecisionNode;
+import marytts.cart.DecisionNode.BinaryByteDecisionNode;
+import marytts.cart.LeafNode.PdfLeafNode;
+import marytts.cart.Node;
+
+/**
+ * Writes the trees of one HTS model type, as loaded by {@link HTSCARTReader#load}, in a binary form which
+ * {@link HTSCARTReader#loadBinary} reads back without parsing text or looking up features by name.
+ * <p>
+ * The format is: the vector size and the number of trees, followed for each tree by
+ * <ul>
+ * <li>the number of decision nodes, the number of leaves and the length of the mean and variance vectors;</li>
+ * <li>for each decision node: its unique id, feature index, byte value, and the YES and NO daughters;</li>
+ * <li>the unique ids of all leaves;</li>
+ * <li>for each leaf: mean vector, variance vector and voiced weight as one contiguous float array.</li>
+ * </ul>
+ * Daughters are given as the index of a decision node, as <code>-(leaf index + 1)</code> for a leaf, or as {@link #EMPTY}. Nodes
+ * are numbered in depth-first order, with the root node as decision node 0.
+ *
+ * @author agent
+ */
+public class HTSCARTWriter {
+	/** Marks an empty daughter in the binary format. */
+	public static final int EMPTY = Integer.MIN_VALUE;
+
+	/**
+	 * Dump the trees in binary form.
+	 *
+	 * @param trees
+	 *            the trees of one model type, one per state
+	 * @param vectorSize
+	 *            the vector size reported by {@link HTSCARTReader#getVectorSize()} when the trees were loaded
+	 * @param out
+	 *            out
+	 * @throws IOException
+	 *             if the trees contain other than binary byte decision nodes and pdf leaves, or cannot be written
+	 */
+	public void dumpBinary(CART[] trees, int vectorSize, DataOutput out) throws IOException {
+		out.writeInt(vectorSize);
+		out.writeInt(trees.length);
+		for (CART tree : trees) {
+			dumpTree(tree.getRootNode(), out);
+		}
+	}
+
+	private void dumpTree(Node rootNode, DataOutput out) throws IOException {
+		List<BinaryByteDecisionNode> decisionNodes = new ArrayList<BinaryByteDecisionNode>();
+		List<PdfLeafNode> leaves = new ArrayList<PdfLeafNode>();
+		Map<Node, Integer> numbers = new IdentityHashMap<Node, Integer>();
+		List<Node> stack = new ArrayList<Node>();
+		if (rootNode != null) {
+			stack.add(rootNode);
+		}
+		while (!stack.isEmpty()) {
+			Node node = stack.remove(stack.size() - 1);
+			if (node instanceof BinaryByteDecisionNode) {
+				BinaryByteDecisionNode dec = (BinaryByteDecisionNode) node;
+				numbers.put(dec, decisionNodes.size());
+				decisionNodes.add(dec);
+				for (int d = 1; d >= 0; d--) {
+					if (dec.getDaughter(d) != null) {
+						stack.add(dec.getDaughter(d));
+					}
+				}
+			} else if (node instanceof PdfLeafNode) {
+				numbers.put(node, -(leaves.size() + 1));
+				leaves.add((PdfLeafNode) node);
+			} else {
+				throw new IOException("Cannot write node of type " + node.getClass().getName());
+			}
+		}
+		int pdfLength = leaves.isEmpty() ? 0 : leaves.get(0).getMean().length;
+		out.writeInt(decisionNodes.size());
+		out.writeInt(leaves.size());
+		out.writeInt(pdfLength);
+		for (BinaryByteDecisionNode dec : decisionNodes) {
+			out.writeInt(dec.getUniqueDecisionNodeId());
+			out.writeInt(dec.getFeatureIndex());
+			out.writeInt(dec.getCriterionValueAsByte());
+			for (int d = 0; d < 2; d++) {
+				Node daughter = dec.getDaughter(d);
+				out.writeInt(daughter == null ? EMPTY : numbers.get(daughter));
+			}
+		}
+		for (PdfLeafNode leaf : leaves) {
+			out.writeInt(leaf.getUniqueLeafId());
+		}
+		for (PdfLeafNode leaf : leaves) {
+			if (leaf.getMean().length != pdfLength) {
+				throw new IOException("Leaves of one tree have different vector sizes");
+			}
+			for (double m : leaf.getMean()) {
+				out.writeFloat((float) m);
+			}
+			for (double v : leaf.getVariance()) {
+				out.writeFloat((float) v);
+			}
+			out.writeFloat((float) leaf.getVoicedWeight());
+		}
+	}
+}
@@ -36,6 +36,7 @@ import marytts.cart.LeafNode;
 import marytts.cart.Node;
 import marytts.exceptions.MaryConfigurationException;
 import marytts.features.FeatureDefinition;
+import marytts.server.MaryProperties;
 import marytts.util.data.MaryHeader;
 
 /**
@@ -226,7 +227,7 @@ public class MaryCARTReader {
 		}
 
 		// set the rootNode as the rootNode of cart
-		return new CART(rootNode, featureDefinition, props);
+		return compile(new CART(rootNode, featureDefinition, props));
 	}
 
 	/**
@@ -395,6 +396,20 @@ public class MaryCARTReader {
 		}
 
 		// set the rootNode as the rootNode of cart
-		return new CART(rootNode, featureDefinition, props);
+		return compile(new CART(rootNode, featureDefinition, props));
+	}
+
+	/**
+	 * Compile the loaded cart for faster interpretation, unless disabled by setting the property cart.compile to false.
+	 * 
+	 * @param cart
+	 *            cart
+	 * @return cart
+	 */
+	static CART compile(CART cart) {
+		if (MaryProperties.getBoolean("cart.compile", true)) {
+			cart.compile();
+		}
+		return cart;
 	}
 }
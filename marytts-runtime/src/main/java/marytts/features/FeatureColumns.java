@@ -0,0 +1,258 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.features;
+
+/**
+ * The features of a list of targets, stored column by column: all values of the first byte feature, then all values of the
+ * second byte feature, and so on, with one array each for the byte, short and continuous features. Features are numbered as in
+ * {@link FeatureVector}, i.e. byte features first, then short features, then continuous features.
+ * <p>
+ * The arrays are allocated once and reused when the columns are filled again for the same or a smaller number of targets, so
+ * that computing the features of many sentences in turn does not allocate anything per target. In the raw arrays returned by
+ * {@link #getByteColumns()} etc., the value of feature f for target t is at position f * {@link #getCapacity()} + t.
+ *
+ * @author agent
+ */
+public class FeatureColumns {
+	private final int numByteFeatures;
+	private final int numShortFeatures;
+	private final int numContinuousFeatures;
+	private int numTargets;
+	private int capacity;
+	private byte[] bytes;
+	private short[] shorts;
+	private float[] floats;
+
+	/**
+	 * Create empty feature columns.
+	 *
+	 * @param numByteFeatures
+	 *            the number of byte-valued features
+	 * @param numShortFeatures
+	 *            the number of short-valued features
+	 * @param numContinuousFeatures
+	 *            the number of continuous features
+	 * @param capacity
+	 *            the number of targets to allocate space for
+	 */
+	public FeatureColumns(int numByteFeatures, int numShortFeatures, int numContinuousFeatures, int capacity) {
+		this.numByteFeatures = numByteFeatures;
+		this.numShortFeatures = numShortFeatures;
+		this.numContinuousFeatures = numContinuousFeatures;
+		allocate(capacity);
+	}
+
+	private void allocate(int newCapacity) {
+		capacity = newCapacity;
+		bytes = new byte[numByteFeatures * capacity];
+		shorts = new short[numShortFeatures * capacity];
+		floats = new float[numContinuousFeatures * capacity];
+	}
+
+	/**
+	 * Prepare the columns for the given number of targets, allocating larger arrays only if the current capacity is too small.
+	 * The values are undefined until they are set.
+	 *
+	 * @param newNumTargets
+	 *            the number of targets
+	 */
+	public void reset(int newNumTargets) {
+		if (newNumTargets > capacity) {
+			allocate(Math.max(newNumTargets, 2 * capacity));
+		}
+		numTargets = newNumTargets;
+	}
+
+	public int getNumberOfTargets() {
+		return numTargets;
+	}
+
+	public int getNumberOfByteFeatures() {
+		return numByteFeatures;
+	}
+
+	public int getNumberOfShortFeatures() {
+		return numShortFeatures;
+	}
+
+	public int getNumberOfContinuousFeatures() {
+		return numContinuousFeatures;
+	}
+
+	/**
+	 * The distance between the starts of two consecutive columns in the raw arrays.
+	 *
+	 * @return the number of targets space is allocated for
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * The raw byte feature columns. The array is replaced when {@link #reset(int)} needs more space.
+	 *
+	 * @return the array holding all byte features
+	 */
+	public byte[] getByteColumns() {
+		return bytes;
+	}
+
+	/**
+	 * The raw short feature columns. The array is replaced when {@link #reset(int)} needs more space.
+	 *
+	 * @return the array holding all short features
+	 */
+	public short[] getShortColumns() {
+		return shorts;
+	}
+
+	/**
+	 * The raw continuous feature columns. The array is replaced when {@link #reset(int)} needs more space.
+	 *
+	 * @return the array holding all continuous features
+	 */
+	public float[] getContinuousColumns() {
+		return floats;
+	}
+
+	/**
+	 * @param target
+	 *            the index of the target
+	 * @param index
+	 *            the index of a byte feature
+	 * @return the value of the feature for the target
+	 */
+	public byte getByteFeature(int target, int index) {
+		return bytes[index * capacity + target];
+	}
+
+	/**
+	 * @param target
+	 *            the index of the target
+	 * @param index
+	 *            the index of a short feature, counting the byte features first
+	 * @return the value of the feature for the target
+	 */
+	public short getShortFeature(int target, int index) {
+		return shorts[(index - numByteFeatures) * capacity + target];
+	}
+
+	/**
+	 * @param target
+	 *            the index of the target
+	 * @param index
+	 *            the index of a continuous feature, counting the byte and short features first
+	 * @return the value of the feature for the target
+	 */
+	public float getContinuousFeature(int target, int index) {
+		return floats[(index - numByteFeatures - numShortFeatures) * capacity + target];
+	}
+
+	public void setByteFeature(int target, int index, byte value) {
+		bytes[index * capacity + target] = value;
+	}
+
+	public void setShortFeature(int target, int index, short value) {
+		shorts[(index - numByteFeatures) * capacity + target] = value;
+	}
+
+	public void setContinuousFeature(int target, int index, float value) {
+		floats[(index - numByteFeatures - numShortFeatures) * capacity + target] = value;
+	}
+
+	/**
+	 * Copy the features of one target into a new feature vector, for code which needs them in that form.
+	 *
+	 * @param target
+	 *            the index of the target
+	 * @return a new feature vector
+	 */
+	public FeatureVector getFeatureVector(int target) {
+		byte[] b = new byte[numByteFeatures];
+		short[] s = new short[numShortFeatures];
+		float[] f = new float[numContinuousFeatures];
+		for (int i = 0; i < b.length; i++) {
+			b[i] = bytes[i * capacity + target];
+		}
+		for (int i = 0; i < s.length; i++) {
+			s[i] = shorts[i * capacity + target];
+		}
+		for (int i = 0; i < f.length; i++) {
+			f[i] = floats[i * capacity + target];
+		}
+		return new FeatureVector(b, s, f, 0);
+	}
+
+	/**
+	 * Copy the features of a feature vector into the columns of one target, for code which has them in that form.
+	 *
+	 * @param target
+	 *            the index of the target
+	 * @param fv
+	 *            a feature vector with the same numbers of features as these columns
+	 * @throws IllegalArgumentException
+	 *             if the numbers of features do not match
+	 */
+	public void setFeatureVector(int target, FeatureVector fv) {
+		byte[] b = fv.byteValuedDiscreteFeatures;
+		short[] s = fv.shortValuedDiscreteFeatures;
+		float[] f = fv.continuousFeatures;
+		if (b.length != numByteFeatures || s.length != numShortFeatures || f.length != numContinuousFeatures) {
+			throw new IllegalArgumentException("Feature vector has " + b.length + "/" + s.length + "/" + f.length
+					+ " features, columns have " + numByteFeatures + "/" + numShortFeatures + "/" + numContinuousFeatures);
+		}
+		for (int i = 0; i < b.length; i++) {
+			bytes[i * capacity + target] = b[i];
+		}
+		for (int i = 0; i < s.length; i++) {
+			shorts[i * capacity + target] = s[i];
+		}
+		for (int i = 0; i < f.length; i++) {
+			floats[i * capacity + target] = f[i];
+		}
+	}
+
+	/**
+	 * The features of one target as numbers, in the format of {@link FeatureVector#toString()}.
+	 *
+	 * @param target
+	 *            the index of the target
+	 * @return the feature values separated by spaces
+	 */
+	public String toString(int target) {
+		StringBuilder out = new StringBuilder();
+		for (int i = 0; i < numByteFeatures; i++) {
+			if (out.length() > 0)
+				out.append(" ");
+			out.append((int) bytes[i * capacity + target]);
+		}
+		for (int i = 0; i < numShortFeatures; i++) {
+			if (out.length() > 0)
+				out.append(" ");
+			out.append((int) shorts[i * capacity + target]);
+		}
+		for (int i = 0; i < numContinuousFeatures; i++) {
+			if (out.length() > 0)
+				out.append(" ");
+			out.append(floats[i * capacity + target]);
+		}
+		return out.toString();
+	}
+}
@@ -22,11 +22,11 @@ package marytts.features;
 
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import marytts.modules.synthesis.Voice;
 
@@ -43,9 +43,10 @@ public class FeatureRegistry {
 	private FeatureRegistry() {
 	}
 
-	private static Map<Locale, FeatureProcessorManager> managersByLocale = new HashMap<Locale, FeatureProcessorManager>();
-	private static Map<Voice, FeatureProcessorManager> managersByVoice = new HashMap<Voice, FeatureProcessorManager>();
-	private static FeatureProcessorManager fallbackManager = null;
+	// voices register their feature processor managers while they are loaded in parallel
+	private static Map<Locale, FeatureProcessorManager> managersByLocale = new ConcurrentHashMap<Locale, FeatureProcessorManager>();
+	private static Map<Voice, FeatureProcessorManager> managersByVoice = new ConcurrentHashMap<Voice, FeatureProcessorManager>();
+	private static volatile FeatureProcessorManager fallbackManager = null;
 	private static MultiKeyMap/* <Locale+String listing features, TargetFeatureComputer> */computers = new MultiKeyMap();
 
 	/**
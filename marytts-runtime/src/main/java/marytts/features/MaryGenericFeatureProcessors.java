@@ -95,13 +95,10 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHONE, MaryXML.BOUNDARY);
-			tw.setCurrentNode(segment);
-			Element previous = (Element) tw.previousNode();
-			return previous;
+			return index.previous(segment, SentenceIndex.SEGMENTS, 1);
 		}
 	}
 
@@ -116,14 +113,10 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHONE, MaryXML.BOUNDARY);
-			tw.setCurrentNode(segment);
-			Element previous = (Element) tw.previousNode();
-			Element pp = (Element) tw.previousNode();
-			return pp;
+			return index.previous(segment, SentenceIndex.SEGMENTS, 2);
 		}
 	}
 
@@ -138,13 +131,10 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHONE, MaryXML.BOUNDARY);
-			tw.setCurrentNode(segment);
-			Element next = (Element) tw.nextNode();
-			return next;
+			return index.next(segment, SentenceIndex.SEGMENTS, 1);
 		}
 	}
 
@@ -159,14 +149,10 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHONE, MaryXML.BOUNDARY);
-			tw.setCurrentNode(segment);
-			Element next = (Element) tw.nextNode();
-			Element nn = (Element) tw.nextNode();
-			return nn;
+			return index.next(segment, SentenceIndex.SEGMENTS, 2);
 		}
 	}
 
@@ -182,13 +168,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.PHONE);
-			Element first = (Element) tw.firstChild();
-			if (first != null) {
-				assert first.getTagName().equals(MaryXML.PHONE) : "Unexpected tag name: expected " + MaryXML.PHONE + ", got "
-						+ first.getTagName();
-			}
-			return first;
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
+				return null;
+			return index.first(word, SentenceIndex.PHONES);
 		}
 	}
 
@@ -204,13 +187,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.PHONE);
-			Element last = (Element) tw.lastChild();
-			if (last != null) {
-				assert last.getTagName().equals(MaryXML.PHONE) : "Unexpected tag name: expected " + MaryXML.PHONE + ", got "
-						+ last.getTagName();
-			}
-			return last;
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
+				return null;
+			return index.last(word, SentenceIndex.PHONES);
 		}
 	}
 
@@ -226,13 +206,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.SYLLABLE);
-			Element first = (Element) tw.firstChild();
-			if (first != null) {
-				assert first.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE
-						+ ", got " + first.getTagName();
-			}
-			return first;
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
+				return null;
+			return index.first(word, SentenceIndex.SYLLABLES);
 		}
 	}
 
@@ -248,13 +225,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.SYLLABLE);
-			Element last = (Element) tw.lastChild();
-			if (last != null) {
-				assert last.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE
-						+ ", got " + last.getTagName();
-			}
-			return last;
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
+				return null;
+			return index.last(word, SentenceIndex.SYLLABLES);
 		}
 	}
 
@@ -300,17 +274,10 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.SYLLABLE);
-			tw.setCurrentNode(current);
-			Element previous = (Element) tw.previousNode();
-			if (previous != null) {
-				assert previous.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE
-						+ ", got " + previous.getTagName();
-			}
-			return previous;
+			return index.previous(current, SentenceIndex.SYLLABLES, 1);
 		}
 	}
 
@@ -334,18 +301,10 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.SYLLABLE);
-			tw.setCurrentNode(current);
-			Element previous = (Element) tw.previousNode();
-			Element pp = (Element) tw.previousNode();
-			if (pp != null) {
-				assert pp.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE + ", got "
-						+ pp.getTagName();
-			}
-			return pp;
+			return index.previous(current, SentenceIndex.SYLLABLES, 2);
 		}
 	}
 
@@ -369,17 +328,10 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.SYLLABLE);
-			tw.setCurrentNode(current);
-			Element next = (Element) tw.nextNode();
-			if (next != null) {
-				assert next.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE
-						+ ", got " + next.getTagName();
-			}
-			return next;
+			return index.next(current, SentenceIndex.SYLLABLES, 1);
 		}
 	}
 
@@ -403,18 +355,10 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.SYLLABLE);
-			tw.setCurrentNode(current);
-			Element next = (Element) tw.nextNode();
-			Element nn = (Element) tw.nextNode();
-			if (nn != null) {
-				assert nn.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE + ", got "
-						+ nn.getTagName();
-			}
-			return nn;
+			return index.next(current, SentenceIndex.SYLLABLES, 2);
 		}
 	}
 
@@ -447,13 +391,10 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
-			Element last = (Element) tw.lastChild();
-			if (last != null) {
-				assert last.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE
-						+ ", got " + last.getTagName();
-			}
-			return last;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return null;
+			return index.last(phrase, SentenceIndex.SYLLABLES);
 		}
 	}
 
@@ -471,25 +412,11 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(current);
 			// The next word is the next token with a "ph" attribute:
-			Element nextWord = null;
-			Element nextToken;
-			while ((nextToken = (Element) tw.nextNode()) != null) {
-				if (nextToken.hasAttribute("ph")) {
-					nextWord = nextToken;
-					break;
-				}
-			}
-			if (nextWord != null) {
-				assert nextWord.getTagName().equals(MaryXML.TOKEN) : "Unexpected tag name: expected " + MaryXML.TOKEN + ", got "
-						+ nextWord.getTagName();
-			}
-			return nextWord;
+			return index.next(current, SentenceIndex.WORDS, 1);
 		}
 	}
 
@@ -507,25 +434,11 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(current);
-			// The next word is the next token with a "ph" attribute:
-			Element prevWord = null;
-			Element prevToken;
-			while ((prevToken = (Element) tw.previousNode()) != null) {
-				if (prevToken.hasAttribute("ph")) {
-					prevWord = prevToken;
-					break;
-				}
-			}
-			if (prevWord != null) {
-				assert prevWord.getTagName().equals(MaryXML.TOKEN) : "Unexpected tag name: expected " + MaryXML.TOKEN + ", got "
-						+ prevWord.getTagName();
-			}
-			return prevWord;
+			// The previous word is the previous token with a "ph" attribute:
+			return index.previous(current, SentenceIndex.WORDS, 1);
 		}
 	}
 
@@ -543,32 +456,15 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(current);
 			// The next word is the next token with a "ph" attribute:
-			Element nextWord = null;
-			Element nextToken;
-			while ((nextToken = (Element) tw.nextNode()) != null) {
-				if (nextToken.hasAttribute("ph")) {
-					nextWord = nextToken;
-					break;
-				}
-			}
+			Element nextWord = index.next(current, SentenceIndex.WORDS, 1);
 			if (nextWord == null) {
 				return null;
 			}
-			assert nextWord.getTagName().equals(MaryXML.TOKEN) : "Unexpected tag name: expected " + MaryXML.TOKEN + ", got "
-					+ nextWord.getTagName();
-			TreeWalker sw = MaryDomUtils.createTreeWalker(nextWord, MaryXML.PHONE);
-			Element first = (Element) sw.firstChild();
-			if (first != null) {
-				assert first.getTagName().equals(MaryXML.PHONE) : "Unexpected tag name: expected " + MaryXML.PHONE + ", got "
-						+ first.getTagName();
-			}
-			return first;
+			return index.first(nextWord, SentenceIndex.PHONES);
 		}
 	}
 
@@ -577,26 +473,11 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			Element lastWord = null;
-			Element lastToken = (Element) tw.lastChild();
-			// The last word is the lastToken which has a "ph" attribute:
-			while (lastToken != null) {
-				if (lastToken.hasAttribute("ph")) {
-					lastWord = lastToken;
-					break;
-				}
-				lastToken = (Element) tw.previousNode();
-			}
-
-			if (lastWord != null) {
-				assert lastWord.getTagName().equals(MaryXML.TOKEN) : "Unexpected tag name: expected " + MaryXML.TOKEN + ", got "
-						+ lastWord.getTagName();
-			}
-			return lastWord;
+			// The last word is the last token which has a "ph" attribute:
+			return index.last(index.getSentence(), SentenceIndex.WORDS);
 		}
 	}
 
@@ -863,16 +744,10 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return (byte) 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return (byte) 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHRASE);
-			int count = 0;
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			return (byte) Math.min(index.count(index.getSentence(), SentenceIndex.PHRASES), RAIL_LIMIT);
 		}
 	}
 
@@ -899,18 +774,11 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return (byte) 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return (byte) 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			int count = 0;
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				// only tokens with a "ph" attribute count as words:
-				if (e.hasAttribute("ph"))
-					count++;
-			}
-			return (byte) count;
+			// only tokens with a "ph" attribute count as words:
+			return (byte) Math.min(index.count(index.getSentence(), SentenceIndex.WORDS), RAIL_LIMIT);
 		}
 	}
 
@@ -939,13 +807,10 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return (byte) 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
-			int count = 0;
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return (byte) 0;
+			return (byte) Math.min(index.count(phrase, SentenceIndex.SYLLABLES), RAIL_LIMIT);
 		}
 	}
 
@@ -979,13 +844,10 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return (byte) 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.TOKEN);
-			int count = 0;
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return (byte) 0;
+			return (byte) Math.min(index.count(phrase, SentenceIndex.TOKENS), RAIL_LIMIT);
 		}
 	}
 
@@ -1015,13 +877,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return (byte) 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.SYLLABLE);
-			int count = 0;
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
+				return (byte) 0;
+			return (byte) Math.min(index.count(word, SentenceIndex.SYLLABLES), RAIL_LIMIT);
 		}
 	}
 
@@ -1050,13 +909,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return (byte) 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.PHONE);
-			int count = 0;
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
+				return (byte) 0;
+			return (byte) Math.min(index.count(word, SentenceIndex.PHONES), RAIL_LIMIT);
 		}
 	}
 
@@ -1093,13 +949,10 @@ public class MaryGenericFeatureProcessors {
 			Element syllable = (Element) segment.getParentNode();
 			if (syllable == null)
 				return (byte) 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(syllable, MaryXML.PHONE);
-			int count = 0;
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			SentenceIndex index = SentenceIndex.get(syllable);
+			if (index == null)
+				return (byte) 0;
+			return (byte) Math.min(index.count(syllable, SentenceIndex.PHONES), RAIL_LIMIT);
 		}
 	}
 
@@ -1213,14 +1066,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return (byte) 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.PHONE);
-			tw.setCurrentNode(segment);
-			int count = 0;
-			Element e;
-			while ((e = (Element) tw.previousNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
+				return (byte) 0;
+			return (byte) Math.min(index.countBefore(segment, word, SentenceIndex.PHONES), RAIL_LIMIT);
 		}
 	}
 
@@ -1253,14 +1102,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return (byte) 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.PHONE);
-			tw.setCurrentNode(segment);
-			int count = 0;
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
+				return (byte) 0;
+			return (byte) Math.min(index.countAfter(segment, word, SentenceIndex.PHONES), RAIL_LIMIT);
 		}
 	}
 
@@ -1381,17 +1226,11 @@ public class MaryGenericFeatureProcessors {
 				return 0;
 			assert word.getTagName().equals(MaryXML.TOKEN) : "Unexpected tag name: expected " + MaryXML.TOKEN + ", got "
 					+ word.getTagName();
-			Element sentence = (Element) MaryDomUtils.getAncestor(word, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
 				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN, MaryXML.BOUNDARY);
-			tw.setCurrentNode(word);
-			// The next word is the next token with a "ph" attribute:
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null) {
-				if (e.getTagName().equals(MaryXML.BOUNDARY) || e.getTagName().equals(MaryXML.TOKEN) && e.hasAttribute("ph"))
-					break;
-			}
+			// The next word is the next token with a "ph" attribute, unless a boundary comes first:
+			Element e = index.next(word, SentenceIndex.WORDS_AND_BOUNDARIES, 1);
 			if (e == null) {
 				// we are the last token in the sentence, but there is no boundary...
 				// OK, let's say it is sentence-final anyway:
@@ -1525,23 +1364,15 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return 0;
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
+				return 0;
 			// is there another segment following in the token?
-			TreeWalker tww = MaryDomUtils.createTreeWalker(word, MaryXML.PHONE);
-			tww.setCurrentNode(segment);
-			if (tww.nextNode() != null)
+			if (index.countAfter(segment, word, SentenceIndex.PHONES) > 0)
 				return 0;
 			// else, it is at least word-final.
-			Element sentence = (Element) MaryDomUtils.getAncestor(word, MaryXML.SENTENCE);
-			if (sentence == null)
-				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN, MaryXML.BOUNDARY);
-			tw.setCurrentNode(word);
-			// The next word is the next token with a "ph" attribute:
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null) {
-				if (e.getTagName().equals(MaryXML.BOUNDARY) || e.getTagName().equals(MaryXML.TOKEN) && e.hasAttribute("ph"))
-					break;
-			}
+			// The next word is the next token with a "ph" attribute, unless a boundary comes first:
+			Element e = index.next(word, SentenceIndex.WORDS_AND_BOUNDARIES, 1);
 			if (e == null) {
 				// we are the last token in the sentence, but there is no boundary...
 				// OK, let's say it is sentence-final anyway:
@@ -1640,12 +1471,10 @@ public class MaryGenericFeatureProcessors {
 			Element syllable = navigator.getElement(target);
 			if (syllable == null)
 				return 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(syllable, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(syllable);
+			if (index == null)
 				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.SYLLABLE, MaryXML.BOUNDARY);
-			tw.setCurrentNode(syllable);
-			Element e = (Element) tw.nextNode();
+			Element e = index.next(syllable, SentenceIndex.SYLLABLES_AND_BOUNDARIES, 1);
 			if (e == null)
 				return 0;
 			if (e.getTagName().equals(MaryXML.SYLLABLE))
@@ -1687,10 +1516,12 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(current, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
-			tw.setCurrentNode(current);
-			Element s;
-			while ((s = (Element) tw.nextNode()) != null) {
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
+			int end = index.endIndex(phrase, SentenceIndex.SYLLABLES);
+			for (int i = index.nextIndex(current, SentenceIndex.SYLLABLES); i < end; i++) {
+				Element s = index.get(SentenceIndex.SYLLABLES, i);
 				if (s.hasAttribute("accent")) {
 					String accent = s.getAttribute("accent");
 					return values.get(accent);
@@ -1727,10 +1558,12 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(current, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
-			tw.setCurrentNode(current);
-			Element s;
-			while ((s = (Element) tw.previousNode()) != null) {
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
+			int first = index.nextIndex(phrase, SentenceIndex.SYLLABLES);
+			for (int i = index.previousIndex(current, SentenceIndex.SYLLABLES); i >= first; i--) {
+				Element s = index.get(SentenceIndex.SYLLABLES, i);
 				if (s.hasAttribute("accent")) {
 					String accent = s.getAttribute("accent");
 					return values.get(accent);
@@ -1805,19 +1638,12 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
-			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
 			Element syllable = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SYLLABLE);
-			if (syllable != null) {
-				tw.setCurrentNode(syllable);
-			} else {
-				tw.setCurrentNode(segment);
-			}
-			Element e;
-			while ((e = (Element) tw.previousNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			Element current = syllable != null ? syllable : segment;
+			return (byte) Math.min(index.countBefore(current, phrase, SentenceIndex.SYLLABLES), RAIL_LIMIT);
 		}
 	}
 
@@ -1848,14 +1674,10 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
-			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
-			tw.setCurrentNode(segment);
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
+			return (byte) Math.min(index.countAfter(segment, phrase, SentenceIndex.SYLLABLES), RAIL_LIMIT);
 		}
 	}
 
@@ -1886,18 +1708,16 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
 			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
 			Element syllable = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SYLLABLE);
-			if (syllable != null) {
-				tw.setCurrentNode(syllable);
-			} else {
-				tw.setCurrentNode(segment);
-			}
-			Element e;
-			while ((e = (Element) tw.previousNode()) != null && count < RAIL_LIMIT) {
-				String stress = e.getAttribute("stress");
-				if (stress.equals("1"))
+			Element current = syllable != null ? syllable : segment;
+			int first = index.nextIndex(phrase, SentenceIndex.SYLLABLES);
+			for (int i = index.previousIndex(current, SentenceIndex.SYLLABLES); i >= first && count < RAIL_LIMIT; i--) {
+				Element e = index.get(SentenceIndex.SYLLABLES, i);
+				if (e.getAttribute("stress").equals("1"))
 					count++;
 			}
 			return (byte) count;
@@ -1931,13 +1751,14 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
 			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
-			tw.setCurrentNode(segment);
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				String stress = e.getAttribute("stress");
-				if (stress.equals("1"))
+			int end = index.endIndex(phrase, SentenceIndex.SYLLABLES);
+			for (int i = index.nextIndex(segment, SentenceIndex.SYLLABLES); i < end && count < RAIL_LIMIT; i++) {
+				Element e = index.get(SentenceIndex.SYLLABLES, i);
+				if (e.getAttribute("stress").equals("1"))
 					count++;
 			}
 			return (byte) count;
@@ -1971,18 +1792,16 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
 			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
 			Element syllable = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SYLLABLE);
-			if (syllable != null) {
-				tw.setCurrentNode(syllable);
-			} else {
-				tw.setCurrentNode(segment);
-			}
-			Element e;
-			while ((e = (Element) tw.previousNode()) != null && count < RAIL_LIMIT) {
-				String accent = e.getAttribute("accent");
-				if (!accent.equals(""))
+			Element current = syllable != null ? syllable : segment;
+			int first = index.nextIndex(phrase, SentenceIndex.SYLLABLES);
+			for (int i = index.previousIndex(current, SentenceIndex.SYLLABLES); i >= first && count < RAIL_LIMIT; i--) {
+				Element e = index.get(SentenceIndex.SYLLABLES, i);
+				if (!e.getAttribute("accent").equals(""))
 					count++;
 			}
 			return (byte) count;
@@ -2016,13 +1835,14 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
 			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
-			tw.setCurrentNode(segment);
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				String accent = e.getAttribute("accent");
-				if (!accent.equals(""))
+			int end = index.endIndex(phrase, SentenceIndex.SYLLABLES);
+			for (int i = index.nextIndex(segment, SentenceIndex.SYLLABLES); i < end && count < RAIL_LIMIT; i++) {
+				Element e = index.get(SentenceIndex.SYLLABLES, i);
+				if (!e.getAttribute("accent").equals(""))
 					count++;
 			}
 			return (byte) count;
@@ -2056,21 +1876,13 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
-			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.TOKEN);
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
-			if (word != null) {
-				tw.setCurrentNode(word);
-			} else {
-				tw.setCurrentNode(segment);
-			}
-			Element e;
-			while ((e = (Element) tw.previousNode()) != null && count < RAIL_LIMIT) {
-				// only count tokens that have a "ph" attribute:
-				if (e.hasAttribute("ph"))
-					count++;
-			}
-			return (byte) count;
+			Element current = word != null ? word : segment;
+			// only count tokens that have a "ph" attribute:
+			return (byte) Math.min(index.countBefore(current, phrase, SentenceIndex.WORDS), RAIL_LIMIT);
 		}
 	}
 
@@ -2101,16 +1913,11 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
-			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.TOKEN);
-			tw.setCurrentNode(segment);
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				// only count tokens that have a "ph" attribute
-				if (e.hasAttribute("ph"))
-					count++;
-			}
-			return (byte) count;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
+			// only count tokens that have a "ph" attribute:
+			return (byte) Math.min(index.countAfter(segment, phrase, SentenceIndex.WORDS), RAIL_LIMIT);
 		}
 	}
 
@@ -2138,24 +1945,13 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return 0;
-			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
-			if (word != null) {
-				tw.setCurrentNode(word);
-			} else {
-				tw.setCurrentNode(segment);
-			}
-			Element e;
-			while ((e = (Element) tw.previousNode()) != null && count < RAIL_LIMIT) {
-				// only count tokens that have a "ph" attribute:
-				if (e.hasAttribute("ph"))
-					count++;
-			}
-			return (byte) count;
+			Element current = word != null ? word : segment;
+			// only count tokens that have a "ph" attribute:
+			return (byte) Math.min(index.countBefore(current, index.getSentence(), SentenceIndex.WORDS), RAIL_LIMIT);
 		}
 	}
 
@@ -2183,19 +1979,11 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return 0;
-			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(segment);
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				// only count tokens that have a "ph" attribute:
-				if (e.hasAttribute("ph"))
-					count++;
-			}
-			return (byte) count;
+			// only count tokens that have a "ph" attribute:
+			return (byte) Math.min(index.countAfter(segment, index.getSentence(), SentenceIndex.WORDS), RAIL_LIMIT);
 		}
 	}
 
@@ -2223,22 +2011,12 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return 0;
-			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHRASE);
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
-			if (phrase != null) {
-				tw.setCurrentNode(phrase);
-			} else {
-				tw.setCurrentNode(segment);
-			}
-			Element e;
-			while ((e = (Element) tw.previousNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			Element current = phrase != null ? phrase : segment;
+			return (byte) Math.min(index.countBefore(current, index.getSentence(), SentenceIndex.PHRASES), RAIL_LIMIT);
 		}
 	}
 
@@ -2266,17 +2044,10 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(segment);
+			if (index == null)
 				return 0;
-			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHRASE);
-			tw.setCurrentNode(segment);
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
-				count++;
-			}
-			return (byte) count;
+			return (byte) Math.min(index.countAfter(segment, index.getSentence(), SentenceIndex.PHRASES), RAIL_LIMIT);
 		}
 	}
 
@@ -2307,19 +2078,17 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
 			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
 			Element syllable = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SYLLABLE);
-			if (syllable != null) {
-				tw.setCurrentNode(syllable);
-			} else {
-				tw.setCurrentNode(segment);
-			}
-			Element e;
-			while ((e = (Element) tw.previousNode()) != null && count < RAIL_LIMIT) {
+			Element current = syllable != null ? syllable : segment;
+			int first = index.nextIndex(phrase, SentenceIndex.SYLLABLES);
+			for (int i = index.previousIndex(current, SentenceIndex.SYLLABLES); i >= first && count < RAIL_LIMIT; i--) {
+				Element e = index.get(SentenceIndex.SYLLABLES, i);
 				count++;
-				String accent = e.getAttribute("accent");
-				if (!accent.equals(""))
+				if (!e.getAttribute("accent").equals(""))
 					break;
 			}
 			return (byte) count;
@@ -2353,14 +2122,15 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
 			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
-			tw.setCurrentNode(segment);
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
+			int end = index.endIndex(phrase, SentenceIndex.SYLLABLES);
+			for (int i = index.nextIndex(segment, SentenceIndex.SYLLABLES); i < end && count < RAIL_LIMIT; i++) {
+				Element e = index.get(SentenceIndex.SYLLABLES, i);
 				count++;
-				String accent = e.getAttribute("accent");
-				if (!accent.equals(""))
+				if (!e.getAttribute("accent").equals(""))
 					break;
 			}
 			return (byte) count;
@@ -2394,19 +2164,17 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
 			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
 			Element syllable = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SYLLABLE);
-			if (syllable != null) {
-				tw.setCurrentNode(syllable);
-			} else {
-				tw.setCurrentNode(segment);
-			}
-			Element e;
-			while ((e = (Element) tw.previousNode()) != null && count < RAIL_LIMIT) {
+			Element current = syllable != null ? syllable : segment;
+			int first = index.nextIndex(phrase, SentenceIndex.SYLLABLES);
+			for (int i = index.previousIndex(current, SentenceIndex.SYLLABLES); i >= first && count < RAIL_LIMIT; i--) {
+				Element e = index.get(SentenceIndex.SYLLABLES, i);
 				count++;
-				String stress = e.getAttribute("stress");
-				if (stress.equals("1"))
+				if (e.getAttribute("stress").equals("1"))
 					break;
 			}
 			return (byte) count;
@@ -2440,14 +2208,15 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return 0;
+			SentenceIndex index = SentenceIndex.get(phrase);
+			if (index == null)
+				return 0;
 			int count = 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
-			tw.setCurrentNode(segment);
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
+			int end = index.endIndex(phrase, SentenceIndex.SYLLABLES);
+			for (int i = index.nextIndex(segment, SentenceIndex.SYLLABLES); i < end && count < RAIL_LIMIT; i++) {
+				Element e = index.get(SentenceIndex.SYLLABLES, i);
 				count++;
-				String stress = e.getAttribute("stress");
-				if (stress.equals("1"))
+				if (e.getAttribute("stress").equals("1"))
 					break;
 			}
 			return (byte) count;
@@ -2487,12 +2256,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = navigator.getElement(target);
 			if (word == null)
 				return 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(word, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
 				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN, MaryXML.BOUNDARY);
-			tw.setCurrentNode(word);
-			Element next = (Element) tw.nextNode();
+			Element next = index.next(word, SentenceIndex.TOKENS_AND_BOUNDARIES, 1);
 			if (next == null || !next.getTagName().equals(MaryXML.TOKEN) || next.hasAttribute("ph"))
 				return 0;
 			String text = MaryDomUtils.tokenText(next);
@@ -2516,13 +2283,12 @@ public class MaryGenericFeatureProcessors {
 			Element word = navigator.getElement(target);
 			if (word == null)
 				return 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(word, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
 				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(word);
-			Element e;
-			while ((e = (Element) tw.nextNode()) != null) {
+			int end = index.size(SentenceIndex.TOKENS);
+			for (int i = index.nextIndex(word, SentenceIndex.TOKENS); i < end; i++) {
+				Element e = index.get(SentenceIndex.TOKENS, i);
 				if (e.hasAttribute("ph")) // a word
 					continue;
 				// potentially a punctuation
@@ -2548,13 +2314,11 @@ public class MaryGenericFeatureProcessors {
 			Element word = navigator.getElement(target);
 			if (word == null)
 				return 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(word, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
 				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(word);
-			Element e;
-			while ((e = (Element) tw.previousNode()) != null) {
+			for (int i = index.previousIndex(word, SentenceIndex.TOKENS); i >= 0; i--) {
+				Element e = index.get(SentenceIndex.TOKENS, i);
 				if (e.hasAttribute("ph")) // a word
 					continue;
 				// potentially a punctuation
@@ -2584,14 +2348,13 @@ public class MaryGenericFeatureProcessors {
 			Element word = navigator.getElement(target);
 			if (word == null)
 				return 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(word, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
 				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(word);
-			Element e;
 			int count = 0;
-			while ((e = (Element) tw.nextNode()) != null && count < RAIL_LIMIT) {
+			int end = index.size(SentenceIndex.TOKENS);
+			for (int i = index.nextIndex(word, SentenceIndex.TOKENS); i < end && count < RAIL_LIMIT; i++) {
+				Element e = index.get(SentenceIndex.TOKENS, i);
 				count++;
 				if (e.hasAttribute("ph")) // a word
 					continue;
@@ -2622,14 +2385,12 @@ public class MaryGenericFeatureProcessors {
 			Element word = navigator.getElement(target);
 			if (word == null)
 				return 0;
-			Element sentence = (Element) MaryDomUtils.getAncestor(word, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(word);
+			if (index == null)
 				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(word);
-			Element e;
 			int count = 0;
-			while ((e = (Element) tw.previousNode()) != null && count < RAIL_LIMIT) {
+			for (int i = index.previousIndex(word, SentenceIndex.TOKENS); i >= 0 && count < RAIL_LIMIT; i--) {
+				Element e = index.get(SentenceIndex.TOKENS, i);
 				count++;
 				if (e.hasAttribute("ph")) // a word
 					continue;
@@ -2694,12 +2455,11 @@ public class MaryGenericFeatureProcessors {
 			// find out the position of the target
 			boolean phraseFinal = false;
 			String endtone = null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(syllable, MaryXML.SENTENCE);
-			if (sentence == null)
+			SentenceIndex index = SentenceIndex.get(syllable);
+			if (index == null)
 				return 0;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.SYLLABLE, MaryXML.BOUNDARY);
-			tw.setCurrentNode(syllable);
-			Element e = (Element) tw.nextNode();
+			int next = index.nextIndex(syllable, SentenceIndex.SYLLABLES_AND_BOUNDARIES);
+			Element e = index.get(SentenceIndex.SYLLABLES_AND_BOUNDARIES, next);
 			if (e != null) {
 				if (e.getTagName().equals(MaryXML.BOUNDARY)) {
 					phraseFinal = true;
@@ -2711,7 +2471,7 @@ public class MaryGenericFeatureProcessors {
 							nuclear = false;
 							break;
 						}
-						e = (Element) tw.nextNode();
+						e = index.get(SentenceIndex.SYLLABLES_AND_BOUNDARIES, ++next);
 					}
 				}
 			}
@@ -0,0 +1,390 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.features;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import marytts.datatypes.MaryXML;
+import marytts.util.dom.MaryDomUtils;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.events.Event;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+import org.w3c.dom.events.MutationEvent;
+
+/**
+ * The segments, syllables, tokens and phrases of a sentence, each in document order, together with the position of every element
+ * of the sentence in these lists. This answers in constant time what the feature processors would otherwise find out with a
+ * TreeWalker over the sentence for each feature of each target: the n-th syllable before or after a given element, the first or
+ * last segment in a word, the number of words in a phrase, and so on. The element lists correspond to TreeWalkers with the
+ * sentence as root and the tag names of the respective category.
+ * <p>
+ * The index is built in one pass over the sentence when it is first needed, and kept with the sentence element. It is dropped as
+ * soon as elements are inserted into or removed from the sentence, or a token gains or loses its "ph" attribute; other attribute
+ * changes, such as predicted durations, leave it intact.
+ *
+ * @author agent
+ */
+public class SentenceIndex {
+	/** Phones and boundaries */
+	public static final int SEGMENTS = 0;
+	/** Phones */
+	public static final int PHONES = 1;
+	/** Syllables */
+	public static final int SYLLABLES = 2;
+	/** Tokens, with or without a "ph" attribute */
+	public static final int TOKENS = 3;
+	/** Tokens with a "ph" attribute */
+	public static final int WORDS = 4;
+	/** Phrases */
+	public static final int PHRASES = 5;
+	/** Syllables and boundaries */
+	public static final int SYLLABLES_AND_BOUNDARIES = 6;
+	/** Tokens and boundaries */
+	public static final int TOKENS_AND_BOUNDARIES = 7;
+	/** Tokens with a "ph" attribute, and boundaries */
+	public static final int WORDS_AND_BOUNDARIES = 8;
+	private static final int NUM_CATEGORIES = 9;
+
+	private static final String USER_DATA_KEY = SentenceIndex.class.getName();
+	private static final String[] MUTATION_EVENTS = new String[] { "DOMNodeInserted", "DOMNodeRemoved", "DOMAttrModified" };
+
+	/**
+	 * Where an element is in the category lists.
+	 */
+	private static class Position {
+		/** for each category, the number of its elements which start before this element */
+		final int[] start = new int[NUM_CATEGORIES];
+		/** for each category, the number of its elements which start before the end of this element */
+		final int[] end = new int[NUM_CATEGORIES];
+		/** a bit for each category this element belongs to */
+		int categories;
+
+		boolean isIn(int category) {
+			return (categories & (1 << category)) != 0;
+		}
+	}
+
+	/**
+	 * Get the index of the sentence containing the given element, building it if necessary.
+	 *
+	 * @param element
+	 *            an element inside a sentence
+	 * @return the index of the enclosing sentence, or null if element is not inside a sentence.
+	 */
+	public static SentenceIndex get(Element element) {
+		Element sentence = (Element) MaryDomUtils.getAncestor(element, MaryXML.SENTENCE);
+		if (sentence == null) {
+			return null;
+		}
+		SentenceIndex index = (SentenceIndex) sentence.getUserData(USER_DATA_KEY);
+		if (index == null) {
+			index = new SentenceIndex(sentence);
+			// Without mutation events we cannot tell when the index is out of date, so it is used for this request only:
+			if (sentence instanceof EventTarget) {
+				index.attach();
+			}
+		}
+		return index;
+	}
+
+	private final Element sentence;
+	private final Element[][] elements = new Element[NUM_CATEGORIES][];
+	private final Map<Node, Position> positions = new IdentityHashMap<Node, Position>();
+	private EventListener invalidator;
+
+	SentenceIndex(Element sentence) {
+		this.sentence = sentence;
+		List<List<Element>> lists = new ArrayList<List<Element>>(NUM_CATEGORIES);
+		for (int c = 0; c < NUM_CATEGORIES; c++) {
+			lists.add(new ArrayList<Element>());
+		}
+		add(sentence, lists);
+		for (int c = 0; c < NUM_CATEGORIES; c++) {
+			elements[c] = lists.get(c).toArray(new Element[0]);
+		}
+	}
+
+	private void add(Element e, List<List<Element>> lists) {
+		Position p = new Position();
+		String tag = e.getTagName();
+		if (tag.equals(MaryXML.PHONE)) {
+			p.categories = 1 << SEGMENTS | 1 << PHONES;
+		} else if (tag.equals(MaryXML.BOUNDARY)) {
+			p.categories = 1 << SEGMENTS | 1 << SYLLABLES_AND_BOUNDARIES | 1 << TOKENS_AND_BOUNDARIES | 1 << WORDS_AND_BOUNDARIES;
+		} else if (tag.equals(MaryXML.SYLLABLE)) {
+			p.categories = 1 << SYLLABLES | 1 << SYLLABLES_AND_BOUNDARIES;
+		} else if (tag.equals(MaryXML.TOKEN)) {
+			p.categories = 1 << TOKENS | 1 << TOKENS_AND_BOUNDARIES;
+			if (e.hasAttribute("ph")) {
+				p.categories |= 1 << WORDS | 1 << WORDS_AND_BOUNDARIES;
+			}
+		} else if (tag.equals(MaryXML.PHRASE)) {
+			p.categories = 1 << PHRASES;
+		}
+		for (int c = 0; c < NUM_CATEGORIES; c++) {
+			p.start[c] = lists.get(c).size();
+			if (p.isIn(c)) {
+				lists.get(c).add(e);
+			}
+		}
+		for (Node n = e.getFirstChild(); n != null; n = n.getNextSibling()) {
+			if (n.getNodeType() == Node.ELEMENT_NODE) {
+				add((Element) n, lists);
+			}
+		}
+		for (int c = 0; c < NUM_CATEGORIES; c++) {
+			p.end[c] = lists.get(c).size();
+		}
+		positions.put(e, p);
+	}
+
+	/**
+	 * Keep this index with the sentence until the sentence is modified.
+	 */
+	private void attach() {
+		invalidator = new EventListener() {
+			public void handleEvent(Event evt) {
+				if (isStructuralChange((MutationEvent) evt)) {
+					detach();
+				}
+			}
+		};
+		for (String type : MUTATION_EVENTS) {
+			((EventTarget) sentence).addEventListener(type, invalidator, false);
+		}
+		sentence.setUserData(USER_DATA_KEY, this, null);
+	}
+
+	private void detach() {
+		sentence.setUserData(USER_DATA_KEY, null, null);
+		for (String type : MUTATION_EVENTS) {
+			((EventTarget) sentence).removeEventListener(type, invalidator, false);
+		}
+	}
+
+	private static boolean isStructuralChange(MutationEvent evt) {
+		Node node = (Node) evt.getTarget();
+		if (evt.getType().equals("DOMAttrModified")) {
+			return "ph".equals(evt.getAttrName()) && node.getNodeName().equals(MaryXML.TOKEN);
+		}
+		// text nodes are not indexed
+		return node.getNodeType() == Node.ELEMENT_NODE;
+	}
+
+	private Position position(Element e) {
+		Position p = positions.get(e);
+		if (p == null) {
+			throw new IllegalArgumentException("Element '" + e.getTagName() + "' is not inside the indexed sentence");
+		}
+		return p;
+	}
+
+	/**
+	 * The sentence which this index covers.
+	 *
+	 * @return the sentence element
+	 */
+	public Element getSentence() {
+		return sentence;
+	}
+
+	/**
+	 * The number of elements in the given category.
+	 *
+	 * @param category
+	 *            one of the category constants
+	 * @return the number of elements of that category in the sentence
+	 */
+	public int size(int category) {
+		return elements[category].length;
+	}
+
+	/**
+	 * Get an element by its index in its category.
+	 *
+	 * @param category
+	 *            one of the category constants
+	 * @param index
+	 *            the position of the element in document order
+	 * @return the element, or null if index is out of range
+	 */
+	public Element get(int category, int index) {
+		Element[] list = elements[category];
+		if (index < 0 || index >= list.length) {
+			return null;
+		}
+		return list[index];
+	}
+
+	/**
+	 * The index of the element of the given category which precedes e in document order, like TreeWalker.previousNode() would
+	 * return it after TreeWalker.setCurrentNode(e). This can be an ancestor of e.
+	 *
+	 * @param e
+	 *            an element inside the sentence
+	 * @param category
+	 *            one of the category constants
+	 * @return the index of the preceding element, or -1 if there is none.
+	 */
+	public int previousIndex(Element e, int category) {
+		return position(e).start[category] - 1;
+	}
+
+	/**
+	 * The index of the element of the given category which follows e in document order, like TreeWalker.nextNode() would return
+	 * it after TreeWalker.setCurrentNode(e). This can be a descendant of e; for an element with descendants of the category, it
+	 * is the index of the first of them.
+	 *
+	 * @param e
+	 *            an element inside the sentence
+	 * @param category
+	 *            one of the category constants
+	 * @return the index of the following element; this is equal to {@link #size(int)} if there is none.
+	 */
+	public int nextIndex(Element e, int category) {
+		Position p = position(e);
+		return p.isIn(category) ? p.start[category] + 1 : p.start[category];
+	}
+
+	/**
+	 * The index after the last descendant of e in the given category, so that the descendants of e are the elements from
+	 * {@link #nextIndex(Element, int)} up to, but excluding, this index.
+	 *
+	 * @param e
+	 *            an element inside the sentence
+	 * @param category
+	 *            one of the category constants
+	 * @return the end index of e's descendants
+	 */
+	public int endIndex(Element e, int category) {
+		return position(e).end[category];
+	}
+
+	/**
+	 * The element n positions before e in the given category.
+	 *
+	 * @param e
+	 *            an element inside the sentence
+	 * @param category
+	 *            one of the category constants
+	 * @param n
+	 *            1 for the immediately preceding element, 2 for the one before, etc.
+	 * @return the element, or null if there is no such element in the sentence.
+	 */
+	public Element previous(Element e, int category, int n) {
+		return get(category, previousIndex(e, category) - (n - 1));
+	}
+
+	/**
+	 * The element n positions after e in the given category.
+	 *
+	 * @param e
+	 *            an element inside the sentence
+	 * @param category
+	 *            one of the category constants
+	 * @param n
+	 *            1 for the immediately following element, 2 for the one after, etc.
+	 * @return the element, or null if there is no such element in the sentence.
+	 */
+	public Element next(Element e, int category, int n) {
+		return get(category, nextIndex(e, category) + (n - 1));
+	}
+
+	/**
+	 * The first descendant of root in the given category.
+	 *
+	 * @param root
+	 *            an element inside the sentence, or the sentence itself
+	 * @param category
+	 *            one of the category constants
+	 * @return the element, or null if root has no descendants in that category.
+	 */
+	public Element first(Element root, int category) {
+		if (count(root, category) == 0) {
+			return null;
+		}
+		return get(category, nextIndex(root, category));
+	}
+
+	/**
+	 * The last descendant of root in the given category.
+	 *
+	 * @param root
+	 *            an element inside the sentence, or the sentence itself
+	 * @param category
+	 *            one of the category constants
+	 * @return the element, or null if root has no descendants in that category.
+	 */
+	public Element last(Element root, int category) {
+		if (count(root, category) == 0) {
+			return null;
+		}
+		return get(category, endIndex(root, category) - 1);
+	}
+
+	/**
+	 * The number of descendants of root in the given category.
+	 *
+	 * @param root
+	 *            an element inside the sentence, or the sentence itself
+	 * @param category
+	 *            one of the category constants
+	 * @return the number of elements
+	 */
+	public int count(Element root, int category) {
+		return endIndex(root, category) - nextIndex(root, category);
+	}
+
+	/**
+	 * The number of descendants of root in the given category which precede e.
+	 *
+	 * @param e
+	 *            a descendant of root
+	 * @param root
+	 *            an element inside the sentence, or the sentence itself
+	 * @param category
+	 *            one of the category constants
+	 * @return the number of elements
+	 */
+	public int countBefore(Element e, Element root, int category) {
+		return previousIndex(e, category) + 1 - nextIndex(root, category);
+	}
+
+	/**
+	 * The number of descendants of root in the given category which follow e, including the descendants of e.
+	 *
+	 * @param e
+	 *            a descendant of root
+	 * @param root
+	 *            an element inside the sentence, or the sentence itself
+	 * @param category
+	 *            one of the category constants
+	 * @return the number of elements
+	 */
+	public int countAfter(Element e, Element root, int category) {
+		return endIndex(root, category) - nextIndex(e, category);
+	}
+}
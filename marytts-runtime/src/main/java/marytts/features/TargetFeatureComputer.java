@@ -23,11 +23,19 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import marytts.unitselection.select.Target;
 
+import org.w3c.dom.Document;
+
 /**
  * Compute a given set of features for a Target.
  * 
@@ -148,6 +156,164 @@ public class TargetFeatureComputer {
 		return new FeatureVector(byteFeatures, shortFeatures, floatFeatures, 0);
 	}
 
+	/**
+	 * Create feature columns which fit the feature processors of this feature computer.
+	 * 
+	 * @param capacity
+	 *            the number of targets to allocate space for
+	 * @return empty feature columns
+	 */
+	public FeatureColumns createFeatureColumns(int capacity) {
+		return new FeatureColumns(byteValuedDiscreteFeatureProcessors.length, shortValuedDiscreteFeatureProcessors.length,
+				continuousFeatureProcessors.length, capacity);
+	}
+
+	/**
+	 * Compute the features of all the given targets, column by column.
+	 * 
+	 * @param targets
+	 *            targets
+	 * @return the features of the targets, in the order of the list
+	 */
+	public FeatureColumns computeFeatures(List<Target> targets) {
+		FeatureColumns columns = createFeatureColumns(targets.size());
+		computeFeatures(targets, columns);
+		return columns;
+	}
+
+	/**
+	 * Compute the features of all the given targets into existing feature columns, which are reused if they have enough space.
+	 * 
+	 * @param targets
+	 *            targets
+	 * @param columns
+	 *            feature columns created by {@link #createFeatureColumns(int)} or a feature computer with the same numbers of
+	 *            features
+	 * @throws IllegalArgumentException
+	 *             if the numbers of features in columns do not match the feature processors of this feature computer
+	 */
+	public void computeFeatures(List<Target> targets, FeatureColumns columns) {
+		checkColumns(columns);
+		columns.reset(targets.size());
+		computeFeatures(targets.toArray(new Target[targets.size()]), null, 0, targets.size(), columns);
+	}
+
+	/**
+	 * Compute the features of all the given targets into existing feature columns, using the given executor for targets in
+	 * different documents. A MaryXML document is not safe for use by several threads, so the targets of one document are always
+	 * processed by the same thread, wherever they are in the list; targets of different documents, such as the sentences of a
+	 * batch, are processed in parallel.
+	 * 
+	 * @param targets
+	 *            targets
+	 * @param columns
+	 *            feature columns created by {@link #createFeatureColumns(int)} or a feature computer with the same numbers of
+	 *            features
+	 * @param executor
+	 *            the executor running the tasks of the documents
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the tasks to complete
+	 * @throws IllegalArgumentException
+	 *             if the numbers of features in columns do not match the feature processors of this feature computer
+	 */
+	public void computeFeatures(List<Target> targets, final FeatureColumns columns, ExecutorService executor)
+			throws InterruptedException {
+		checkColumns(columns);
+		columns.reset(targets.size());
+		final Target[] array = targets.toArray(new Target[targets.size()]);
+		// number the documents in order of appearance; targets without an element count as one more document
+		Map<Document, Integer> documents = new IdentityHashMap<Document, Integer>();
+		int[] documentOf = new int[array.length];
+		for (int i = 0; i < array.length; i++) {
+			Document doc = array[i].getMaryxmlElement() != null ? array[i].getMaryxmlElement().getOwnerDocument() : null;
+			Integer d = documents.get(doc);
+			if (d == null) {
+				d = documents.size();
+				documents.put(doc, d);
+			}
+			documentOf[i] = d;
+		}
+		// the positions of the targets, grouped by document, and where each document's group starts
+		int[] starts = new int[documents.size() + 1];
+		for (int i = 0; i < array.length; i++) {
+			starts[documentOf[i] + 1]++;
+		}
+		for (int d = 0; d < documents.size(); d++) {
+			starts[d + 1] += starts[d];
+		}
+		final int[] positions = new int[array.length];
+		int[] next = Arrays.copyOf(starts, documents.size());
+		for (int i = 0; i < array.length; i++) {
+			positions[next[documentOf[i]]++] = i;
+		}
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int d = 0; d < documents.size(); d++) {
+			final int start = starts[d];
+			final int end = starts[d + 1];
+			futures.add(executor.submit(new Runnable() {
+				public void run() {
+					computeFeatures(array, positions, start, end, columns);
+				}
+			}));
+		}
+		for (Future<?> f : futures) {
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new RuntimeException("Problem computing features", cause);
+			}
+		}
+	}
+
+	private void checkColumns(FeatureColumns columns) {
+		if (columns.getNumberOfByteFeatures() != byteValuedDiscreteFeatureProcessors.length
+				|| columns.getNumberOfShortFeatures() != shortValuedDiscreteFeatureProcessors.length
+				|| columns.getNumberOfContinuousFeatures() != continuousFeatureProcessors.length) {
+			throw new IllegalArgumentException("Number of features in columns does not match number of feature processors");
+		}
+	}
+
+	/**
+	 * Compute the features of targets[from] to targets[to-1], or of the targets at positions[from] to positions[to-1] if
+	 * positions is not null, one feature processor at a time.
+	 */
+	private void computeFeatures(Target[] targets, int[] positions, int from, int to, FeatureColumns columns) {
+		int stride = columns.getCapacity();
+		byte[] bytes = columns.getByteColumns();
+		for (int i = 0; i < byteValuedDiscreteFeatureProcessors.length; i++) {
+			ByteValuedFeatureProcessor processor = byteValuedDiscreteFeatureProcessors[i];
+			int column = i * stride;
+			for (int k = from; k < to; k++) {
+				int t = positions == null ? k : positions[k];
+				bytes[column + t] = processor.process(targets[t]);
+			}
+		}
+		short[] shorts = columns.getShortColumns();
+		for (int i = 0; i < shortValuedDiscreteFeatureProcessors.length; i++) {
+			ShortValuedFeatureProcessor processor = shortValuedDiscreteFeatureProcessors[i];
+			int column = i * stride;
+			for (int k = from; k < to; k++) {
+				int t = positions == null ? k : positions[k];
+				shorts[column + t] = processor.process(targets[t]);
+			}
+		}
+		float[] floats = columns.getContinuousColumns();
+		for (int i = 0; i < continuousFeatureProcessors.length; i++) {
+			ContinuousFeatureProcessor processor = continuousFeatureProcessors[i];
+			int column = i * stride;
+			for (int k = from; k < to; k++) {
+				int t = positions == null ? k : positions[k];
+				floats[column + t] = processor.process(targets[t]);
+			}
+		}
+	}
+
 	/**
 	 * For the given feature vector, convert each encoded value into its string representation.
 	 * 
@@ -186,6 +352,39 @@ public class TargetFeatureComputer {
 		return buf.toString();
 	}
 
+	/**
+	 * For the given target in the feature columns, convert each encoded value into its string representation.
+	 * 
+	 * @param columns
+	 *            feature columns, which must match the feature processors known to this feature computer.
+	 * @param target
+	 *            the index of the target in columns
+	 * @return a string in which the string values of all features are separated by spaces.
+	 * @throws IllegalArgumentException
+	 *             if the numbers of features in columns do not match the set of feature processors in this feature computer.
+	 */
+	public String toStringValues(FeatureColumns columns, int target) {
+		checkColumns(columns);
+		StringBuilder buf = new StringBuilder();
+		int index = 0;
+		for (int i = 0; i < byteValuedDiscreteFeatureProcessors.length; i++, index++) {
+			if (buf.length() > 0)
+				buf.append(" ");
+			buf.append(byteValuedDiscreteFeatureProcessors[i].getValues()[(int) columns.getByteFeature(target, index) & 0xff]);
+		}
+		for (int i = 0; i < shortValuedDiscreteFeatureProcessors.length; i++, index++) {
+			if (buf.length() > 0)
+				buf.append(" ");
+			buf.append(shortValuedDiscreteFeatureProcessors[i].getValues()[(int) columns.getShortFeature(target, index)]);
+		}
+		for (int i = 0; i < continuousFeatureProcessors.length; i++, index++) {
+			if (buf.length() > 0)
+				buf.append(" ");
+			buf.append(columns.getContinuousFeature(target, index));
+		}
+		return buf.toString();
+	}
+
 	public ByteValuedFeatureProcessor[] getByteValuedFeatureProcessors() {
 		return byteValuedDiscreteFeatureProcessors;
 	}
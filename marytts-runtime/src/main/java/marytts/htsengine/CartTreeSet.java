@@ -63,16 +63,26 @@
 
 package marytts.htsengine;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import marytts.cart.CART;
 import marytts.cart.LeafNode.PdfLeafNode;
 import marytts.cart.io.HTSCARTReader;
+import marytts.cart.io.HTSCARTWriter;
+import marytts.cart.Node;
 import marytts.exceptions.MaryConfigurationException;
+import marytts.features.FeatureColumns;
 import marytts.features.FeatureDefinition;
 import marytts.features.FeatureVector;
+import marytts.htsengine.HMMData.FeatureType;
 import marytts.htsengine.HMMData.PdfFileFormat;
 import marytts.util.MaryUtils;
+import marytts.util.data.MaryHeader;
 
 import org.apache.log4j.Logger;
 
@@ -190,6 +200,159 @@ public class CartTreeSet {
 		}
 	}
 
+	/**
+	 * The model types in the order in which they are stored in a binary tree set.
+	 */
+	private static final FeatureType[] BINARY_TYPES = { FeatureType.DUR, FeatureType.LF0, FeatureType.MGC, FeatureType.STR,
+			FeatureType.MAG };
+
+	/**
+	 * Loads the CART trees from the binary form written by {@link #writeBinaryTo(DataOutput, FeatureDefinition)}. Only the model
+	 * types for which htsData has tree files configured are loaded; these must be present in the binary tree set.
+	 * 
+	 * @param htsData
+	 *            htsData
+	 * @param featureDef
+	 *            the feature definition of the voice, which must be the one used when writing the tree set
+	 * @param bb
+	 *            a buffer holding the binary tree set, e.g. a mapped file
+	 * @throws IOException
+	 *             IOException
+	 * @throws MaryConfigurationException
+	 *             if the buffer does not hold a tree set for this voice
+	 */
+	public void loadTreeSet(HMMData htsData, FeatureDefinition featureDef, ByteBuffer bb) throws IOException,
+			MaryConfigurationException {
+		MaryHeader hdr = new MaryHeader(bb);
+		if (hdr.getType() != MaryHeader.HTS_TREES || !hdr.hasCurrentVersion()) {
+			throw new MaryConfigurationException("Not a binary HTS tree set of the current version");
+		}
+		FeatureDefinition treeFeatureDef = new FeatureDefinition(bb);
+		if (!treeFeatureDef.featureEquals(featureDef)) {
+			throw new MaryConfigurationException("Tree set was made for different features: "
+					+ treeFeatureDef.featureEqualsAnalyse(featureDef));
+		}
+		HTSCARTReader htsReader = new HTSCARTReader();
+		for (FeatureType type : BINARY_TYPES) {
+			int length = bb.getInt();
+			int next = bb.position() + length;
+			if (getTreeStream(htsData, type) != null) {
+				if (length == 0) {
+					throw new MaryConfigurationException("Tree set does not contain the " + type + " trees");
+				}
+				logger.debug("Loading " + type + " trees...");
+				CART[] trees = htsReader.loadBinary(bb, featureDef);
+				if (bb.position() != next) {
+					throw new MaryConfigurationException("Inconsistent length of the " + type + " trees");
+				}
+				setTrees(type, trees, htsReader.getVectorSize());
+			}
+			bb.position(next);
+		}
+	}
+
+	/**
+	 * Write the trees loaded in this tree set, with their pdfs, in a binary form which can be loaded with
+	 * {@link #loadTreeSet(HMMData, FeatureDefinition, ByteBuffer)}.
+	 * 
+	 * @param out
+	 *            out
+	 * @param featureDef
+	 *            the feature definition with which the trees were loaded
+	 * @throws IOException
+	 *             IOException
+	 */
+	public void writeBinaryTo(DataOutput out, FeatureDefinition featureDef) throws IOException {
+		new MaryHeader(MaryHeader.HTS_TREES).writeTo(out);
+		featureDef.writeBinaryTo(out);
+		HTSCARTWriter htsWriter = new HTSCARTWriter();
+		for (FeatureType type : BINARY_TYPES) {
+			CART[] trees = getTrees(type);
+			if (trees == null) {
+				out.writeInt(0);
+				continue;
+			}
+			// prefix each model type with its length, so that it can be skipped
+			ByteArrayOutputStream section = new ByteArrayOutputStream();
+			htsWriter.dumpBinary(trees, getVectorSize(type), new DataOutputStream(section));
+			out.writeInt(section.size());
+			out.write(section.toByteArray());
+		}
+	}
+
+	private CART[] getTrees(FeatureType type) {
+		switch (type) {
+		case DUR:
+			return durTree;
+		case LF0:
+			return lf0Tree;
+		case MGC:
+			return mgcTree;
+		case STR:
+			return strTree;
+		default:
+			return magTree;
+		}
+	}
+
+	/**
+	 * The vector size as read from the pdf file; unlike {@link #getVsize(FeatureType)}, this is the number of states for DUR and
+	 * the number of streams for LF0.
+	 */
+	private int getVectorSize(FeatureType type) {
+		switch (type) {
+		case DUR:
+			return numStates;
+		case LF0:
+			return lf0Stream;
+		default:
+			return getVsize(type);
+		}
+	}
+
+	/**
+	 * Set the trees of one model type, and the vector size of their pdfs as it would be read from the pdf file.
+	 */
+	void setTrees(FeatureType type, CART[] trees, int vectorSize) {
+		switch (type) {
+		case DUR:
+			durTree = trees;
+			numStates = vectorSize;
+			break;
+		case LF0:
+			lf0Tree = trees;
+			lf0Stream = vectorSize;
+			break;
+		case MGC:
+			mgcTree = trees;
+			mcepVsize = vectorSize;
+			break;
+		case STR:
+			strTree = trees;
+			strVsize = vectorSize;
+			break;
+		default:
+			magTree = trees;
+			magVsize = vectorSize;
+			break;
+		}
+	}
+
+	private static InputStream getTreeStream(HMMData htsData, FeatureType type) {
+		switch (type) {
+		case DUR:
+			return htsData.getTreeDurStream();
+		case LF0:
+			return htsData.getTreeLf0Stream();
+		case MGC:
+			return htsData.getTreeMgcStream();
+		case STR:
+			return htsData.getTreeStrStream();
+		default:
+			return htsData.getTreeMagStream();
+		}
+	}
+
 	/***
 	 * Searches fv in durTree CART[] set of trees, per state, and fill the information in the HTSModel m.
 	 * 
@@ -209,12 +372,35 @@ public class CartTreeSet {
 
 	public double searchDurInCartTree(HTSModel m, FeatureVector fv, HMMData htsData, boolean firstPh, boolean lastPh,
 			double diffdur) {
+		// the duration tree has only one state
+		return setDur(m, (PdfLeafNode) durTree[0].interpretToNode(fv, 0), htsData, diffdur);
+	}
+
+	/**
+	 * Fill the durations of the states in the HTSModel m from the leaves looked up with {@link #interpret(FeatureType,
+	 * FeatureColumns)}, as {@link #searchDurInCartTree(HTSModel, FeatureVector, HMMData, double)} does for a feature vector.
+	 * 
+	 * @param m
+	 *            HTSModel where the durations per state are set
+	 * @param leaves
+	 *            the leaves of the duration tree, per target
+	 * @param target
+	 *            the index of the target of m
+	 * @param htsData
+	 *            HMMData with configuration settings
+	 * @param diffdur
+	 *            diffdur
+	 * @return duration
+	 */
+	public double searchDurInCartTree(HTSModel m, PdfLeafNode[][] leaves, int target, HMMData htsData, double diffdur) {
+		return setDur(m, leaves[0][target], htsData, diffdur);
+	}
+
+	private double setDur(HTSModel m, PdfLeafNode node, HMMData htsData, double diffdur) {
 		double data, dd;
 		double rho = htsData.getRho();
 		double durscale = htsData.getDurationScale();
 		double meanVector[], varVector[];
-		// the duration tree has only one state
-		PdfLeafNode node = (PdfLeafNode) durTree[0].interpretToNode(fv, 0);
 
 		meanVector = node.getMean();
 		varVector = node.getVariance();
@@ -258,18 +444,40 @@ public class CartTreeSet {
 	 */
 	public void searchLf0InCartTree(HTSModel m, FeatureVector fv, FeatureDefinition featureDef, double uvthresh) {
 		for (int s = 0; s < numStates; s++) {
-			PdfLeafNode node = (PdfLeafNode) lf0Tree[s].interpretToNode(fv, 1);
-			m.setLf0Mean(s, node.getMean());
-			m.setLf0Variance(s, node.getVariance());
-			// set voiced or unvoiced
-			if (node.getVoicedWeight() > uvthresh)
-				m.setVoiced(s, true);
-			else
-				m.setVoiced(s, false);
+			setLf0(m, s, (PdfLeafNode) lf0Tree[s].interpretToNode(fv, 1), uvthresh);
 		}
 		// m.printLf0Mean();
 	}
 
+	/**
+	 * Fill the LF0 pdfs per state in the HTSModel m from the leaves looked up with {@link #interpret(FeatureType,
+	 * FeatureColumns)}.
+	 * 
+	 * @param m
+	 *            HTSModel where mean and variances per state are copied
+	 * @param leaves
+	 *            the leaves of the LF0 trees, per state and target
+	 * @param target
+	 *            the index of the target of m
+	 * @param uvthresh
+	 *            uvthresh
+	 */
+	public void searchLf0InCartTree(HTSModel m, PdfLeafNode[][] leaves, int target, double uvthresh) {
+		for (int s = 0; s < numStates; s++) {
+			setLf0(m, s, leaves[s][target], uvthresh);
+		}
+	}
+
+	private void setLf0(HTSModel m, int s, PdfLeafNode node, double uvthresh) {
+		m.setLf0Mean(s, node.getMean());
+		m.setLf0Variance(s, node.getVariance());
+		// set voiced or unvoiced
+		if (node.getVoicedWeight() > uvthresh)
+			m.setVoiced(s, true);
+		else
+			m.setVoiced(s, false);
+	}
+
 	/***
 	 * Searches fv in mgcTree CART[] set of trees, per state, and fill the information in the HTSModel m.
 	 * 
@@ -288,6 +496,24 @@ public class CartTreeSet {
 		}
 	}
 
+	/**
+	 * Fill the MGC pdfs per state in the HTSModel m from the leaves looked up with {@link #interpret(FeatureType,
+	 * FeatureColumns)}.
+	 * 
+	 * @param m
+	 *            HTSModel where mean and variances per state are copied
+	 * @param leaves
+	 *            the leaves of the MGC trees, per state and target
+	 * @param target
+	 *            the index of the target of m
+	 */
+	public void searchMgcInCartTree(HTSModel m, PdfLeafNode[][] leaves, int target) {
+		for (int s = 0; s < numStates; s++) {
+			m.setMcepMean(s, leaves[s][target].getMean());
+			m.setMcepVariance(s, leaves[s][target].getVariance());
+		}
+	}
+
 	/***
 	 * Searches fv in StrTree CART[] set of trees, per state, and fill the information in the HTSModel m.
 	 * 
@@ -306,6 +532,24 @@ public class CartTreeSet {
 		}
 	}
 
+	/**
+	 * Fill the STR pdfs per state in the HTSModel m from the leaves looked up with {@link #interpret(FeatureType,
+	 * FeatureColumns)}.
+	 * 
+	 * @param m
+	 *            HTSModel where mean and variances per state are copied
+	 * @param leaves
+	 *            the leaves of the STR trees, per state and target
+	 * @param target
+	 *            the index of the target of m
+	 */
+	public void searchStrInCartTree(HTSModel m, PdfLeafNode[][] leaves, int target) {
+		for (int s = 0; s < numStates; s++) {
+			m.setStrMean(s, leaves[s][target].getMean());
+			m.setStrVariance(s, leaves[s][target].getVariance());
+		}
+	}
+
 	/***
 	 * Searches fv in MagTree CART[] set of trees, per state, and fill the information in the HTSModel m.
 	 * 
@@ -324,6 +568,49 @@ public class CartTreeSet {
 		}
 	}
 
+	/**
+	 * Fill the MAG pdfs per state in the HTSModel m from the leaves looked up with {@link #interpret(FeatureType,
+	 * FeatureColumns)}.
+	 * 
+	 * @param m
+	 *            HTSModel where mean and variances per state are copied
+	 * @param leaves
+	 *            the leaves of the MAG trees, per state and target
+	 * @param target
+	 *            the index of the target of m
+	 */
+	public void searchMagInCartTree(HTSModel m, PdfLeafNode[][] leaves, int target) {
+		for (int s = 0; s < numStates; s++) {
+			m.setMagMean(s, leaves[s][target].getMean());
+			m.setMagVariance(s, leaves[s][target].getVariance());
+		}
+	}
+
+	/**
+	 * Look up the pdfs of all targets in feature columns in the trees of one parameter stream, walking down the duration tree
+	 * to the leaf level and the other trees as far as there is data, as the search methods do for one feature vector.
+	 * 
+	 * @param type
+	 *            the parameter stream
+	 * @param columns
+	 *            feature columns consistent with the feature definition of the trees
+	 * @return the nodes reached, indexed by state and target; the duration tree has a single state
+	 */
+	public PdfLeafNode[][] interpret(FeatureType type, FeatureColumns columns) {
+		CART[] trees = getTrees(type);
+		int minNumberOfData = type == FeatureType.DUR ? 0 : 1;
+		int numTrees = type == FeatureType.DUR ? 1 : numStates;
+		PdfLeafNode[][] leaves = new PdfLeafNode[numTrees][];
+		for (int s = 0; s < numTrees; s++) {
+			Node[] nodes = trees[s].interpretToNodes(columns, minNumberOfData);
+			leaves[s] = new PdfLeafNode[nodes.length];
+			for (int t = 0; t < nodes.length; t++) {
+				leaves[s][t] = (PdfLeafNode) nodes[t];
+			}
+		}
+		return leaves;
+	}
+
 	/**
 	 * creates a HTSModel (pre-HMM optimization vector data for all parameter streams of a given phoneme) given a feature vector
 	 * compare with original code in the main loop of marytts.modules.HTSEngine#processTargetList()
@@ -64,6 +64,7 @@
 package marytts.htsengine;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
@@ -71,6 +72,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Locale;
@@ -89,6 +92,7 @@ import marytts.htsengine.HMMData.FeatureType;
 import marytts.util.MaryUtils;
 import marytts.util.io.PropertiesAccessor;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 
 /**
@@ -98,7 +102,7 @@ import org.apache.log4j.Logger;
  * 
  * @author Marcela Charfuelan
  */
-public class HMMData {
+public class HMMData implements Closeable {
 
 	/** Number of model and identificator for the models */
 	public static final int HTS_NUMMTYPE = 5;
@@ -177,6 +181,7 @@ public class HMMData {
 	private InputStream treeMagStream; /* Fourier magnitudes tree file */
 
 	private FeatureDefinition feaDef; /* The feature definition is used for loading the tree using questions in MARY format */
+	private String treeSetFile; /* binary tree set made from the tree and pdf files, if any */
 
 	/**
 	 * CartTreeSet contains the tree-xxx.inf, xxx: dur, lf0, Mgc, str and mag these are all the trees trained for a particular
@@ -472,6 +477,14 @@ public class HMMData {
 		return gv;
 	}
 
+	public void setPdfLf0Stream(InputStream lf0) {
+		pdfLf0Stream = lf0;
+	}
+
+	public void setPdfMgcStream(InputStream mgc) {
+		pdfMgcStream = mgc;
+	}
+
 	public void setPdfStrStream(InputStream str) {
 		pdfStrStream = str;
 	}
@@ -535,10 +548,58 @@ public class HMMData {
 		orderFilters = val;
 	}
 
+	/**
+	 * Load the trees and pdfs. If a binary tree set is configured, it is used instead of the text tree files, unless it cannot be
+	 * loaded, e.g. because it was made for a different feature definition.
+	 * 
+	 * @throws IOException
+	 *             IOException
+	 * @throws MaryConfigurationException
+	 *             MaryConfigurationException
+	 */
 	public void loadCartTreeSet() throws IOException, MaryConfigurationException {
+		if (treeSetFile != null) {
+			try {
+				cart.loadTreeSet(this, feaDef, readTreeSetFile());
+				// the text files are not needed, but their streams still tell which model types there are
+				InputStream[] textStreams = { treeDurStream, treeLf0Stream, treeMgcStream, treeStrStream, treeMagStream,
+						pdfDurStream, pdfLf0Stream, pdfMgcStream, pdfStrStream, pdfMagStream };
+				for (InputStream stream : textStreams) {
+					IOUtils.closeQuietly(stream);
+				}
+				return;
+			} catch (Exception e) {
+				logger.warn("Cannot load binary tree set " + treeSetFile + ", loading tree files instead", e);
+			}
+		}
 		cart.loadTreeSet(this, feaDef, trickyPhones);
 	}
 
+	/**
+	 * Map the binary tree set file, or read it if it is a classpath resource.
+	 */
+	private ByteBuffer readTreeSetFile() throws IOException, MaryConfigurationException {
+		if (treeSetFile.startsWith("jar:")) {
+			String classpathLocation = treeSetFile.substring("jar:".length());
+			InputStream stream = getClass().getResourceAsStream(classpathLocation);
+			if (stream == null) {
+				throw new MaryConfigurationException("No classpath resource available at '" + classpathLocation + "'");
+			}
+			try {
+				return ByteBuffer.wrap(IOUtils.toByteArray(stream));
+			} finally {
+				stream.close();
+			}
+		}
+		FileInputStream fis = new FileInputStream(treeSetFile);
+		try {
+			FileChannel fc = fis.getChannel();
+			return fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+		} finally {
+			fis.close();
+		}
+	}
+
 	public void loadGVModelSet() throws IOException {
 		gv.loadGVModelSet(this, feaDef);
 	}
@@ -564,6 +625,7 @@ public class HMMData {
 		pdfMgcStream = p.getStream(prefix + ".Fmm"); /* Model MCP */
 		pdfStrStream = p.getStream(prefix + ".Fms"); /* Model STR */
 		pdfMagStream = p.getStream(prefix + ".Fma"); /* Model MAG */
+		treeSetFile = p.getProperty(prefix + ".treeSetFile"); /* binary tree set, if any */
 
 		useAcousticModels = p.getBoolean(prefix + ".useAcousticModels"); /*
 																		 * use AcousticModeller, so prosody modification is
@@ -661,6 +723,18 @@ public class HMMData {
 		initHMMData(MaryConfig.getVoiceConfig(voiceName).getPropertiesAccessor(true), voiceName);
 	}
 
+	/**
+	 * Close the model files, which are kept open after loading. The models themselves stay usable.
+	 */
+	public void close() {
+		InputStream[] streams = { treeDurStream, treeLf0Stream, treeMgcStream, treeStrStream, treeMagStream, pdfDurStream,
+				pdfLf0Stream, pdfMgcStream, pdfStrStream, pdfMagStream, pdfLf0GVStream, pdfMgcGVStream, pdfStrGVStream,
+				pdfMagGVStream, switchGVStream };
+		for (InputStream stream : streams) {
+			IOUtils.closeQuietly(stream);
+		}
+	}
+
 	/**
 	 * Reads from configuration file tree and pdf data for duration and f0 this method is used by HMMModel
 	 * 
@@ -679,6 +753,7 @@ public class HMMData {
 
 		treeLf0Stream = p.getStream(prefix + ".Ftf");
 		pdfLf0Stream = p.getStream(prefix + ".Fmf");
+		treeSetFile = p.getProperty(prefix + ".treeSetFile");
 		useGV = p.getBoolean(prefix + ".useGV");
 		if (useGV) {
 			useContextDependentGV = p.getBoolean(prefix + ".useContextDependentGV", useContextDependentGV);
@@ -708,7 +783,7 @@ public class HMMData {
 
 		/* Load TreeSet ts and ModelSet ms for current voice */
 		logger.info("Loading Tree Set in CARTs:");
-		cart.loadTreeSet(this, feaDef, trickyPhones);
+		loadCartTreeSet();
 
 		logger.info("Loading GV Model Set:");
 		gv.loadGVModelSet(this, feaDef);
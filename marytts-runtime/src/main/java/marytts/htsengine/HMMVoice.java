@@ -68,7 +68,9 @@ import java.util.Locale;
 import javax.sound.sampled.AudioFormat;
 
 import marytts.config.MaryConfig;
+import marytts.modules.synthesis.LazyVoiceData;
 import marytts.modules.synthesis.Voice;
+import marytts.modules.synthesis.VoiceManager;
 import marytts.modules.synthesis.WaveformSynthesizer;
 import marytts.server.MaryProperties;
 import marytts.util.MaryUtils;
@@ -77,7 +79,18 @@ import org.apache.log4j.Logger;
 
 public class HMMVoice extends Voice {
 
-	private HMMData htsData = new HMMData();
+	/**
+	 * The model files of an HMM voice, which are summed up as an estimate of the memory taken by the voice.
+	 */
+	private static final String[] MODEL_FILES = { "Ftd", "Ftf", "Ftm", "Fts", "Fta", "Fmd", "Fmf", "Fmm", "Fms", "Fma", "Fgvf",
+			"Fgvm", "Fgvs", "Fgva", "Fif" };
+
+	private final LazyVoiceData<HMMData> htsData;
+	/* parameters for generation, which are applied to the data each time it is loaded */
+	private volatile double f0Std = 1.0;
+	private volatile double f0Mean = 0.0;
+	private volatile double length = 0.0;
+	private volatile double durationScale = 1.0;
 	private Logger logger = MaryUtils.getLogger("HMMVoice");
 
 	/**
@@ -90,33 +103,78 @@ public class HMMVoice extends Voice {
 	 * @throws Exception
 	 *             Exception
 	 */
-	public HMMVoice(String voiceName, WaveformSynthesizer synthesizer) throws Exception {
+	public HMMVoice(final String voiceName, WaveformSynthesizer synthesizer) throws Exception {
 		super(voiceName, synthesizer);
 
-		htsData.initHMMData(voiceName);
-
+		htsData = new LazyVoiceData<HMMData>(this) {
+			protected HMMData load() throws Exception {
+				HMMData data = new HMMData();
+				data.initHMMData(voiceName);
+				data.setF0Std(f0Std);
+				data.setF0Mean(f0Mean);
+				data.setLength(length);
+				data.setDurationScale(durationScale);
+				return data;
+			}
+
+			protected long estimateSize() {
+				long size = 0;
+				for (String file : MODEL_FILES) {
+					size += VoiceManager.getFileSize("voice." + voiceName + "." + file);
+				}
+				return size;
+			}
+		};
+		if (!VoiceManager.isLazyLoading()) {
+			htsData.preload();
+		}
 	}
 
 	public HMMData getHMMData() {
-		return this.htsData;
+		return htsData.get();
+	}
+
+	/**
+	 * Get the HMM data for the duration of a synthesis request, loading it if necessary. It must be handed back through
+	 * {@link #releaseHMMData(HMMData)} when the request is done.
+	 * 
+	 * @return the HMM data
+	 */
+	public HMMData acquireHMMData() {
+		return htsData.acquire();
+	}
+
+	/**
+	 * Hand back the data obtained from {@link #acquireHMMData()}.
+	 * 
+	 * @param data
+	 *            the HMM data
+	 */
+	public void releaseHMMData(HMMData data) {
+		htsData.release(data);
 	}
 
 	/* set parameters for generation: f0Std, f0Mean and length, default values 1.0, 0.0 and 0.0 */
 	/* take the values from audio effects component through a MaryData object */
+	/* they are kept in the voice as well, so that they still apply when the data is loaded anew */
 	public void setF0Std(double dval) {
-		htsData.setF0Std(dval);
+		f0Std = dval;
+		getHMMData().setF0Std(dval);
 	}
 
 	public void setF0Mean(double dval) {
-		htsData.setF0Mean(dval);
+		f0Mean = dval;
+		getHMMData().setF0Mean(dval);
 	}
 
 	public void setLength(double dval) {
-		htsData.setLength(dval);
+		length = dval;
+		getHMMData().setLength(dval);
 	}
 
 	public void setDurationScale(double dval) {
-		htsData.setDurationScale(dval);
+		durationScale = dval;
+		getHMMData().setDurationScale(dval);
 	}
 
 } /* class HMMVoice */
@@ -64,7 +64,11 @@
 package marytts.htsengine;
 
 import marytts.util.MaryUtils;
+
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.log4j.Logger;
 
@@ -103,12 +107,6 @@ public class HTSPStream {
 	private double mseq[][];
 	/** sequence of inversed variance vector */
 	private double ivseq[][];
-	/** for forward substitution */
-	private double g[];
-	/** W' U^-1 W */
-	private double wuw[][];
-	/** W' U^-1 mu */
-	private double wum[];
 
 	/* ____________________Dynamic window ____________________ */
 	// private final HTSDWin dw; /* Windows used to calculate dynamic features, delta and delta-delta */
@@ -127,8 +125,6 @@ public class HTSPStream {
 
 	/* ____________________ GV related variables ____________________ */
 	/* GV: Global mean and covariance (diagonal covariance only) */
-	/** mean and variance for current utt eqs: (16), (17) */
-	private double mean, var;
 	/** max iterations in the speech parameter generation considering GV */
 	private final int maxGVIter;
 	/** convergence factor for GV iteration */
@@ -147,9 +143,6 @@ public class HTSPStream {
 	private final static double w2 = 1.0;
 	/** ~log(0) */
 	private final static double lzero = (-1.0e+10);
-	private double norm = 0.0;
-	private double GVobj = 0.0;
-	private double HMMobj = 0.0;
 	private double gvmean[];
 	private double gvcovInv[];
 	/** GV flag sequence, to consider or not the frame in gv */
@@ -159,6 +152,45 @@ public class HTSPStream {
 
 	private Logger logger = MaryUtils.getLogger("PStream");
 
+	/**
+	 * Working storage for generating one dimension of a stream: the band of W'U^-1W, which the LDL factorization overwrites, W'U^-1M,
+	 * the vector used for forward substitution and as gradient in GV optimisation, and the GV statistics. Each thread keeps one
+	 * workspace, which grows with the longest stream it has generated, so that solving a dimension allocates nothing.
+	 */
+	private static final class Workspace {
+		/** W' U^-1 W, WIDTH values per frame: wuw[t * WIDTH + k] */
+		private double[] wuw = new double[0];
+		/** W' U^-1 mu */
+		private double[] wum = new double[0];
+		/** for forward substitution */
+		private double[] g = new double[0];
+		/** previous gradient in GV optimisation */
+		private double[] diag = new double[0];
+		/** parameters before GV optimisation */
+		private double[] parOri = new double[0];
+		/** mean and variance for current utt eqs: (16), (17) */
+		private double mean, var;
+		private double norm, GVobj, HMMobj;
+
+		private Workspace ensureCapacity(int nT) {
+			if (g.length < nT) {
+				wuw = new double[nT * WIDTH];
+				wum = new double[nT];
+				g = new double[nT];
+				diag = new double[nT];
+				parOri = new double[nT];
+			}
+			return this;
+		}
+	}
+
+	private static final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return new Workspace();
+		}
+	};
+
 	/* Constructor */
 	public HTSPStream(int vector_size, int utt_length, HMMData.FeatureType fea_type, int maxIterationsGV) throws Exception {
 		/* In the c code for each PStream there is an InitDwin() and an InitPStream() */
@@ -176,9 +208,6 @@ public class HTSPStream {
 		/* ___________________________Matrices initialisation___________________ */
 		mseq = new double[nT][vSize];
 		ivseq = new double[nT][vSize];
-		g = new double[nT];
-		wuw = new double[nT][WIDTH];
-		wum = new double[nT];
 
 		/* GV Switch sequence initialisation */
 		gvSwitch = new boolean[nT];
@@ -252,12 +281,6 @@ public class HTSPStream {
 		}
 	}
 
-	private void printWUW(int t) {
-		for (int i = 0; i < WIDTH; i++)
-			System.out.print("WUW[" + t + "][" + i + "]=" + wuw[t][i] + "  ");
-		System.out.println("");
-	}
-
 	public void mlpg(HMMData htsData) {
 		mlpg(htsData, htsData.getUseGV());
 	}
@@ -266,37 +289,73 @@ public class HTSPStream {
 	 * mlpg: generate sequence of speech parameter vector maximizing its output probability for given pdf sequence
 	 */
 	public void mlpg(HMMData htsData, boolean useGV) {
+		logGVMethod(htsData);
+		Workspace ws = workspaces.get().ensureCapacity(nT);
+		for (int m = 0; m < order; m++) {
+			mlpg(m, htsData, useGV, ws);
+		}
+	} /* method mlpg */
 
+	/**
+	 * Split the parameter generation of {@link #mlpg(HMMData, boolean)} into tasks that can run concurrently, each generating a
+	 * consecutive range of dimensions. The dimensions are independent, and every dimension is generated by the same operations as
+	 * in the sequential method, so the parameters are bit-identical whichever threads run the tasks and in which order.
+	 *
+	 * @param htsData
+	 *            htsData
+	 * @param useGV
+	 *            whether to apply global variance optimisation
+	 * @param maxTasks
+	 *            the maximum number of tasks to create
+	 * @return between 1 and maxTasks tasks, which together generate all dimensions of this stream
+	 */
+	public List<Callable<Void>> getMlpgTasks(final HMMData htsData, final boolean useGV, int maxTasks) {
+		logGVMethod(htsData);
+		int numTasks = Math.max(1, Math.min(maxTasks, order));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numTasks);
+		for (int i = 0; i < numTasks; i++) {
+			final int firstDim = i * order / numTasks;
+			final int endDim = (i + 1) * order / numTasks;
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					Workspace ws = workspaces.get().ensureCapacity(nT);
+					for (int m = firstDim; m < endDim; m++) {
+						mlpg(m, htsData, useGV, ws);
+					}
+					return null;
+				}
+			});
+		}
+		return tasks;
+	}
+
+	private void logGVMethod(HMMData htsData) {
 		if (htsData.getUseContextDependentGV())
 			logger.info("Context-dependent global variance optimization: gvLength = " + gvLength);
 		else
 			logger.info("Global variance optimization");
+	}
 
-		for (int m = 0; m < order; m++) {
-			calcWUWandWUM(m);
-			double[][] mywuw = new double[nT][];
-			for (int x = 0; x < wuw.length; x++) {
-				mywuw[x] = Arrays.copyOf(wuw[x], wuw[x].length);
-			}
-			double[] mywum = Arrays.copyOf(wum, wum.length);
-			ldlFactorization(mywuw); /* LDL factorization */
-			forwardSubstitution(mywum, mywuw); /* forward substitution in Cholesky decomposition */
-			backwardSubstitution(m, mywuw); /* backward substitution in Cholesky decomposition */
-
-			/* Global variance optimisation for MCP and LF0 */
-			if (useGV && gvLength > 0) {
-				if (htsData.getGvMethodGradient())
-					gvParmGenGradient(m, false); // this is the previous method we have in MARY, using the Gradient as in the
+	/** generate dimension m of the parameters, using the given workspace */
+	private void mlpg(int m, HMMData htsData, boolean useGV, Workspace ws) {
+		calcWUWandWUM(m, ws);
+		ldlFactorization(ws.wuw, nT); /* LDL factorization */
+		forwardSubstitution(ws); /* forward substitution in Cholesky decomposition */
+		backwardSubstitution(m, ws); /* backward substitution in Cholesky decomposition */
+
+		/* Global variance optimisation for MCP and LF0 */
+		if (useGV && gvLength > 0) {
+			if (htsData.getGvMethodGradient())
+				gvParmGenGradient(m, false, ws); // this is the previous method we have in MARY, using the Gradient as in the
 													// Paper of Toda et. al. IEICE 2007
 													// if using this method the variances have to be inverse (see note in GVModel
 													// set: case NEWTON in gv optimization)
 													// this method seems to give a better result
-				else
-					gvParmGenDerivative(m, false); // this is the method in the hts_engine 1.04 the variances are not inverse
+			else
+				gvParmGenDerivative(m, false, ws); // this is the method in the hts_engine 1.04 the variances are not inverse
 
-			}
 		}
-	} /* method mlpg */
+	}
 
 	/*----------------- HTS parameter generation fuctions  -----------------------------*/
 
@@ -310,13 +369,14 @@ public class HTSPStream {
 	/* L'C = y , solve for C using backward substitution */
 	/* So having A and B we can find the parameters C. */
 	/* U^{-1} = inverse covariance : inseq[][] */
-	private void calcWUWandWUM(int m) {
+	private void calcWUWandWUM(int m, Workspace ws) {
+		double[] wuw = ws.wuw;
+		double[] wum = ws.wum;
 		/* initialise */
 		Arrays.fill(wum, 0, nT, 0.0);
+		Arrays.fill(wuw, 0, nT * WIDTH, 0.0);
 		/* for all frames: */
 		for (int t = 0; t < nT; t++) {
-			/* initialise */
-			Arrays.fill(wuw[t], 0.0);
 			/* calc WUW & WUM, U is already inverse */
 			for (int i = 0; i < NUM; i++) {
 				int dwWidth_iright = rightWidths[i];
@@ -332,7 +392,7 @@ public class HTSPStream {
 								if (k - j <= dwWidth_iright) {
 									double dwCoef_ikj = xcoefs[1 + i * NUM + k - j];
 									if (dwCoef_ikj != 0.0) {
-										wuw[t][k] += WU * dwCoef_ikj;
+										wuw[t * WIDTH + k] += WU * dwCoef_ikj;
 									}
 								}
 							} /* for k */
@@ -347,87 +407,81 @@ public class HTSPStream {
 		 */
 	}
 
-	/** ldlFactorization: Factorize W'*U^{-1}*W to L*D*L' (L: lower triangular, D: diagonal) */
-	private static void ldlFactorization(double[][] mywuw) {
-		for (int t = 0; t < mywuw.length; t++) {
-
-			/*
-			 * if(debug){ System.out.println("WUW calculation:"); printWUW(t); }
-			 */
+	/** ldlFactorization: Factorize W'*U^{-1}*W to L*D*L' (L: lower triangular, D: diagonal), in place */
+	private static void ldlFactorization(double[] wuw, int nT) {
+		for (int t = 0; t < nT; t++) {
+			int row = t * WIDTH;
 
 			/*
 			 * I need i=1 for the delay in t, but the indexes i in WUW[t][i] go from 0 to 2 so wherever i is used as index i=i-1
 			 * (this is just to keep somehow the original c implementation).
 			 */
-			for (int i = 1; (i < WIDTH) && (t - i >= 0); i++)
-				mywuw[t][0] -= mywuw[t - i][i] * mywuw[t - i][i] * mywuw[t - i][0];
+			for (int i = 1; (i < WIDTH) && (t - i >= 0); i++) {
+				int prev = (t - i) * WIDTH;
+				wuw[row] -= wuw[prev + i] * wuw[prev + i] * wuw[prev];
+			}
 
 			for (int i = 2; i <= WIDTH; i++) {
-				for (int j = 1; (i + j <= WIDTH) && (t - j >= 0); j++)
-					mywuw[t][i - 1] -= mywuw[t - j][j] * mywuw[t - j][i + j - 1] * mywuw[t - j][0];
-				mywuw[t][i - 1] /= mywuw[t][0];
+				for (int j = 1; (i + j <= WIDTH) && (t - j >= 0); j++) {
+					int prev = (t - j) * WIDTH;
+					wuw[row + i - 1] -= wuw[prev + j] * wuw[prev + i + j - 1] * wuw[prev];
+				}
+				wuw[row + i - 1] /= wuw[row];
 
 			}
-			/*
-			 * if(debug) { System.out.println("LDL factorization:"); printWUW(t); System.out.println(); }
-			 */
 		}
 
 	}
 
 	/** forward_Substitution */
-	private void forwardSubstitution(double[] mywum, double[][] mywuw) {
-		System.arraycopy(mywum, 0, g, 0, mywum.length);
+	private void forwardSubstitution(Workspace ws) {
+		double[] g = ws.g;
+		double[] wuw = ws.wuw;
+		System.arraycopy(ws.wum, 0, g, 0, nT);
 		for (int t = 0; t < nT; t++) {
 			for (int i = 1; (i < WIDTH) && (t - i >= 0); i++)
-				g[t] -= mywuw[t - i][i] * g[t - i]; /* i as index should be i-1 */
-			// System.out.println("  g[" + t + "]=" + g[t]);
+				g[t] -= wuw[(t - i) * WIDTH + i] * g[t - i]; /* i as index should be i-1 */
 		}
-		/*
-		 * for(t=0; t<nT; t++) System.out.format("%f ", g[t]); System.out.println();
-		 */
 	}
 
 	/** backward_Substitution */
-	private void backwardSubstitution(int m, double[][] mywuw) {
+	private void backwardSubstitution(int m, Workspace ws) {
+		double[] g = ws.g;
+		double[] wuw = ws.wuw;
 		for (int t = (nT - 1); t >= 0; t--) {
-			par[t][m] = g[t] / mywuw[t][0];
+			par[t][m] = g[t] / wuw[t * WIDTH];
 			for (int i = 1; (i < WIDTH) && (t + i < nT); i++) {
-				par[t][m] -= mywuw[t][i] * par[t + i][m]; /* i as index should be i-1 */
+				par[t][m] -= wuw[t * WIDTH + i] * par[t + i][m]; /* i as index should be i-1 */
 			}
-			// System.out.println("  par[" + t + "]["+ m + "]=" + par[t][m]);
 		}
 
 	}
 
 	/*----------------- GV functions  -----------------------------*/
-	private void gvParmGenDerivative(int m, boolean debug) {
+	private void gvParmGenDerivative(int m, boolean debug, Workspace ws) {
 		int t, iter;
 		double step = stepInit;
 		double prev = -lzero;
 		double obj = 0.0;
-		double diag[] = new double[nT];
-		double par_ori[] = new double[nT];
-		mean = 0.0;
-		var = 0.0;
+		double[] g = ws.g;
+		ws.mean = 0.0;
+		ws.var = 0.0;
 		int numDown = 0;
 
-		/* make a copy in case there is problems during optimisation */
 		for (t = 0; t < nT; t++) {
 			g[t] = 0.0;
-			par_ori[t] = par[t][m];
 		}
 
 		/* first convert c (c=par) according to GV pdf and use it as the initial value */
-		convGV(m);
+		convGV(m, ws);
 
 		/* recalculate R=WUW and r=WUM */
-		calcWUWandWUM(m);
+		calcWUWandWUM(m, ws);
 
 		/* iteratively optimize c */
 		for (iter = 1; iter <= maxGVIter; iter++) {
 			/* calculate GV objective and its derivative with respect to c */
-			obj = calcDerivative(m);
+			obj = calcDerivative(m, ws);
 
 			/* objective function improved -> increase step size */
 			if (obj > prev)
@@ -448,14 +502,15 @@ public class HTSPStream {
 
 	}
 
-	private void gvParmGenGradient(int m, boolean debug) {
+	private void gvParmGenGradient(int m, boolean debug, Workspace ws) {
 		int t, iter;
 		double step = stepInit;
 		double obj = 0.0, prev = 0.0;
-		double diag[] = new double[nT];
-		double par_ori[] = new double[nT];
-		mean = 0.0;
-		var = 0.0;
+		double[] g = ws.g;
+		double[] diag = ws.diag;
+		double[] par_ori = ws.parOri;
+		ws.mean = 0.0;
+		ws.var = 0.0;
 		int numDown = 0;
 		int totalNumIter = 0;
 		int firstIter = 0;
@@ -463,19 +518,20 @@ public class HTSPStream {
 		/* make a copy in case there is problems during optimisation */
 		for (t = 0; t < nT; t++) {
 			g[t] = 0.0;
+			diag[t] = 0.0;
 			par_ori[t] = par[t][m];
 		}
 
 		/* first convert c (c=par) according to GV pdf and use it as the initial value */
-		convGV(m);
+		convGV(m, ws);
 
 		/* recalculate R=WUW and r=WUM */
-		calcWUWandWUM(m);
+		calcWUWandWUM(m, ws);
 
 		/* iteratively optimize c */
 		for (iter = 1; iter <= maxGVIter; iter++) {
 			/* calculate GV objective and its derivative with respect to c */
-			obj = calcGradient(m);
+			obj = calcGradient(m, ws);
 			/* accelerate/decelerate step size */
 			if (iter > 1) {
 				/* objective function improved -> increase step size */
@@ -505,21 +561,21 @@ public class HTSPStream {
 				}
 			} else {
 				if (debug)
-					logger.info("  First iteration:  GVobj=" + obj + " (HMMobj=" + HMMobj + "  GVobj=" + GVobj + ")");
+					logger.info("  First iteration:  GVobj=" + obj + " (HMMobj=" + ws.HMMobj + "  GVobj=" + ws.GVobj + ")");
 			}
 			/* convergence check (Euclid norm, objective function) */
-			if (norm < minEucNorm || (iter > 1 && Math.abs(obj - prev) < GVepsilon)) {
+			if (ws.norm < minEucNorm || (iter > 1 && Math.abs(obj - prev) < GVepsilon)) {
 				if (debug)
-					logger.info("  Number of iterations: [   " + iter + "   ] GVobj=" + obj + " (HMMobj=" + HMMobj + "  GVobj="
-							+ GVobj + ")");
+					logger.info("  Number of iterations: [   " + iter + "   ] GVobj=" + obj + " (HMMobj=" + ws.HMMobj + "  GVobj="
+							+ ws.GVobj + ")");
 				totalNumIter++; // gv.incTotalNumIter(iter);
 				if (m == 0)
 					firstIter = iter;// gv.setFirstIter(iter);
 				if (debug) {
 					if (iter > 1)
-						logger.info("  Converged (norm=" + norm + ", change=" + Math.abs(obj - prev) + ")");
+						logger.info("  Converged (norm=" + ws.norm + ", change=" + Math.abs(obj - prev) + ")");
 					else
-						logger.info("  Converged (norm=" + norm + ")");
+						logger.info("  Converged (norm=" + ws.norm + ")");
 				}
 				break;
 			}
@@ -543,32 +599,39 @@ public class HTSPStream {
 		logger.info("Gradient GV optimization for feature: (" + m + ")  number of iterations=" + totalNumIter);
 	}
 
-	private double calcGradient(int m) {
+	private double calcGradient(int m, Workspace ws) {
 		int t, i, k;
 		double vd;
 		double h, aux;
 		double w = 1.0 / (NUM * nT);
+		double[] g = ws.g;
+		double[] wuw = ws.wuw;
+		double[] wum = ws.wum;
 
 		/* recalculate GV of the current c = par */
-		calcGV(m);
+		calcGV(m, ws);
+		double mean = ws.mean;
+		double var = ws.var;
 
 		/* GV objective function and its derivative with respect to c */
 		/* -1/2 * v(c)' U^-1 v(c) + v(c)' U^-1 mu + K --> second part of eq (20) in Toda and Tokuda IEICE-2007 paper. */
-		GVobj = -0.5 * w2 * (var - gvmean[m]) * gvcovInv[m] * (var - gvmean[m]);
+		double GVobj = -0.5 * w2 * (var - gvmean[m]) * gvcovInv[m] * (var - gvmean[m]);
 		vd = gvcovInv[m] * (var - gvmean[m]);
 
 		/* calculate g = R*c = WUW*c */
 		for (t = 0; t < nT; t++) {
-			g[t] = wuw[t][0] * par[t][m];
+			g[t] = wuw[t * WIDTH] * par[t][m];
 			for (i = 2; i <= WIDTH; i++) { /* WIDTH goes from 0 to 2 WIDTH=3 */
 				if (t + i - 1 < nT)
-					g[t] += wuw[t][i - 1] * par[t + i - 1][m]; /* i as index should be i-1 */
+					g[t] += wuw[t * WIDTH + i - 1] * par[t + i - 1][m]; /* i as index should be i-1 */
 				if (t - i + 1 >= 0)
-					g[t] += wuw[t - i + 1][i - 1] * par[t - i + 1][m]; /* i as index should be i-1 */
+					g[t] += wuw[(t - i + 1) * WIDTH + i - 1] * par[t - i + 1][m]; /* i as index should be i-1 */
 			}
 		}
 
-		for (t = 0, HMMobj = 0.0, norm = 0.0; t < nT; t++) {
+		double HMMobj = 0.0;
+		double norm = 0.0;
+		for (t = 0; t < nT; t++) {
 
 			HMMobj += -0.5 * w1 * w * par[t][m] * (g[t] - 2.0 * wum[t]);
 
@@ -577,7 +640,7 @@ public class HTSPStream {
 			/* case NEWTON */
 			/* only diagonal elements of Hessian matrix are used */
 			h = ((nT - 1) * vd + 2.0 * gvcovInv[m] * (par[t][m] - mean) * (par[t][m] - mean));
-			h = -w1 * w * wuw[t][1 - 1] - w2 * 2.0 / (nT * nT) * h;
+			h = -w1 * w * wuw[t * WIDTH + 1 - 1] - w2 * 2.0 / (nT * nT) * h;
 
 			h = -1.0 / h;
 
@@ -595,42 +658,51 @@ public class HTSPStream {
 
 		norm = Math.sqrt(norm);
 		// logger.info("HMMobj=" + HMMobj + "  GVobj=" + GVobj + "  norm=" + norm);
+		ws.HMMobj = HMMobj;
+		ws.GVobj = GVobj;
+		ws.norm = norm;
 
 		return (HMMobj + GVobj);
 
 	}
 
-	private double calcDerivative(int m) {
+	private double calcDerivative(int m, Workspace ws) {
 		int t, i, k;
 		double vd;
 		double h, aux;
 		double w = 1.0 / (NUM * nT);
+		double[] g = ws.g;
+		double[] wuw = ws.wuw;
+		double[] wum = ws.wum;
 
 		/* recalculate GV of the current c = par */
-		calcGV(m);
+		calcGV(m, ws);
+		double mean = ws.mean;
+		double var = ws.var;
 
 		/* GV objective function and its derivative with respect to c */
 		/* -1/2 * v(c)' U^-1 v(c) + v(c)' U^-1 mu + K --> second part of eq (20) in Toda and Tokuda IEICE-2007 paper. */
-		GVobj = -0.5 * w2 * var * gvcovInv[m] * (var - 2.0 * gvmean[m]);
+		double GVobj = -0.5 * w2 * var * gvcovInv[m] * (var - 2.0 * gvmean[m]);
 		vd = -2.0 * gvcovInv[m] * (var - gvmean[m]) / nT;
 		// System.out.format("GVobj=%f  vd=%f \n", GVobj, vd);
 
 		/* calculate g = R*c = WUW*c */
 		for (t = 0; t < nT; t++) {
-			g[t] = wuw[t][0] * par[t][m];
+			g[t] = wuw[t * WIDTH] * par[t][m];
 			for (i = 2; i <= WIDTH; i++) { /* WIDTH goes from 0 to 2 WIDTH=3 */
 				if (t + i - 1 < nT)
-					g[t] += wuw[t][i - 1] * par[t + i - 1][m]; /* i as index should be i-1 */
+					g[t] += wuw[t * WIDTH + i - 1] * par[t + i - 1][m]; /* i as index should be i-1 */
 				if (t - i + 1 >= 0)
-					g[t] += wuw[t - i + 1][i - 1] * par[t - i + 1][m]; /* i as index should be i-1 */
+					g[t] += wuw[(t - i + 1) * WIDTH + i - 1] * par[t - i + 1][m]; /* i as index should be i-1 */
 			}
 		}
 
-		for (t = 0, HMMobj = 0.0; t < nT; t++) {
+		double HMMobj = 0.0;
+		for (t = 0; t < nT; t++) {
 
 			HMMobj += w1 * w * par[t][m] * (wum[t] - 0.5 * g[t]);
 
-			h = -w1 * w * wuw[t][1 - 1] - w2 * 2.0 / (nT * nT)
+			h = -w1 * w * wuw[t * WIDTH + 1 - 1] - w2 * 2.0 / (nT * nT)
 					* ((nT - 1) * gvcovInv[m] * (var - gvmean[m]) + 2.0 * gvcovInv[m] * (par[t][m] - mean) * (par[t][m] - mean));
 
 			// System.out.format("HMMobj=%f  h=%f \n", HMMobj, h);
@@ -643,15 +715,20 @@ public class HTSPStream {
 
 		}
 
+		ws.HMMobj = HMMobj;
+		ws.GVobj = GVobj;
+
 		return (-(HMMobj + GVobj));
 
 	}
 
-	private void convGV(int m) {
+	private void convGV(int m, Workspace ws) {
 		int t, k;
 		double ratio, mixmean;
 		/* calculate GV of c */
-		calcGV(m);
+		calcGV(m, ws);
+		double mean = ws.mean;
+		double var = ws.var;
 
 		ratio = Math.sqrt(gvmean[m] / var);
 		// System.out.format("    mean=%f vari=%f ratio=%f \n", mean, var, ratio);
@@ -664,10 +741,10 @@ public class HTSPStream {
 
 	}
 
-	private void calcGV(int m) {
+	private void calcGV(int m, Workspace ws) {
 		int t, i;
-		mean = 0.0;
-		var = 0.0;
+		double mean = 0.0;
+		double var = 0.0;
 
 		/* mean */
 		for (t = 0; t < nT; t++)
@@ -686,6 +763,8 @@ public class HTSPStream {
 			}
 		// System.out.format("\n");
 		var = var / gvLength;
+		ws.mean = mean;
+		ws.var = var;
 
 	}
 
@@ -69,18 +69,28 @@ import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import marytts.htsengine.HMMData.FeatureType;
 import marytts.signalproc.analysis.Mfccs;
+import marytts.server.MaryProperties;
 import marytts.signalproc.analysis.PitchReaderWriter;
 import marytts.util.MaryUtils;
 import marytts.util.io.LEDataInputStream;
@@ -111,6 +121,30 @@ public class HTSParameterGeneration {
 
 	private Logger logger = MaryUtils.getLogger("ParameterGeneration");
 
+	/**
+	 * Number of threads generating the dimensions of all parameter streams concurrently, from the property
+	 * <code>htsengine.mlpg.threads</code>; with 1, the parameters are generated in the calling thread.
+	 */
+	private int mlpgThreads = MaryProperties.getInteger("htsengine.mlpg.threads", 1);
+
+	/** pool shared by all parameter generations, created with the number of threads configured when it is first needed */
+	private static ExecutorService mlpgExecutor;
+
+	private static synchronized ExecutorService getMlpgExecutor(int numThreads) {
+		if (mlpgExecutor == null) {
+			mlpgExecutor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+				private AtomicInteger threadNumber = new AtomicInteger(1);
+
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "MLPG " + threadNumber.getAndIncrement());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return mlpgExecutor;
+	}
+
 	public HTSPStream getMcepPst() {
 		return mcepPst;
 	}
@@ -181,6 +215,27 @@ public class HTSParameterGeneration {
 	 *             Exception
 	 */
 	public void htsMaximumLikelihoodParameterGeneration(HTSUttModel um, final HMMData htsData) throws Exception {
+		htsMaximumLikelihoodParameterGeneration(um, htsData, true, true);
+	}
+
+	/**
+	 * HTS maximum likelihood parameter generation for a selection of the parameter streams. Streaming synthesis uses this to
+	 * generate log F0 for the whole utterance, and the spectral streams for one window of the utterance at a time. The voiced
+	 * array is always computed.
+	 *
+	 * @param um
+	 *            : utterance model sequence after processing Mary context features
+	 * @param htsData
+	 *            : HMM pdfs model set.
+	 * @param generateSpectrum
+	 *            whether to generate the MGC, STR and MAG streams
+	 * @param generateLf0
+	 *            whether to generate the LF0 stream
+	 * @throws Exception
+	 *             Exception
+	 */
+	public void htsMaximumLikelihoodParameterGeneration(HTSUttModel um, final HMMData htsData, boolean generateSpectrum,
+			boolean generateLf0) throws Exception {
 		CartTreeSet ms = htsData.getCartTreeSet();
 
 		/* Initialisation of PStream objects */
@@ -189,16 +244,16 @@ public class HTSParameterGeneration {
 		/* mceppst, strpst, magpst, lf0pst */
 		/* Here i should pass the window files to initialise the dynamic windows dw */
 		/* for the moment the dw are all the same and hard-coded */
-		if (htsData.getPdfMgcStream() != null)
+		if (generateSpectrum && htsData.getPdfMgcStream() != null)
 			mcepPst = new HTSPStream(ms.getMcepVsize(), um.getTotalFrame(), HMMData.FeatureType.MGC, htsData.getMaxMgcGvIter());
 		/* for lf0 count just the number of lf0frames that are voiced or non-zero */
-		if (htsData.getPdfLf0Stream() != null)
+		if (generateLf0 && htsData.getPdfLf0Stream() != null)
 			lf0Pst = new HTSPStream(ms.getLf0Stream(), um.getLf0Frame(), HMMData.FeatureType.LF0, htsData.getMaxLf0GvIter());
 
 		/* The following are optional in case of generating mixed excitation */
-		if (htsData.getPdfStrStream() != null)
+		if (generateSpectrum && htsData.getPdfStrStream() != null)
 			strPst = new HTSPStream(ms.getStrVsize(), um.getTotalFrame(), HMMData.FeatureType.STR, htsData.getMaxStrGvIter());
-		if (htsData.getPdfMagStream() != null)
+		if (generateSpectrum && htsData.getPdfMagStream() != null)
 			magPst = new HTSPStream(ms.getMagVsize(), um.getTotalFrame(), HMMData.FeatureType.MAG, htsData.getMaxMagGvIter());
 
 		int lf0Frame = 0; // counts voiced frames
@@ -282,7 +337,7 @@ public class HTSParameterGeneration {
 						}
 					}
 					if (voiced[uttFrame]) {
-						if (!gvSwitch)
+						if (!gvSwitch && lf0Pst != null)
 							lf0Pst.setGvSwitch(lf0Frame, false);
 						lf0Frame++;
 					}
@@ -303,50 +358,94 @@ public class HTSParameterGeneration {
 			magPst.fixDynFeatOnBoundaries();
 
 		// Step 3: optimize individual parameter streams
+		boolean lf0FromModels = lf0Pst != null && !(generateLf0 && htsData.getUseAcousticModels());
+		if (mcepPst != null && htsData.getUseGV() && (htsData.getPdfMgcGVStream() != null))
+			mcepPst.setGvMeanVar(gvms.getGVmeanMgc(), gvms.getGVcovInvMgc());
+		if (lf0FromModels && htsData.getUseGV() && (htsData.getPdfLf0GVStream() != null))
+			lf0Pst.setGvMeanVar(gvms.getGVmeanLf0(), gvms.getGVcovInvLf0());
+		boolean strUseGV = strPst != null && htsData.getUseGV() && (htsData.getPdfStrGVStream() != null);
+		if (strUseGV)
+			strPst.setGvMeanVar(gvms.getGVmeanStr(), gvms.getGVcovInvStr());
+		boolean magUseGV = magPst != null && htsData.getUseGV() && (htsData.getPdfMagGVStream() != null);
+		if (magUseGV)
+			magPst.setGvMeanVar(gvms.getGVmeanMag(), gvms.getGVcovInvMag());
+
+		if (mlpgThreads > 1) {
+			/* the streams and their dimensions are independent, so all of them can be generated at the same time */
+			logger.info("Parameter generation for all streams using " + mlpgThreads + " threads");
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			if (mcepPst != null)
+				tasks.addAll(mcepPst.getMlpgTasks(htsData, htsData.getUseGV(), mlpgThreads));
+			if (lf0FromModels)
+				tasks.addAll(lf0Pst.getMlpgTasks(htsData, htsData.getUseGV(), mlpgThreads));
+			if (strPst != null)
+				tasks.addAll(strPst.getMlpgTasks(htsData, strUseGV, mlpgThreads));
+			if (magPst != null)
+				tasks.addAll(magPst.getMlpgTasks(htsData, magUseGV, mlpgThreads));
+			runAll(getMlpgExecutor(mlpgThreads), tasks);
+		} else {
+			/* parameter generation for mcep */
+			if (mcepPst != null) {
+				logger.info("Parameter generation for MGC: ");
+				mcepPst.mlpg(htsData, htsData.getUseGV());
+			}
+
+			// parameter generation for lf0 */
+			if (lf0FromModels) {
+				logger.info("Parameter generation for LF0: ");
+				lf0Pst.mlpg(htsData, htsData.getUseGV());
+			}
+
+			/* parameter generation for str */
+			if (strPst != null) {
+				logger.debug("Parameter generation for STR ");
+				strPst.mlpg(htsData, strUseGV);
+			}
 
-		/* parameter generation for mcep */
-		if (mcepPst != null) {
-			logger.info("Parameter generation for MGC: ");
-			if (htsData.getUseGV() && (htsData.getPdfMgcGVStream() != null))
-				mcepPst.setGvMeanVar(gvms.getGVmeanMgc(), gvms.getGVcovInvMgc());
-			mcepPst.mlpg(htsData, htsData.getUseGV());
+			/* parameter generation for mag */
+			if (magPst != null) {
+				logger.info("Parameter generation for MAG ");
+				magPst.mlpg(htsData, magUseGV);
+			}
 		}
 
-		// parameter generation for lf0 */
-		if (htsData.getUseAcousticModels())
+		if (generateLf0 && htsData.getUseAcousticModels())
 			loadMaryXmlF0(um, htsData);
-		else if (lf0Pst != null) {
-			logger.info("Parameter generation for LF0: ");
-			if (htsData.getUseGV() && (htsData.getPdfLf0GVStream() != null))
-				lf0Pst.setGvMeanVar(gvms.getGVmeanLf0(), gvms.getGVcovInvLf0());
-			lf0Pst.mlpg(htsData, htsData.getUseGV());
+		else if (lf0Pst != null)
 			// here we need set realisedF0
 			setRealisedF0(lf0Pst, um, msNumStates);
-		}
 
-		/* parameter generation for str */
-		boolean useGV = false;
-		if (strPst != null) {
-			logger.debug("Parameter generation for STR ");
-			if (htsData.getUseGV() && (htsData.getPdfStrGVStream() != null)) {
-				useGV = true;
-				strPst.setGvMeanVar(gvms.getGVmeanStr(), gvms.getGVcovInvStr());
-			}
-			strPst.mlpg(htsData, useGV);
+	} /* method htsMaximumLikelihoodParameterGeneration */
+
+	/**
+	 * Set the number of threads used for parameter generation, overriding the property <code>htsengine.mlpg.threads</code>.
+	 * The shared pool is created with the number of threads requested first; later calls only change how many tasks each stream
+	 * is split into.
+	 *
+	 * @param numThreads
+	 *            the number of threads; 1 to generate all parameters in the calling thread
+	 */
+	public void setMlpgThreads(int numThreads) {
+		if (numThreads <= 0) {
+			throw new IllegalArgumentException("Number of threads must be positive, but got " + numThreads);
 		}
+		mlpgThreads = numThreads;
+	}
 
-		/* parameter generation for mag */
-		useGV = false;
-		if (magPst != null) {
-			logger.info("Parameter generation for MAG ");
-			if (htsData.getUseGV() && (htsData.getPdfMagGVStream() != null)) {
-				useGV = true;
-				magPst.setGvMeanVar(gvms.getGVmeanMag(), gvms.getGVcovInvMag());
+	/** run the tasks in the executor, and wait for all of them to complete */
+	private static void runAll(ExecutorService executor, List<Callable<Void>> tasks) throws Exception {
+		List<Future<Void>> results = executor.invokeAll(tasks);
+		for (Future<Void> result : results) {
+			try {
+				result.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception) {
+					throw (Exception) e.getCause();
+				}
+				throw new Exception("Parameter generation failed", e.getCause());
 			}
-			magPst.mlpg(htsData, useGV);
 		}
-
-	} /* method htsMaximumLikelihoodParameterGeneration */
+	}
 
 	/* Save generated parameters in a binary file */
 	public void saveParamMaryFormat(String fileName, HTSPStream par, HMMData.FeatureType type) {
@@ -134,6 +134,29 @@ public class HTSUttModel {
 		return modelList.size();
 	}
 
+	/**
+	 * An utterance model made of a contiguous part of this utterance's models, e.g. for generating parameters for one phrase.
+	 * The models themselves are shared, not copied.
+	 * 
+	 * @param firstModel
+	 *            index of the first model to include
+	 * @param endModel
+	 *            index after the last model to include
+	 * @return the partial utterance model, with frame counts set accordingly
+	 */
+	public HTSUttModel getSubUttModel(int firstModel, int endModel) {
+		HTSUttModel sub = new HTSUttModel();
+		for (int i = firstModel; i < endModel; i++) {
+			HTSModel m = getUttModel(i);
+			sub.addUttModel(m);
+			sub.setTotalFrame(sub.getTotalFrame() + m.getTotalDur());
+			sub.setLf0Frame(sub.getLf0Frame() + m.getNumVoiced());
+		}
+		sub.setNumModel(endModel - firstModel);
+		sub.setNumState(numModel > 0 ? numState / numModel * (endModel - firstModel) : 0);
+		return sub;
+	}
+
 	public void setRealisedAcoustParams(String str) {
 		realisedAcoustParams = str;
 	}
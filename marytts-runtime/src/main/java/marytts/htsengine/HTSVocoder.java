@@ -64,12 +64,14 @@
 package marytts.htsengine;
 
 import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.List;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
@@ -116,7 +118,11 @@ public class HTSVocoder {
 
 	private static final Logger logger = MaryUtils.getLogger("Vocoder");
 
-	private Random rand;
+	/** state of the noise generator, the same linear congruential generator as java.util.Random */
+	private long noiseSeed;
+	private static final long NOISE_MULTIPLIER = 0x5DEECE66DL;
+	private static final long NOISE_ADDEND = 0xBL;
+	private static final long NOISE_MASK = (1L << 48) - 1;
 	private int stage; /* Gamma=-1/stage : if stage=0 then Gamma=0 */
 	private double gamma; /* Gamma */
 	private boolean use_log_gain; /* log gain flag (for LSP) */
@@ -141,6 +147,31 @@ public class HTSVocoder {
 	private double xnoiseSignal[]; /* the size of this should be orderM */
 	private boolean mixedExcitation = false;
 	private boolean fourierMagnitudes = false;
+	private double hp[] = null; /* pulse shaping filter, it is initialised once it is known orderM */
+	private double hn[] = null; /* noise shaping filter, it is initialised once it is known orderM */
+	private double noise[]; /* noise and excitation of the current frame */
+	private double source[];
+	private double[] magPulse = null; /* pulse generated from Fourier magnitudes */
+	private int magSample, magPulseSize;
+	private double mc[]; /* feature vector of the current frame */
+	private double frameAudio[]; /* samples of the current frame */
+	private PostfilterBuffers postfilterBuffers; /* working memory for postfiltering */
+
+	/**
+	 * Receives the audio of the vocoder one frame at a time. The array is reused for the next frame, so a sink must copy the
+	 * samples it wants to keep.
+	 */
+	public interface AudioSink {
+		/**
+		 * Take the samples of one frame.
+		 * 
+		 * @param samples
+		 *            the array holding the samples, from position 0 on
+		 * @param len
+		 *            the number of samples
+		 */
+		void putAudio(double[] samples, int len);
+	}
 
 	/**
 	 * The initialisation of VocoderSetup should be done when there is already information about the number of feature vectors to
@@ -162,7 +193,7 @@ public class HTSVocoder {
 		fprd = htsData.getFperiod();
 		rate = htsData.getRate();
 
-		rand = new Random(SEED);
+		noiseSeed = (SEED ^ NOISE_MULTIPLIER) & NOISE_MASK;
 
 		C = new double[mcep_order];
 		CC = new double[mcep_order];
@@ -204,9 +235,28 @@ public class HTSVocoder {
 	 * @return DDSAudioInputStream
 	 */
 	public AudioInputStream htsMLSAVocoder(HTSParameterGeneration pdf2par, HMMData htsData) throws Exception {
+		return htsMLSAVocoder(pdf2par, htsData, null);
+	}
+
+	/**
+	 * Like {@link #htsMLSAVocoder(HTSParameterGeneration, HMMData)}, closing the given object once the audio has been produced
+	 * and htsData is no longer needed.
+	 * 
+	 * @param pdf2par
+	 *            pdf2par
+	 * @param htsData
+	 *            htsData
+	 * @param whenDone
+	 *            to close when vocoding has finished, or null
+	 * @throws Exception
+	 *             Exception
+	 * @return DDSAudioInputStream
+	 */
+	public AudioInputStream htsMLSAVocoder(HTSParameterGeneration pdf2par, HMMData htsData, Closeable whenDone)
+			throws Exception {
 
 		int audioSize = computeAudioSize(pdf2par.getMcepPst(), htsData);
-		HTSVocoderDataProducer producer = new HTSVocoderDataProducer(audioSize, pdf2par, htsData);
+		HTSVocoderDataProducer producer = new HTSVocoderDataProducer(audioSize, pdf2par, htsData, whenDone);
 		producer.start();
 		return new DDSAudioInputStream(producer, getHTSAudioFormat(htsData));
 
@@ -227,6 +277,117 @@ public class HTSVocoder {
 		 */
 	} // method htsMLSAVocoder()
 
+	/**
+	 * Streaming variant of HTS_MLSA_Vocoder. The utterance is cut into windows at pauses, or after maxWindowFrames frames if
+	 * there is no pause. For each window, the spectral parameters (mcep, strengths, Fourier magnitudes) are generated from the
+	 * window's models plus contextModels models on either side, and the window's frames are vocoded as soon as they are
+	 * available, so that the first audio is produced after generating the first window rather than the whole utterance. The
+	 * vocoder state runs on across windows. Global variance, if used, is computed for each window with its context.
+	 * 
+	 * @param um
+	 *            the utterance model
+	 * @param pdf2par
+	 *            parameter generation for the whole utterance, which must contain the log F0 and voicing; spectral parameters are
+	 *            not needed.
+	 * @param htsData
+	 *            htsData
+	 * @param contextModels
+	 *            the number of models on either side of a window to include in parameter generation
+	 * @param maxWindowFrames
+	 *            the maximum number of frames in a window, unless a single model is longer
+	 * @param whenDone
+	 *            to close when vocoding has finished and htsData is no longer needed, or null
+	 * @return an audio input stream that receives the audio as it is being synthesised
+	 */
+	public AudioInputStream htsMLSAVocoder(HTSUttModel um, HTSParameterGeneration pdf2par, HMMData htsData, int contextModels,
+			int maxWindowFrames, Closeable whenDone) {
+		HTSStreamingDataProducer producer = new HTSStreamingDataProducer(um, pdf2par, htsData, contextModels, maxWindowFrames,
+				whenDone);
+		producer.start();
+		return new DDSAudioInputStream(producer, getHTSAudioFormat(htsData));
+	}
+
+	/**
+	 * Generate the spectral parameters of an utterance window by window, and vocode each window as soon as its parameters are
+	 * available. See {@link #htsMLSAVocoder(HTSUttModel, HTSParameterGeneration, HMMData, int, int, Closeable)}.
+	 * 
+	 * @param um
+	 *            the utterance model
+	 * @param lf0Pst
+	 *            log F0 of the voiced frames of the whole utterance
+	 * @param voiced
+	 *            voicing of the frames of the whole utterance
+	 * @param htsData
+	 *            htsData
+	 * @param contextModels
+	 *            the number of models on either side of a window to include in parameter generation
+	 * @param maxWindowFrames
+	 *            the maximum number of frames in a window, unless a single model is longer
+	 * @param sink
+	 *            receives the samples, one frame at a time
+	 * @throws Exception
+	 *             if parameter generation or vocoding fails
+	 */
+	public void vocodeStreaming(HTSUttModel um, HTSPStream lf0Pst, boolean[] voiced, HMMData htsData, int contextModels,
+			int maxWindowFrames, AudioSink sink) throws Exception {
+		int numModels = um.getNumUttModel();
+		int[] modelStart = new int[numModels + 1]; // first frame of each model
+		for (int i = 0; i < numModels; i++) {
+			modelStart[i + 1] = modelStart[i] + um.getUttModel(i).getTotalDur();
+		}
+		double f0MeanOri = getF0Mean(lf0Pst, voiced, modelStart[numModels]);
+		int lf0frame = 0;
+		boolean started = false;
+		for (int[] window : getWindows(um, maxWindowFrames)) {
+			int first = Math.max(0, window[0] - contextModels);
+			int end = Math.min(numModels, window[1] + contextModels);
+			HTSParameterGeneration windowPar = new HTSParameterGeneration();
+			windowPar.htsMaximumLikelihoodParameterGeneration(um.getSubUttModel(first, end), htsData, true, false);
+			if (!started) {
+				startVocoding(windowPar.getMcepPst(), windowPar.getStrPst(), htsData);
+				started = true;
+			}
+			int firstFrame = modelStart[window[0]];
+			int endFrame = modelStart[window[1]];
+			lf0frame = vocodeFrames(lf0Pst, windowPar.getMcepPst(), windowPar.getStrPst(), windowPar.getMagPst(), voiced,
+					firstFrame, endFrame, modelStart[first], lf0frame, f0MeanOri, htsData, sink);
+		}
+	}
+
+	/**
+	 * Cut an utterance into windows for streaming synthesis. A window ends after each pause model, and before a model that would
+	 * make it longer than maxWindowFrames.
+	 * 
+	 * @param um
+	 *            the utterance model
+	 * @param maxWindowFrames
+	 *            the maximum number of frames in a window, unless a single model is longer
+	 * @return pairs of the first model and the model after the last one in each window
+	 */
+	static List<int[]> getWindows(HTSUttModel um, int maxWindowFrames) {
+		List<int[]> windows = new ArrayList<int[]>();
+		int start = 0;
+		int frames = 0;
+		for (int i = 0; i < um.getNumUttModel(); i++) {
+			HTSModel m = um.getUttModel(i);
+			if (i > start && frames + m.getTotalDur() > maxWindowFrames) {
+				windows.add(new int[] { start, i });
+				start = i;
+				frames = 0;
+			}
+			frames += m.getTotalDur();
+			if (m.getPhoneName().equals("_")) {
+				windows.add(new int[] { start, i + 1 });
+				start = i + 1;
+				frames = 0;
+			}
+		}
+		if (start < um.getNumUttModel()) {
+			windows.add(new int[] { start, um.getNumUttModel() });
+		}
+		return windows;
+	}
+
 	/**
 	 * get the audio format produced by the hts vocoder
 	 * 
@@ -245,31 +406,85 @@ public class HTSVocoder {
 	}
 
 	public double[] htsMLSAVocoder(HTSPStream lf0Pst, HTSPStream mcepPst, HTSPStream strPst, HTSPStream magPst, boolean[] voiced,
-			HMMData htsData, HTSVocoderDataProducer audioProducer) throws Exception {
+			HMMData htsData, final HTSVocoderDataProducer audioProducer) throws Exception {
 
-		double inc, x, MaxSample;
-		double xp = 0.0, xn = 0.0, fxp, fxn, mix; /* samples for pulse and for noise and the filtered ones */
-		int k, m, mcepframe, lf0frame;
-		double alpha = htsData.getAlpha();
-		double beta = htsData.getBeta();
-		double[] magPulse = null; /* pulse generated from Fourier magnitudes */
-		int magSample, magPulseSize;
+		/* _______________________Synthesize speech waveforms_____________________ */
+		int audio_size = computeAudioSize(mcepPst, htsData); /* audio size in samples, calculated as num frames * frame period */
+		final double[] audio_double = new double[audio_size]; /* initialise buffer for audio */
+		vocode(lf0Pst, mcepPst, strPst, magPst, voiced, htsData, new AudioSink() {
+			private int pos = 0;
+
+			public void putAudio(double[] samples, int len) {
+				System.arraycopy(samples, 0, audio_double, pos, len);
+				if (audioProducer != null) {
+					audioProducer.putData(audio_double, pos, len);
+				}
+				pos += len;
+			}
+		});
+
+		return (audio_double);
 
-		double f0Std, f0Shift, f0MeanOri;
-		double hp[] = null; /* pulse shaping filter, it is initialised once it is known orderM */
-		double hn[] = null; /* noise shaping filter, it is initialised once it is known orderM */
+	} /* method htsMLSAVocoder() */
+
+	/**
+	 * Synthesise speech out of the generated parameters, handing the audio of each frame to the sink as soon as it is computed.
+	 * Unlike {@link #htsMLSAVocoder(HTSPStream, HTSPStream, HTSPStream, HTSPStream, boolean[], HMMData, HTSVocoderDataProducer)},
+	 * this does not keep the audio of the whole utterance, and allocates no memory per frame.
+	 * 
+	 * @param lf0Pst
+	 *            log F0 of the voiced frames
+	 * @param mcepPst
+	 *            mcep
+	 * @param strPst
+	 *            strengths for mixed excitation, or null
+	 * @param magPst
+	 *            Fourier magnitudes, or null
+	 * @param voiced
+	 *            voicing of the frames
+	 * @param htsData
+	 *            htsData
+	 * @param sink
+	 *            receives the samples, one frame at a time
+	 * @throws Exception
+	 *             if the mixed excitation configuration does not match strPst
+	 */
+	public void vocode(HTSPStream lf0Pst, HTSPStream mcepPst, HTSPStream strPst, HTSPStream magPst, boolean[] voiced,
+			HMMData htsData, AudioSink sink) throws Exception {
+		startVocoding(mcepPst, strPst, htsData);
+		double f0MeanOri = getF0Mean(lf0Pst, voiced, mcepPst.getT());
+		vocodeFrames(lf0Pst, mcepPst, strPst, magPst, voiced, 0, mcepPst.getT(), 0, 0, f0MeanOri, htsData, sink);
+		logger.debug("Finish processing " + mcepPst.getT() + " mcep frames.");
+	}
 
+	/**
+	 * Initialise the vocoder and the mixed excitation for synthesising an utterance. After this, the utterance can be synthesised
+	 * in several calls of {@link #vocodeFrames}, which continue each other seamlessly.
+	 * 
+	 * @param mcepPst
+	 *            a parameter stream with the mcep order and vector size of the utterance
+	 * @param strPst
+	 *            a parameter stream with the order of the strengths, or null
+	 * @param htsData
+	 *            htsData
+	 * @throws Exception
+	 *             if the number of mixed excitation filters does not match the order of strPst
+	 */
+	private void startVocoding(HTSPStream mcepPst, HTSPStream strPst, HMMData htsData) throws Exception {
 		/*
 		 * Initialise vocoder and mixed excitation, once initialised it is known the order of the filters so the shaping filters
 		 * hp and hn can be initialised.
 		 */
-		m = mcepPst.getOrder();
+		int m = mcepPst.getOrder();
 		initVocoder(m, mcepPst.getVsize() - 1, htsData);
-		double pulse[] = new double[fprd];
-		double noise[] = new double[fprd];
-		double source[] = new double[fprd];
+		noise = new double[fprd];
+		source = new double[fprd];
+		frameAudio = new double[fprd];
+		mc = new double[m];
+		postfilterBuffers = new PostfilterBuffers(m - 1);
+		magSample = 1;
+		magPulseSize = 0;
 
-		double[] d = new double[m];
 		mixedExcitation = htsData.getUseMixExc();
 		fourierMagnitudes = htsData.getUseFourierMag();
 
@@ -302,46 +517,81 @@ public class HTSVocoder {
 		// else
 		// logger.info("Pulse generated as a unit pulse.");
 
-		if (beta != 0.0)
-			logger.debug("Postfiltering applied with beta=" + beta);
+		if (htsData.getBeta() != 0.0)
+			logger.debug("Postfiltering applied with beta=" + htsData.getBeta());
 		else
 			logger.debug("No postfiltering applied.");
 
-		f0Std = htsData.getF0Std();
-		f0Shift = htsData.getF0Mean();
-		f0MeanOri = 0.0;
+	}
 
-		for (mcepframe = 0, lf0frame = 0; mcepframe < mcepPst.getT(); mcepframe++) {
+	/**
+	 * The mean F0 of the voiced frames, which is needed for the MARY audio effects modifying F0.
+	 */
+	private double getF0Mean(HTSPStream lf0Pst, boolean[] voiced, int numFrames) {
+		double f0MeanOri = 0.0;
+		int lf0frame = 0;
+		for (int mcepframe = 0; mcepframe < numFrames; mcepframe++) {
 			if (voiced[mcepframe]) {
 				f0MeanOri = f0MeanOri + Math.exp(lf0Pst.getPar(lf0frame, 0));
-				// System.out.println("voiced t=" + mcepframe + "  " + lf0Pst.getPar(lf0frame, 0) + "  ");
 				lf0frame++;
 			}
-			// else
-			// System.out.println("unvoiced t=" + mcepframe + "  0.0  ");
 		}
-		f0MeanOri = f0MeanOri / lf0frame;
+		return f0MeanOri / lf0frame;
+	}
 
-		/* _______________________Synthesize speech waveforms_____________________ */
-		/* generate Nperiod samples per mcepframe */
-		int s = 0; /* number of samples */
-		int s_double = 0;
-		int audio_size = computeAudioSize(mcepPst, htsData); /* audio size in samples, calculated as num frames * frame period */
-		double[] audio_double = new double[audio_size]; /* initialise buffer for audio */
+	/**
+	 * Synthesise the frames firstFrame to endFrame of the utterance. The excitation and filter states are carried over from the
+	 * previous call, so consecutive ranges of frames give the same samples as synthesising them in one go.
+	 * <p>
+	 * Each frame is synthesised as a block: first the excitation of all its samples is generated, then the block is filtered,
+	 * interpolating the filter coefficients from sample to sample, into a buffer which is handed to the sink. All working memory
+	 * is allocated in {@link #startVocoding}, so that no memory is allocated per frame.
+	 * 
+	 * @param lf0Pst
+	 *            log F0 of the voiced frames of the whole utterance
+	 * @param mcepPst
+	 *            mcep, containing frame t at position t - spectrumOffset
+	 * @param strPst
+	 *            strengths, indexed like mcepPst
+	 * @param magPst
+	 *            Fourier magnitudes, indexed like mcepPst
+	 * @param voiced
+	 *            voicing of the frames of the whole utterance
+	 * @param firstFrame
+	 *            the first frame to synthesise, counted from the start of the utterance
+	 * @param endFrame
+	 *            the frame after the last one to synthesise
+	 * @param spectrumOffset
+	 *            the utterance frame at which mcepPst, strPst and magPst start
+	 * @param lf0frame
+	 *            the position of the first voiced frame from firstFrame on in lf0Pst
+	 * @param f0MeanOri
+	 *            the mean F0 of the utterance
+	 * @param htsData
+	 *            htsData
+	 * @param sink
+	 *            receives the samples of each frame as soon as they are computed
+	 * @return the position in lf0Pst after the last voiced frame that was synthesised
+	 */
+	private int vocodeFrames(HTSPStream lf0Pst, HTSPStream mcepPst, HTSPStream strPst, HTSPStream magPst, boolean[] voiced,
+			int firstFrame, int endFrame, int spectrumOffset, int lf0frame, double f0MeanOri, HMMData htsData, AudioSink sink) {
+		double inc;
+		int m = mcepPst.getOrder();
+		double alpha = htsData.getAlpha();
+		double beta = htsData.getBeta();
+		double f0Std = htsData.getF0Std();
+		double f0Shift = htsData.getF0Mean();
 
-		magSample = 1;
-		magPulseSize = 0;
-		for (mcepframe = 0, lf0frame = 0; mcepframe < mcepPst.getT(); mcepframe++) { /* for each mcep frame */
+		for (int t = firstFrame; t < endFrame; t++) { /* for each mcep frame */
+			int mcepframe = t - spectrumOffset;
 
-			/** feature vector for a particular frame */
-			double mc[] = new double[m]; /* feature vector for a particular frame */
 			/* get current feature vector mgc */
 			for (int i = 0; i < m; i++)
 				mc[i] = mcepPst.getPar(mcepframe, i);
 
 			/* f0 modification through the MARY audio effects */
 			double f0 = 0.0;
-			if (voiced[mcepframe]) {
+			if (voiced[t]) {
 				f0 = f0Std * Math.exp(lf0Pst.getPar(lf0frame, 0)) + (1 - f0Std) * f0MeanOri + f0Shift;
 				lf0frame++;
 				f0 = Math.max(0.0, f0);
@@ -392,7 +642,7 @@ public class HTSVocoder {
 
 			if (stage == 0) {
 				/* postfiltering, this is done if beta>0.0 */
-				postfilter_mgc(mc, (m - 1), alpha, beta);
+				postfilter_mgc(mc, (m - 1), alpha, beta, postfilterBuffers);
 				/* mc2b: transform mel-cepstrum to MLSA digital filter coefficients */
 				mc2b(mc, CC, (m - 1), alpha);
 				for (int i = 0; i < m; i++)
@@ -421,126 +671,144 @@ public class HTSVocoder {
 				inc = 0.0;
 				pc = f0;
 				p1 = 0.0;
-				// System.out.println("  inc=" + inc + "  ***pc=" + pc + "  p1=" + p1);
 			}
 
-			/* Here i need to generate both xp:pulse and xn:noise signals separately */
-			// gauss = false; /* Mixed excitation works better with nomal noise */
-
 			/* Generate fperiod samples per feature vector, normally 80 samples per frame */
-			// p1=0.0;
-			for (int j = fprd - 1, i = (IPERIOD + 1) / 2; j >= 0; j--) {
-				if (p1 == 0.0) {
+			generateExcitation(magPst, mcepframe, inc);
+			filterExcitation(m, alpha);
+			sink.putAudio(frameAudio, fprd);
 
-					x = uniformRand(); /* returns 1.0 or -1.0 uniformly distributed */
+			/*********
+			 * For debuging if(voiced[mcepframe]) { double magf[] = SignalProcUtils.getFrameHalfMagnitudeSpectrum(source, 512, 1);
+			 * MaryUtils.plot(magf, "magf"); } System.out.format("str=%.2f\n", str);
+			 */
 
-					if (mixedExcitation) {
-						xn = x;
-						xp = 0.0;
-					}
-				} else {
-					if ((pc += 1.0) >= p1) {
-						if (fourierMagnitudes) {
-							magPulse = genPulseFromFourierMag(magPst, mcepframe, p1);
-							magSample = 0;
-							magPulseSize = magPulse.length;
-							x = magPulse[magSample];
-							magSample++;
-						} else
-							x = Math.sqrt(p1);
+			p1 = f0;
 
-						pc = pc - p1;
-					} else {
+			/* move elements in c */
+			System.arraycopy(CC, 0, C, 0, m);
 
-						if (fourierMagnitudes) {
-							if (magSample >= magPulseSize) {
-								x = 0.0;
-							} else
-								x = magPulse[magSample];
-							magSample++;
-						} else
-							x = 0.0;
-					}
+		} /* for each mcep frame */
+		return lf0frame;
+	}
 
-					if (mixedExcitation) {
-						xp = x;
-						xn = uniformRand();
-					}
-				}
-				// System.out.print("    x=" + x);
+	/**
+	 * Generate the excitation of the fprd samples of the current frame into source. Unvoiced frames, and voiced frames with mixed
+	 * excitation, take one noise value per sample, which are drawn for the whole frame at once.
+	 * 
+	 * @param magPst
+	 *            Fourier magnitudes, if used
+	 * @param mcepframe
+	 *            the position of the current frame in magPst
+	 * @param inc
+	 *            the change of the pitch period per sample
+	 */
+	private void generateExcitation(HTSPStream magPst, int mcepframe, double inc) {
+		double x, xp = 0.0, xn = 0.0, fxp, fxn; /* samples for pulse and for noise and the filtered ones */
 
-				/* apply the shaping filters to the pulse and noise samples */
-				/* i need memory of at least for M samples in both signals */
-				if (mixedExcitation) {
-					fxp = 0.0;
-					fxn = 0.0;
-					for (k = orderM - 1; k > 0; k--) {
-						fxp += hp[k] * xpulseSignal[k];
-						fxn += hn[k] * xnoiseSignal[k];
-						xpulseSignal[k] = xpulseSignal[k - 1];
-						xnoiseSignal[k] = xnoiseSignal[k - 1];
-					}
-					fxp += hp[0] * xp;
-					fxn += hn[0] * xn;
-					xpulseSignal[0] = xp;
-					xnoiseSignal[0] = xn;
-
-					/* x is a pulse noise excitation and mix is mixed excitation */
-					mix = fxp + fxn;
-					pulse[j] = fxp;
-					noise[j] = fxn;
-					source[j] = mix;
-					// System.out.format("%d = %f \n", j, mix);
-
-					/* comment this line if no mixed excitation, just pulse and noise */
-					x = mix; /* excitation sample */
-				}
+		/* p1 is either 0 for the whole frame, or moves towards the next pitch period without reaching 0 */
+		if (p1 == 0.0 || mixedExcitation)
+			uniformRand(noise, fprd); /* 1.0 or -1.0 uniformly distributed */
 
-				if (stage == 0) {
-					if (x != 0.0)
-						x *= Math.exp(C[0]);
-					x = mlsadf(x, C, m, alpha, D1, pt2, pt3);
+		for (int n = 0, i = (IPERIOD + 1) / 2; n < fprd; n++) {
+			if (p1 == 0.0) {
 
-				} else {
-					x *= C[0];
-					x = mglsadf(x, C, (m - 1), alpha, stage, D1);
-				}
+				x = noise[n];
 
-				// System.out.format("%f ", x);
-				audio_double[s_double] = x;
-				if (audioProducer != null) {
-					audioProducer.putOneDataPoint(x);
+				if (mixedExcitation) {
+					xn = x;
+					xp = 0.0;
 				}
+			} else {
+				if ((pc += 1.0) >= p1) {
+					if (fourierMagnitudes) {
+						magPulse = genPulseFromFourierMag(magPst, mcepframe, p1);
+						magSample = 0;
+						magPulseSize = magPulse.length;
+						x = magPulse[magSample];
+						magSample++;
+					} else
+						x = Math.sqrt(p1);
+
+					pc = pc - p1;
+				} else {
 
-				s_double++;
-
-				if ((--i) == 0) {
-					p1 += inc;
-					for (k = 0; k < m; k++) {
-						C[k] += CINC[k];
-					}
-					i = IPERIOD;
+					if (fourierMagnitudes) {
+						if (magSample >= magPulseSize) {
+							x = 0.0;
+						} else
+							x = magPulse[magSample];
+						magSample++;
+					} else
+						x = 0.0;
 				}
 
-			} /* for each sample in a period fprd */
+				if (mixedExcitation) {
+					xp = x;
+					xn = noise[n];
+				}
+			}
 
-			/*********
-			 * For debuging if(voiced[mcepframe]) { double magf[] = SignalProcUtils.getFrameHalfMagnitudeSpectrum(source, 512, 1);
-			 * MaryUtils.plot(magf, "magf"); } System.out.format("str=%.2f\n", str);
-			 */
+			/* apply the shaping filters to the pulse and noise samples */
+			/* i need memory of at least for M samples in both signals */
+			if (mixedExcitation) {
+				fxp = 0.0;
+				fxn = 0.0;
+				for (int k = orderM - 1; k > 0; k--) {
+					fxp += hp[k] * xpulseSignal[k];
+					fxn += hn[k] * xnoiseSignal[k];
+					xpulseSignal[k] = xpulseSignal[k - 1];
+					xnoiseSignal[k] = xnoiseSignal[k - 1];
+				}
+				fxp += hp[0] * xp;
+				fxn += hn[0] * xn;
+				xpulseSignal[0] = xp;
+				xnoiseSignal[0] = xn;
 
-			p1 = f0;
+				/* x is a pulse noise excitation and mix is mixed excitation */
+				x = fxp + fxn;
+			}
 
-			/* move elements in c */
-			System.arraycopy(CC, 0, C, 0, m);
+			source[n] = x;
 
-		} /* for each mcep frame */
+			if ((--i) == 0) {
+				p1 += inc;
+				i = IPERIOD;
+			}
+		}
+	}
 
-		logger.debug("Finish processing " + mcepframe + " mcep frames.");
+	/**
+	 * Filter the excitation of the current frame with the MLSA (or MGLSA) filter into frameAudio, moving the filter
+	 * coefficients C towards those of the next frame by CINC every IPERIOD samples.
+	 * 
+	 * @param m
+	 *            the mcep order
+	 * @param alpha
+	 *            alpha
+	 */
+	private void filterExcitation(int m, double alpha) {
+		for (int n = 0, i = (IPERIOD + 1) / 2; n < fprd; n++) {
+			double x = source[n];
+			if (stage == 0) {
+				if (x != 0.0)
+					x *= Math.exp(C[0]);
+				x = mlsadf(x, C, m, alpha, D1, pt2, pt3);
 
-		return (audio_double);
+			} else {
+				x *= C[0];
+				x = mglsadf(x, C, (m - 1), alpha, stage, D1);
+			}
+			frameAudio[n] = x;
 
-	} /* method htsMLSAVocoder() */
+			if ((--i) == 0) {
+				for (int k = 0; k < m; k++) {
+					C[k] += CINC[k];
+				}
+				i = IPERIOD;
+			}
+		}
+	}
 
 	/**
 	 * Compute the audio size, in samples, that this vocoder is going to produce for the given data.
@@ -710,7 +978,25 @@ public class HTSVocoder {
 	 * @return rand.nextboolean
 	 */
 	public double uniformRand() {
-		return (rand.nextBoolean()) ? 1.0 : -1.0;
+		noiseSeed = (noiseSeed * NOISE_MULTIPLIER + NOISE_ADDEND) & NOISE_MASK;
+		return (noiseSeed >>> 47) != 0 ? 1.0 : -1.0;
+	}
+
+	/**
+	 * Fill the array with the next len values of {@link #uniformRand()}.
+	 * 
+	 * @param x
+	 *            the array to fill from position 0 on
+	 * @param len
+	 *            the number of values
+	 */
+	private void uniformRand(double[] x, int len) {
+		long seed = noiseSeed;
+		for (int n = 0; n < len; n++) {
+			seed = (seed * NOISE_MULTIPLIER + NOISE_ADDEND) & NOISE_MASK;
+			x[n] = (seed >>> 47) != 0 ? 1.0 : -1.0;
+		}
+		noiseSeed = seed;
 	}
 
 	/**
@@ -768,9 +1054,13 @@ public class HTSVocoder {
 	 *            a
 	 */
 	public static void freqt(double c1[], int m1, double c2[], int m2, double a) {
+		freqt(c1, m1, c2, m2, a, new double[(m2 + m2 + 2)]);
+	}
+
+	private static void freqt(double c1[], int m1, double c2[], int m2, double a, double freqt_buff[]) {
 		double b = 1 - a * a;
 
-		double freqt_buff[] = new double[(m2 + m2 + 2)]; /* used in freqt */
+		Arrays.fill(freqt_buff, 0, m2 + m2 + 2, 0.0);
 		int g = m2 + 1; /* offset of freqt_buff */
 
 		for (int i = -m1; i <= 0; i++) {
@@ -824,15 +1114,18 @@ public class HTSVocoder {
 	 * @return en
 	 */
 	public static double b2en(double b[], int m, double a) {
-		double cep[], ir[];
-		int arrayLength = (m + 1) + 2 * IRLENG;
-		double[] spectrum2en_buff = new double[arrayLength];
-		cep = new double[arrayLength]; /* CHECK! these sizes!!! */
-		ir = new double[arrayLength];
+		return b2en(b, m, a, new PostfilterBuffers(m));
+	}
+
+	private static double b2en(double b[], int m, double a, PostfilterBuffers buffers) {
+		double[] spectrum2en_buff = buffers.spectrum2en;
+		double[] cep = buffers.cep;
+		double[] ir = buffers.ir;
+		Arrays.fill(cep, 0.0);
 
 		b2mc(b, spectrum2en_buff, m, a);
 		/* freqt(vs->mc, m, vs->cep, vs->irleng - 1, -a); */
-		freqt(spectrum2en_buff, m, cep, IRLENG - 1, -a);
+		freqt(spectrum2en_buff, m, cep, IRLENG - 1, -a, buffers.freqt);
 		/* HTS_c2ir(vs->cep, vs->irleng, vs->ir, vs->irleng); */
 		c2ir(cep, IRLENG, ir, IRLENG);
 		double en = 0.0;
@@ -1167,21 +1460,45 @@ public class HTSVocoder {
 	 *            beta
 	 */
 	public static void postfilter_mgc(double mgc[], int m, double alpha, double beta) {
+		postfilter_mgc(mgc, m, alpha, beta, new PostfilterBuffers(m));
+	}
+
+	private static void postfilter_mgc(double mgc[], int m, double alpha, double beta, PostfilterBuffers buffers) {
 		if (beta > 0.0 && m > 1) {
-			double[] postfilter_buff = new double[m + 1];
+			double[] postfilter_buff = buffers.postfilter;
 			mc2b(mgc, postfilter_buff, m, alpha);
-			double e1 = b2en(postfilter_buff, m, alpha);
+			double e1 = b2en(postfilter_buff, m, alpha, buffers);
 
 			postfilter_buff[1] -= beta * alpha * mgc[2];
 			for (int k = 2; k < m; k++)
 				postfilter_buff[k] *= (1.0 + beta);
-			double e2 = b2en(postfilter_buff, m, alpha);
+			double e2 = b2en(postfilter_buff, m, alpha, buffers);
 			postfilter_buff[0] += Math.log(e1 / e2) / 2;
 			b2mc(postfilter_buff, mgc, m, alpha);
 
 		}
 	}
 
+	/**
+	 * Working memory for postfiltering mel-cepstra of order m, so that the vocoder can postfilter every frame without allocating.
+	 */
+	private static final class PostfilterBuffers {
+		private final double[] postfilter;
+		private final double[] spectrum2en;
+		private final double[] cep;
+		private final double[] ir;
+		private final double[] freqt;
+
+		private PostfilterBuffers(int m) {
+			int arrayLength = (m + 1) + 2 * IRLENG;
+			postfilter = new double[m + 1];
+			spectrum2en = new double[arrayLength];
+			cep = new double[arrayLength]; /* CHECK! these sizes!!! */
+			ir = new double[arrayLength];
+			freqt = new double[2 * (IRLENG - 1) + 2];
+		}
+	}
+
 	public static double[] genPulseFromFourierMag(HTSPStream mag, int n, double f0) {
 		return genPulseFromFourierMag(mag.getParVec(n), f0);
 	}
@@ -1865,8 +2182,9 @@ public class HTSVocoder {
 		private HTSPStream magPst;
 		private boolean[] voiced;
 		private HMMData htsData;
+		private Closeable whenDone;
 
-		public HTSVocoderDataProducer(int audioSize, HTSParameterGeneration pdf2par, HMMData htsData) {
+		public HTSVocoderDataProducer(int audioSize, HTSParameterGeneration pdf2par, HMMData htsData, Closeable whenDone) {
 			super(audioSize, new AmplitudeNormalizer(INITIAL_MAX_AMPLITUDE));
 			lf0Pst = pdf2par.getlf0Pst();
 			mcepPst = pdf2par.getMcepPst();
@@ -1874,18 +2192,63 @@ public class HTSVocoder {
 			magPst = pdf2par.getMagPst();
 			voiced = pdf2par.getVoicedArray();
 			this.htsData = htsData;
-
+			this.whenDone = whenDone;
 		}
 
 		public void run() {
 			try {
-				htsMLSAVocoder(lf0Pst, mcepPst, strPst, magPst, voiced, htsData, this);
+				vocode(lf0Pst, mcepPst, strPst, magPst, voiced, htsData, new AudioSink() {
+					public void putAudio(double[] samples, int len) {
+						putData(samples, 0, len);
+					}
+				});
 				putEndOfStream();
 			} catch (Exception e) {
 				logger.error("Cannot vocode", e);
+			} finally {
+				FileUtils.close(whenDone);
 			}
 		}
 
 	}
 
+	protected class HTSStreamingDataProducer extends ProducingDoubleDataSource {
+		private static final double INITIAL_MAX_AMPLITUDE = 17000.;
+
+		private HTSUttModel um;
+		private HTSPStream lf0Pst;
+		private boolean[] voiced;
+		private HMMData htsData;
+		private int contextModels;
+		private int maxWindowFrames;
+		private Closeable whenDone;
+
+		public HTSStreamingDataProducer(HTSUttModel um, HTSParameterGeneration pdf2par, HMMData htsData, int contextModels,
+				int maxWindowFrames, Closeable whenDone) {
+			super(um.getTotalFrame() * htsData.getFperiod(), new AmplitudeNormalizer(INITIAL_MAX_AMPLITUDE));
+			this.um = um;
+			lf0Pst = pdf2par.getlf0Pst();
+			voiced = pdf2par.getVoicedArray();
+			this.htsData = htsData;
+			this.contextModels = contextModels;
+			this.maxWindowFrames = maxWindowFrames;
+			this.whenDone = whenDone;
+		}
+
+		public void run() {
+			try {
+				vocodeStreaming(um, lf0Pst, voiced, htsData, contextModels, maxWindowFrames, new AudioSink() {
+					public void putAudio(double[] samples, int len) {
+						putData(samples, 0, len);
+					}
+				});
+			} catch (Exception e) {
+				logger.error("Cannot vocode", e);
+			} finally {
+				putEndOfStream();
+				FileUtils.close(whenDone);
+			}
+		}
+	}
+
 } /* class HTSVocoder */
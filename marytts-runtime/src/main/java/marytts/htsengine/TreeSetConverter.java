@@ -0,0 +1,71 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.htsengine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import marytts.util.io.PropertiesAccessor;
+
+/**
+ * Converts the tree and pdf files of an HMM voice into a binary tree set, which the voice loads much faster when its config file
+ * names it in the property <code>voice.&lt;name&gt;.treeSetFile</code>. The tree and pdf files must stay configured: they tell
+ * which model types the voice uses, and they are loaded instead if the binary tree set cannot be used. Convert again whenever
+ * the tree, pdf, feature or tricky phones files change.
+ * <p>
+ * Usage: <code>java marytts.htsengine.TreeSetConverter voiceName maryBase configFile outputFile</code>, where
+ * <code>jar:</code> in the config file is replaced by maryBase, as in {@link HMMData#initHMMData(String, String, String)}.
+ *
+ * @author agent
+ */
+public class TreeSetConverter {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 4) {
+			System.err.println("Usage: java " + TreeSetConverter.class.getName() + " voiceName maryBase configFile outputFile");
+			System.exit(1);
+		}
+		String voiceName = args[0];
+		String marybase = args[1];
+		Properties props = new Properties();
+		FileInputStream fis = new FileInputStream(marybase + args[2]);
+		props.load(fis);
+		fis.close();
+		// always convert from the text files
+		props.remove("voice." + voiceName + ".treeSetFile");
+		Map<String, String> maryBaseReplacer = new HashMap<String, String>();
+		maryBaseReplacer.put("jar:", marybase);
+		HMMData htsData = new HMMData();
+		htsData.initHMMData(new PropertiesAccessor(props, false, maryBaseReplacer), voiceName);
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(args[3])));
+		try {
+			htsData.getCartTreeSet().writeBinaryTo(out, htsData.getFeatureDefinition());
+		} finally {
+			out.close();
+		}
+		System.out.println("Wrote tree set of voice " + voiceName + " to " + args[3]);
+	}
+}
@@ -53,6 +53,7 @@ import marytts.util.MaryUtils;
 import marytts.util.dom.MaryDomUtils;
 import marytts.util.math.Polynomial;
 
+import org.apache.log4j.Level;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
@@ -102,8 +103,8 @@ public class HMMDurationF0Modeller extends InternalModule {
 			logger.info("Starting my own TargetFeatureLister");
 			targetFeatureLister = new TargetFeatureLister();
 			targetFeatureLister.startup();
-		} else if (targetFeatureLister.getState() == MaryModule.MODULE_OFFLINE) {
-			targetFeatureLister.startup();
+		} else {
+			ModuleRegistry.startModule(targetFeatureLister);
 		}
 	}
 
@@ -146,27 +147,32 @@ public class HMMDurationF0Modeller extends InternalModule {
 			Scanner s = null;
 			String realisedDurations;
 			String realisedDurF0s;
+			HMMData htsData = hmmVoice.acquireHMMData();
 			try {
 				s = new Scanner(context);
 				// Create the Uttmodel list and get durations
-				realisedDurations = processUtt(s, um, hmmVoice.getHMMData(), hmmVoice.getHMMData().getCartTreeSet());
+				realisedDurations = processUtt(s, um, htsData, htsData.getCartTreeSet());
 				// setActualDurations(tw, realisedDurations);
 
 				// Given the UttModel list generate the F0 parameters
-				realisedDurF0s = HmmF0Generation(um, hmmVoice.getHMMData());
+				realisedDurF0s = HmmF0Generation(um, htsData);
 				setActualDurationsAndF0s(tw, realisedDurF0s);
 
 			} finally {
 				if (s != null)
 					s.close();
+				hmmVoice.releaseHMMData(htsData);
 			}
 		} else {
 			logger.debug("No HMM voice called " + hmmVoiceName);
 		}
 
 		// processing 'prosody' tags
-		ByteArrayOutputStream dummy = new ByteArrayOutputStream();
-		d.writeTo(dummy);
+		if (logger.getEffectiveLevel().equals(Level.DEBUG)) {
+			ByteArrayOutputStream dummy = new ByteArrayOutputStream();
+			d.writeTo(dummy);
+			// side effect: writeTo() writes to log if debug
+		}
 
 		applyProsodySpecifications(doc);
 
@@ -64,6 +64,7 @@
 package marytts.modules;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
@@ -78,10 +79,12 @@ import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 
+import marytts.cart.LeafNode.PdfLeafNode;
 import marytts.datatypes.MaryData;
 import marytts.datatypes.MaryDataType;
 import marytts.datatypes.MaryXML;
 import marytts.exceptions.SynthesisException;
+import marytts.features.FeatureColumns;
 import marytts.features.FeatureDefinition;
 import marytts.features.FeatureVector;
 import marytts.htsengine.CartTreeSet;
@@ -93,6 +96,7 @@ import marytts.htsengine.HTSUttModel;
 import marytts.htsengine.HTSVocoder;
 import marytts.htsengine.HTSEngineTest.PhonemeDuration;
 import marytts.modules.synthesis.Voice;
+import marytts.server.MaryProperties;
 import marytts.unitselection.select.Target;
 import marytts.util.MaryUtils;
 import marytts.util.data.audio.AppendableSequenceAudioInputStream;
@@ -120,6 +124,11 @@ public class HTSEngine extends InternalModule {
 	private Vector<PhonemeDuration> alignDur = null; // list of external duration per phone for alignment
 	// this are durations loaded from a external file
 	private double newStateDurationFactor = 0.5; // this is a factor that extends or shrinks the duration of a state
+
+	// streaming synthesis: generate and vocode the spectral parameters window by window
+	private boolean streaming = MaryProperties.getBoolean("htsengine.streaming", false);
+	private int streamingContextModels = MaryProperties.getInteger("htsengine.streaming.context", 2);
+	private int streamingMaxWindowFrames = MaryProperties.getInteger("htsengine.streaming.maxframes", 400);
 	// it can be used to try to syncronise the duration specified in a external
 	// file
 	// and the number of frames in a external lf0 file
@@ -202,29 +211,52 @@ public class HTSEngine extends InternalModule {
 
 		Voice v = d.getDefaultVoice(); /* This is the way of getting a Voice through a MaryData type */
 		assert v instanceof HMMVoice;
-		HMMVoice hmmv = (HMMVoice) v;
+		final HMMVoice hmmv = (HMMVoice) v;
+		/* the same HMM data for the whole request, even if the voice is evicted meanwhile; the vocoder hands it back */
+		final HMMData htsData = hmmv.acquireHMMData();
+		Closeable release = new Closeable() {
+			public void close() {
+				hmmv.releaseHMMData(htsData);
+			}
+		};
 
-		/**
-		 * The utterance model, um, is a Vector (or linked list) of Model objects. It will contain the list of models for current
-		 * label file.
-		 */
-		/* Process label file of Mary context features and creates UttModel um */
-		HTSUttModel um = processTargetList(targetFeaturesList, segmentsAndBoundaries, hmmv.getHMMData());
+		HTSUttModel um;
+		AudioInputStream ais;
+		boolean vocoding = false;
+		try {
+			/**
+			 * The utterance model, um, is a Vector (or linked list) of Model objects. It will contain the list of models for
+			 * current label file.
+			 */
+			/* Process label file of Mary context features and creates UttModel um */
+			um = processTargetList(targetFeaturesList, segmentsAndBoundaries, htsData);
 
-		/* Process UttModel */
-		HTSParameterGeneration pdf2par = new HTSParameterGeneration();
+			/* Process UttModel */
+			HTSParameterGeneration pdf2par = new HTSParameterGeneration();
 
-		/* Generate sequence of speech parameter vectors, generate parameters out of sequence of pdf's */
-		pdf2par.htsMaximumLikelihoodParameterGeneration(um, hmmv.getHMMData());
+			/* set parameters for generation: f0Std, f0Mean and length, default values 1.0, 0.0 and 0.0 */
+			/* These values are fixed in HMMVoice */
 
-		/* set parameters for generation: f0Std, f0Mean and length, default values 1.0, 0.0 and 0.0 */
-		/* These values are fixed in HMMVoice */
+			/* Process generated parameters */
+			HTSVocoder par2speech = new HTSVocoder();
 
-		/* Process generated parameters */
-		HTSVocoder par2speech = new HTSVocoder();
+			if (streaming) {
+				/* Generate log F0 for the whole utterance; spectral parameters are generated window by window while vocoding */
+				pdf2par.htsMaximumLikelihoodParameterGeneration(um, htsData, false, true);
+				ais = par2speech.htsMLSAVocoder(um, pdf2par, htsData, streamingContextModels, streamingMaxWindowFrames, release);
+			} else {
+				/* Generate sequence of speech parameter vectors, generate parameters out of sequence of pdf's */
+				pdf2par.htsMaximumLikelihoodParameterGeneration(um, htsData);
 
-		/* Synthesize speech waveform, generate speech out of sequence of parameters */
-		AudioInputStream ais = par2speech.htsMLSAVocoder(pdf2par, hmmv.getHMMData());
+				/* Synthesize speech waveform, generate speech out of sequence of parameters */
+				ais = par2speech.htsMLSAVocoder(pdf2par, htsData, release);
+			}
+			vocoding = true;
+		} finally {
+			if (!vocoding) {
+				release.close();
+			}
+		}
 
 		MaryData output = new MaryData(outputType(), d.getLocale());
 		if (d.getAudioFileFormat() != null) {
@@ -417,7 +449,6 @@ public class HTSEngine extends InternalModule {
 		int alignDurSize = 0;
 		final float fperiodmillisec = ((float) htsData.getFperiod() / (float) htsData.getRate()) * 1000;
 		final float fperiodsec = ((float) htsData.getFperiod() / (float) htsData.getRate());
-		boolean firstPh = true;
 		float durVal = 0.0f;
 		FeatureDefinition feaDef = htsData.getFeatureDefinition();
 
@@ -430,6 +461,19 @@ public class HTSEngine extends InternalModule {
 			loggerHts.info("Estimating state durations from (Gaussian) state duration model.");
 		}
 
+		// look up the pdfs of all targets at once
+		FeatureColumns columns = new FeatureColumns(feaDef.getNumberOfByteFeatures(), feaDef.getNumberOfShortFeatures(),
+				feaDef.getNumberOfContinuousFeatures(), targetFeaturesList.size());
+		columns.reset(targetFeaturesList.size());
+		for (int t = 0; t < targetFeaturesList.size(); t++) {
+			columns.setFeatureVector(t, targetFeaturesList.get(t).getFeatureVector());
+		}
+		PdfLeafNode[][] durLeaves = cart.interpret(HMMData.FeatureType.DUR, columns);
+		PdfLeafNode[][] lf0Leaves = cart.interpret(HMMData.FeatureType.LF0, columns);
+		PdfLeafNode[][] mgcLeaves = cart.interpret(HMMData.FeatureType.MGC, columns);
+		PdfLeafNode[][] strLeaves = htsData.getTreeStrStream() != null ? cart.interpret(HMMData.FeatureType.STR, columns) : null;
+		PdfLeafNode[][] magLeaves = htsData.getTreeMagStream() != null ? cart.interpret(HMMData.FeatureType.MAG, columns) : null;
+
 		// process feature vectors in targetFeatureList
 		int i = 0;
 		for (Target target : targetFeaturesList) {
@@ -455,12 +499,12 @@ public class HTSEngine extends InternalModule {
 				// get the durations of the Gaussians, because we need to know how long each estate should be
 				// knowing the duration of each state we can modified it so the 5 states reflect the external duration
 				// Here the duration for phones and sil (_) are calcualted
-				diffdurNew = cart.searchDurInCartTree(m, fv, htsData, firstPh, false, diffdurOld);
+				diffdurNew = cart.searchDurInCartTree(m, durLeaves, i, htsData, diffdurOld);
 
 				if (e.getTagName().contentEquals("ph")) {
 					// No duration => predict one !
 					if ((e.getAttribute("d") == null) || (e.getAttribute("d").equals(""))) {
-						diffdurNew = cart.searchDurInCartTree(m, fv, htsData, firstPh, false, diffdurOld);
+						diffdurNew = cart.searchDurInCartTree(m, durLeaves, i, htsData, diffdurOld);
 					}
 					// Use phone duration
 					else {
@@ -535,7 +579,7 @@ public class HTSEngine extends InternalModule {
 			}
 			// Estimate state duration from state duration model (Gaussian)
 			else {
-				diffdurNew = cart.searchDurInCartTree(m, fv, htsData, firstPh, false, diffdurOld);
+				diffdurNew = cart.searchDurInCartTree(m, durLeaves, i, htsData, diffdurOld);
 			}
 
 			um.setTotalFrame(um.getTotalFrame() + m.getTotalDur());
@@ -557,26 +601,24 @@ public class HTSEngine extends InternalModule {
 			// if ( ! htsData.getUseUnitDurationContinuousFeature() )
 			// Here according to the HMM models it is decided whether the states of this model are voiced or unvoiced
 			// even if f0 is taken from maryXml here we need to set the voived/unvoiced values per model and state
-			cart.searchLf0InCartTree(m, fv, feaDef, htsData.getUV());
+			cart.searchLf0InCartTree(m, lf0Leaves, i, htsData.getUV());
 
 			/* Find pdf for Mgc, this function sets the pdf for each state. */
-			cart.searchMgcInCartTree(m, fv, feaDef);
+			cart.searchMgcInCartTree(m, mgcLeaves, i);
 
 			/* Find pdf for strengths, this function sets the pdf for each state. */
 			if (htsData.getTreeStrStream() != null)
-				cart.searchStrInCartTree(m, fv, feaDef);
+				cart.searchStrInCartTree(m, strLeaves, i);
 
 			/* Find pdf for Fourier magnitudes, this function sets the pdf for each state. */
 			if (htsData.getTreeMagStream() != null)
-				cart.searchMagInCartTree(m, fv, feaDef);
+				cart.searchMagInCartTree(m, magLeaves, i);
 
 			/* increment number of models in utterance model */
 			um.setNumModel(um.getNumModel() + 1);
 			/* update number of states */
 			um.setNumState(um.getNumState() + cart.getNumStates());
 			i++;
-
-			firstPh = false;
 		}
 
 		if (alignDur != null)
@@ -143,6 +143,7 @@ public class JPhonemiser extends InternalModule {
 		}
 		InputStream lexiconStream = MaryProperties.needStream(lexiconProperty);
 		lexicon = new FSTLookup(lexiconStream, lexiconProperty);
+		lexicon.setCacheSize(MaryProperties.getInteger("lexicon.cache.entries", 0));
 		InputStream ltsStream = MaryProperties.needStream(ltsProperty);
 		if (removetrailingonefromphonesProperty != null) {
 			this.removeTrailingOneFromPhones = MaryProperties.getBoolean(removetrailingonefromphonesProperty, true);
@@ -246,6 +246,25 @@ public class ModuleRegistry {
 		return null;
 	}
 
+	/**
+	 * Start the given module unless it is already running. Modules are started in parallel by {@link marytts.server.Mary}, so a
+	 * module which depends on another module must start it through this method rather than by checking its state and calling
+	 * its startup() method: this makes sure each module is started only once, and that the caller waits until a module being
+	 * started by another thread is ready. Dependencies between modules must not be cyclic.
+	 *
+	 * @param module
+	 *            the module to start
+	 * @throws Exception
+	 *             if the module cannot be started
+	 */
+	public static void startModule(MaryModule module) throws Exception {
+		synchronized (module) {
+			if (module.getState() == MaryModule.MODULE_OFFLINE) {
+				module.startup();
+			}
+		}
+	}
+
 	/**
 	 * A method for determining the list of modules required to transform the given source data type into the requested target
 	 * data type.
@@ -26,6 +26,7 @@ import java.util.Locale;
 import marytts.datatypes.MaryData;
 import marytts.datatypes.MaryDataType;
 import marytts.datatypes.MaryXML;
+import marytts.features.FeatureColumns;
 import marytts.features.FeatureRegistry;
 import marytts.features.FeatureVector;
 import marytts.features.TargetFeatureComputer;
@@ -98,10 +99,10 @@ public class TargetFeatureLister extends InternalModule {
 		String header = featureComputer.getAllFeatureProcessorNamesAndValues();
 		StringBuilder text = new StringBuilder();
 		StringBuilder bin = new StringBuilder();
-		for (Target target : targets) {
-			FeatureVector features = featureComputer.computeFeatureVector(target);
-			text.append(featureComputer.toStringValues(features)).append("\n");
-			bin.append(features.toString()).append("\n");
+		FeatureColumns features = featureComputer.computeFeatures(targets);
+		for (int i = 0, n = features.getNumberOfTargets(); i < n; i++) {
+			text.append(featureComputer.toStringValues(features, i)).append("\n");
+			bin.append(features.toString(i)).append("\n");
 		}
 
 		// Leave an empty line between sections:
@@ -23,10 +23,13 @@ package marytts.modules.acoustic;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
+import marytts.cart.CART;
 import marytts.cart.DirectedGraph;
 import marytts.cart.io.DirectedGraphReader;
 import marytts.exceptions.MaryConfigurationException;
+import marytts.features.FeatureColumns;
 import marytts.features.FeatureProcessorManager;
 import marytts.unitselection.select.Target;
 
@@ -85,4 +88,29 @@ public class CARTModel extends Model {
 		}
 		return value;
 	}
+
+	/**
+	 * Apply the CART to all Targets at once, walking down the tree directly on the feature columns if it is a CART
+	 */
+	@Override
+	protected float[] evaluate(List<Target> targets, FeatureColumns columns) throws MaryConfigurationException {
+		if (!(cart instanceof CART)) {
+			return super.evaluate(targets, columns);
+		}
+		Object[] results;
+		try {
+			results = ((CART) cart).interpret(columns);
+		} catch (IllegalArgumentException e) {
+			throw new MaryConfigurationException("Could not interpret targets", e);
+		}
+		float[] values = new float[results.length];
+		for (int i = 0; i < values.length; i++) {
+			float[] result = (float[]) results[i];
+			if (result == null || result.length < 2) {
+				throw new MaryConfigurationException("Could not predict value for target: '" + targets.get(i) + "'");
+			}
+			values[i] = result[1]; // assuming result is [stdev, val]
+		}
+		return values;
+	}
 }
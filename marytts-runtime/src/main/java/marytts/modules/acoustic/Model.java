@@ -27,6 +27,7 @@ import java.util.List;
 
 import marytts.datatypes.MaryXML;
 import marytts.exceptions.MaryConfigurationException;
+import marytts.features.FeatureColumns;
 import marytts.features.FeatureProcessorManager;
 import marytts.features.FeatureRegistry;
 import marytts.features.FeatureVector;
@@ -195,17 +196,12 @@ public abstract class Model {
 		assert applyToElements != null;
 		assert predictFromElements.size() == applyToElements.size();
 
-		List<Target> predictFromTargets = getTargets(predictFromElements);
+		FeatureColumns columns = featureComputer.createFeatureColumns(predictFromElements.size());
+		List<Target> predictFromTargets = getTargets(predictFromElements, columns);
+		float[] targetValues = evaluate(predictFromTargets, columns);
 
 		for (int i = 0; i < applyToElements.size(); i++) {
-			Target target = predictFromTargets.get(i);
-
-			float targetValue;
-			try {
-				targetValue = (float) evaluate(target);
-			} catch (Exception e) {
-				throw new MaryConfigurationException("Could not predict value for target: '" + target + "'", e);
-			}
+			float targetValue = targetValues[i];
 
 			Element element = applyToElements.get(i);
 
@@ -249,20 +245,62 @@ public abstract class Model {
 	 * @return List of Targets
 	 */
 	protected List<Target> getTargets(List<Element> elements) {
+		return getTargets(elements, featureComputer.createFeatureColumns(elements.size()));
+	}
+
+	/**
+	 * For a list of <code>PHONE</code> elements, return a list of Targets, where each Target is constructed from the
+	 * corresponding Element, and compute their features into the given feature columns.
+	 * 
+	 * @param elements
+	 *            List of Elements
+	 * @param columns
+	 *            feature columns created by the feature computer of this Model
+	 * @return List of Targets
+	 */
+	protected List<Target> getTargets(List<Element> elements, FeatureColumns columns) {
 		List<Target> targets = new ArrayList<Target>(elements.size());
 		for (Element element : elements) {
 			assert element.getTagName() == MaryXML.PHONE;
 			String phone = UnitSelector.getPhoneSymbol(element);
-			Target target = new Target(phone, element);
-			targets.add(target);
-			// compute FeatureVectors for Targets:
-			FeatureVector targetFeatureVector = featureComputer.computeFeatureVector(target);
+			targets.add(new Target(phone, element));
+		}
+		// compute FeatureVectors for Targets:
+		featureComputer.computeFeatures(targets, columns);
+		for (int i = 0; i < targets.size(); i++) {
+			Target target = targets.get(i);
+			FeatureVector targetFeatureVector = columns.getFeatureVector(i);
 			target.setFeatureVector(targetFeatureVector); // this is critical!
-			element.setUserData("target", target, Target.targetFeatureCloner);
+			elements.get(i).setUserData("target", target, Target.targetFeatureCloner);
 		}
 		return targets;
 	}
 
+	/**
+	 * Evaluate model on a list of Targets to obtain their target values. This evaluates one Target at a time; models which can
+	 * evaluate all targets at once from their feature columns override it.
+	 * 
+	 * @param targets
+	 *            targets
+	 * @param columns
+	 *            the features of the targets, as computed by {@link #getTargets(List, FeatureColumns)}
+	 * @return the target values, in the order of targets
+	 * @throws MaryConfigurationException
+	 *             if a target value cannot be predicted
+	 */
+	protected float[] evaluate(List<Target> targets, FeatureColumns columns) throws MaryConfigurationException {
+		float[] targetValues = new float[targets.size()];
+		for (int i = 0; i < targetValues.length; i++) {
+			Target target = targets.get(i);
+			try {
+				targetValues[i] = (float) evaluate(target);
+			} catch (Exception e) {
+				throw new MaryConfigurationException("Could not predict value for target: '" + target + "'", e);
+			}
+		}
+		return targetValues;
+	}
+
 	/**
 	 * Evaluate model on a Target to obtain the target value as a float.
 	 * 
@@ -0,0 +1,257 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.modules.synthesis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import marytts.util.MaryUtils;
+
+/**
+ * The data of a voice which is expensive to load and to keep in memory, such as a unit database or HMM models. The data is
+ * loaded when it is first requested through {@link #get()}; threads requesting it while it is being loaded wait for that single
+ * load. The {@link VoiceManager} may drop the data again when the voice has not been used for a while, in which case the next
+ * request loads it anew, and the evicted data is closed through {@link #close(Object)}, which releases its open files.
+ * <p>
+ * A synthesis request should fetch the data once, through {@link #acquire()}, use that instance for the whole request, and hand
+ * it back through {@link #release(Object)} when it is done: data evicted while it is held is closed only when its last holder has
+ * released it. {@link #get()} does not hold the data, and is meant for short lookups of information that stays in memory, such as
+ * a feature definition.
+ *
+ * @param <T>
+ *            the type of the voice data
+ * @author agent
+ */
+public abstract class LazyVoiceData<T> {
+	private final Voice voice;
+	private volatile T data;
+	private volatile long size;
+	private volatile long lastUsed;
+	/**
+	 * The number of holders of each instance of the data, including instances which have been evicted. Guarded by this.
+	 */
+	private final Map<T, Integer> holders = new IdentityHashMap<T, Integer>();
+
+	protected LazyVoiceData(Voice voice) {
+		this.voice = voice;
+		VoiceManager.register(this);
+	}
+
+	/**
+	 * Load the voice data.
+	 *
+	 * @return the voice data, never null
+	 * @throws Exception
+	 *             if the data cannot be loaded
+	 */
+	protected abstract T load() throws Exception;
+
+	/**
+	 * Estimate the memory taken by the voice data. This is called after each load.
+	 *
+	 * @return the estimated size of the data, in bytes
+	 */
+	protected abstract long estimateSize();
+
+	/**
+	 * Release the resources held by the voice data, such as open files. This is called once the data has been evicted and is no
+	 * longer held by anyone. The default implementation closes data which is {@link Closeable}.
+	 *
+	 * @param d
+	 *            the data to close
+	 * @throws IOException
+	 *             if the data cannot be closed
+	 */
+	protected void close(T d) throws IOException {
+		if (d instanceof Closeable) {
+			((Closeable) d).close();
+		}
+	}
+
+	/**
+	 * Get the voice data, loading it if necessary.
+	 *
+	 * @return the voice data
+	 * @throws IllegalStateException
+	 *             if the data is not loaded and cannot be loaded
+	 */
+	public T get() {
+		try {
+			return getOrLoad(false);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException("Cannot load data of voice " + voice.getName(), e);
+		}
+	}
+
+	/**
+	 * Load the voice data now unless it is loaded already. This is used to load voices at startup, and reports load errors as
+	 * they are.
+	 *
+	 * @throws Exception
+	 *             if the data cannot be loaded
+	 */
+	public void preload() throws Exception {
+		getOrLoad(false);
+	}
+
+	/**
+	 * Get the voice data for the duration of a request, loading it if necessary. The data is not closed before it has been
+	 * handed back through {@link #release(Object)}, even if it is evicted in the meantime.
+	 *
+	 * @return the voice data
+	 * @throws IllegalStateException
+	 *             if the data is not loaded and cannot be loaded
+	 */
+	public T acquire() {
+		try {
+			return getOrLoad(true);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException("Cannot load data of voice " + voice.getName(), e);
+		}
+	}
+
+	/**
+	 * Hand back voice data obtained from {@link #acquire()}. If the data has been evicted and this was its last holder, it is
+	 * closed.
+	 *
+	 * @param d
+	 *            the data as returned by {@link #acquire()}
+	 * @throws IllegalStateException
+	 *             if the data is not currently held
+	 */
+	public void release(T d) {
+		boolean evicted;
+		synchronized (this) {
+			Integer n = holders.get(d);
+			if (n == null) {
+				throw new IllegalStateException("Data of voice " + voice.getName() + " released but not held");
+			}
+			if (n > 1) {
+				holders.put(d, n - 1);
+				return;
+			}
+			holders.remove(d);
+			evicted = d != data;
+		}
+		if (evicted) {
+			closeQuietly(d);
+		}
+	}
+
+	private T getOrLoad(boolean hold) throws Exception {
+		lastUsed = System.currentTimeMillis();
+		T d = data;
+		if (d != null && !hold) {
+			return d;
+		}
+		long loadTime = -1;
+		synchronized (this) {
+			d = data;
+			if (d == null) {
+				long before = System.currentTimeMillis();
+				d = load();
+				size = estimateSize();
+				data = d;
+				loadTime = System.currentTimeMillis() - before;
+			}
+			if (hold) {
+				Integer n = holders.get(d);
+				holders.put(d, n == null ? 1 : n + 1);
+			}
+		}
+		// not while holding the lock, as the voice manager may evict other voices now
+		if (loadTime >= 0) {
+			VoiceManager.loaded(this, loadTime);
+		}
+		return d;
+	}
+
+	/**
+	 * Drop the voice data, and close it unless it is held by a request; in that case, it is closed when the last holder releases
+	 * it.
+	 *
+	 * @return true if the data was loaded
+	 */
+	boolean unload() {
+		T d;
+		synchronized (this) {
+			d = data;
+			if (d == null) {
+				return false;
+			}
+			data = null;
+			if (holders.containsKey(d)) {
+				return true;
+			}
+		}
+		closeQuietly(d);
+		return true;
+	}
+
+	private void closeQuietly(T d) {
+		try {
+			close(d);
+		} catch (IOException e) {
+			MaryUtils.getLogger("VoiceManager").warn("Cannot close data of voice " + voice.getName(), e);
+		}
+	}
+
+	/**
+	 * The voice to which this data belongs.
+	 *
+	 * @return the voice
+	 */
+	public Voice getVoice() {
+		return voice;
+	}
+
+	/**
+	 * Whether the data is currently loaded.
+	 *
+	 * @return true if the data is in memory
+	 */
+	public boolean isLoaded() {
+		return data != null;
+	}
+
+	/**
+	 * The estimated size of the data as last loaded.
+	 *
+	 * @return the size in bytes, as given by {@link #estimateSize()}
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * When the data was last requested.
+	 *
+	 * @return the time of the last request, in milliseconds, or 0 if it was never requested
+	 */
+	public long getLastUsed() {
+		return lastUsed;
+	}
+}
@@ -35,6 +35,7 @@ import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -109,11 +110,7 @@ public class Voice {
 			(System.getProperty("os.arch").equals("x86") || System.getProperty("os.arch").equals("i386")) ? // byteorder
 			false // little-endian
 					: true); // big-endian
-	/**
-	 * List all registered voices. This set will always return the voices in the order of their wantToBeDefault value, highest
-	 * first.
-	 */
-	private static Set<Voice> allVoices = new TreeSet<Voice>(new Comparator<Voice>() {
+	private static final Comparator<Voice> voiceOrder = new Comparator<Voice>() {
 		public int compare(Voice v1, Voice v2) {
 			// Return negative number if v1 should be listed before v2
 			int desireDelta = v2.wantToBeDefault - v1.wantToBeDefault;
@@ -122,9 +119,16 @@ public class Voice {
 			// same desire -- sort alphabetically
 			return v2.getName().compareTo(v1.getName());
 		}
-	});
+	};
+
+	/**
+	 * List all registered voices. This set will always return the voices in the order of their wantToBeDefault value, highest
+	 * first. Voices may be registered while other threads look them up, so the set is never modified: registering a voice
+	 * replaces it by a new set.
+	 */
+	private static volatile Set<Voice> allVoices = new TreeSet<Voice>(voiceOrder);
 
-	private static Map<Locale, Voice> defaultVoices = new HashMap<Locale, Voice>();
+	private static Map<Locale, Voice> defaultVoices = new ConcurrentHashMap<Locale, Voice>();
 
 	protected static Logger logger = MaryUtils.getLogger("Voice");
 
@@ -619,12 +623,15 @@ public class Voice {
 	 * @param voice
 	 *            voicwe
 	 */
-	public static void registerVoice(Voice voice) {
+	public static synchronized void registerVoice(Voice voice) {
 		if (voice == null)
 			throw new NullPointerException("Cannot register null voice.");
 		if (!allVoices.contains(voice)) {
 			logger.info("Registering voice `" + voice.getName() + "': " + voice.gender() + ", locale " + voice.getLocale());
-			allVoices.add(voice);
+			Set<Voice> voices = new TreeSet<Voice>(voiceOrder);
+			voices.addAll(allVoices);
+			voices.add(voice);
+			allVoices = voices;
 		}
 		checkIfDefaultVoice(voice);
 	}
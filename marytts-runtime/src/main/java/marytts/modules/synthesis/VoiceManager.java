@@ -0,0 +1,269 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.modules.synthesis;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import marytts.server.MaryProperties;
+import marytts.util.MaryUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Manages the life cycle of the {@link LazyVoiceData} of all voices. Voices are registered with their cheap metadata at startup,
+ * as before; if lazy loading is enabled, their heavy data is loaded only when a voice is first used. After each load, voices are
+ * evicted, least recently used first, until the estimated size of all loaded voice data fits into the memory budget again. Voices
+ * used more recently than a minimum idle time are never evicted, so the budget can be exceeded while many voices are in use.
+ * Evicted data is closed as soon as no request holds it any more (see {@link LazyVoiceData#acquire()}).
+ * <p>
+ * The following properties are read:
+ * <ul>
+ * <li><code>voice.lazyloading</code> -- if true, load voice data on first use; if false, load all voices at startup and never
+ * evict them (default: false);</li>
+ * <li><code>voice.lazyloading.budget.megabytes</code> -- the memory budget for voice data, 0 meaning no limit (default: 0);</li>
+ * <li><code>voice.lazyloading.minidle.seconds</code> -- how long a voice must have been idle before it may be evicted (default:
+ * 60).</li>
+ * </ul>
+ *
+ * @author agent
+ */
+public class VoiceManager {
+	/**
+	 * Is notified when voice data is loaded or evicted.
+	 */
+	public interface Listener {
+		/**
+		 * The data of a voice has been loaded.
+		 *
+		 * @param voice
+		 *            the voice
+		 * @param size
+		 *            the estimated size of the data, in bytes
+		 * @param loadTime
+		 *            the time the load took, in milliseconds
+		 */
+		public void voiceLoaded(Voice voice, long size, long loadTime);
+
+		/**
+		 * The data of a voice has been evicted.
+		 *
+		 * @param voice
+		 *            the voice
+		 * @param size
+		 *            the estimated size of the data, in bytes
+		 * @param idleTime
+		 *            the time since the voice was last used, in milliseconds
+		 */
+		public void voiceEvicted(Voice voice, long size, long idleTime);
+	}
+
+	private static Logger logger = MaryUtils.getLogger("VoiceManager");
+
+	private static final List<LazyVoiceData<?>> allData = new CopyOnWriteArrayList<LazyVoiceData<?>>();
+	private static final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+	private static final AtomicLong numLoads = new AtomicLong();
+	private static final AtomicLong totalLoadTime = new AtomicLong();
+	private static final AtomicLong numEvictions = new AtomicLong();
+
+	private VoiceManager() {
+	}
+
+	/**
+	 * Whether voice data is loaded on first use rather than at startup.
+	 *
+	 * @return the value of <code>voice.lazyloading</code>
+	 */
+	public static boolean isLazyLoading() {
+		return MaryProperties.getBoolean("voice.lazyloading", false);
+	}
+
+	private static long getBudget() {
+		return MaryProperties.getInteger("voice.lazyloading.budget.megabytes", 0) * 1024L * 1024L;
+	}
+
+	private static long getMinIdleTime() {
+		return MaryProperties.getInteger("voice.lazyloading.minidle.seconds", 60) * 1000L;
+	}
+
+	public static void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public static void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	static void register(LazyVoiceData<?> data) {
+		allData.add(data);
+	}
+
+	/**
+	 * Called by {@link LazyVoiceData} after it has loaded its data.
+	 *
+	 * @param data
+	 *            the data which was loaded
+	 * @param loadTime
+	 *            the time the load took, in milliseconds
+	 */
+	static void loaded(LazyVoiceData<?> data, long loadTime) {
+		numLoads.incrementAndGet();
+		totalLoadTime.addAndGet(loadTime);
+		logger.info("Loaded voice " + data.getVoice().getName() + " (about " + toMegabytes(data.getSize()) + " MB) in "
+				+ loadTime + " ms");
+		for (Listener l : listeners) {
+			l.voiceLoaded(data.getVoice(), data.getSize(), loadTime);
+		}
+		evict(data);
+	}
+
+	/**
+	 * Evict the least recently used idle voices until the loaded voice data fits into the budget.
+	 *
+	 * @param keep
+	 *            voice data which must not be evicted, or null
+	 */
+	static synchronized void evict(LazyVoiceData<?> keep) {
+		long budget = getBudget();
+		if (budget <= 0 || !isLazyLoading()) {
+			return;
+		}
+		long resident = getResidentSize();
+		while (resident > budget) {
+			long now = System.currentTimeMillis();
+			LazyVoiceData<?> lru = null;
+			for (LazyVoiceData<?> data : allData) {
+				if (data != keep && data.isLoaded() && now - data.getLastUsed() >= getMinIdleTime()
+						&& (lru == null || data.getLastUsed() < lru.getLastUsed())) {
+					lru = data;
+				}
+			}
+			if (lru == null) {
+				logger.debug("Voice data takes " + toMegabytes(resident) + " MB, but no voice is idle long enough to be evicted");
+				return;
+			}
+			long size = lru.getSize();
+			long idleTime = now - lru.getLastUsed();
+			if (lru.unload()) {
+				resident -= size;
+				numEvictions.incrementAndGet();
+				logger.info("Evicted voice " + lru.getVoice().getName() + " (about " + toMegabytes(size) + " MB, idle for "
+						+ idleTime / 1000 + " s)");
+				for (Listener l : listeners) {
+					l.voiceEvicted(lru.getVoice(), size, idleTime);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Whether the data of the given voice is in memory.
+	 *
+	 * @param voice
+	 *            voice
+	 * @return false if the voice has lazily loaded data which is not currently loaded, true otherwise.
+	 */
+	public static boolean isLoaded(Voice voice) {
+		for (LazyVoiceData<?> data : allData) {
+			if (data.getVoice() == voice && !data.isLoaded()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The estimated size of all voice data currently loaded.
+	 *
+	 * @return the size in bytes
+	 */
+	public static long getResidentSize() {
+		long resident = 0;
+		for (LazyVoiceData<?> data : allData) {
+			if (data.isLoaded()) {
+				resident += data.getSize();
+			}
+		}
+		return resident;
+	}
+
+	/**
+	 * Statistics on the voice data, for the server's statistics report.
+	 *
+	 * @return a multi-line string, one "name value" pair per line.
+	 */
+	public static String getStatistics() {
+		StringBuilder buf = new StringBuilder();
+		int numResident = 0;
+		for (LazyVoiceData<?> data : allData) {
+			if (data.isLoaded()) {
+				numResident++;
+			}
+		}
+		long loads = numLoads.get();
+		buf.append("voices.managed ").append(allData.size()).append("\n");
+		buf.append("voices.resident ").append(numResident).append("\n");
+		buf.append("voices.resident.bytes ").append(getResidentSize()).append("\n");
+		buf.append("voices.budget.bytes ").append(getBudget()).append("\n");
+		buf.append("voices.loads ").append(loads).append("\n");
+		buf.append("voices.load.avg.ms ").append(loads > 0 ? totalLoadTime.get() / loads : 0).append("\n");
+		buf.append("voices.evictions ").append(numEvictions.get()).append("\n");
+		for (LazyVoiceData<?> data : allData) {
+			buf.append("voices.").append(data.getVoice().getName()).append(".resident.bytes ")
+					.append(data.isLoaded() ? data.getSize() : 0).append("\n");
+		}
+		return buf.toString();
+	}
+
+	/**
+	 * The size of the file named in the given property, as an estimate of the memory it takes once loaded.
+	 *
+	 * @param property
+	 *            a property naming a file, or a classpath resource if its value starts with "jar:"
+	 * @return the size of the file in bytes, or 0 if the property is not set or the file cannot be found.
+	 */
+	public static long getFileSize(String property) {
+		String value = MaryProperties.getProperty(property);
+		if (value == null) {
+			return 0;
+		}
+		if (value.startsWith("jar:")) {
+			URL url = MaryProperties.class.getResource(value.substring("jar:".length()));
+			if (url == null) {
+				return 0;
+			}
+			try {
+				return Math.max(url.openConnection().getContentLength(), 0);
+			} catch (IOException e) {
+				return 0;
+			}
+		}
+		return new File(MaryProperties.getFilename(property)).length();
+	}
+
+	private static long toMegabytes(long bytes) {
+		return bytes / (1024 * 1024);
+	}
+}
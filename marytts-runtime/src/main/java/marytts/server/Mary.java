@@ -33,13 +33,12 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
@@ -60,7 +59,8 @@ import marytts.modules.synthesis.Voice;
 import marytts.util.MaryCache;
 import marytts.util.MaryRuntimeUtils;
 import marytts.util.MaryUtils;
-import marytts.util.Pair;
+import marytts.util.cache.SegmentCache;
+import marytts.util.data.ProducingDoubleDataSource;
 import marytts.util.data.audio.MaryAudioUtils;
 import marytts.util.io.FileUtils;
 
@@ -135,40 +135,64 @@ public class Mary {
 		}
 		ModuleRegistry.setRegistrationComplete();
 
-		List<Pair<MaryModule, Long>> startupTimes = new ArrayList<Pair<MaryModule, Long>>();
-
-		// Separate loop for startup allows modules to cross-reference to each
+		// Separate phase for startup allows modules to cross-reference to each
 		// other via Mary.getModule(Class) even if some have not yet been
-		// started.
-		for (MaryModule m : ModuleRegistry.getAllModules()) {
+		// started. Modules are started in parallel; a module which needs another
+		// one starts it through ModuleRegistry.startModule(), which waits for it
+		// if it is already being started by another thread.
+		List<String> names = new ArrayList<String>();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (final MaryModule m : ModuleRegistry.getAllModules()) {
 			// Only start the modules here if in server mode:
 			if (((!MaryProperties.getProperty("server").equals("commandline")) || m instanceof Synthesis)
 					&& m.getState() == MaryModule.MODULE_OFFLINE) {
-				long before = System.currentTimeMillis();
-				try {
-					m.startup();
-				} catch (Throwable t) {
-					throw new Exception("Problem starting module " + m.name(), t);
-				}
-				long after = System.currentTimeMillis();
-				startupTimes.add(new Pair<MaryModule, Long>(m, after - before));
+				names.add(m.name());
+				tasks.add(new Callable<Object>() {
+					public Object call() throws Exception {
+						ModuleRegistry.startModule(m);
+						return null;
+					}
+				});
 			}
-			if (MaryProperties.getAutoBoolean("modules.poweronselftest", false)) {
-				m.powerOnSelfTest();
+		}
+		ParallelStartup.run("module", names, tasks);
+
+		if (MaryProperties.getAutoBoolean("modules.poweronselftest", false)) {
+			if (MaryProperties.getBoolean("modules.poweronselftest.background", true)) {
+				Thread selfTest = new Thread("PowerOnSelfTest") {
+					public void run() {
+						powerOnSelfTest(true);
+					}
+				};
+				selfTest.setDaemon(true);
+				selfTest.start();
+			} else {
+				powerOnSelfTest(false);
 			}
 		}
+	}
 
-		if (startupTimes.size() > 0) {
-			Collections.sort(startupTimes, new Comparator<Pair<MaryModule, Long>>() {
-				public int compare(Pair<MaryModule, Long> o1, Pair<MaryModule, Long> o2) {
-					return -o1.getSecond().compareTo(o2.getSecond());
-				}
-			});
-			logger.debug("Startup times:");
-			for (Pair<MaryModule, Long> p : startupTimes) {
-				logger.debug(p.getFirst().name() + ": " + p.getSecond() + " ms");
+	/**
+	 * Run the power-on self test of all modules.
+	 * 
+	 * @param background
+	 *            if true, a failing test is reported in the log and the remaining tests are run; if false, a failing test throws
+	 *            an Error, which prevents the server from starting.
+	 */
+	private static void powerOnSelfTest(boolean background) {
+		long before = System.currentTimeMillis();
+		for (MaryModule m : ModuleRegistry.getAllModules()) {
+			if (!background) {
+				m.powerOnSelfTest();
+				continue;
+			}
+			try {
+				m.powerOnSelfTest();
+			} catch (Throwable t) {
+				logger.error("Power-on self test of module " + m.name() + " failed", t);
 			}
 		}
+		logger.info("Power-on self test took " + (System.currentTimeMillis() - before) + " ms");
 	}
 
 	private static void setupFeatureProcessors() throws Exception {
@@ -374,6 +398,11 @@ public class Mary {
 				m.shutdown();
 		}
 
+		if (SynthesisScheduler.haveScheduler()) {
+			ProducingDoubleDataSource.setProducerExecutor(null);
+			SynthesisScheduler.getScheduler().shutdown();
+		}
+
 		if (MaryCache.haveCache()) {
 			MaryCache cache = MaryCache.getCache();
 			try {
@@ -382,6 +411,13 @@ public class Mary {
 				logger.warn("Cannot shutdown cache: ", e);
 			}
 		}
+		if (SegmentCache.haveCache()) {
+			try {
+				SegmentCache.getCache().shutdown();
+			} catch (IOException e) {
+				logger.warn("Cannot shutdown cache: ", e);
+			}
+		}
 		logger.info("Shutdown complete.");
 		currentState = STATE_OFF;
 	}
@@ -512,6 +548,11 @@ public class Mary {
 
 		Runnable main = null;
 
+		if (!server.equals("commandline")) {
+			// Let audio producers share the scheduler's streaming threads rather than starting a thread each:
+			ProducingDoubleDataSource.setProducerExecutor(SynthesisScheduler.getScheduler().getStreamingExecutor());
+		}
+
 		if (server.equals("socket")) { // socket server mode
 			main = (Runnable) Class.forName("marytts.server.MaryServer").newInstance();
 		} else if (server.equals("http")) { // http server mode
@@ -37,6 +37,7 @@ import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
@@ -62,7 +63,7 @@ import org.apache.log4j.Logger;
 
 /**
  * Listen for clients on socket port <code>MaryProperties.socketPort()</code>. For each new client, create a new RequestHandler
- * thread.
+ * and run it on the {@link SynthesisScheduler}.
  * <p>
  * Clients are expected to follow the following <b>protocol</b>:
  * <p>
@@ -508,7 +509,15 @@ public class MaryServer implements Runnable {
 			}
 			// -- send off to new request
 			RequestHandler rh = new RequestHandler(request, infoSocket, client, reader);
-			rh.start();
+			try {
+				SynthesisScheduler.getScheduler().submit(request.getDefaultVoice(), rh);
+			} catch (RejectedExecutionException e) {
+				logger.info("Rejecting request " + id + ": " + e.getMessage());
+				PrintWriter infoOut = new PrintWriter(new OutputStreamWriter(infoSocket.getOutputStream(), "UTF-8"), true);
+				infoOut.println("Server busy: " + e.getMessage());
+				infoSocket.close();
+				client.close();
+			}
 			return true;
 		}
 
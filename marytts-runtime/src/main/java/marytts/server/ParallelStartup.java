@@ -0,0 +1,191 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import marytts.util.MaryUtils;
+import marytts.util.Pair;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs independent startup tasks, such as starting modules or loading voices, on a pool of threads, and reports how long each of
+ * them took. The number of threads is set by the property <code>modules.startup.threads</code>; 1 runs the tasks one after the
+ * other in the calling thread, 0 or less uses one thread per available processor.
+ * <p>
+ * Tasks must not depend on each other's completion by waiting for one another in the pool; a task which needs a module started
+ * by another task should start it through {@link marytts.modules.ModuleRegistry#startModule(marytts.modules.MaryModule)}, which
+ * starts each module only once.
+ *
+ * @author agent
+ */
+public class ParallelStartup {
+	private static Logger logger = MaryUtils.getLogger("ParallelStartup");
+
+	private static final AtomicInteger poolNumber = new AtomicInteger();
+
+	private ParallelStartup() {
+	}
+
+	/**
+	 * The number of threads used for startup tasks.
+	 *
+	 * @return the value of <code>modules.startup.threads</code>, or the number of available processors if that is not positive.
+	 */
+	public static int getNumberOfThreads() {
+		int threads = MaryProperties.getInteger("modules.startup.threads", 0);
+		if (threads <= 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+		return threads;
+	}
+
+	/**
+	 * Run the given tasks and wait for all of them to finish. The time taken by each task is logged, longest first.
+	 *
+	 * @param what
+	 *            what the tasks do, for log and error messages, e.g. "module"
+	 * @param names
+	 *            the names of the tasks, one for each task
+	 * @param tasks
+	 *            the tasks
+	 * @param <T>
+	 *            the result type of the tasks
+	 * @return the results of the tasks, in the order of the tasks
+	 * @throws Exception
+	 *             if one of the tasks failed; the cause is the exception thrown by the first of the failed tasks, in the order of the
+	 *             tasks. All other tasks are completed nevertheless.
+	 */
+	public static <T> List<T> run(String what, List<String> names, List<? extends Callable<T>> tasks) throws Exception {
+		assert names.size() == tasks.size();
+		List<TimedTask<T>> timedTasks = new ArrayList<TimedTask<T>>(tasks.size());
+		for (Callable<T> task : tasks) {
+			timedTasks.add(new TimedTask<T>(task));
+		}
+		long before = System.currentTimeMillis();
+		int threads = Math.min(getNumberOfThreads(), tasks.size());
+		List<Throwable> failures = new ArrayList<Throwable>(tasks.size());
+		List<T> results = new ArrayList<T>(tasks.size());
+		if (threads <= 1) {
+			for (TimedTask<T> task : timedTasks) {
+				try {
+					results.add(task.call());
+					failures.add(null);
+				} catch (Throwable t) {
+					results.add(null);
+					failures.add(t);
+				}
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(threads, new StartupThreadFactory(what));
+			try {
+				List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+				for (TimedTask<T> task : timedTasks) {
+					futures.add(executor.submit(task));
+				}
+				for (Future<T> future : futures) {
+					try {
+						results.add(future.get());
+						failures.add(null);
+					} catch (ExecutionException e) {
+						results.add(null);
+						failures.add(e.getCause());
+					}
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+		logTimes(what, names, timedTasks, System.currentTimeMillis() - before, threads);
+		for (int i = 0; i < failures.size(); i++) {
+			if (failures.get(i) != null) {
+				throw new Exception("Problem starting " + what + " " + names.get(i), failures.get(i));
+			}
+		}
+		return results;
+	}
+
+	private static <T> void logTimes(String what, List<String> names, List<TimedTask<T>> tasks, long total, int threads) {
+		if (tasks.isEmpty()) {
+			return;
+		}
+		List<Pair<String, Long>> times = new ArrayList<Pair<String, Long>>(tasks.size());
+		for (int i = 0; i < tasks.size(); i++) {
+			times.add(new Pair<String, Long>(names.get(i), tasks.get(i).time));
+		}
+		Collections.sort(times, new Comparator<Pair<String, Long>>() {
+			public int compare(Pair<String, Long> o1, Pair<String, Long> o2) {
+				return -o1.getSecond().compareTo(o2.getSecond());
+			}
+		});
+		logger.info("Started " + tasks.size() + " " + what + "(s) in " + total + " ms using " + Math.max(threads, 1)
+				+ " thread(s); startup times:");
+		for (Pair<String, Long> p : times) {
+			logger.info("  " + p.getFirst() + ": " + p.getSecond() + " ms");
+		}
+	}
+
+	/**
+	 * A task which measures its own run time, including any time spent waiting for modules it depends on.
+	 */
+	private static class TimedTask<T> implements Callable<T> {
+		private final Callable<T> task;
+		private volatile long time;
+
+		TimedTask(Callable<T> task) {
+			this.task = task;
+		}
+
+		public T call() throws Exception {
+			long before = System.currentTimeMillis();
+			try {
+				return task.call();
+			} finally {
+				time = System.currentTimeMillis() - before;
+			}
+		}
+	}
+
+	private static class StartupThreadFactory implements ThreadFactory {
+		private final String prefix;
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		StartupThreadFactory(String what) {
+			prefix = "startup-" + what + "-" + poolNumber.incrementAndGet() + "-";
+		}
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, prefix + threadNumber.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -25,20 +25,23 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Reader;
-import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.UnsupportedAudioFileException;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 
@@ -51,6 +54,8 @@ import marytts.modules.synthesis.Voice;
 import marytts.util.MaryCache;
 import marytts.util.MaryRuntimeUtils;
 import marytts.util.MaryUtils;
+import marytts.util.cache.SegmentCache;
+import marytts.util.cache.SynthesisCache;
 import marytts.util.data.audio.AppendableSequenceAudioInputStream;
 import marytts.util.dom.DomUtils;
 import marytts.util.dom.MaryDomUtils;
@@ -78,6 +83,11 @@ import org.w3c.dom.traversal.TreeWalker;
  * data is either accessed directly (<code>getOutputData()</code>) or written to an output stream (<code>writeOutputData</code>).
  */
 public class Request {
+	/**
+	 * One timer thread shared by all requests to watch for output timeouts in {@link #writeOutputData(OutputStream)}.
+	 */
+	private static final Timer outputTimer = new Timer("Output timeout", true);
+
 	protected MaryDataType inputType;
 	protected MaryDataType outputType;
 	protected String outputTypeParams;
@@ -93,7 +103,7 @@ public class Request {
 	protected MaryData inputData;
 	protected MaryData outputData;
 	protected boolean streamAudio = false;;
-	protected boolean abortRequested = false;
+	protected volatile boolean abortRequested = false;
 
 	// Keep track of timing info for each module
 	// (map MaryModule onto Long)
@@ -324,33 +334,20 @@ public class Request {
 			outputData.setAudioFileFormat(audioFileFormat);
 		}
 		int len = inputDataList.getLength();
-		for (int i = 0; i < len && !abortRequested; i++) {
-			Element currentInputParagraph = (Element) inputDataList.item(i);
-			assert currentInputParagraph.getTagName().equals(MaryXML.PARAGRAPH);
-			NodeList outputNodeList = null;
-			// Only process paragraph if there is any text below it:
-			if (MaryDomUtils.getPlainTextBelow(currentInputParagraph).trim().equals("")) {
-				outputNodeList = currentInputParagraph.getChildNodes();
-			} else { // process "real" data:
-				MaryData oneInputData = extractParagraphAsMaryData(rawmaryxml, currentInputParagraph);
-				// assert oneInputData.getDefaultVoice() != null;
-				MaryData oneOutputData = processOrLookupOneChunk(oneInputData, outputType, outputTypeParams);
-				// assert oneOutputData.getDefaultVoice() != null;
-				if (outputType.isMaryXML()) {
-					NodeList outParagraphList = oneOutputData.getDocument().getDocumentElement()
-							.getElementsByTagName(MaryXML.PARAGRAPH);
-					// This does not hold for Tibetan:
-					// assert outParagraphList.getLength() == 1;
-					outputNodeList = outParagraphList;
-				} else { // output is not MaryXML, e.g. text or audio
-					assert outputData != null;
-					outputData.append(oneOutputData);
+		int maxParallelChunks = MaryProperties.getInteger("request.parallelchunks", 1);
+		if (len == 1 && isOnlyContent((Element) inputDataList.item(0)) && !isEmptyParagraph((Element) inputDataList.item(0))) {
+			processAsOneChunk(rawmaryxml);
+		} else if (maxParallelChunks > 1 && len > 1) {
+			processChunksInParallel(rawmaryxml, inputDataList, maxParallelChunks);
+		} else {
+			for (int i = 0; i < len && !abortRequested; i++) {
+				Element currentInputParagraph = (Element) inputDataList.item(i);
+				MaryData oneOutputData = null;
+				if (!isEmptyParagraph(currentInputParagraph)) {
+					MaryData oneInputData = extractParagraphAsMaryData(rawmaryxml, currentInputParagraph);
+					oneOutputData = processOrLookupOneChunk(oneInputData, outputType, outputTypeParams);
 				}
-			}
-			if (outputType.isMaryXML()) {
-				assert outputNodeList != null;
-				// And now replace the paragraph in-place:
-				MaryDomUtils.replaceElement(currentInputParagraph, outputNodeList);
+				integrateChunk(currentInputParagraph, oneOutputData);
 			}
 		}
 		long stopTime = System.currentTimeMillis();
@@ -362,6 +359,200 @@ public class Request {
 			appendableAudioStream.doneAppending();
 	}
 
+	/**
+	 * Process the paragraphs of the document concurrently on the scheduler's chunk executor, keeping at most
+	 * <code>maxInFlight</code> paragraphs of this request in progress. The results are integrated strictly in document order,
+	 * each as soon as it and all paragraphs before it are done, so that streamed audio starts with the first paragraph.
+	 * 
+	 * @param rawmaryxml
+	 *            the document containing the paragraphs
+	 * @param paragraphs
+	 *            the paragraphs to process
+	 * @param maxInFlight
+	 *            the maximum number of paragraphs processed at the same time
+	 * @throws Exception
+	 *             the first exception thrown while processing a paragraph
+	 */
+	private void processChunksInParallel(final MaryData rawmaryxml, NodeList paragraphs, int maxInFlight) throws Exception {
+		ExecutorService executor = SynthesisScheduler.getScheduler().getChunkExecutor();
+		// The document is modified as results are integrated, so take a snapshot of the paragraphs first:
+		int len = paragraphs.getLength();
+		final Element[] elements = new Element[len];
+		for (int i = 0; i < len; i++) {
+			elements[i] = (Element) paragraphs.item(i);
+		}
+		logger.debug("Processing " + len + " paragraphs with up to " + maxInFlight + " in parallel");
+		processInOrder(executor, maxInFlight, new ChunkSequence<MaryData>(len) {
+			Callable<MaryData> prepare(int i) throws Exception {
+				if (isEmptyParagraph(elements[i])) {
+					return null;
+				}
+				// Extraction reads the shared document, so it is done here rather than in the worker threads:
+				final MaryData oneInputData = extractParagraphAsMaryData(rawmaryxml, elements[i]);
+				return new Callable<MaryData>() {
+					public MaryData call() throws Exception {
+						return processOrLookupOneChunk(oneInputData, outputType, outputTypeParams);
+					}
+				};
+			}
+
+			void integrate(int i, MaryData oneOutputData) throws Exception {
+				integrateChunk(elements[i], oneOutputData);
+			}
+
+			boolean isAborted() {
+				return abortRequested;
+			}
+		});
+	}
+
+	/**
+	 * A sequence of chunks to be processed concurrently and integrated in order by
+	 * {@link Request#processInOrder(ExecutorService, int, ChunkSequence)}.
+	 */
+	abstract static class ChunkSequence<T> {
+		final int length;
+
+		ChunkSequence(int length) {
+			this.length = length;
+		}
+
+		/**
+		 * Create the task processing chunk i. Called in the calling thread, in order.
+		 * 
+		 * @return the task, or null if there is nothing to process for this chunk.
+		 */
+		abstract Callable<T> prepare(int i) throws Exception;
+
+		/**
+		 * Integrate the result of chunk i, or null if there was no task for it. Called in the calling thread, in order.
+		 */
+		abstract void integrate(int i, T result) throws Exception;
+
+		boolean isAborted() {
+			return false;
+		}
+	}
+
+	/**
+	 * Run the tasks of the given chunks on the executor, keeping at most <code>maxInFlight</code> of them in progress, and
+	 * integrate their results strictly in order, each as soon as it and all chunks before it are done. When a chunk fails, the
+	 * tasks not yet started are cancelled; running tasks are not interrupted, since an interrupt closes the file channels
+	 * that voice data and the cache are read through.
+	 * 
+	 * @throws Exception
+	 *             the exception thrown by the first failing chunk
+	 */
+	static <T> void processInOrder(ExecutorService executor, int maxInFlight, ChunkSequence<T> chunks) throws Exception {
+		int len = chunks.length;
+		LinkedList<Future<T>> pending = new LinkedList<Future<T>>();
+		int next = 0;
+		try {
+			for (int i = 0; i < len && !chunks.isAborted(); i++) {
+				while (next < len && pending.size() < maxInFlight) {
+					Callable<T> task = chunks.prepare(next);
+					pending.addLast(task == null ? null : executor.submit(task));
+					next++;
+				}
+				Future<T> head = pending.removeFirst();
+				T result = null;
+				if (head != null) {
+					try {
+						result = head.get();
+					} catch (ExecutionException e) {
+						Throwable cause = e.getCause();
+						if (cause instanceof Exception) {
+							throw (Exception) cause;
+						}
+						throw new Exception("Problem processing chunk " + i, cause);
+					}
+				}
+				chunks.integrate(i, result);
+			}
+		} finally {
+			for (Future<T> f : pending) {
+				if (f != null) {
+					f.cancel(false);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Process a document whose only content is a single paragraph in place. This gives the same result as extracting the
+	 * paragraph into a new document with {@link #extractParagraphAsMaryData(MaryData, Element)} and integrating the result, but
+	 * the paragraph, which for a short prompt is all of the input, is not copied.
+	 * 
+	 * @param rawmaryxml
+	 *            the document containing the paragraph
+	 * @throws Exception
+	 *             Exception
+	 */
+	private void processAsOneChunk(MaryData rawmaryxml) throws Exception {
+		Document doc = rawmaryxml.getDocument();
+		MaryData oneInputData = new MaryData(rawmaryxml.getType(), MaryUtils.string2locale(doc.getDocumentElement()
+				.getAttribute("xml:lang")));
+		if (rawmaryxml.getDefaultVoice() != null) {
+			oneInputData.setDefaultVoice(rawmaryxml.getDefaultVoice());
+		}
+		oneInputData.setDocument(doc);
+		MaryData oneOutputData = processOrLookupOneChunk(oneInputData, outputType, outputTypeParams);
+		if (outputType.isMaryXML()) {
+			outputData.setDocument(oneOutputData.getDocument());
+		} else {
+			outputData.append(oneOutputData);
+		}
+	}
+
+	/**
+	 * Whether the given paragraph is all there is in its document, apart from whitespace.
+	 */
+	private static boolean isOnlyContent(Element paragraph) {
+		Node root = paragraph.getParentNode();
+		if (root != paragraph.getOwnerDocument().getDocumentElement()) {
+			return false;
+		}
+		for (Node n = root.getFirstChild(); n != null; n = n.getNextSibling()) {
+			if (n != paragraph && !(n.getNodeType() == Node.TEXT_NODE && n.getNodeValue().trim().equals(""))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isEmptyParagraph(Element paragraph) {
+		assert paragraph.getTagName().equals(MaryXML.PARAGRAPH);
+		return MaryDomUtils.getPlainTextBelow(paragraph).trim().equals("");
+	}
+
+	/**
+	 * Integrate the result of processing one paragraph into the output data: for MaryXML output types, replace the paragraph
+	 * in-place; for other output types, append the result.
+	 * 
+	 * @param currentInputParagraph
+	 *            the paragraph that was processed
+	 * @param oneOutputData
+	 *            the result of processing, or null if the paragraph contains no text
+	 */
+	private void integrateChunk(Element currentInputParagraph, MaryData oneOutputData) {
+		NodeList outputNodeList = null;
+		if (oneOutputData == null) {
+			outputNodeList = currentInputParagraph.getChildNodes();
+		} else if (outputType.isMaryXML()) {
+			// This does not hold for Tibetan:
+			// assert outParagraphList.getLength() == 1;
+			outputNodeList = oneOutputData.getDocument().getDocumentElement().getElementsByTagName(MaryXML.PARAGRAPH);
+		} else { // output is not MaryXML, e.g. text or audio
+			assert outputData != null;
+			outputData.append(oneOutputData);
+		}
+		if (outputType.isMaryXML()) {
+			assert outputNodeList != null;
+			// And now replace the paragraph in-place:
+			MaryDomUtils.replaceElement(currentInputParagraph, outputNodeList);
+		}
+	}
+
 	/**
 	 * Convert the given data into the requested output type, either by looking it up in the cache or by actually processing it.
 	 * 
@@ -394,9 +585,9 @@ public class Request {
 		Locale locale = determineLocale(oneInputData);
 		assert locale != null;
 
-		MaryCache cache = null;
+		SynthesisCache cache = null;
 		if (MaryProperties.getBoolean("cache")) {
-			cache = MaryCache.getCache();
+			cache = getSynthesisCache();
 		}
 
 		if (cache == null) {
@@ -412,9 +603,18 @@ public class Request {
 		// try to look up the requested result in the cache:
 		inputtype = oneInputData.getType().name();
 		outputtype = oneOutputType.name();
-		ByteArrayOutputStream sw = new ByteArrayOutputStream();
-		oneInputData.writeTo(sw);
-		inputtext = new String(sw.toByteArray(), "UTF-8");
+		if (oneInputData.getType().isTextType() && !oneInputData.getType().isXMLType()) {
+			// plain text is its own cache key, no need to write it out and decode it again
+			inputtext = oneInputData.getPlainText();
+		} else if (oneInputData.getDocument() != null && cache instanceof SegmentCache) {
+			// XML is keyed by walking the document, rather than by serialising it with a transformer. The hsqldb cache keeps
+			// the serialised form, so that the entries written by earlier versions still match.
+			inputtext = DomUtils.toKeyString(oneInputData.getDocument());
+		} else {
+			ByteArrayOutputStream sw = new ByteArrayOutputStream();
+			oneInputData.writeTo(sw);
+			inputtext = new String(sw.toByteArray(), "UTF-8");
+		}
 		voice = defaultVoice != null ? defaultVoice.getName() : null;
 		localeString = locale.toString();
 
@@ -483,8 +683,21 @@ public class Request {
 		}
 	}
 
-	private void insertAudioIntoCache(MaryCache cache, String inputtype, String localeString, String voice, String outputParams,
-			String inputtext, MaryData currentData) throws IOException, SQLException, UnsupportedAudioFileException {
+	/**
+	 * The cache engine is selected by the property <code>cache.engine</code>: <code>hsqldb</code> (the default) for the
+	 * database-backed cache, <code>segments</code> for the in-memory and append-only file cache.
+	 * 
+	 * @return the synthesis cache, or null if it could not be created.
+	 */
+	private static SynthesisCache getSynthesisCache() {
+		if ("segments".equals(MaryProperties.getProperty("cache.engine", "hsqldb"))) {
+			return SegmentCache.getCache();
+		}
+		return MaryCache.getCache();
+	}
+
+	private void insertAudioIntoCache(SynthesisCache cache, String inputtype, String localeString, String voice,
+			String outputParams, String inputtext, MaryData currentData) throws Exception {
 		AppendableSequenceAudioInputStream as = (AppendableSequenceAudioInputStream) currentData.getAudio();
 		assert as != appendableAudioStream;
 		as.doneAppending();
@@ -496,7 +709,7 @@ public class Request {
 		currentData.setAudio(ais);
 	}
 
-	private void insertTextIntoCache(MaryCache cache, String inputtype, String outputtype, String localeString, String voice,
+	private void insertTextIntoCache(SynthesisCache cache, String inputtype, String outputtype, String localeString, String voice,
 			String outputParams, String inputtext, MaryData currentData) {
 		try {
 			ByteArrayOutputStream sw = new ByteArrayOutputStream();
@@ -523,7 +736,9 @@ public class Request {
 					+ oneInputData.getType().name() + "), no processing path through modules.";
 			throw new UnsupportedOperationException(message);
 		}
-		usedModules.addAll(neededModules);
+		synchronized (usedModules) {
+			usedModules.addAll(neededModules);
+		}
 		logger.info("Handling request using the following modules:");
 		for (MaryModule m : neededModules) {
 			logger.info("- " + m.name() + " (" + m.getClass().getName() + ")");
@@ -578,11 +793,13 @@ public class Request {
 			currentData = outData;
 			long moduleStopTime = System.currentTimeMillis();
 			long delta = moduleStopTime - moduleStartTime;
-			Long soFar = timingInfo.get(m);
-			if (soFar != null)
-				timingInfo.put(m, new Long(soFar.longValue() + delta));
-			else
-				timingInfo.put(m, new Long(delta));
+			synchronized (timingInfo) {
+				Long soFar = timingInfo.get(m);
+				if (soFar != null)
+					timingInfo.put(m, new Long(soFar.longValue() + delta));
+				else
+					timingInfo.put(m, new Long(delta));
+			}
 			if (MaryRuntimeUtils.veryLowMemoryCondition()) {
 				logger.info("Very low memory condition detected (only " + MaryUtils.availableMemory()
 						+ " bytes left). Triggering garbage collection.");
@@ -848,7 +1065,6 @@ public class Request {
 		// time, give up. This prevents our thread from being locked forever if an
 		// output deadlock occurs (happened very rarely on Java 1.4.2beta).
 		final OutputStream os = outputStream;
-		Timer timer = new Timer();
 		TimerTask timerTask = new TimerTask() {
 			public void run() {
 				logger.warn("Timeout occurred while writing output. Forcefully closing output stream.");
@@ -865,14 +1081,13 @@ public class Request {
 			// effort (for MP3), so allow for a lot of time:
 			timeout *= 5;
 		}
-		timer.schedule(timerTask, timeout);
+		outputTimer.schedule(timerTask, timeout);
 		try {
 			outputData.writeTo(os);
-		} catch (Exception e) {
-			timer.cancel();
-			throw e;
+		} finally {
+			timerTask.cancel();
+			outputTimer.purge();
 		}
-		timer.cancel();
 	}
 
 }
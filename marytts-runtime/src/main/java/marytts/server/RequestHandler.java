@@ -30,6 +30,8 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Reader;
 import java.net.Socket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.sound.sampled.AudioSystem;
 import javax.xml.transform.TransformerException;
@@ -48,7 +50,8 @@ import org.apache.log4j.WriterAppender;
 import org.xml.sax.SAXParseException;
 
 /**
- * A lightweight process handling one Request in a thread of its own. This is to be used when running as a socket server.
+ * A lightweight process handling one Request. This is to be used when running as a socket server, where request handlers are
+ * run on the worker threads of the {@link SynthesisScheduler}.
  * 
  * @author Marc Schr&ouml;der
  */
@@ -147,14 +150,14 @@ public class RequestHandler extends Thread {
 		}
 
 		boolean streamingOutput = false;
-		StreamingOutputWriter rw = null;
+		Future<?> rw = null;
 		// Process input data to output data
 		if (ok)
 			try {
 				if (request.getOutputType().equals(MaryDataType.get("AUDIO")) && request.getStreamAudio()) {
 					streamingOutput = true;
-					rw = new StreamingOutputWriter(request, dataSocket.getOutputStream());
-					rw.start();
+					rw = SynthesisScheduler.getScheduler().getStreamingExecutor()
+							.submit(new StreamingOutputWriter(request, dataSocket.getOutputStream()));
 				}
 
 				request.process();
@@ -190,9 +193,11 @@ public class RequestHandler extends Thread {
 				}
 			} else { // streaming output
 				try {
-					rw.join();
+					rw.get();
 				} catch (InterruptedException ie) {
 					logger.warn(ie);
+				} catch (ExecutionException ee) {
+					logger.warn("Streaming output failed", ee.getCause());
 				}
 			}
 		}
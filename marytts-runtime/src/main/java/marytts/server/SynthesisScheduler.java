@@ -0,0 +1,388 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.server;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import marytts.modules.synthesis.Voice;
+import marytts.util.MaryUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The synthesis scheduler runs server requests on a bounded pool of worker threads instead of one new thread per request.
+ * <p>
+ * Admission control happens when a request is submitted: if all workers are busy and the wait queue is full, or if the
+ * requested voice already has its maximum number of requests in flight, the request is rejected immediately with a
+ * {@link RejectedExecutionException}, which the servers report to the client as "server busy". Admitted requests are counted
+ * so that the time spent waiting in the queue and the time spent processing can be reported via {@link #getStatistics()}.
+ * <p>
+ * A second, separate pool of daemon threads serves the auxiliary streaming tasks belonging to an admitted request (audio
+ * writers, audio producers). These tasks block on each other, so they must not compete with the request workers for
+ * threads; their number is bounded indirectly by the number of admitted requests.
+ * <p>
+ * A third pool, of the same size as the request pool, processes the paragraphs of requests that are split up for parallel
+ * processing (see {@link Request#process()}). Chunk tasks never wait for other tasks, so they can share a fixed number of
+ * threads across all requests.
+ * <p>
+ * The following properties are read by {@link #getScheduler()}:
+ * <ul>
+ * <li><code>server.synthesis.threads</code> -- number of request worker threads (default: number of processors);</li>
+ * <li><code>server.synthesis.queuesize</code> -- number of admitted requests that may wait for a worker (default: 100);</li>
+ * <li><code>server.synthesis.maxrequestspervoice</code> -- maximum number of admitted requests per voice, 0 meaning no
+ * limit (default: 0).</li>
+ * </ul>
+ *
+ * @author agent
+ */
+public class SynthesisScheduler {
+	private static SynthesisScheduler scheduler;
+
+	/**
+	 * Get the SynthesisScheduler singleton, creating it from the MARY properties if necessary.
+	 *
+	 * @return the scheduler
+	 */
+	public static synchronized SynthesisScheduler getScheduler() {
+		if (scheduler == null) {
+			int numThreads = MaryProperties.getInteger("server.synthesis.threads", Runtime.getRuntime().availableProcessors());
+			int queueSize = MaryProperties.getInteger("server.synthesis.queuesize", 100);
+			int maxPerVoice = MaryProperties.getInteger("server.synthesis.maxrequestspervoice", 0);
+			scheduler = new SynthesisScheduler(numThreads, queueSize, maxPerVoice);
+		}
+		return scheduler;
+	}
+
+	/**
+	 * Indicate whether the SynthesisScheduler singleton has been created.
+	 *
+	 * @return true if there is a scheduler, false otherwise.
+	 */
+	public static synchronized boolean haveScheduler() {
+		return scheduler != null;
+	}
+
+	// //////////////////////////// non-static code /////////////////////////////
+
+	private Logger logger;
+	private ThreadPoolExecutor requestExecutor;
+	private ExecutorService streamingExecutor;
+	private ExecutorService chunkExecutor;
+	private int maxRequestsPerVoice;
+	private Map<String, AtomicInteger> requestsPerVoice = new ConcurrentHashMap<String, AtomicInteger>();
+
+	private AtomicLong numSubmitted = new AtomicLong();
+	private AtomicLong numRejected = new AtomicLong();
+	private AtomicLong numCompleted = new AtomicLong();
+	private AtomicLong totalQueueWaitMillis = new AtomicLong();
+	private AtomicLong maxQueueWaitMillis = new AtomicLong();
+	private AtomicLong totalRunMillis = new AtomicLong();
+	private AtomicLong maxRunMillis = new AtomicLong();
+
+	/**
+	 * Create a new scheduler. This constructor is public for tests; server code should use {@link #getScheduler()}.
+	 *
+	 * @param numThreads
+	 *            number of request worker threads, must be positive
+	 * @param queueSize
+	 *            number of requests that can wait for a worker thread before new requests are rejected, must be positive
+	 * @param maxRequestsPerVoice
+	 *            maximum number of requests per voice that can be running or waiting at any time; 0 means no limit
+	 * @throws IllegalArgumentException
+	 *             if numThreads or queueSize is not positive, or maxRequestsPerVoice is negative
+	 */
+	public SynthesisScheduler(int numThreads, int queueSize, int maxRequestsPerVoice) {
+		if (numThreads <= 0) {
+			throw new IllegalArgumentException("Number of threads must be positive, but got " + numThreads);
+		}
+		if (queueSize <= 0) {
+			throw new IllegalArgumentException("Queue size must be positive, but got " + queueSize);
+		}
+		if (maxRequestsPerVoice < 0) {
+			throw new IllegalArgumentException("Maximum requests per voice must not be negative, but got "
+					+ maxRequestsPerVoice);
+		}
+		this.logger = MaryUtils.getLogger("scheduler");
+		this.maxRequestsPerVoice = maxRequestsPerVoice;
+		this.requestExecutor = new ThreadPoolExecutor(numThreads, numThreads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueSize), new NamedThreadFactory("RH", false),
+				new ThreadPoolExecutor.AbortPolicy());
+		this.streamingExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("Streaming", true));
+		this.chunkExecutor = Executors.newFixedThreadPool(numThreads, new NamedThreadFactory("Chunk", true));
+		logger.info("Synthesis scheduler: " + numThreads + " worker threads, queue size " + queueSize
+				+ ", max requests per voice " + (maxRequestsPerVoice > 0 ? String.valueOf(maxRequestsPerVoice) : "unlimited"));
+	}
+
+	/**
+	 * Submit a request-processing task for the given voice.
+	 *
+	 * @param voice
+	 *            the voice used by the request, or null if the request does not use a voice; used for the per-voice limit.
+	 * @param task
+	 *            the task to run
+	 * @return a future which completes when the task is done
+	 * @throws RejectedExecutionException
+	 *             if the request cannot be admitted because the server or the voice is at capacity, or the scheduler was shut
+	 *             down.
+	 */
+	public Future<?> submit(Voice voice, Runnable task) throws RejectedExecutionException {
+		return submit(voice, Executors.callable(task));
+	}
+
+	/**
+	 * Submit a request-processing task for the given voice.
+	 *
+	 * @param voice
+	 *            the voice used by the request, or null if the request does not use a voice; used for the per-voice limit.
+	 * @param task
+	 *            the task to run
+	 * @param <T>
+	 *            the result type of the task
+	 * @return a future holding the task's result, or the exception thrown by the task
+	 * @throws RejectedExecutionException
+	 *             if the request cannot be admitted because the server or the voice is at capacity, or the scheduler was shut
+	 *             down.
+	 */
+	public <T> Future<T> submit(Voice voice, Callable<T> task) throws RejectedExecutionException {
+		String voiceName = voice != null ? voice.getName() : null;
+		AtomicInteger voiceCount = null;
+		if (maxRequestsPerVoice > 0 && voiceName != null) {
+			voiceCount = getVoiceCounter(voiceName);
+			if (voiceCount.incrementAndGet() > maxRequestsPerVoice) {
+				voiceCount.decrementAndGet();
+				numRejected.incrementAndGet();
+				throw new RejectedExecutionException("Voice " + voiceName + " already has " + maxRequestsPerVoice
+						+ " requests in progress");
+			}
+		}
+		ScheduledTask<T> scheduled = new ScheduledTask<T>(task, voiceCount);
+		try {
+			requestExecutor.execute(scheduled);
+		} catch (RejectedExecutionException e) {
+			if (voiceCount != null) {
+				voiceCount.decrementAndGet();
+			}
+			numRejected.incrementAndGet();
+			throw new RejectedExecutionException("Server is at capacity (" + requestExecutor.getActiveCount()
+					+ " requests running, " + requestExecutor.getQueue().size() + " waiting)", e);
+		}
+		numSubmitted.incrementAndGet();
+		return scheduled;
+	}
+
+	/**
+	 * Run an auxiliary task belonging to an already admitted request, such as an audio writer or an audio producer. Such tasks
+	 * are never rejected while the scheduler is running.
+	 *
+	 * @param task
+	 *            the task to run
+	 */
+	public void executeStreaming(Runnable task) {
+		streamingExecutor.execute(task);
+	}
+
+	/**
+	 * The executor used for auxiliary streaming tasks, see {@link #executeStreaming(Runnable)}.
+	 *
+	 * @return the streaming executor
+	 */
+	public ExecutorService getStreamingExecutor() {
+		return streamingExecutor;
+	}
+
+	/**
+	 * The executor used for processing the paragraphs of one request in parallel. Its queue is unbounded; callers limit the
+	 * number of chunks they have in flight.
+	 *
+	 * @return the chunk executor
+	 */
+	public ExecutorService getChunkExecutor() {
+		return chunkExecutor;
+	}
+
+	private AtomicInteger getVoiceCounter(String voiceName) {
+		AtomicInteger counter = requestsPerVoice.get(voiceName);
+		if (counter == null) {
+			synchronized (requestsPerVoice) {
+				counter = requestsPerVoice.get(voiceName);
+				if (counter == null) {
+					counter = new AtomicInteger();
+					requestsPerVoice.put(voiceName, counter);
+				}
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Number of requests currently running or waiting for the given voice.
+	 *
+	 * @param voiceName
+	 *            voiceName
+	 * @return the number of requests in flight, or 0 if per-voice limits are not enabled.
+	 */
+	public int getRequestsInFlight(String voiceName) {
+		AtomicInteger counter = requestsPerVoice.get(voiceName);
+		return counter != null ? counter.get() : 0;
+	}
+
+	public int getNumRunning() {
+		return requestExecutor.getActiveCount();
+	}
+
+	public int getNumWaiting() {
+		return requestExecutor.getQueue().size();
+	}
+
+	public long getNumSubmitted() {
+		return numSubmitted.get();
+	}
+
+	public long getNumRejected() {
+		return numRejected.get();
+	}
+
+	public long getNumCompleted() {
+		return numCompleted.get();
+	}
+
+	public long getTotalQueueWaitMillis() {
+		return totalQueueWaitMillis.get();
+	}
+
+	public long getMaxQueueWaitMillis() {
+		return maxQueueWaitMillis.get();
+	}
+
+	public long getTotalRunMillis() {
+		return totalRunMillis.get();
+	}
+
+	public long getMaxRunMillis() {
+		return maxRunMillis.get();
+	}
+
+	/**
+	 * A human-readable summary of the scheduler's counters, one item per line.
+	 *
+	 * @return the statistics
+	 */
+	public String getStatistics() {
+		long completed = numCompleted.get();
+		StringBuilder buf = new StringBuilder();
+		buf.append("requests.running ").append(getNumRunning()).append("\n");
+		buf.append("requests.waiting ").append(getNumWaiting()).append("\n");
+		buf.append("requests.submitted ").append(numSubmitted.get()).append("\n");
+		buf.append("requests.rejected ").append(numRejected.get()).append("\n");
+		buf.append("requests.completed ").append(completed).append("\n");
+		buf.append("requests.queuewait.avg.ms ").append(completed > 0 ? totalQueueWaitMillis.get() / completed : 0).append("\n");
+		buf.append("requests.queuewait.max.ms ").append(maxQueueWaitMillis.get()).append("\n");
+		buf.append("requests.runtime.avg.ms ").append(completed > 0 ? totalRunMillis.get() / completed : 0).append("\n");
+		buf.append("requests.runtime.max.ms ").append(maxRunMillis.get()).append("\n");
+		for (Map.Entry<String, AtomicInteger> entry : requestsPerVoice.entrySet()) {
+			buf.append("requests.voice.").append(entry.getKey()).append(" ").append(entry.getValue().get()).append("\n");
+		}
+		return buf.toString();
+	}
+
+	/**
+	 * Stop accepting new requests; requests already admitted will still be processed.
+	 */
+	public void shutdown() {
+		requestExecutor.shutdown();
+		streamingExecutor.shutdown();
+		chunkExecutor.shutdown();
+	}
+
+	private static void updateMax(AtomicLong max, long value) {
+		long current;
+		while (value > (current = max.get())) {
+			if (max.compareAndSet(current, value)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * A request task which keeps track of its queue and run times, and releases its per-voice slot when done.
+	 */
+	private class ScheduledTask<T> extends FutureTask<T> {
+		private long submitTime;
+		private AtomicInteger voiceCount;
+
+		ScheduledTask(Callable<T> task, AtomicInteger voiceCount) {
+			super(task);
+			this.submitTime = System.currentTimeMillis();
+			this.voiceCount = voiceCount;
+		}
+
+		@Override
+		public void run() {
+			long startTime = System.currentTimeMillis();
+			long queueWait = startTime - submitTime;
+			totalQueueWaitMillis.addAndGet(queueWait);
+			updateMax(maxQueueWaitMillis, queueWait);
+			try {
+				super.run();
+			} finally {
+				long runTime = System.currentTimeMillis() - startTime;
+				totalRunMillis.addAndGet(runTime);
+				updateMax(maxRunMillis, runTime);
+				numCompleted.incrementAndGet();
+				if (voiceCount != null) {
+					voiceCount.decrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Thread factory giving pool threads recognisable names.
+	 */
+	private static class NamedThreadFactory implements ThreadFactory {
+		private String prefix;
+		private boolean daemon;
+		private AtomicInteger threadNumber = new AtomicInteger(1);
+
+		NamedThreadFactory(String prefix, boolean daemon) {
+			this.prefix = prefix;
+			this.daemon = daemon;
+		}
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, prefix + " " + threadNumber.getAndIncrement());
+			t.setDaemon(daemon);
+			return t;
+		}
+	}
+}
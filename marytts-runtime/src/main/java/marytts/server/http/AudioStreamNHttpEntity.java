@@ -51,11 +51,16 @@ public class AudioStreamNHttpEntity extends AbstractHttpEntity implements Produc
 	private Logger logger;
 	private Object mutex;
 	private SharedOutputBuffer out;
+	private PCMStreamEncoder encoder;
 
 	public AudioStreamNHttpEntity(Request maryRequest) {
 		this.maryRequest = maryRequest;
 		this.audio = maryRequest.getAudio();
 		this.audioType = maryRequest.getAudioFileFormat().getType();
+		// WAVE and AU audio is written as it is synthesized; AudioSystem.write() would wait for the end of WAVE audio:
+		if (PCMStreamEncoder.canProduce(audioType, audio.getFormat())) {
+			this.encoder = new PCMStreamEncoder(audioType);
+		}
 		setContentType(MaryHttpServerUtils.getMimeType(audioType));
 		this.mutex = new Object();
 	}
@@ -101,7 +106,8 @@ public class AudioStreamNHttpEntity extends AbstractHttpEntity implements Produc
 	}
 
 	/**
-	 * Wait for the SharedOutputBuffer to become available, write audio data to it.
+	 * Wait for the SharedOutputBuffer to become available, write audio data to it. WAVE and AU audio is written to the buffer
+	 * block by block, as soon as it has been synthesized.
 	 */
 	public void run() {
 		this.logger = MaryUtils.getLogger(Thread.currentThread().getName());
@@ -117,7 +123,11 @@ public class AudioStreamNHttpEntity extends AbstractHttpEntity implements Produc
 		assert out != null;
 		ContentOutputStream outStream = new ContentOutputStream(out);
 		try {
-			AudioSystem.write(audio, audioType, outStream);
+			if (encoder != null) {
+				encoder.encode(audio, outStream);
+			} else {
+				AudioSystem.write(audio, audioType, outStream);
+			}
 			outStream.flush();
 			outStream.close();
 			logger.info("Finished writing output");
@@ -19,10 +19,8 @@
  */
 package marytts.server.http;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -52,19 +50,19 @@ import marytts.util.string.StringUtils;
 import marytts.vocalizations.VocalizationSynthesizer;
 
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpException;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.MethodNotSupportedException;
 import org.apache.http.nio.ContentDecoder;
-import org.apache.http.nio.ContentDecoderChannel;
-import org.apache.http.nio.FileContentDecoder;
 import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.BufferingNHttpEntity;
 import org.apache.http.nio.entity.ConsumingNHttpEntity;
-import org.apache.http.nio.entity.ConsumingNHttpEntityTemplate;
-import org.apache.http.nio.entity.ContentListener;
-import org.apache.http.nio.protocol.SimpleNHttpRequestHandler;
+import org.apache.http.nio.protocol.NHttpRequestHandler;
+import org.apache.http.nio.protocol.NHttpResponseTrigger;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpRequestHandler;
 import org.apache.http.util.EntityUtils;
@@ -75,26 +73,75 @@ import org.apache.log4j.Logger;
  * 
  * @author Oytun T&uuml;rk, Marc Schröder
  */
-public abstract class BaseHttpRequestHandler extends SimpleNHttpRequestHandler implements HttpRequestHandler {
-	private final boolean useFileChannels = true;
-
+public abstract class BaseHttpRequestHandler implements NHttpRequestHandler, HttpRequestHandler {
 	protected static Logger logger;
 	private int runningNumber = 1;
 	private Map<String, Object[]> requestMap;
+	/** The largest request body that is accepted, in bytes */
+	private final long maxRequestBytes;
 
 	public BaseHttpRequestHandler() {
 		super();
 		logger = MaryUtils.getLogger("server");
 		requestMap = Collections.synchronizedMap(new HashMap<String, Object[]>());
+		maxRequestBytes = MaryProperties.getInteger("server.http.maxrequestbytes", 10000000);
+
+	}
 
+	/**
+	 * The trigger for sending the response of the request being handled by the current thread, as long as the response has not
+	 * been deferred.
+	 */
+	private final ThreadLocal<NHttpResponseTrigger> responseTrigger = new ThreadLocal<NHttpResponseTrigger>();
+
+	/**
+	 * The entry point for the non-blocking server. The response is sent to the client when
+	 * {@link #handle(HttpRequest, HttpResponse, HttpContext)} returns, unless the handler has called {@link #deferResponse()}.
+	 */
+	public void handle(final HttpRequest request, final HttpResponse response, final NHttpResponseTrigger trigger,
+			final HttpContext context) throws HttpException, IOException {
+		NHttpResponseTrigger notDeferred;
+		responseTrigger.set(trigger);
+		try {
+			handle(request, response, context);
+		} finally {
+			notDeferred = responseTrigger.get();
+			responseTrigger.remove();
+		}
+		if (notDeferred != null) {
+			notDeferred.submitResponse(response);
+		}
 	}
 
 	/**
-	 * The entry point of all HttpRequestHandlers. When this method returns, the response is sent to the client.
+	 * Take over sending the response to the request being handled. This can be called from
+	 * {@link #handleClientRequest(String, Map, HttpResponse, Address)} in order to complete the response in another thread,
+	 * without blocking the server thread meanwhile; once the response is complete, it must be sent by calling
+	 * {@link NHttpResponseTrigger#submitResponse(HttpResponse)} on the returned trigger.
+	 * 
+	 * @return the trigger for sending the response, or null if the response cannot be deferred because the handler is used as
+	 *         a blocking {@link HttpRequestHandler}; the response is then sent when handleClientRequest() returns.
+	 */
+	protected NHttpResponseTrigger deferResponse() {
+		NHttpResponseTrigger trigger = responseTrigger.get();
+		responseTrigger.remove();
+		return trigger;
+	}
+
+	/**
+	 * The entry point of all HttpRequestHandlers. When this method returns, the response is sent to the client, unless it has
+	 * been deferred with {@link #deferResponse()}.
 	 */
 	public void handle(final HttpRequest request, final HttpResponse response, final HttpContext context) throws HttpException,
 			IOException {
 		try {
+			if (request instanceof HttpEntityEnclosingRequest) {
+				HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+				if (entity instanceof LimitedBufferingNHttpEntity && ((LimitedBufferingNHttpEntity) entity).isTooLarge()) {
+					MaryHttpServerUtils.errorRequestTooLarge(response, maxRequestBytes);
+					return;
+				}
+			}
 			Header[] tmp = request.getHeaders("Host");
 			Address serverAddressAtClient = getServerAddressAtClient(tmp[0].getValue());
 			String uri = request.getRequestLine().getUri();
@@ -155,45 +202,65 @@ public abstract class BaseHttpRequestHandler extends SimpleNHttpRequestHandler i
 		return new Address(fullAddress);
 	}
 
+	/**
+	 * Request bodies, such as the parameters of POST requests, are kept in memory up to the size given by the property
+	 * <code>server.http.maxrequestbytes</code>. The rest of a larger body is skipped, and the request is answered with status
+	 * 413 (request entity too large).
+	 */
 	public ConsumingNHttpEntity entityRequest(final HttpEntityEnclosingRequest request, final HttpContext context)
 			throws HttpException, IOException {
-		return new ConsumingNHttpEntityTemplate(request.getEntity(), new FileWriteListener(useFileChannels));
+		return new LimitedBufferingNHttpEntity(request.getEntity(), maxRequestBytes);
 	}
 
-	static class FileWriteListener implements ContentListener {
-		private final File file;
-		private final FileInputStream inputFile;
-		private final FileChannel fileChannel;
-		private final boolean useFileChannels;
-		private long idx = 0;
-
-		public FileWriteListener(boolean useFileChannels) throws IOException {
-			this.file = File.createTempFile("tmp", ".tmp", null);
-			this.inputFile = new FileInputStream(file);
-			this.fileChannel = inputFile.getChannel();
-			this.useFileChannels = useFileChannels;
-		}
+	/**
+	 * Buffers the content in memory until it exceeds the maximum size, and skips it from then on. A body whose Content-Length
+	 * exceeds the maximum is skipped from the start.
+	 */
+	static class LimitedBufferingNHttpEntity extends BufferingNHttpEntity {
+		private final long maxBytes;
+		private long bytes;
+		private boolean tooLarge;
+		private ByteBuffer skipBuffer;
 
-		public void contentAvailable(ContentDecoder decoder, IOControl ioctrl) throws IOException {
-			long transferred;
-			if (useFileChannels && decoder instanceof FileContentDecoder) {
-				transferred = ((FileContentDecoder) decoder).transfer(fileChannel, idx, Long.MAX_VALUE);
-			} else {
-				transferred = fileChannel.transferFrom(new ContentDecoderChannel(decoder), idx, Long.MAX_VALUE);
-			}
+		LimitedBufferingNHttpEntity(HttpEntity entity, long maxBytes) {
+			super(entity, new HeapByteBufferAllocator());
+			this.maxBytes = maxBytes;
+			tooLarge = entity.getContentLength() > maxBytes;
+		}
 
-			if (transferred > 0)
-				idx += transferred;
+		boolean isTooLarge() {
+			return tooLarge;
 		}
 
-		public void finished() {
-			try {
-				inputFile.close();
-			} catch (IOException ignored) {
+		@Override
+		public void consumeContent(final ContentDecoder decoder, IOControl ioctrl) throws IOException {
+			if (!tooLarge) {
+				super.consumeContent(new ContentDecoder() {
+					public int read(ByteBuffer dst) throws IOException {
+						if (tooLarge) {
+							// end the buffer's read loop; the rest is skipped below
+							return -1;
+						}
+						int n = decoder.read(dst);
+						if (n > 0) {
+							bytes += n;
+							tooLarge = bytes > maxBytes;
+						}
+						return n;
+					}
+
+					public boolean isCompleted() {
+						return decoder.isCompleted();
+					}
+				}, ioctrl);
 			}
-			try {
-				fileChannel.close();
-			} catch (IOException ignored) {
+			if (tooLarge) {
+				if (skipBuffer == null) {
+					skipBuffer = ByteBuffer.allocate(2048);
+				}
+				while (decoder.read(skipBuffer) > 0) {
+					skipBuffer.clear();
+				}
 			}
 		}
 	}
@@ -85,6 +85,8 @@ public class InfoRequestHandler extends BaseHttpRequestHandler {
 			return MaryRuntimeUtils.getVoices();
 		else if (request.equals("audioformats"))
 			return MaryRuntimeUtils.getAudioFileFormatTypes();
+		else if (request.equals("statistics"))
+			return MaryRuntimeUtils.getStatistics();
 		else if (request.equals("exampletext")) {
 			if (queryItems != null) {
 				// Voice example text
@@ -32,8 +32,9 @@ import org.apache.http.impl.DefaultHttpResponseFactory;
 import org.apache.http.impl.nio.DefaultServerIOEventDispatch;
 import org.apache.http.impl.nio.reactor.DefaultListeningIOReactor;
 import org.apache.http.nio.NHttpConnection;
-import org.apache.http.nio.protocol.BufferingHttpServiceHandler;
+import org.apache.http.nio.protocol.AsyncNHttpServiceHandler;
 import org.apache.http.nio.protocol.EventListener;
+import org.apache.http.nio.protocol.NHttpRequestHandlerRegistry;
 import org.apache.http.nio.reactor.IOEventDispatch;
 import org.apache.http.nio.reactor.ListeningIOReactor;
 import org.apache.http.params.BasicHttpParams;
@@ -42,7 +43,6 @@ import org.apache.http.params.CoreProtocolPNames;
 import org.apache.http.params.HttpParams;
 import org.apache.http.protocol.BasicHttpProcessor;
 import org.apache.http.protocol.ExecutionContext;
-import org.apache.http.protocol.HttpRequestHandlerRegistry;
 import org.apache.http.protocol.ResponseConnControl;
 import org.apache.http.protocol.ResponseContent;
 import org.apache.http.protocol.ResponseDate;
@@ -178,11 +178,12 @@ public class MaryHttpServer extends Thread {
 		httpproc.addInterceptor(new ResponseContent());
 		httpproc.addInterceptor(new ResponseConnControl());
 
-		BufferingHttpServiceHandler handler = new BufferingHttpServiceHandler(httpproc, new DefaultHttpResponseFactory(),
+		// The request handlers may complete their responses asynchronously, so that the server threads are not blocked by synthesis
+		AsyncNHttpServiceHandler handler = new AsyncNHttpServiceHandler(httpproc, new DefaultHttpResponseFactory(),
 				new DefaultConnectionReuseStrategy(), params);
 
 		// Set up request handlers
-		HttpRequestHandlerRegistry registry = new HttpRequestHandlerRegistry();
+		NHttpRequestHandlerRegistry registry = new NHttpRequestHandlerRegistry();
 		registry.register("/process", new SynthesisRequestHandler());
 		InfoRequestHandler infoRH = new InfoRequestHandler();
 		registry.register("/version", infoRH);
@@ -200,6 +201,7 @@ public class MaryHttpServer extends Thread {
 		registry.register("/features-discrete", infoRH);
 		registry.register("/vocalizations", infoRH);
 		registry.register("/styles", infoRH);
+		registry.register("/statistics", infoRH);
 		registry.register("*", new FileRequestHandler());
 
 		handler.setHandlerResolver(registry);
@@ -188,6 +188,33 @@ public class MaryHttpServerUtils {
 		}
 	}
 
+	public static void errorServiceUnavailable(HttpResponse response, String message) {
+		int status = HttpStatus.SC_SERVICE_UNAVAILABLE;
+		response.setStatusCode(status);
+		logger.debug("Returning HTTP status " + status + ": " + message);
+		try {
+			NStringEntity entity = new NStringEntity("<html><body><h1>Service unavailable</h1><p>"
+					+ (message != null ? message : "") + "</p></body></html>", "UTF-8");
+			entity.setContentType("text/html; charset=UTF-8");
+			response.setEntity(entity);
+		} catch (UnsupportedEncodingException e) {
+		}
+	}
+
+	public static void errorRequestTooLarge(HttpResponse response, long maxBytes) {
+		int status = HttpStatus.SC_REQUEST_TOO_LONG;
+		response.setStatusCode(status);
+		String message = "The request is larger than " + maxBytes + " bytes";
+		logger.debug("Returning HTTP status " + status + ": " + message);
+		try {
+			NStringEntity entity = new NStringEntity("<html><body><h1>Request entity too large</h1><p>" + message
+					+ "</p></body></html>", "UTF-8");
+			entity.setContentType("text/html; charset=UTF-8");
+			response.setEntity(entity);
+		} catch (UnsupportedEncodingException e) {
+		}
+	}
+
 	public static void errorMissingQueryParameter(HttpResponse response, String param) {
 		int status = HttpStatus.SC_BAD_REQUEST;
 		response.setStatusCode(status);
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.server.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+/**
+ * Streams WAVE or AU files with 16-bit linear PCM samples, writing the audio as soon as it can be read. This is what streaming
+ * audio output needs: the length of the audio is not known in advance, and the client should get the first audio as soon as it
+ * has been synthesized, whereas AudioSystem.write() reads all of the audio before it writes a WAVE file.
+ * <p>
+ * The header is written first, with length fields meaning "unknown": AU has a special value for this, and for WAVE the lengths
+ * are set to the maximum, as is usual for streamed WAVE audio.
+ *
+ * @author agent
+ */
+public class PCMStreamEncoder {
+	/** The number of bytes of audio read and written at a time */
+	private static final int BLOCK_SIZE = 4096;
+	private static final int AU_MAGIC = 0x2e736e64;
+	private static final int AU_HEADER_SIZE = 24;
+	private static final int AU_UNKNOWN_SIZE = -1;
+	private static final int AU_LINEAR_16 = 3;
+	private static final int WAVE_HEADER_SIZE = 44;
+	private static final int WAVE_FORMAT_PCM = 1;
+
+	private final AudioFileFormat.Type type;
+	private final boolean bigEndianOutput;
+	private final byte[] pcm = new byte[BLOCK_SIZE];
+	private final byte[] swapped = new byte[BLOCK_SIZE];
+
+	/**
+	 * Whether audio in the given format can be streamed as a file of the given type.
+	 *
+	 * @param type
+	 *            type
+	 * @param format
+	 *            format
+	 * @return true for WAVE and AU files with 16-bit signed PCM audio.
+	 */
+	public static boolean canProduce(AudioFileFormat.Type type, AudioFormat format) {
+		return (type.equals(AudioFileFormat.Type.WAVE) || type.equals(AudioFileFormat.Type.AU))
+				&& format.getEncoding().equals(AudioFormat.Encoding.PCM_SIGNED) && format.getSampleSizeInBits() == 16;
+	}
+
+	/**
+	 * @param type
+	 *            WAVE or AU
+	 * @throws IllegalArgumentException
+	 *             if the type is neither WAVE nor AU
+	 */
+	public PCMStreamEncoder(AudioFileFormat.Type type) {
+		if (!type.equals(AudioFileFormat.Type.WAVE) && !type.equals(AudioFileFormat.Type.AU)) {
+			throw new IllegalArgumentException("Cannot stream " + type + " files");
+		}
+		this.type = type;
+		this.bigEndianOutput = type.equals(AudioFileFormat.Type.AU);
+	}
+
+	/**
+	 * Read the audio until its end and write it to out as an audio file. Every block of audio is written as soon as it can be
+	 * read.
+	 *
+	 * @param audio
+	 *            16-bit signed PCM audio
+	 * @param out
+	 *            the stream to write to; it is not closed.
+	 * @throws IOException
+	 *             if reading or writing fails
+	 * @throws IllegalArgumentException
+	 *             if the audio is not 16-bit signed PCM, see {@link #canProduce(AudioFileFormat.Type, AudioFormat)}.
+	 */
+	public void encode(AudioInputStream audio, OutputStream out) throws IOException {
+		AudioFormat format = audio.getFormat();
+		if (!canProduce(type, format)) {
+			throw new IllegalArgumentException("Cannot produce " + type + " files with audio format " + format);
+		}
+		int frameSize = format.getFrameSize();
+		boolean bigEndian = format.isBigEndian();
+		out.write(createHeader(format));
+		int pending = 0; // bytes of an incomplete frame from the previous read
+		int nRead;
+		while ((nRead = audio.read(pcm, pending, pcm.length - pending)) != -1) {
+			int available = pending + nRead;
+			int complete = available - available % frameSize;
+			if (complete > 0) {
+				write(complete, bigEndian, out);
+				out.flush();
+			}
+			pending = available - complete;
+			System.arraycopy(pcm, complete, pcm, 0, pending);
+		}
+		out.flush();
+	}
+
+	private byte[] createHeader(AudioFormat format) {
+		int rate = (int) format.getSampleRate();
+		int channels = format.getChannels();
+		byte[] header;
+		if (bigEndianOutput) {
+			header = new byte[AU_HEADER_SIZE];
+			putIntBE(header, 0, AU_MAGIC);
+			putIntBE(header, 4, AU_HEADER_SIZE);
+			putIntBE(header, 8, AU_UNKNOWN_SIZE);
+			putIntBE(header, 12, AU_LINEAR_16);
+			putIntBE(header, 16, rate);
+			putIntBE(header, 20, channels);
+		} else {
+			header = new byte[WAVE_HEADER_SIZE];
+			putASCII(header, 0, "RIFF");
+			putIntLE(header, 4, Integer.MAX_VALUE);
+			putASCII(header, 8, "WAVEfmt ");
+			putIntLE(header, 16, 16);
+			putShortLE(header, 20, WAVE_FORMAT_PCM);
+			putShortLE(header, 22, channels);
+			putIntLE(header, 24, rate);
+			putIntLE(header, 28, rate * channels * 2);
+			putShortLE(header, 32, channels * 2);
+			putShortLE(header, 34, 16);
+			putASCII(header, 36, "data");
+			putIntLE(header, 40, Integer.MAX_VALUE - WAVE_HEADER_SIZE + 8);
+		}
+		return header;
+	}
+
+	private void write(int length, boolean bigEndian, OutputStream out) throws IOException {
+		if (bigEndian == bigEndianOutput) {
+			out.write(pcm, 0, length);
+		} else {
+			for (int i = 0; i < length; i += 2) {
+				swapped[i] = pcm[i + 1];
+				swapped[i + 1] = pcm[i];
+			}
+			out.write(swapped, 0, length);
+		}
+	}
+
+	private static void putASCII(byte[] b, int pos, String s) {
+		for (int i = 0; i < s.length(); i++) {
+			b[pos + i] = (byte) s.charAt(i);
+		}
+	}
+
+	private static void putShortLE(byte[] b, int pos, int value) {
+		b[pos] = (byte) value;
+		b[pos + 1] = (byte) (value >> 8);
+	}
+
+	private static void putIntLE(byte[] b, int pos, int value) {
+		putShortLE(b, pos, value);
+		putShortLE(b, pos + 2, value >> 16);
+	}
+
+	private static void putIntBE(byte[] b, int pos, int value) {
+		b[pos] = (byte) (value >> 24);
+		b[pos + 1] = (byte) (value >> 16);
+		b[pos + 2] = (byte) (value >> 8);
+		b[pos + 3] = (byte) value;
+	}
+}
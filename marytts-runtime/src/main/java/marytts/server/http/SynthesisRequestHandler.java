@@ -28,6 +28,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
@@ -37,6 +41,7 @@ import javax.sound.sampled.AudioSystem;
 import marytts.datatypes.MaryDataType;
 import marytts.modules.synthesis.Voice;
 import marytts.server.Request;
+import marytts.server.SynthesisScheduler;
 import marytts.server.RequestHandler.StreamingOutputPiper;
 import marytts.server.RequestHandler.StreamingOutputWriter;
 import marytts.util.MaryRuntimeUtils;
@@ -46,6 +51,7 @@ import marytts.util.http.Address;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.nio.protocol.NHttpResponseTrigger;
 import org.apache.log4j.Logger;
 
 /**
@@ -92,7 +98,7 @@ public class SynthesisRequestHandler extends BaseHttpRequestHandler {
 
 	}
 
-	public void process(Address serverAddressAtClient, Map<String, String> queryItems, HttpResponse response) {
+	public void process(Address serverAddressAtClient, Map<String, String> queryItems, final HttpResponse response) {
 		if (queryItems == null
 				|| !(queryItems.containsKey("INPUT_TYPE") && queryItems.containsKey("OUTPUT_TYPE")
 						&& queryItems.containsKey("LOCALE") && queryItems.containsKey("INPUT_TEXT"))) {
@@ -226,67 +232,133 @@ public class SynthesisRequestHandler extends BaseHttpRequestHandler {
 			ok = false;
 		}
 		if (ok) {
+			SynthesisScheduler scheduler = SynthesisScheduler.getScheduler();
 			if (streamingAudio) {
-				// Start two separate threads:
-				// 1. one thread to process the request;
-				new Thread("RH " + maryRequest.getId()) {
-					public void run() {
-						Logger myLogger = MaryUtils.getLogger(this.getName());
-						try {
-							maryRequest.process();
-							myLogger.info("Streaming request processed successfully.");
-						} catch (Throwable t) {
-							myLogger.error("Processing failed.", t);
+				// Two tasks are needed:
+				// 1. one task to process the request;
+				final Logger requestLogger = MaryUtils.getLogger("RH " + maryRequest.getId());
+				try {
+					scheduler.submit(voice, new Runnable() {
+						public void run() {
+							try {
+								maryRequest.process();
+								requestLogger.info("Streaming request processed successfully.");
+							} catch (Throwable t) {
+								requestLogger.error("Processing failed.", t);
+							}
 						}
-					}
-				}.start();
+					});
+				} catch (RejectedExecutionException e) {
+					MaryHttpServerUtils.errorServiceUnavailable(response, e.getMessage());
+					return;
+				}
 
-				// 2. one thread to take the audio data as it becomes available
+				// 2. one task to take the audio data as it becomes available
 				// and write it into the ProducingNHttpEntity.
 				// The second one does not depend on the first one practically,
 				// because the AppendableSequenceAudioInputStream returned by
 				// maryRequest.getAudio() was already created in the constructor of Request.
 				AudioInputStream audio = maryRequest.getAudio();
 				assert audio != null : "Streaming audio but no audio stream -- very strange indeed! :-(";
-				AudioFileFormat.Type audioType = maryRequest.getAudioFileFormat().getType();
 				AudioStreamNHttpEntity entity = new AudioStreamNHttpEntity(maryRequest);
-				new Thread(entity, "HTTPWriter " + maryRequest.getId()).start();
+				scheduler.executeStreaming(entity);
 				// entity knows its contentType, no need to set explicitly here.
 				response.setEntity(entity);
 				response.setStatusCode(HttpStatus.SC_OK);
 				return;
 			} else { // not streaming audio
-				// Process input data to output data
+				// If possible, the response is sent by the worker when processing is done, so that this thread is not blocked:
+				final NHttpResponseTrigger trigger = deferResponse();
+				Future<Object> processing;
 				try {
-					maryRequest.process(); // this may take some time
-				} catch (Throwable e) {
-					String message = "Processing failed.";
-					logger.error(message, e);
-					MaryHttpServerUtils.errorInternalServerError(response, message, e);
-					ok = false;
-				}
-				if (ok) {
-					// Write output data to client
-					try {
-						ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-						maryRequest.writeOutputData(outputStream);
-						String contentType;
-						if (maryRequest.getOutputType().isXMLType() || maryRequest.getOutputType().isTextType()) // text output
-							contentType = "text/plain; charset=UTF-8";
-						else
-							// audio output
-							contentType = MaryHttpServerUtils.getMimeType(maryRequest.getAudioFileFormat().getType());
-						MaryHttpServerUtils.toHttpResponse(outputStream.toByteArray(), response, contentType);
-					} catch (Exception e) {
-						String message = "Cannot write output";
-						logger.warn(message, e);
-						MaryHttpServerUtils.errorInternalServerError(response, message, e);
-						ok = false;
+					processing = scheduler.submit(voice, new Callable<Object>() {
+						public Object call() throws Exception {
+							if (trigger == null) {
+								maryRequest.process(); // this may take some time
+								return null;
+							}
+							Throwable error = null;
+							try {
+								maryRequest.process(); // this may take some time
+							} catch (Throwable t) {
+								error = t;
+							}
+							try {
+								completeResponse(maryRequest, error, response);
+							} finally {
+								trigger.submitResponse(response);
+							}
+							return null;
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					MaryHttpServerUtils.errorServiceUnavailable(response, e.getMessage());
+					if (trigger != null) {
+						trigger.submitResponse(response);
 					}
+					return;
 				}
+				if (trigger != null) {
+					return;
+				}
+				// Used as a blocking handler: wait for the result here
+				Throwable error = null;
+				try {
+					processing.get();
+				} catch (ExecutionException e) {
+					error = e.getCause() != null ? e.getCause() : e;
+				} catch (Throwable e) {
+					error = e;
+				}
+				completeResponse(maryRequest, error, response);
+				return;
 			}
 		}
 
+		logResult(ok);
+	}
+
+	/**
+	 * Fill the response to a non-streaming request once it has been processed.
+	 * 
+	 * @param maryRequest
+	 *            the processed request
+	 * @param error
+	 *            the reason why processing failed, or null if it succeeded
+	 * @param response
+	 *            the response to fill with the output data or an error message
+	 */
+	private void completeResponse(Request maryRequest, Throwable error, HttpResponse response) {
+		boolean ok = true;
+		if (error != null) {
+			String message = "Processing failed.";
+			logger.error(message, error);
+			MaryHttpServerUtils.errorInternalServerError(response, message, error);
+			ok = false;
+		}
+		if (ok) {
+			// Write output data to client
+			try {
+				ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+				maryRequest.writeOutputData(outputStream);
+				String contentType;
+				if (maryRequest.getOutputType().isXMLType() || maryRequest.getOutputType().isTextType()) // text output
+					contentType = "text/plain; charset=UTF-8";
+				else
+					// audio output
+					contentType = MaryHttpServerUtils.getMimeType(maryRequest.getAudioFileFormat().getType());
+				MaryHttpServerUtils.toHttpResponse(outputStream.toByteArray(), response, contentType);
+			} catch (Exception e) {
+				String message = "Cannot write output";
+				logger.warn(message, e);
+				MaryHttpServerUtils.errorInternalServerError(response, message, e);
+				ok = false;
+			}
+		}
+		logResult(ok);
+	}
+
+	private void logResult(boolean ok) {
 		if (ok)
 			logger.info("Request handled successfully.");
 		else
@@ -108,6 +108,17 @@ public class BaseAudioEffect implements AudioEffect {
 		return input;
 	}
 
+	/**
+	 * Whether the signal returned by {@link #process(DoubleDataSource)} has exactly as many samples as its input. This allows
+	 * the length of the output to be known before it is computed, so that it can be streamed. Effects which change the
+	 * duration of the signal must override this to return false.
+	 * 
+	 * @return true
+	 */
+	public boolean isLengthPreserving() {
+		return true;
+	}
+
 	public void setParams(String params) {
 		String params2 = preprocessParams(params);
 
@@ -33,6 +33,7 @@ import marytts.htsengine.HMMVoice;
 import marytts.modules.synthesis.Voice;
 import marytts.util.data.BufferedDoubleDataSource;
 import marytts.util.data.DoubleDataSource;
+import marytts.util.data.FixedLengthDoubleDataSource;
 import marytts.util.data.audio.AudioDoubleDataSource;
 import marytts.util.data.audio.DDSAudioInputStream;
 import marytts.util.math.MathUtils;
@@ -58,6 +59,7 @@ public class EffectsApplier {
 
 		parseEffectsAndParams(param, (int) audioformat.getSampleRate());
 		boolean bFirstEffect = true;
+		boolean lengthPreserved = true;
 
 		if (audioEffects != null) // There are audio effects to apply
 		{
@@ -70,6 +72,7 @@ public class EffectsApplier {
 					index = i;
 
 				if (audioEffects[index] != null) {
+					lengthPreserved &= audioEffects[index].isLengthPreserving();
 					if (bFirstEffect) {
 						if (audioEffects[index] != null) {
 							tmpSignal = audioEffects[index].apply(signal);
@@ -84,8 +87,13 @@ public class EffectsApplier {
 
 			if (tmpSignal != null) {
 				if (tmpSignal.getDataLength() == DoubleDataSource.NOT_SPECIFIED) {
-					double[] data = tmpSignal.getAllData();
-					tmpSignal = new BufferedDoubleDataSource(data);
+					if (lengthPreserved && signal.getDataLength() != DoubleDataSource.NOT_SPECIFIED) {
+						// The output is as long as the input, so it can be streamed as it is computed:
+						tmpSignal = new FixedLengthDoubleDataSource(tmpSignal, signal.getDataLength());
+					} else {
+						double[] data = tmpSignal.getAllData();
+						tmpSignal = new BufferedDoubleDataSource(data);
+					}
 				}
 				assert tmpSignal.getDataLength() != DoubleDataSource.NOT_SPECIFIED;
 				return new DDSAudioInputStream(tmpSignal, audioformat);
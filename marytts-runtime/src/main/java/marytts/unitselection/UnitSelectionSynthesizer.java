@@ -30,6 +30,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -42,6 +43,7 @@ import marytts.modules.synthesis.Voice;
 import marytts.modules.synthesis.WaveformSynthesizer;
 import marytts.modules.synthesis.Voice.Gender;
 import marytts.server.MaryProperties;
+import marytts.server.ParallelStartup;
 import marytts.unitselection.concat.UnitConcatenator;
 import marytts.unitselection.concat.BaseUnitConcatenator.UnitData;
 import marytts.unitselection.data.Unit;
@@ -89,13 +91,18 @@ public class UnitSelectionSynthesizer implements WaveformSynthesizer {
 		// Register UnitSelection voices:
 		logger.debug("Register UnitSelection voices:");
 		List<String> voiceNames = MaryProperties.getList("unitselection.voices.list");
-		for (String voiceName : voiceNames) {
-			long time = System.currentTimeMillis();
-			Voice unitSelVoice = new UnitSelectionVoice(voiceName, this);
+		List<Callable<Voice>> voiceLoaders = new ArrayList<Callable<Voice>>(voiceNames.size());
+		for (final String voiceName : voiceNames) {
+			voiceLoaders.add(new Callable<Voice>() {
+				public Voice call() throws Exception {
+					return new UnitSelectionVoice(voiceName, UnitSelectionSynthesizer.this);
+				}
+			});
+		}
+		// Load the voices in parallel; ParallelStartup logs how long each of them took.
+		for (Voice unitSelVoice : ParallelStartup.run("unit selection voice", voiceNames, voiceLoaders)) {
 			logger.debug("Voice '" + unitSelVoice + "'");
 			Voice.registerVoice(unitSelVoice);
-			long newtime = System.currentTimeMillis() - time;
-			logger.info("Loading of voice " + voiceName + " took " + newtime + " milliseconds");
 		}
 		logger.info("started.");
 	}
@@ -162,18 +169,27 @@ public class UnitSelectionSynthesizer implements WaveformSynthesizer {
 			throws SynthesisException {
 		assert voice instanceof UnitSelectionVoice;
 		UnitSelectionVoice v = (UnitSelectionVoice) voice;
-		UnitDatabase udb = v.getDatabase();
+		// the same voice data for the whole request, even if the voice is evicted meanwhile
+		UnitSelectionVoice.Data data = v.acquireData();
+		try {
+			return synthesize(tokensAndBoundaries, voice, outputParams, data);
+		} finally {
+			v.releaseData(data);
+		}
+	}
+
+	private AudioInputStream synthesize(List<Element> tokensAndBoundaries, Voice voice, String outputParams,
+			UnitSelectionVoice.Data data) throws SynthesisException {
+		UnitDatabase udb = data.getDatabase();
 		// Select:
-		UnitSelector unitSel = v.getUnitSelector();
+		UnitSelector unitSel = data.getUnitSelector();
 		UnitConcatenator unitConcatenator;
 		if (outputParams != null && outputParams.contains("MODIFICATION")) {
-			unitConcatenator = v.getModificationConcatenator();
+			unitConcatenator = data.getModificationConcatenator();
 		} else {
-			unitConcatenator = v.getConcatenator();
+			unitConcatenator = data.getConcatenator();
 		}
-		// TODO: check if we actually need to access v.getDatabase() here
-		UnitDatabase database = v.getDatabase();
-		logger.debug("Selecting units with a " + unitSel.getClass().getName() + " from a " + database.getClass().getName());
+		logger.debug("Selecting units with a " + unitSel.getClass().getName() + " from a " + udb.getClass().getName());
 		List<SelectedUnit> selectedUnits = unitSel.selectUnits(tokensAndBoundaries, voice);
 		// if (logger.getEffectiveLevel().equals(Level.DEBUG)) {
 		// StringWriter sw = new StringWriter();
@@ -213,7 +229,7 @@ public class UnitSelectionSynthesizer implements WaveformSynthesizer {
 			// convert to millis only at export time, and re-compute duration in millis
 			// from the end in millis, to avoid discrepancies due to rounding
 			int unitDurationInSamples = unitData.getUnitDuration();
-			float unitDurationInSeconds = unitDurationInSamples / (float) database.getUnitFileReader().getSampleRate();
+			float unitDurationInSeconds = unitDurationInSamples / (float) udb.getUnitFileReader().getSampleRate();
 			int prevEndInMillis = (int) (1000 * endInSeconds);
 			endInSeconds += unitDurationInSeconds;
 			int endInMillis = (int) (1000 * endInSeconds);
@@ -32,6 +32,7 @@
 package marytts.unitselection;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -48,11 +49,14 @@ import marytts.exceptions.MaryConfigurationException;
 import marytts.features.FeatureDefinition;
 import marytts.features.FeatureProcessorManager;
 import marytts.features.FeatureRegistry;
+import marytts.modules.synthesis.LazyVoiceData;
 import marytts.modules.synthesis.Voice;
+import marytts.modules.synthesis.VoiceManager;
 import marytts.modules.synthesis.WaveformSynthesizer;
 import marytts.server.MaryProperties;
 import marytts.unitselection.concat.FdpsolaUnitConcatenator;
 import marytts.unitselection.concat.UnitConcatenator;
+import marytts.unitselection.data.CandidateCache;
 import marytts.unitselection.data.TimelineReader;
 import marytts.unitselection.data.UnitDatabase;
 import marytts.unitselection.data.UnitFileReader;
@@ -68,13 +72,64 @@ import marytts.unitselection.select.UnitSelector;
  */
 public class UnitSelectionVoice extends Voice {
 
-	protected UnitDatabase database;
-	protected UnitSelector unitSelector;
-	protected UnitConcatenator concatenator;
-	protected UnitConcatenator modificationConcatenator;
+	/**
+	 * The data files of a unit selection voice, which are summed up as an estimate of the memory taken by the voice.
+	 */
+	private static final String[] DATA_FILES = { "featureFile", "unitsFile", "cartFile", "audioTimelineFile",
+			"basenameTimeline", "joinCostFile", "precomputedJoinCostFile", "sCostFile" };
+
+	/**
+	 * The parts of a unit selection voice which are loaded from its data files. A synthesis request gets them through
+	 * {@link UnitSelectionVoice#acquireData()}, so that it uses the same instance throughout.
+	 */
+	public static class Data implements Closeable {
+		private UnitDatabase database;
+		private UnitSelector unitSelector;
+		private UnitConcatenator concatenator;
+		private UnitConcatenator modificationConcatenator;
+		private CART[] f0Carts;
+		private UnitSelectionVoice voice;
+
+		public UnitDatabase getDatabase() {
+			return database;
+		}
+
+		public UnitSelector getUnitSelector() {
+			return unitSelector;
+		}
+
+		public UnitConcatenator getConcatenator() {
+			return concatenator;
+		}
+
+		/**
+		 * Get the modification UnitConcatenator, which is created when it is first requested.
+		 * 
+		 * @return the modifying UnitConcatenator
+		 */
+		public synchronized UnitConcatenator getModificationConcatenator() {
+			if (modificationConcatenator == null) {
+				modificationConcatenator = voice.createModificationConcatenator();
+				modificationConcatenator.load(database);
+			}
+			return modificationConcatenator;
+		}
+
+		public CART[] getF0Trees() {
+			return f0Carts;
+		}
+
+		/**
+		 * Close the files of the unit database.
+		 */
+		public void close() throws IOException {
+			database.close();
+		}
+	}
+
+	private final LazyVoiceData<Data> data;
 	protected String domain;
 	protected String name;
-	protected CART[] f0Carts;
 	protected String exampleText;
 
 	public UnitSelectionVoice(String name, WaveformSynthesizer synthesizer) throws MaryConfigurationException {
@@ -94,6 +149,48 @@ public class UnitSelectionVoice extends Voice {
 			if (exampleTextStream != null) {
 				readExampleText(exampleTextStream);
 			}
+		} catch (MaryConfigurationException mce) {
+			throw mce;
+		} catch (Exception ex) {
+			throw new MaryConfigurationException("Cannot build unit selection voice '" + name + "'", ex);
+		}
+
+		data = new LazyVoiceData<Data>(this) {
+			protected Data load() throws Exception {
+				return loadData();
+			}
+
+			protected long estimateSize() {
+				long size = 0;
+				for (String file : DATA_FILES) {
+					size += VoiceManager.getFileSize("voice." + getName() + "." + file);
+				}
+				return size;
+			}
+		};
+		if (!VoiceManager.isLazyLoading()) {
+			try {
+				data.preload();
+			} catch (MaryConfigurationException mce) {
+				throw mce;
+			} catch (Exception ex) {
+				throw new MaryConfigurationException("Cannot build unit selection voice '" + name + "'", ex);
+			}
+		}
+	}
+
+	/**
+	 * Load the unit database and everything built on it.
+	 * 
+	 * @return the voice data
+	 * @throws MaryConfigurationException
+	 *             if the data cannot be loaded
+	 */
+	private Data loadData() throws MaryConfigurationException {
+		Data d = new Data();
+		d.voice = this;
+		try {
+			String header = "voice." + name;
 
 			FeatureProcessorManager featProcManager = FeatureRegistry.getFeatureProcessorManager(this);
 			if (featProcManager == null)
@@ -134,7 +231,11 @@ public class UnitSelectionVoice extends Voice {
 			String unitReaderClass = MaryProperties.needProperty(header + ".unitReaderClass");
 			String unitsFile = MaryProperties.needFilename(header + ".unitsFile");
 			UnitFileReader unitReader = (UnitFileReader) Class.forName(unitReaderClass).newInstance();
-			unitReader.load(unitsFile);
+			if (MaryProperties.getBoolean("unitselection.mapfiles", false)) {
+				unitReader.loadMapped(unitsFile);
+			} else {
+				unitReader.load(unitsFile);
+			}
 
 			logger.debug("...loading cart file...");
 			// String cartReaderClass = MaryProperties.needProperty(header+".cartReaderClass");
@@ -166,58 +267,83 @@ public class UnitSelectionVoice extends Voice {
 			// build and load database
 			logger.debug("...instantiating database...");
 			String databaseClass = MaryProperties.needProperty(header + ".databaseClass");
-			database = (UnitDatabase) Class.forName(databaseClass).newInstance();
+			d.database = (UnitDatabase) Class.forName(databaseClass).newInstance();
 			if (useSCost) {
-				database.load(targetFunction, joinFunction, sCostFunction, unitReader, cart, timelineReader,
+				d.database.load(targetFunction, joinFunction, sCostFunction, unitReader, cart, timelineReader,
 						basenameTimelineReader, backtrace);
 			} else {
-				database.load(targetFunction, joinFunction, unitReader, cart, timelineReader, basenameTimelineReader, backtrace);
+				d.database.load(targetFunction, joinFunction, unitReader, cart, timelineReader, basenameTimelineReader, backtrace);
+			}
+			int candidateCacheMegabytes = MaryProperties.getInteger(header + ".candidateCache.megabytes",
+					MaryProperties.getInteger("unitselection.candidatecache.megabytes", 16));
+			if (candidateCacheMegabytes > 0 && !MaryProperties.getBoolean("debug.show.cost.graph")) {
+				// cached target costs would bypass the cost graph
+				d.database.setCandidateCache(new CandidateCache(cart, targetFunction, candidateCacheMegabytes * 1024L * 1024L));
 			}
 
 			// build Selector
 			logger.debug("...instantiating unit selector...");
 			String selectorClass = MaryProperties.needProperty(header + ".selectorClass");
-			unitSelector = (UnitSelector) Class.forName(selectorClass).newInstance();
+			d.unitSelector = (UnitSelector) Class.forName(selectorClass).newInstance();
 			float targetCostWeights = Float.parseFloat(MaryProperties.getProperty(header + ".viterbi.wTargetCosts", "0.33"));
 			int beamSize = MaryProperties.getInteger(header + ".viterbi.beamsize", 100);
 			if (!useSCost) {
-				unitSelector.load(database, targetCostWeights, beamSize);
+				d.unitSelector.load(d.database, targetCostWeights, beamSize);
 			} else {
 				float sCostWeights = Float.parseFloat(MaryProperties.getProperty(header + ".viterbi.wSCosts", "0.33"));
-				unitSelector.load(database, targetCostWeights, sCostWeights, beamSize);
+				d.unitSelector.load(d.database, targetCostWeights, sCostWeights, beamSize);
 			}
 
 			// samplingRate -> bin, audioformat -> concatenator
 			// build Concatenator
 			logger.debug("...instantiating unit concatenator...");
 			String concatenatorClass = MaryProperties.needProperty(header + ".concatenatorClass");
-			concatenator = (UnitConcatenator) Class.forName(concatenatorClass).newInstance();
-			concatenator.load(database);
+			d.concatenator = (UnitConcatenator) Class.forName(concatenatorClass).newInstance();
+			d.concatenator.load(d.database);
 
 			// TODO: this can be deleted at the same time as CARTF0Modeller
 			// see if there are any voice-specific duration and f0 models to load
-			f0Carts = null;
 			InputStream leftF0CartStream = MaryProperties.getStream(header + ".f0.cart.left");
 			if (leftF0CartStream != null) {
 				logger.debug("...loading f0 trees...");
-				f0Carts = new CART[3];
-				f0Carts[0] = new MaryCARTReader().loadFromStream(leftF0CartStream);
+				d.f0Carts = new CART[3];
+				d.f0Carts[0] = new MaryCARTReader().loadFromStream(leftF0CartStream);
 				leftF0CartStream.close();
 				// mid cart:
 				InputStream midF0CartStream = MaryProperties.needStream(header + ".f0.cart.mid");
-				f0Carts[1] = new MaryCARTReader().loadFromStream(midF0CartStream);
+				d.f0Carts[1] = new MaryCARTReader().loadFromStream(midF0CartStream);
 				midF0CartStream.close();
 				// right cart:
 				InputStream rightF0CartStream = MaryProperties.needStream(header + ".f0.cart.right");
-				f0Carts[2] = new MaryCARTReader().loadFromStream(rightF0CartStream);
+				d.f0Carts[2] = new MaryCARTReader().loadFromStream(rightF0CartStream);
 				rightF0CartStream.close();
 			}
 		} catch (MaryConfigurationException mce) {
 			throw mce;
 		} catch (Exception ex) {
-			throw new MaryConfigurationException("Cannot build unit selection voice '" + name + "'", ex);
+			throw new MaryConfigurationException("Cannot load unit selection voice '" + name + "'", ex);
 		}
+		return d;
+	}
 
+	/**
+	 * Get the data of this voice for the duration of a synthesis request, loading it if necessary. It must be handed back
+	 * through {@link #releaseData(Data)} when the request is done.
+	 * 
+	 * @return the voice data
+	 */
+	public Data acquireData() {
+		return data.acquire();
+	}
+
+	/**
+	 * Hand back the data obtained from {@link #acquireData()}.
+	 * 
+	 * @param d
+	 *            the voice data
+	 */
+	public void releaseData(Data d) {
+		data.release(d);
 	}
 
 	/**
@@ -226,7 +352,7 @@ public class UnitSelectionVoice extends Voice {
 	 * @return the database
 	 */
 	public UnitDatabase getDatabase() {
-		return database;
+		return data.get().database;
 	}
 
 	/**
@@ -235,7 +361,7 @@ public class UnitSelectionVoice extends Voice {
 	 * @return the unit selector
 	 */
 	public UnitSelector getUnitSelector() {
-		return unitSelector;
+		return data.get().unitSelector;
 	}
 
 	/**
@@ -244,7 +370,7 @@ public class UnitSelectionVoice extends Voice {
 	 * @return the unit selector
 	 */
 	public UnitConcatenator getConcatenator() {
-		return concatenator;
+		return data.get().concatenator;
 	}
 
 	/**
@@ -253,33 +379,33 @@ public class UnitSelectionVoice extends Voice {
 	 * @return the modifying UnitConcatenator
 	 */
 	public UnitConcatenator getModificationConcatenator() {
-		if (modificationConcatenator == null) {
-			// get sensible minimum and maximum values:
-			try {
-				// initialize with values from properties:
-				double minTimeScaleFactor = Double.parseDouble(MaryProperties.getProperty("voice." + name
-						+ ".prosody.modification.duration.factor.minimum"));
-				double maxTimeScaleFactor = Double.parseDouble(MaryProperties.getProperty("voice." + name
-						+ ".prosody.modification.duration.factor.maximum"));
-				double minPitchScaleFactor = Double.parseDouble(MaryProperties.getProperty("voice." + name
-						+ ".prosody.modification.f0.factor.minimum"));
-				double maxPitchScaleFactor = Double.parseDouble(MaryProperties.getProperty("voice." + name
-						+ ".prosody.modification.f0.factor.maximum"));
-				logger.debug("Initializing FD-PSOLA unit concatenator with the following parameter thresholds:");
-				logger.debug("minimum duration modification factor: " + minTimeScaleFactor);
-				logger.debug("maximum duration modification factor: " + maxTimeScaleFactor);
-				logger.debug("minimum F0 modification factor: " + minPitchScaleFactor);
-				logger.debug("maximum F0 modification factor: " + maxPitchScaleFactor);
-				modificationConcatenator = new FdpsolaUnitConcatenator(minTimeScaleFactor, maxTimeScaleFactor,
-						minPitchScaleFactor, maxPitchScaleFactor);
-			} catch (Exception e) {
-				// ignore -- defaults will be used
-				logger.debug("Initializing FD-PSOLA unit concatenator with default parameter thresholds.");
-				modificationConcatenator = new FdpsolaUnitConcatenator();
-			}
-			modificationConcatenator.load(database);
+		return data.get().getModificationConcatenator();
+	}
+
+	private UnitConcatenator createModificationConcatenator() {
+		// get sensible minimum and maximum values:
+		try {
+			// initialize with values from properties:
+			double minTimeScaleFactor = Double.parseDouble(MaryProperties.getProperty("voice." + name
+					+ ".prosody.modification.duration.factor.minimum"));
+			double maxTimeScaleFactor = Double.parseDouble(MaryProperties.getProperty("voice." + name
+					+ ".prosody.modification.duration.factor.maximum"));
+			double minPitchScaleFactor = Double.parseDouble(MaryProperties.getProperty("voice." + name
+					+ ".prosody.modification.f0.factor.minimum"));
+			double maxPitchScaleFactor = Double.parseDouble(MaryProperties.getProperty("voice." + name
+					+ ".prosody.modification.f0.factor.maximum"));
+			logger.debug("Initializing FD-PSOLA unit concatenator with the following parameter thresholds:");
+			logger.debug("minimum duration modification factor: " + minTimeScaleFactor);
+			logger.debug("maximum duration modification factor: " + maxTimeScaleFactor);
+			logger.debug("minimum F0 modification factor: " + minPitchScaleFactor);
+			logger.debug("maximum F0 modification factor: " + maxPitchScaleFactor);
+			return new FdpsolaUnitConcatenator(minTimeScaleFactor, maxTimeScaleFactor,
+					minPitchScaleFactor, maxPitchScaleFactor);
+		} catch (Exception e) {
+			// ignore -- defaults will be used
+			logger.debug("Initializing FD-PSOLA unit concatenator with default parameter thresholds.");
+			return new FdpsolaUnitConcatenator();
 		}
-		return modificationConcatenator;
 	}
 
 	/**
@@ -313,10 +439,11 @@ public class UnitSelectionVoice extends Voice {
 	}
 
 	public CART[] getF0Trees() {
-		return f0Carts;
+		return data.get().f0Carts;
 	}
 
 	public FeatureDefinition getF0CartsFeatDef() {
+		CART[] f0Carts = getF0Trees();
 		if (f0Carts == null || f0Carts.length < 1)
 			return null;
 		return f0Carts[0].getFeatureDefinition();
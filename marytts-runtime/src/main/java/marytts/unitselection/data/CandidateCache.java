@@ -0,0 +1,357 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.data;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import marytts.cart.CART;
+import marytts.cart.DecisionNode;
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+import marytts.unitselection.select.DiphoneTarget;
+import marytts.unitselection.select.HalfPhoneTarget;
+import marytts.unitselection.select.Target;
+import marytts.unitselection.select.TargetCostFunction;
+
+/**
+ * A cache of preselection results for one voice: for a given target, the indices of the candidate units found by the
+ * preselection CART, and their target costs.
+ * <p>
+ * Preselection and target costs depend only on the target's feature vector, and only on those features that are tested by the
+ * preselection CART or have a non-zero weight in the target cost function. The cache key is made of the values of exactly these
+ * features, so that targets in the same phonetic and prosodic context share an entry regardless of the request they come from.
+ * <p>
+ * Entries are kept in independently locked LRU stripes which share the memory budget of the voice.
+ *
+ * @author agent
+ */
+public class CandidateCache {
+	/** Approximate heap cost of one entry besides its arrays: map entry, key and entry objects, array headers. */
+	private static final int ENTRY_OVERHEAD = 128;
+	private static final int NUM_STRIPES = 16;
+
+	private final int numBytes;
+	private final int numShorts;
+	private final int[] byteFeatures;
+	private final int[] shortFeatures;
+	private final int[] floatFeatures;
+	private final int keyLength;
+
+	private final Stripe[] stripes;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Create a cache for preselection with the given CART and target cost function.
+	 *
+	 * @param preselectionCART
+	 *            the voice's preselection CART
+	 * @param targetCostFunction
+	 *            the voice's target cost function, whose feature definition describes the target feature vectors
+	 * @param maxBytes
+	 *            the memory budget, in bytes
+	 */
+	public CandidateCache(CART preselectionCART, TargetCostFunction targetCostFunction, long maxBytes) {
+		FeatureDefinition featureDefinition = targetCostFunction.getFeatureDefinition();
+		boolean[] relevant = getRelevantFeatures(preselectionCART, featureDefinition);
+		numBytes = featureDefinition.getNumberOfByteFeatures();
+		numShorts = featureDefinition.getNumberOfShortFeatures();
+		byteFeatures = indicesOf(relevant, 0, numBytes);
+		shortFeatures = indicesOf(relevant, numBytes, numBytes + numShorts);
+		floatFeatures = indicesOf(relevant, numBytes + numShorts, relevant.length);
+		keyLength = 1 + byteFeatures.length + 2 * shortFeatures.length + 4 * floatFeatures.length;
+		stripes = new Stripe[NUM_STRIPES];
+		for (int i = 0; i < NUM_STRIPES; i++) {
+			stripes[i] = new Stripe(maxBytes / NUM_STRIPES);
+		}
+	}
+
+	/**
+	 * Determine the features that preselection and target costs depend on: those tested in the CART, and those with non-zero
+	 * weight. If a CART feature is not known to the feature definition, all features are considered relevant.
+	 */
+	private static boolean[] getRelevantFeatures(CART cart, FeatureDefinition featureDefinition) {
+		boolean[] relevant = new boolean[featureDefinition.getNumberOfFeatures()];
+		for (DecisionNode node : cart.getDecisionNodes()) {
+			String name = node.getFeatureName();
+			if (!featureDefinition.hasFeature(name)) {
+				Arrays.fill(relevant, true);
+				return relevant;
+			}
+			relevant[featureDefinition.getFeatureIndex(name)] = true;
+		}
+		float[] weights = featureDefinition.getFeatureWeights();
+		for (int i = 0; i < relevant.length; i++) {
+			if (weights == null || weights[i] != 0) {
+				relevant[i] = true;
+			}
+		}
+		return relevant;
+	}
+
+	private static int[] indicesOf(boolean[] relevant, int from, int to) {
+		int n = 0;
+		for (int i = from; i < to; i++) {
+			if (relevant[i]) {
+				n++;
+			}
+		}
+		int[] indices = new int[n];
+		n = 0;
+		for (int i = from; i < to; i++) {
+			if (relevant[i]) {
+				indices[n++] = i - from;
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Compute the cache key for the given target, whose feature vector must have been computed.
+	 *
+	 * @param target
+	 *            a phone, half-phone or diphone target
+	 * @return the key
+	 */
+	public Key getKey(Target target) {
+		if (target instanceof DiphoneTarget) {
+			DiphoneTarget diphone = (DiphoneTarget) target;
+			byte[] key = new byte[2 * keyLength];
+			writeKey(diphone.left, key, 0);
+			writeKey(diphone.right, key, keyLength);
+			return new Key(key);
+		}
+		byte[] key = new byte[keyLength];
+		writeKey(target, key, 0);
+		return new Key(key);
+	}
+
+	private void writeKey(Target target, byte[] key, int pos) {
+		FeatureVector fv = target.getFeatureVector();
+		// the two halves of a phone have different target cost weights
+		key[pos++] = (byte) (target instanceof HalfPhoneTarget ? (((HalfPhoneTarget) target).isLeftHalf() ? 1 : 2) : 0);
+		for (int i : byteFeatures) {
+			key[pos++] = fv.byteValuedDiscreteFeatures[i];
+		}
+		for (int i : shortFeatures) {
+			short v = fv.shortValuedDiscreteFeatures[i];
+			key[pos++] = (byte) (v >> 8);
+			key[pos++] = (byte) v;
+		}
+		for (int i : floatFeatures) {
+			int v = Float.floatToIntBits(fv.continuousFeatures[i]);
+			key[pos++] = (byte) (v >> 24);
+			key[pos++] = (byte) (v >> 16);
+			key[pos++] = (byte) (v >> 8);
+			key[pos++] = (byte) v;
+		}
+	}
+
+	private Stripe stripeFor(Key key) {
+		return stripes[(key.hash ^ (key.hash >>> 16)) & (NUM_STRIPES - 1)];
+	}
+
+	/**
+	 * Look up the preselection result for a key.
+	 *
+	 * @param key
+	 *            key
+	 * @return the cached entry, or null if there is none
+	 */
+	public Entry get(Key key) {
+		Entry entry;
+		Stripe stripe = stripeFor(key);
+		synchronized (stripe) {
+			entry = stripe.entries.get(key);
+		}
+		if (entry != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return entry;
+	}
+
+	/**
+	 * Remember the preselection result for a key, evicting least recently used entries if the budget is exceeded.
+	 *
+	 * @param key
+	 *            key
+	 * @param units
+	 *            the unit indices of the candidates; the array must not be modified afterwards.
+	 * @param targetCosts
+	 *            the target cost of each candidate; the array must not be modified afterwards.
+	 */
+	public void put(Key key, int[] units, double[] targetCosts) {
+		assert units.length == targetCosts.length;
+		Entry entry = new Entry(units, targetCosts);
+		long cost = entry.cost(key);
+		Stripe stripe = stripeFor(key);
+		if (cost > stripe.maxBytes) {
+			return;
+		}
+		synchronized (stripe) {
+			Entry previous = stripe.entries.put(key, entry);
+			if (previous != null) {
+				stripe.bytes -= previous.cost(key);
+			}
+			stripe.bytes += cost;
+			Iterator<Map.Entry<Key, Entry>> it = stripe.entries.entrySet().iterator();
+			while (stripe.bytes > stripe.maxBytes && it.hasNext()) {
+				Map.Entry<Key, Entry> eldest = it.next();
+				stripe.bytes -= eldest.getValue().cost(eldest.getKey());
+				it.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * The fraction of lookups answered from the cache.
+	 *
+	 * @return a value between 0 and 1, or 0 if there were no lookups yet
+	 */
+	public double getHitRate() {
+		long h = hits.get();
+		long total = h + misses.get();
+		return total > 0 ? (double) h / total : 0;
+	}
+
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.entries.size();
+			}
+		}
+		return size;
+	}
+
+	public long getBytes() {
+		long bytes = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				bytes += stripe.bytes;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * A human-readable summary of the cache's counters, one item per line.
+	 *
+	 * @param prefix
+	 *            a prefix for the name of each item, e.g. to identify the voice
+	 * @return the statistics
+	 */
+	public String getStatistics(String prefix) {
+		StringBuilder buf = new StringBuilder();
+		buf.append(prefix).append("hits ").append(hits.get()).append("\n");
+		buf.append(prefix).append("misses ").append(misses.get()).append("\n");
+		buf.append(prefix).append("hitrate ").append(String.format("%.3f", getHitRate())).append("\n");
+		buf.append(prefix).append("entries ").append(size()).append("\n");
+		buf.append(prefix).append("bytes ").append(getBytes()).append("\n");
+		buf.append(prefix).append("evictions ").append(evictions.get()).append("\n");
+		return buf.toString();
+	}
+
+	/**
+	 * The values of the relevant features of a target.
+	 */
+	public static final class Key {
+		private final byte[] data;
+		private final int hash;
+
+		Key(byte[] data) {
+			this.data = data;
+			this.hash = Arrays.hashCode(data);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return hash == other.hash && Arrays.equals(data, other.data);
+		}
+	}
+
+	/**
+	 * A preselection result: unit indices and the corresponding target costs.
+	 */
+	public static final class Entry {
+		private final int[] units;
+		private final double[] targetCosts;
+
+		Entry(int[] units, double[] targetCosts) {
+			this.units = units;
+			this.targetCosts = targetCosts;
+		}
+
+		public int size() {
+			return units.length;
+		}
+
+		public int getUnitIndex(int i) {
+			return units[i];
+		}
+
+		public double getTargetCost(int i) {
+			return targetCosts[i];
+		}
+
+		long cost(Key key) {
+			return ENTRY_OVERHEAD + key.data.length + 12L * units.length;
+		}
+	}
+
+	private static class Stripe {
+		final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+		final long maxBytes;
+		long bytes;
+
+		Stripe(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+	}
+}
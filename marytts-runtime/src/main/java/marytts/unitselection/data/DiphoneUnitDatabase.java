@@ -22,6 +22,7 @@ package marytts.unitselection.data;
 import gnu.trove.TIntHashSet;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import marytts.features.FeatureVector;
@@ -72,6 +73,57 @@ public class DiphoneUnitDatabase extends UnitDatabase {
 		blacklist = DomUtils.getAttributeFromClosestAncestorOfAnyKind(targetElement, "blacklist");
 		// END blacklisting
 
+		List<ViterbiCandidate> candidates;
+		CandidateCache.Key key = candidateCache != null ? candidateCache.getKey(diphoneTarget) : null;
+		CandidateCache.Entry cached = key != null ? candidateCache.get(key) : null;
+		if (cached != null) {
+			candidates = new ArrayList<ViterbiCandidate>(cached.size());
+			for (int i = 0; i < cached.size(); i++) {
+				int leftIndex = cached.getUnitIndex(i);
+				DiphoneUnit diphoneUnit = new DiphoneUnit(unitReader.getUnit(leftIndex), unitReader.getUnit(leftIndex + 1));
+				candidates.add(new ViterbiCandidate(diphoneTarget, diphoneUnit, cached.getTargetCost(i)));
+			}
+		} else {
+			int[] leftIndices = preselect(diphoneTarget);
+			candidates = new ArrayList<ViterbiCandidate>(leftIndices.length);
+			double[] targetCosts = new double[leftIndices.length];
+			for (int i = 0; i < leftIndices.length; i++) {
+				int leftIndex = leftIndices[i];
+				DiphoneUnit diphoneUnit = new DiphoneUnit(unitReader.getUnit(leftIndex), unitReader.getUnit(leftIndex + 1));
+				ViterbiCandidate candidate = new ViterbiCandidate(diphoneTarget, diphoneUnit, targetCostFunction);
+				targetCosts[i] = candidate.getTargetCost();
+				candidates.add(candidate);
+			}
+			if (key != null) {
+				candidateCache.put(key, leftIndices, targetCosts);
+			}
+		}
+
+		// Blacklisting:
+		if (!blacklist.equals("")) {
+			Iterator<ViterbiCandidate> it = candidates.iterator();
+			while (it.hasNext()) {
+				unitBasename = getFilename(it.next().getUnit());
+				if (blacklist.contains(unitBasename)) {
+					it.remove();
+				}
+			}
+		}
+
+		logger.debug("Preselected " + candidates.size() + " diphone candidates for target " + target);
+		return candidates;
+	}
+
+	/**
+	 * Preselect the diphones for the given target.
+	 * 
+	 * @param diphoneTarget
+	 *            diphoneTarget
+	 * @return the indices of the left halves of the candidate diphones
+	 */
+	private int[] preselect(DiphoneTarget diphoneTarget) {
+		HalfPhoneTarget left = diphoneTarget.left;
+		HalfPhoneTarget right = diphoneTarget.right;
 		// TODO shouldn't leftName and rightName just call appropriate methods of DiphoneTarget?
 		String leftName = left.getName().substring(0, left.getName().lastIndexOf("_"));
 		String rightName = right.getName().substring(0, right.getName().lastIndexOf("_"));
@@ -86,11 +138,11 @@ public class DiphoneUnitDatabase extends UnitDatabase {
 		// Pre-select candidates for the left half, but retain only
 		// those that belong to appropriate diphones:
 		int[] clist = (int[]) preselectionCART.interpret(left, backtrace);
-		logger.debug("For target " + target + ", selected " + clist.length + " units");
+		logger.debug("For target " + diphoneTarget + ", selected " + clist.length + " units");
 
 		// Now, clist is an array of halfphone unit indexes.
 		for (int i = 0; i < clist.length; i++) {
-			Unit unit = unitReader.units[clist[i]];
+			Unit unit = unitReader.getUnit(clist[i]);
 			FeatureVector fv = fvs != null ? fvs[unit.index] : targetCostFunction.getFeatureVector(unit);
 			byte bunitName = fv.byteValuedDiscreteFeatures[iPhoneme];
 			// force correct phone symbol:
@@ -98,7 +150,7 @@ public class DiphoneUnitDatabase extends UnitDatabase {
 				continue;
 			int iRightNeighbour = clist[i] + 1;
 			if (iRightNeighbour < numUnits) {
-				Unit rightNeighbour = unitReader.units[iRightNeighbour];
+				Unit rightNeighbour = unitReader.getUnit(iRightNeighbour);
 				FeatureVector rfv = fvs != null ? fvs[iRightNeighbour] : targetCostFunction.getFeatureVector(rightNeighbour);
 				byte brightUnitName = rfv.byteValuedDiscreteFeatures[iPhoneme];
 				if (brightUnitName == brightName) {
@@ -112,11 +164,11 @@ public class DiphoneUnitDatabase extends UnitDatabase {
 		// Pre-select candidates for the right half, but retain only
 		// those that belong to appropriate diphones:
 		clist = (int[]) preselectionCART.interpret(right, backtrace);
-		logger.debug("For target " + target + ", selected " + clist.length + " units");
+		logger.debug("For target " + diphoneTarget + ", selected " + clist.length + " units");
 
 		// Now, clist is an array of halfphone unit indexes.
 		for (int i = 0; i < clist.length; i++) {
-			Unit unit = unitReader.units[clist[i]];
+			Unit unit = unitReader.getUnit(clist[i]);
 			FeatureVector fv = fvs != null ? fvs[unit.index] : targetCostFunction.getFeatureVector(unit);
 			byte bunitName = fv.byteValuedDiscreteFeatures[iPhoneme];
 			// force correct phone symbol:
@@ -124,7 +176,7 @@ public class DiphoneUnitDatabase extends UnitDatabase {
 				continue;
 			int iLeftNeighbour = clist[i] - 1;
 			if (iLeftNeighbour >= 0) {
-				Unit leftNeighbour = unitReader.units[iLeftNeighbour];
+				Unit leftNeighbour = unitReader.getUnit(iLeftNeighbour);
 				FeatureVector lfv = fvs != null ? fvs[iLeftNeighbour] : targetCostFunction.getFeatureVector(leftNeighbour);
 				byte bleftUnitName = lfv.byteValuedDiscreteFeatures[iPhoneme];
 				if (bleftUnitName == bleftName) {
@@ -136,24 +188,7 @@ public class DiphoneUnitDatabase extends UnitDatabase {
 			}
 		}
 
-		// now create ArrayList of ViterbiCandidates from the candidateUnitSet, blacklisting along the way:
-		ArrayList<ViterbiCandidate> candidates = new ArrayList<ViterbiCandidate>(candidateUnitSet.size());
-		for (int leftIndex : candidateUnitSet.toArray()) {
-			DiphoneUnit diphoneUnit = new DiphoneUnit(unitReader.units[leftIndex], unitReader.units[leftIndex + 1]);
-			ViterbiCandidate candidate = new ViterbiCandidate(diphoneTarget, diphoneUnit, targetCostFunction);
-			// Blacklisting:
-			if (blacklist.equals("")) { // no blacklist
-				candidates.add(candidate);
-			} else { // maybe exclude candidate
-				unitBasename = getFilename(diphoneUnit);
-				if (!blacklist.contains(unitBasename)) {
-					candidates.add(candidate);
-				}
-			}
-		}
-
-		logger.debug("Preselected " + candidateUnitSet.size() + " diphone candidates for target " + target);
-		return candidates;
+		return candidateUnitSet.toArray();
 	}
 
 }
@@ -36,6 +36,16 @@ public class FeatureFileReader {
 	protected FeatureDefinition featureDefinition;
 	protected FeatureVector[] featureVectors;
 
+	// Only used when the file is mapped rather than read into featureVectors:
+	protected boolean mapped = false;
+	private ByteBuffer mappedVectors;
+	private int numberOfUnits;
+	private int numBytes;
+	private int numShorts;
+	private int numFloats;
+	private int recordSize;
+	private volatile FeatureVector[] materializedVectors;
+
 	/**
 	 * Get a feature file reader representing the given feature file.
 	 * 
@@ -56,6 +66,30 @@ public class FeatureFileReader {
 		throw new MaryConfigurationException("File " + fileName + ": Type " + fileType + " is not a known unit feature file type");
 	}
 
+	/**
+	 * Get a feature file reader representing the given feature file, optionally leaving the feature vectors in the mapped file.
+	 * 
+	 * @param fileName
+	 *            the filename of a valid feature file.
+	 * @param mapped
+	 *            if true, feature vectors are not read into memory but accessed through the mapped file, see
+	 *            {@link #isMapped()}.
+	 * @return a feature file object representing the given file.
+	 * @throws IOException
+	 *             if there was a problem reading the file
+	 * @throws MaryConfigurationException
+	 *             if the file is not a valid feature file.
+	 */
+	public static FeatureFileReader getFeatureFileReader(String fileName, boolean mapped) throws IOException,
+			MaryConfigurationException {
+		int fileType = MaryHeader.peekFileType(fileName);
+		if (fileType == MaryHeader.UNITFEATS)
+			return new FeatureFileReader(fileName, mapped);
+		else if (fileType == MaryHeader.HALFPHONE_UNITFEATS)
+			return new HalfPhoneFeatureFileReader(fileName, mapped);
+		throw new MaryConfigurationException("File " + fileName + ": Type " + fileType + " is not a known unit feature file type");
+	}
+
 	/**
 	 * Empty constructor; need to call load() separately when using this.
 	 * 
@@ -68,6 +102,24 @@ public class FeatureFileReader {
 		load(fileName);
 	}
 
+	/**
+	 * Create a reader for the given file.
+	 * 
+	 * @param fileName
+	 *            the filename of a valid feature file.
+	 * @param mapped
+	 *            if true, feature vectors are not read into memory but accessed through the mapped file, see
+	 *            {@link #isMapped()}.
+	 * @throws IOException
+	 *             if there was a problem reading the file
+	 * @throws MaryConfigurationException
+	 *             if the file is not a valid feature file.
+	 */
+	public FeatureFileReader(String fileName, boolean mapped) throws IOException, MaryConfigurationException {
+		this.mapped = mapped;
+		load(fileName);
+	}
+
 	public void load(String fileName) throws IOException, MaryConfigurationException {
 		loadFromByteBuffer(fileName);
 	}
@@ -104,12 +156,48 @@ public class FeatureFileReader {
 			throw new MaryConfigurationException("File [" + fileName + "] is not a valid Mary feature file.");
 		}
 		featureDefinition = new FeatureDefinition(bb);
+		readFeatureVectors(bb);
+	}
+
+	/**
+	 * Read the number of units and the feature vectors, which must follow at the current position of the buffer. If this reader
+	 * is mapped, the feature vectors are left in the buffer.
+	 * 
+	 * @param bb
+	 *            the buffer holding the file
+	 * @throws IOException
+	 *             if the feature vectors cannot be read
+	 */
+	protected void readFeatureVectors(ByteBuffer bb) throws IOException {
 		int numberOfUnits = bb.getInt();
-		featureVectors = new FeatureVector[numberOfUnits];
-		for (int i = 0; i < numberOfUnits; i++) {
-			featureVectors[i] = featureDefinition.readFeatureVector(i, bb);
+		if (!mapped) {
+			featureVectors = new FeatureVector[numberOfUnits];
+			for (int i = 0; i < numberOfUnits; i++) {
+				featureVectors[i] = featureDefinition.readFeatureVector(i, bb);
+			}
+			return;
 		}
+		this.numberOfUnits = numberOfUnits;
+		numBytes = featureDefinition.getNumberOfByteFeatures();
+		numShorts = featureDefinition.getNumberOfShortFeatures();
+		numFloats = featureDefinition.getNumberOfContinuousFeatures();
+		recordSize = numBytes + 2 * numShorts + 4 * numFloats;
+		if ((long) numberOfUnits * recordSize > bb.remaining()) {
+			throw new IOException("Feature file is too short for " + numberOfUnits + " units");
+		}
+		mappedVectors = bb.slice();
+	}
 
+	/**
+	 * Whether the feature vectors are accessed through the mapped file rather than held in memory. A mapped reader needs no heap
+	 * for the feature vectors and loads in constant time, and several processes using the same voice share the file's pages;
+	 * but {@link #getFeatureVector(int)} creates a new feature vector on every call. Use the accessors for single feature
+	 * values, such as {@link #getFeatureAsInt(int, int)}, where possible.
+	 * 
+	 * @return true if this reader is mapped
+	 */
+	public boolean isMapped() {
+		return mappedVectors != null;
 	}
 
 	/**
@@ -120,7 +208,110 @@ public class FeatureFileReader {
 	 * @return the corresponding feature vector
 	 */
 	public FeatureVector getFeatureVector(int unitIndex) {
-		return featureVectors[unitIndex];
+		if (mappedVectors == null) {
+			return featureVectors[unitIndex];
+		}
+		int pos = position(unitIndex);
+		byte[] bytes = new byte[numBytes];
+		for (int i = 0; i < numBytes; i++) {
+			bytes[i] = mappedVectors.get(pos++);
+		}
+		short[] shorts = new short[numShorts];
+		for (int i = 0; i < numShorts; i++, pos += 2) {
+			shorts[i] = mappedVectors.getShort(pos);
+		}
+		float[] floats = new float[numFloats];
+		for (int i = 0; i < numFloats; i++, pos += 4) {
+			floats[i] = mappedVectors.getFloat(pos);
+		}
+		return new FeatureVector(bytes, shorts, floats, unitIndex);
+	}
+
+	private int position(int unitIndex) {
+		if (unitIndex < 0 || unitIndex >= numberOfUnits) {
+			throw new IndexOutOfBoundsException("Unit index " + unitIndex + " is not between 0 and " + numberOfUnits);
+		}
+		return unitIndex * recordSize;
+	}
+
+	/**
+	 * Get the value of a byte-valued feature of a unit.
+	 * 
+	 * @param unitIndex
+	 *            the absolute index number of a unit in the database
+	 * @param featureIndex
+	 *            the index of a byte-valued feature
+	 * @return the feature value
+	 */
+	public byte getByteFeature(int unitIndex, int featureIndex) {
+		if (mappedVectors == null) {
+			return featureVectors[unitIndex].getByteFeature(featureIndex);
+		}
+		if (featureIndex < 0 || featureIndex >= numBytes) {
+			throw new IndexOutOfBoundsException(featureIndex + " is not between 0 and " + numBytes);
+		}
+		return mappedVectors.get(position(unitIndex) + featureIndex);
+	}
+
+	/**
+	 * Get the value of a short-valued feature of a unit.
+	 * 
+	 * @param unitIndex
+	 *            the absolute index number of a unit in the database
+	 * @param featureIndex
+	 *            the index of a short-valued feature, counting from the first feature
+	 * @return the feature value
+	 */
+	public short getShortFeature(int unitIndex, int featureIndex) {
+		if (mappedVectors == null) {
+			return featureVectors[unitIndex].getShortFeature(featureIndex);
+		}
+		int i = featureIndex - numBytes;
+		if (i < 0 || i >= numShorts) {
+			throw new IndexOutOfBoundsException(featureIndex + " is not a short-valued feature");
+		}
+		return mappedVectors.getShort(position(unitIndex) + numBytes + 2 * i);
+	}
+
+	/**
+	 * Get the value of a continuous feature of a unit.
+	 * 
+	 * @param unitIndex
+	 *            the absolute index number of a unit in the database
+	 * @param featureIndex
+	 *            the index of a continuous feature, counting from the first feature
+	 * @return the feature value
+	 */
+	public float getContinuousFeature(int unitIndex, int featureIndex) {
+		if (mappedVectors == null) {
+			return featureVectors[unitIndex].getContinuousFeature(featureIndex);
+		}
+		int i = featureIndex - numBytes - numShorts;
+		if (i < 0 || i >= numFloats) {
+			throw new IndexOutOfBoundsException(featureIndex + " is not a continuous feature");
+		}
+		return mappedVectors.getFloat(position(unitIndex) + numBytes + 2 * numShorts + 4 * i);
+	}
+
+	/**
+	 * Get the value of a feature of a unit as an int, as {@link FeatureVector#getFeatureAsInt(int)} does.
+	 * 
+	 * @param unitIndex
+	 *            the absolute index number of a unit in the database
+	 * @param featureIndex
+	 *            the index of a feature
+	 * @return the feature value
+	 */
+	public int getFeatureAsInt(int unitIndex, int featureIndex) {
+		if (mappedVectors == null) {
+			return featureVectors[unitIndex].getFeatureAsInt(featureIndex);
+		}
+		if (featureIndex < numBytes) {
+			return getByteFeature(unitIndex, featureIndex);
+		} else if (featureIndex < numBytes + numShorts) {
+			return getShortFeature(unitIndex, featureIndex);
+		}
+		return (int) getContinuousFeature(unitIndex, featureIndex);
 	}
 
 	/**
@@ -129,16 +320,33 @@ public class FeatureFileReader {
 	 * @return a new array containing the internal feature vectors
 	 */
 	public FeatureVector[] getCopyOfFeatureVectors() {
-		return (FeatureVector[]) featureVectors.clone();
+		return (FeatureVector[]) getFeatureVectors().clone();
 	}
 
 	/**
-	 * Return the internal array of feature vectors.
+	 * Return the internal array of feature vectors. For a mapped reader, all feature vectors are created on the first call, which
+	 * takes as much memory as an unmapped reader would.
 	 * 
 	 * @return the internal array of feature vectors.
 	 */
 	public FeatureVector[] getFeatureVectors() {
-		return featureVectors;
+		if (mappedVectors == null) {
+			return featureVectors;
+		}
+		FeatureVector[] vectors = materializedVectors;
+		if (vectors == null) {
+			synchronized (this) {
+				vectors = materializedVectors;
+				if (vectors == null) {
+					vectors = new FeatureVector[numberOfUnits];
+					for (int i = 0; i < numberOfUnits; i++) {
+						vectors[i] = getFeatureVector(i);
+					}
+					materializedVectors = vectors;
+				}
+			}
+		}
+		return vectors;
 	}
 
 	/**
@@ -184,11 +392,11 @@ public class FeatureFileReader {
 
 			for (int j = 0; j < featureIndexes.length; j++) {
 				if (newFeatureDefinition.isByteFeature(j)) {
-					byteFeatures[countByteFeatures++] = featureVectors[i].getByteFeature(featureIndexes[j]);
+					byteFeatures[countByteFeatures++] = getByteFeature(i, featureIndexes[j]);
 				} else if (newFeatureDefinition.isShortFeature(j)) {
-					shortFeatures[countShortFeatures++] = featureVectors[i].getShortFeature(featureIndexes[j]);
+					shortFeatures[countShortFeatures++] = getShortFeature(i, featureIndexes[j]);
 				} else if (newFeatureDefinition.isContinuousFeature(j)) {
-					continiousFeatures[countFloatFeatures++] = featureVectors[i].getContinuousFeature(featureIndexes[j]);
+					continiousFeatures[countFloatFeatures++] = getContinuousFeature(i, featureIndexes[j]);
 				}
 			}
 
@@ -206,7 +414,7 @@ public class FeatureFileReader {
 	 * @return the corresponding feature vector
 	 */
 	public FeatureVector getFeatureVector(Unit unit) {
-		return featureVectors[unit.index];
+		return getFeatureVector(unit.index);
 	}
 
 	public FeatureDefinition getFeatureDefinition() {
@@ -214,6 +422,9 @@ public class FeatureFileReader {
 	}
 
 	public int getNumberOfUnits() {
+		if (mappedVectors != null) {
+			return numberOfUnits;
+		}
 		return (featureVectors.length);
 	}
 }
@@ -43,6 +43,10 @@ public class HalfPhoneFeatureFileReader extends FeatureFileReader {
 		super(fileName);
 	}
 
+	public HalfPhoneFeatureFileReader(String fileName, boolean mapped) throws IOException, MaryConfigurationException {
+		super(fileName, mapped);
+	}
+
 	@Override
 	protected void loadFromStream(String fileName) throws IOException, MaryConfigurationException {
 		/* Open the file */
@@ -81,11 +85,7 @@ public class HalfPhoneFeatureFileReader extends FeatureFileReader {
 		rightWeights = new FeatureDefinition(bb);
 		assert leftWeights.featureEquals(rightWeights) : "Halfphone unit feature file contains incompatible feature definitions for left and right units -- this should not happen!";
 		featureDefinition = leftWeights; // one of them, for super class
-		int numberOfUnits = bb.getInt();
-		featureVectors = new FeatureVector[numberOfUnits];
-		for (int i = 0; i < numberOfUnits; i++) {
-			featureVectors[i] = featureDefinition.readFeatureVector(i, bb);
-		}
+		readFeatureVectors(bb);
 	}
 
 	public FeatureDefinition getLeftWeights() {
@@ -32,6 +32,7 @@
 package marytts.unitselection.data;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.IOException;
@@ -40,11 +41,16 @@ import java.io.UTFDataFormatException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Vector;
 
 import marytts.exceptions.MaryConfigurationException;
+import marytts.server.MaryProperties;
 import marytts.util.MaryUtils;
 import marytts.util.Pair;
 import marytts.util.data.Datagram;
@@ -58,7 +64,13 @@ import marytts.util.io.StreamUtils;
  * @author sacha, marc
  *
  */
-public class TimelineReader {
+public class TimelineReader implements Closeable {
+	/**
+	 * The amount of data read from the file in one go when the timeline is not memory mapped; also the block size of the cache.
+	 */
+	private static final int READ_SIZE = 0x10000; // 64 kB
+	private static final int MEGABYTE = 1024 * 1024;
+
 	protected MaryHeader maryHdr = null; // The standard Mary header
 	protected ProcHeader procHdr = null; // The processing info header
 
@@ -72,12 +84,29 @@ public class TimelineReader {
 	 */
 	protected long totalDuration = -1;
 
-	protected int datagramsBytePos = 0;
-	protected int timeIdxBytePos = 0;
+	protected long datagramsBytePos = 0;
+	protected long timeIdxBytePos = 0;
 
 	// exactly one of the two following variables will be non-null after load():
-	private MappedByteBuffer mappedBB = null;
-	private FileChannel fileChannel = null;
+	/**
+	 * The datagram zone, mapped in segments of less than 2 GB. Consecutive segments overlap, so that any datagram can be found
+	 * in the segment in which the index field before it lies; segments start and end at datagram boundaries.
+	 */
+	private MappedByteBuffer[] mappedSegments = null;
+	private volatile FileChannel fileChannel = null;
+
+	/** The file position of the start of each mapped segment */
+	private long[] segmentStarts = null;
+	/** Optional cache of recently read blocks, used with piecewise reading only */
+	private BlockCache blockCache = null;
+	/** Per-thread buffer for piecewise reading */
+	private ThreadLocal<ByteBuffer> readBuffer = null;
+	private String fileName = null;
+	/** Set by close(), so that the file is not reopened afterwards */
+	private boolean closed = false;
+	private int maxSegmentSize = Math.min(MaryProperties.getInteger("timeline.mapping.segment.megabytes", 1024), 2047)
+			* MEGABYTE;
+	private long cacheSize = (long) MaryProperties.getInteger("timeline.cache.megabytes", 0) * MEGABYTE;
 
 	/****************/
 	/* CONSTRUCTORS */
@@ -125,6 +154,40 @@ public class TimelineReader {
 		}
 	}
 
+	/**
+	 * Construct a timeline from the given file name, overriding the configured memory mapping segment size and cache size.
+	 * 
+	 * @param fileName
+	 *            The file to read the timeline from. Must be non-null and point to a valid timeline file.
+	 * @param tryMemoryMapping
+	 *            if true, will attempt to read audio data via a memory map, and fall back to piecewise reading. If false, will
+	 *            immediately go for piecewise reading.
+	 * @param maxSegmentSize
+	 *            the maximum size, in bytes, of one memory mapped segment. Must be positive.
+	 * @param cacheSize
+	 *            the memory, in bytes, for caching blocks read piecewise; 0 means no caching.
+	 * @throws NullPointerException
+	 *             if null argument is given
+	 * @throws MaryConfigurationException
+	 *             if no timeline reader can be instantiated from fileName
+	 */
+	public TimelineReader(String fileName, boolean tryMemoryMapping, int maxSegmentSize, long cacheSize)
+			throws MaryConfigurationException {
+		if (fileName == null) {
+			throw new NullPointerException("Filename is null");
+		}
+		if (maxSegmentSize <= 0) {
+			throw new IllegalArgumentException("Segment size must be positive, but is " + maxSegmentSize);
+		}
+		this.maxSegmentSize = maxSegmentSize;
+		this.cacheSize = cacheSize;
+		try {
+			load(fileName, tryMemoryMapping);
+		} catch (Exception e) {
+			throw new MaryConfigurationException("Cannot load timeline file from " + fileName, e);
+		}
+	}
+
 	/**
 	 * Only subclasses can instantiate a TimelineReader object that doesn't call {@link #load(String)}. It is their responsibility
 	 * then to ensure the fundamental guarantee.
@@ -193,8 +256,8 @@ public class TimelineReader {
 		}
 
 		/* Load the positions of the various subsequent components */
-		datagramsBytePos = (int) headerBB.getLong();
-		timeIdxBytePos = (int) headerBB.getLong();
+		datagramsBytePos = headerBB.getLong();
+		timeIdxBytePos = headerBB.getLong();
 		if (timeIdxBytePos < datagramsBytePos) {
 			throw new MaryConfigurationException("File seems corrupt: index is expected after data, not before");
 		}
@@ -208,25 +271,85 @@ public class TimelineReader {
 		idx = new Index(indexBB);
 
 		if (tryMemoryMapping) {
-			// Try if we can use a mapped byte buffer:
+			// Try if we can use mapped byte buffers:
 			try {
-				mappedBB = fc.map(FileChannel.MapMode.READ_ONLY, datagramsBytePos, timeIdxBytePos - datagramsBytePos);
-				file.close(); // if map() succeeded, we don't need the file anymore.
+				mapSegments(fc);
 			} catch (IOException ome) {
+				mappedSegments = null;
+			}
+			if (mappedSegments != null) {
+				file.close(); // if map() succeeded, we don't need the file anymore.
+			} else {
 				MaryUtils.getLogger("Timeline").warn(
 						"Cannot use memory mapping for timeline file '" + fileName + "' -- falling back to piecewise reading");
 			}
 		}
-		if (!tryMemoryMapping || mappedBB == null) { // use piecewise reading
+		if (!tryMemoryMapping || mappedSegments == null) { // use piecewise reading
+			this.fileName = fileName;
 			fileChannel = fc;
 			assert fileChannel != null;
 			// and leave file open
+			readBuffer = new ThreadLocal<ByteBuffer>();
+			if (cacheSize >= READ_SIZE) {
+				blockCache = new BlockCache((int) Math.min(cacheSize / READ_SIZE, Integer.MAX_VALUE));
+			}
 		}
 
 		// postconditions:
 		assert idx != null;
 		assert procHdr != null;
-		assert fileChannel == null && mappedBB != null || fileChannel != null && mappedBB == null;
+		assert fileChannel == null && mappedSegments != null || fileChannel != null && mappedSegments == null;
+	}
+
+	/**
+	 * Map the datagram zone into memory. If it is larger than the maximum segment size, it is split into overlapping segments:
+	 * each segment starts at an index position no further than half a segment after the start of the previous one, and ends at
+	 * the last index position that fits. Leaves mappedSegments null if the index is too coarse for the segment size.
+	 * 
+	 * @param fc
+	 *            the file channel to map from
+	 * @throws IOException
+	 *             if mapping fails
+	 */
+	private void mapSegments(FileChannel fc) throws IOException {
+		ArrayList<long[]> segments = new ArrayList<long[]>();
+		long start = datagramsBytePos;
+		while (timeIdxBytePos - start > maxSegmentSize) {
+			long end = lastIndexedPosAtMost(start + maxSegmentSize);
+			long next = lastIndexedPosAtMost(start + maxSegmentSize / 2);
+			if (next <= start) {
+				MaryUtils.getLogger("Timeline").debug(
+						"Index interval is too large for mapping segments of " + maxSegmentSize + " bytes");
+				return;
+			}
+			segments.add(new long[] { start, end });
+			start = next;
+		}
+		segments.add(new long[] { start, timeIdxBytePos });
+		MappedByteBuffer[] buffers = new MappedByteBuffer[segments.size()];
+		long[] starts = new long[segments.size()];
+		for (int i = 0; i < buffers.length; i++) {
+			long[] segment = segments.get(i);
+			starts[i] = segment[0];
+			buffers[i] = fc.map(FileChannel.MapMode.READ_ONLY, segment[0], segment[1] - segment[0]);
+		}
+		segmentStarts = starts;
+		mappedSegments = buffers;
+	}
+
+	/**
+	 * The largest datagram position in the index which is not greater than the given position.
+	 * 
+	 * @param pos
+	 *            a file position
+	 * @return the position, or -1 if the index has no position up to pos.
+	 */
+	private long lastIndexedPosAtMost(long pos) {
+		int i = Arrays.binarySearch(idx.bytePtrs, pos);
+		if (i < 0) {
+			i = -i - 2; // the field before the insertion point
+		}
+		return i >= 0 ? idx.bytePtrs[i] : -1;
 	}
 
 	/**
@@ -466,6 +589,9 @@ public class TimelineReader {
 	 * that a call to byteBuffer.position() produces any meaningful values. The byte buffer may represent only a part of the
 	 * available data; however, at least one datagram can be read from the byte buffer. If no further data can be read from it, a
 	 * new byte buffer must be obtained by calling this method again with a new target time.
+	 * <p>
+	 * When reading piecewise, the byte buffer may be reused by the next call of this method in the same thread, so it must not be
+	 * kept beyond that.
 	 * 
 	 * @param targetTimeInSamples
 	 *            the time position in the file which should be accessed as a byte buffer, in samples. Must be non-negative and
@@ -479,7 +605,7 @@ public class TimelineReader {
 	 *             , BufferUnderflowException if no byte buffer can be obtained for the requested time.
 	 */
 	protected Pair<ByteBuffer, Long> getByteBufferAtTime(long targetTimeInSamples) throws IOException, BufferUnderflowException {
-		if (mappedBB != null) {
+		if (mappedSegments != null) {
 			return getMappedByteBufferAtTime(targetTimeInSamples);
 		} else {
 			return loadByteBufferAtTime(targetTimeInSamples);
@@ -488,13 +614,17 @@ public class TimelineReader {
 
 	protected Pair<ByteBuffer, Long> getMappedByteBufferAtTime(long targetTimeInSamples) throws IllegalArgumentException,
 			IOException {
-		assert mappedBB != null;
+		assert mappedSegments != null;
 		/* Seek for the time index which comes just before the requested time */
 		IdxField idxFieldBefore = idx.getIdxFieldBefore(targetTimeInSamples);
 		long time = idxFieldBefore.timePtr;
-		int bytePos = (int) (idxFieldBefore.bytePtr - datagramsBytePos);
-		ByteBuffer bb = mappedBB.duplicate();
-		bb.position(bytePos);
+		/* and for the last segment starting at or before it */
+		int segment = Arrays.binarySearch(segmentStarts, idxFieldBefore.bytePtr);
+		if (segment < 0) {
+			segment = -segment - 2;
+		}
+		ByteBuffer bb = mappedSegments[segment].duplicate();
+		bb.position((int) (idxFieldBefore.bytePtr - segmentStarts[segment]));
 		time = hopToTime(bb, time, targetTimeInSamples);
 		return new Pair<ByteBuffer, Long>(bb, time);
 	}
@@ -502,41 +632,45 @@ public class TimelineReader {
 	protected Pair<ByteBuffer, Long> loadByteBufferAtTime(long targetTimeInSamples) throws IOException {
 		assert fileChannel != null;
 		// we must load a chunk of data from the FileChannel
-		int bufSize = 0x10000; // 64 kB
 		/* Seek for the time index which comes just before the requested time */
 		IdxField idxFieldBefore = idx.getIdxFieldBefore(targetTimeInSamples);
 		long time = idxFieldBefore.timePtr;
-		long bytePos = idxFieldBefore.bytePtr;
-		if (bytePos + bufSize > timeIdxBytePos) { // must not read index data as datagrams
-			bufSize = (int) (timeIdxBytePos - bytePos);
-		}
-		ByteBuffer bb = loadByteBuffer(bytePos, bufSize);
+		long bytePos = idxFieldBefore.bytePtr; // the file position of the start of bb
+		ByteBuffer bb = loadByteBuffer(bytePos, READ_SIZE);
 
 		while (true) {
 			if (!canReadDatagramHeader(bb)) {
-				bb = loadByteBuffer(bytePos, bufSize);
-				assert canReadDatagramHeader(bb);
+				bytePos += bb.position();
+				bb = loadByteBuffer(bytePos, READ_SIZE);
+				if (!canReadDatagramHeader(bb)) {
+					throw new BufferUnderflowException(); // end of datagram zone
+				}
 			}
 			int posBefore = bb.position();
-			Datagram d = new Datagram(bb, false);
-			if (time + d.getDuration() > targetTimeInSamples) { // d is our datagram
+			long duration = bb.getLong();
+			int length = bb.getInt();
+			if (duration < 0 || length < 0) {
+				throw new IOException("Corrupt datagram header at byte position " + (bytePos + posBefore));
+			}
+			if (time + duration > targetTimeInSamples) { // this is our datagram
 				bb.position(posBefore);
-				int datagramNumBytes = Datagram.NUM_HEADER_BYTES + d.getLength();
-				// need to make sure we return a byte buffer from which d can be read
+				int datagramNumBytes = Datagram.NUM_HEADER_BYTES + length;
+				// need to make sure we return a byte buffer from which the datagram can be read
 				if (!canReadAmount(bb, datagramNumBytes)) {
-					bb = loadByteBuffer(bytePos, Math.max(datagramNumBytes, bufSize));
+					bytePos += posBefore;
+					bb = loadByteBuffer(bytePos, Math.max(datagramNumBytes, READ_SIZE));
 				}
 				assert canReadAmount(bb, datagramNumBytes);
 				break;
 			} else {
 				// keep on skipping
-				time += d.getDuration();
-				if (canReadAmount(bb, d.getLength())) {
-					bb.position(bb.position() + d.getLength());
+				time += duration;
+				if (canReadAmount(bb, length)) {
+					bb.position(bb.position() + length);
 				} else {
 					bytePos += bb.position();
-					bytePos += d.getLength();
-					bb = loadByteBuffer(bytePos, bufSize);
+					bytePos += length;
+					bb = loadByteBuffer(bytePos, READ_SIZE);
 				}
 			}
 		}
@@ -544,22 +678,120 @@ public class TimelineReader {
 	}
 
 	/**
+	 * Read a piece of the datagram zone, either from the block cache or into this thread's read buffer.
+	 * 
 	 * @param bytePos
-	 *            position in fileChannel from which to load the byte buffer
+	 *            position in the file from which to load the byte buffer
 	 * @param bufSize
-	 *            size of the byte buffer
+	 *            size of the byte buffer; it is truncated at the end of the datagram zone.
 	 * @return the byte buffer, loaded and set such that limit is bufSize and position is 0
 	 * @throws IOException
 	 *             if the data cannot be read from fileChannel
 	 */
 	private ByteBuffer loadByteBuffer(long bytePos, int bufSize) throws IOException {
-		ByteBuffer bb = ByteBuffer.allocate(bufSize);
-		fileChannel.read(bb, bytePos); // this will block if another thread is currently reading from fileChannel
-		bb.limit(bb.position());
-		bb.position(0);
+		if (bytePos + bufSize > timeIdxBytePos) { // must not read index data as datagrams
+			bufSize = (int) Math.max(0, timeIdxBytePos - bytePos);
+		}
+		if (blockCache != null) {
+			return loadCachedByteBuffer(bytePos, bufSize);
+		}
+		ByteBuffer bb = getReadBuffer(bufSize);
+		read(bb, bytePos);
+		bb.flip();
 		return bb;
 	}
 
+	/**
+	 * Assemble a byte buffer from cached blocks. If the requested data lies within a single block, the block itself is returned
+	 * as a read-only buffer.
+	 */
+	private ByteBuffer loadCachedByteBuffer(long bytePos, int bufSize) throws IOException {
+		long offset = bytePos - datagramsBytePos;
+		long blockNo = offset / READ_SIZE;
+		int posInBlock = (int) (offset % READ_SIZE);
+		if (posInBlock + bufSize <= READ_SIZE) {
+			return ByteBuffer.wrap(getBlock(blockNo), posInBlock, bufSize).slice().asReadOnlyBuffer();
+		}
+		ByteBuffer bb = getReadBuffer(bufSize);
+		while (bb.hasRemaining()) {
+			byte[] block = getBlock(blockNo++);
+			int n = Math.min(block.length - posInBlock, bb.remaining());
+			bb.put(block, posInBlock, n);
+			posInBlock = 0;
+		}
+		bb.flip();
+		return bb;
+	}
+
+	private byte[] getBlock(long blockNo) throws IOException {
+		byte[] block = blockCache.get(blockNo);
+		if (block == null) {
+			long blockPos = datagramsBytePos + blockNo * READ_SIZE;
+			block = new byte[(int) Math.min(READ_SIZE, timeIdxBytePos - blockPos)];
+			read(ByteBuffer.wrap(block), blockPos);
+			blockCache.put(blockNo, block);
+		}
+		return block;
+	}
+
+	/**
+	 * This thread's read buffer, cleared and with a limit of size.
+	 */
+	private ByteBuffer getReadBuffer(int size) {
+		ByteBuffer bb = readBuffer.get();
+		if (bb == null || bb.capacity() < size) {
+			bb = ByteBuffer.allocateDirect(Math.max(size, READ_SIZE));
+			readBuffer.set(bb);
+		}
+		bb.clear();
+		bb.limit(size);
+		return bb;
+	}
+
+	/**
+	 * Fill the buffer from the given file position. Positional reads do not use the channel's position, so that threads do not
+	 * have to wait for each other.
+	 * 
+	 * @throws IOException
+	 *             if the buffer cannot be filled
+	 */
+	private void read(ByteBuffer bb, long bytePos) throws IOException {
+		FileChannel fc = fileChannel;
+		try {
+			while (bb.hasRemaining()) {
+				int n = fc.read(bb, bytePos);
+				if (n < 0) {
+					throw new IOException("Unexpected end of timeline file " + fileName);
+				}
+				bytePos += n;
+			}
+		} catch (ClosedByInterruptException e) {
+			// interrupting a reading thread closes the channel for everybody -- reopen it for the other threads
+			reopen(fc);
+			throw e;
+		}
+	}
+
+	private synchronized void reopen(FileChannel closedChannel) throws IOException {
+		if (fileChannel == closedChannel && !closed) {
+			fileChannel = new RandomAccessFile(fileName, "r").getChannel();
+		}
+	}
+
+	/**
+	 * Close the timeline file if it is read piecewise. Mapped segments are released when the reader is no longer referenced.
+	 * The timeline cannot be read after it has been closed.
+	 * 
+	 * @throws IOException
+	 *             if the file cannot be closed
+	 */
+	public synchronized void close() throws IOException {
+		closed = true;
+		if (fileChannel != null) {
+			fileChannel.close();
+		}
+	}
+
 	private boolean canReadDatagramHeader(ByteBuffer bb) {
 		return canReadAmount(bb, Datagram.NUM_HEADER_BYTES);
 	}
@@ -1317,4 +1549,46 @@ public class TimelineReader {
 		}
 	}
 
+	/**
+	 * A least-recently-used cache of fixed-size blocks of the datagram zone, in independently locked stripes.
+	 */
+	private static class BlockCache {
+		private static final int NUM_STRIPES = 16;
+		private final Stripe[] stripes = new Stripe[NUM_STRIPES];
+
+		BlockCache(int maxBlocks) {
+			for (int i = 0; i < NUM_STRIPES; i++) {
+				stripes[i] = new Stripe(Math.max(1, maxBlocks / NUM_STRIPES));
+			}
+		}
+
+		byte[] get(long blockNo) {
+			Stripe stripe = stripes[(int) (blockNo % NUM_STRIPES)];
+			synchronized (stripe) {
+				return stripe.get(blockNo);
+			}
+		}
+
+		void put(long blockNo, byte[] block) {
+			Stripe stripe = stripes[(int) (blockNo % NUM_STRIPES)];
+			synchronized (stripe) {
+				stripe.put(blockNo, block);
+			}
+		}
+
+		private static class Stripe extends LinkedHashMap<Long, byte[]> {
+			private final int maxBlocks;
+
+			Stripe(int maxBlocks) {
+				super(16, 0.75f, true);
+				this.maxBlocks = maxBlocks;
+			}
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+				return size() > maxBlocks;
+			}
+		}
+	}
+
 }
\ No newline at end of file
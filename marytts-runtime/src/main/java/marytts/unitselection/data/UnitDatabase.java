@@ -19,6 +19,7 @@
  */
 package marytts.unitselection.data;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -51,6 +52,7 @@ public class UnitDatabase {
 	protected TimelineReader audioTimeline;
 	protected TimelineReader basenameTimeline;
 	protected int backtrace;
+	protected CandidateCache candidateCache = null;
 	protected Logger logger = MaryUtils.getLogger("UnitDatabase");
 
 	public UnitDatabase() {
@@ -102,6 +104,38 @@ public class UnitDatabase {
 		return sCostFunction;
 	}
 
+	/**
+	 * Use the given cache for the results of {@link #getCandidates(Target)}.
+	 * 
+	 * @param aCandidateCache
+	 *            the cache, or null to switch off caching
+	 */
+	public void setCandidateCache(CandidateCache aCandidateCache) {
+		this.candidateCache = aCandidateCache;
+	}
+
+	public CandidateCache getCandidateCache() {
+		return candidateCache;
+	}
+
+	/**
+	 * Close the timelines, which may keep their files open. The database cannot be used afterwards.
+	 * 
+	 * @throws IOException
+	 *             if a timeline cannot be closed
+	 */
+	public void close() throws IOException {
+		try {
+			if (audioTimeline != null) {
+				audioTimeline.close();
+			}
+		} finally {
+			if (basenameTimeline != null) {
+				basenameTimeline.close();
+			}
+		}
+	}
+
 	/**
 	 * Preselect a set of candidates that could be used to realise the given target.
 	 * 
@@ -121,18 +155,35 @@ public class UnitDatabase {
 		blacklist = DomUtils.getAttributeFromClosestAncestorOfAnyKind(targetElement, "blacklist");
 		// END blacklisting
 
-		// logger.debug("Looking for candidates in cart "+target.getName());
-		// get the cart tree and extract the candidates
-		int[] clist = (int[]) preselectionCART.interpret(target, backtrace);
-		logger.debug("For target " + target + ", selected " + clist.length + " units");
-
-		// Now, clist is an array of unit indexes.
-		List<ViterbiCandidate> candidates = new ArrayList<ViterbiCandidate>();
-		for (int i = 0; i < clist.length; i++) {
-			// The target is the same for all these candidates in the queue
-			// remember the actual unit:
-			Unit unit = unitReader.getUnit(clist[i]);
-			candidates.add(new ViterbiCandidate(target, unit, targetCostFunction));
+		List<ViterbiCandidate> candidates;
+		CandidateCache.Key key = candidateCache != null ? candidateCache.getKey(target) : null;
+		CandidateCache.Entry cached = key != null ? candidateCache.get(key) : null;
+		if (cached != null) {
+			candidates = new ArrayList<ViterbiCandidate>(cached.size());
+			for (int i = 0; i < cached.size(); i++) {
+				Unit unit = unitReader.getUnit(cached.getUnitIndex(i));
+				candidates.add(new ViterbiCandidate(target, unit, cached.getTargetCost(i)));
+			}
+		} else {
+			// logger.debug("Looking for candidates in cart "+target.getName());
+			// get the cart tree and extract the candidates
+			int[] clist = (int[]) preselectionCART.interpret(target, backtrace);
+			logger.debug("For target " + target + ", selected " + clist.length + " units");
+
+			// Now, clist is an array of unit indexes.
+			candidates = new ArrayList<ViterbiCandidate>(clist.length);
+			double[] targetCosts = new double[clist.length];
+			for (int i = 0; i < clist.length; i++) {
+				// The target is the same for all these candidates in the queue
+				// remember the actual unit:
+				Unit unit = unitReader.getUnit(clist[i]);
+				ViterbiCandidate candidate = new ViterbiCandidate(target, unit, targetCostFunction);
+				targetCosts[i] = candidate.getTargetCost();
+				candidates.add(candidate);
+			}
+			if (key != null) {
+				candidateCache.put(key, clist.clone(), targetCosts);
+			}
 		}
 
 		// Blacklisting without crazy performance drop:
@@ -35,6 +35,8 @@ import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import marytts.exceptions.MaryConfigurationException;
 import marytts.util.data.MaryHeader;
@@ -52,6 +54,8 @@ public class UnitFileReader {
 	private int sampleRate = 0;
 	Unit[] units; // this has visibility "default" rather than private so that other classes in the same package can access it
 					// directly, for efficiency reasons
+	private ByteBuffer mappedUnits = null; // instead of units, if the file is mapped
+	private static final int UNIT_SIZE = 8 + 4; // start time and duration
 
 	/****************/
 	/* CONSTRUCTORS */
@@ -79,6 +83,26 @@ public class UnitFileReader {
 		load(fileName);
 	}
 
+	/**
+	 * Create a unit file reader from the given unit file
+	 * 
+	 * @param fileName
+	 *            the unit file to read
+	 * @param mapped
+	 *            if true, map the file rather than reading it, see {@link #loadMapped(String)}
+	 * @throws IOException
+	 *             if a problem occurs while reading
+	 * @throws MaryConfigurationException
+	 *             MaryConfigurationException
+	 */
+	public UnitFileReader(String fileName, boolean mapped) throws IOException, MaryConfigurationException {
+		if (mapped) {
+			loadMapped(fileName);
+		} else {
+			load(fileName);
+		}
+	}
+
 	/**
 	 * Load the given unit file
 	 * 
@@ -108,6 +132,7 @@ public class UnitFileReader {
 			throw new MaryConfigurationException("File [" + fileName + "] has a negative number sample rate. Aborting.");
 		}
 		units = new Unit[numberOfUnits];
+		mappedUnits = null;
 		/* Read the start times and durations */
 		for (int i = 0; i < numberOfUnits; i++) {
 			long startTime = dis.readLong();
@@ -116,6 +141,55 @@ public class UnitFileReader {
 		}
 	}
 
+	/**
+	 * Map the given unit file rather than reading it. No unit objects are kept in memory; instead, {@link #getUnit(int)} creates a
+	 * new unit object from the mapped file on each call, so the file loads in constant time and its pages are shared by all
+	 * processes using the same voice.
+	 * 
+	 * @param fileName
+	 *            the unit file to map
+	 * @throws IOException
+	 *             if a problem occurs while reading
+	 * @throws MaryConfigurationException
+	 *             if the file is not a valid unit file
+	 */
+	public void loadMapped(String fileName) throws IOException, MaryConfigurationException {
+		FileInputStream fis = new FileInputStream(fileName);
+		ByteBuffer bb;
+		try {
+			FileChannel fc = fis.getChannel();
+			bb = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+		} finally {
+			fis.close();
+		}
+		hdr = new MaryHeader(bb);
+		if (hdr.getType() != MaryHeader.UNITS) {
+			throw new MaryConfigurationException("File [" + fileName + "] is not a valid Mary Units file.");
+		}
+		numberOfUnits = bb.getInt();
+		if (numberOfUnits < 0) {
+			throw new MaryConfigurationException("File [" + fileName + "] has a negative number of units. Aborting.");
+		}
+		sampleRate = bb.getInt();
+		if (sampleRate < 0) {
+			throw new MaryConfigurationException("File [" + fileName + "] has a negative number sample rate. Aborting.");
+		}
+		if ((long) numberOfUnits * UNIT_SIZE > bb.remaining()) {
+			throw new MaryConfigurationException("File [" + fileName + "] is too short for " + numberOfUnits + " units.");
+		}
+		units = null;
+		mappedUnits = bb.slice();
+	}
+
+	/**
+	 * Whether this reader was loaded with {@link #loadMapped(String)}.
+	 * 
+	 * @return true if the unit file is mapped
+	 */
+	public boolean isMapped() {
+		return mappedUnits != null;
+	}
+
 	/*****************/
 	/* OTHER METHODS */
 	/*****************/
@@ -146,6 +220,13 @@ public class UnitFileReader {
 	 * @return The considered unit.
 	 */
 	public Unit getUnit(int i) {
+		if (mappedUnits != null) {
+			if (i < 0 || i >= numberOfUnits) {
+				throw new IndexOutOfBoundsException("Unit index " + i + " is not between 0 and " + numberOfUnits);
+			}
+			int pos = i * UNIT_SIZE;
+			return new Unit(mappedUnits.getLong(pos), mappedUnits.getInt(pos + 8), i);
+		}
 		return units[i];
 	}
 
@@ -172,9 +253,9 @@ public class UnitFileReader {
 	 * @return the next unit in the database, or null if there is no such unit.
 	 */
 	public Unit getNextUnit(Unit u) {
-		if (u == null || u.index >= units.length - 1 || u.index < 0)
+		if (u == null || u.index >= numberOfUnits - 1 || u.index < 0)
 			return null;
-		return units[u.index + 1];
+		return getUnit(u.index + 1);
 	}
 
 	/**
@@ -185,9 +266,9 @@ public class UnitFileReader {
 	 * @return the previous unit in the database, or null if there is no such unit.
 	 */
 	public Unit getPreviousUnit(Unit u) {
-		if (u == null || u.index >= units.length || u.index <= 0)
+		if (u == null || u.index >= numberOfUnits || u.index <= 0)
 			return null;
-		return units[u.index - 1];
+		return getUnit(u.index - 1);
 	}
 
 	/**
@@ -198,7 +279,7 @@ public class UnitFileReader {
 	 * @return true if the unit is an edge unit in the unit file, false otherwise
 	 */
 	public boolean isEdgeUnit(int i) {
-		return units[i].isEdgeUnit();
+		return getUnit(i).isEdgeUnit();
 	}
 
 }
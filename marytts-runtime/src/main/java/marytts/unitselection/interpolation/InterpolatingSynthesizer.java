@@ -129,41 +129,55 @@ public class InterpolatingSynthesizer implements WaveformSynthesizer {
 		UnitSelectionVoice usv1 = (UnitSelectionVoice) voice1;
 		UnitSelectionVoice usv2 = (UnitSelectionVoice) voice2;
 
-		UnitSelector unitSel1 = usv1.getUnitSelector();
-		List<SelectedUnit> selectedUnits1 = unitSel1.selectUnits(tokensAndBoundaries, voice);
-		UnitSelector unitSel2 = usv2.getUnitSelector();
-		List<SelectedUnit> selectedUnits2 = unitSel2.selectUnits(tokensAndBoundaries, voice);
-		assert selectedUnits1.size() == selectedUnits2.size() : "Unexpected difference in number of units: "
-				+ selectedUnits1.size() + " vs. " + selectedUnits2.size();
-		int numUnits = selectedUnits1.size();
-
-		// 3. do unit concatenation with each, retrieve actual unit durations from list of units;
-		UnitConcatenator unitConcatenator1 = usv1.getConcatenator();
+		List<SelectedUnit> selectedUnits1;
+		List<SelectedUnit> selectedUnits2;
 		AudioInputStream audio1;
-		try {
-			audio1 = unitConcatenator1.getAudio(selectedUnits1);
-		} catch (IOException ioe) {
-			StringWriter sw = new StringWriter();
-			PrintWriter pw = new PrintWriter(sw);
-			for (Iterator selIt = selectedUnits1.iterator(); selIt.hasNext();)
-				pw.println(selIt.next());
-			throw new SynthesisException("For voice " + voice1.getName() + ", problems generating audio for unit chain: "
-					+ sw.toString(), ioe);
-		}
-		DoubleDataSource audioSource1 = new AudioDoubleDataSource(audio1);
-		UnitConcatenator unitConcatenator2 = usv2.getConcatenator();
 		AudioInputStream audio2;
+		DoubleDataSource audioSource1;
+		DoubleDataSource audioSource2;
+		UnitSelectionVoice.Data data1 = usv1.acquireData();
+		UnitSelectionVoice.Data data2 = null;
 		try {
-			audio2 = unitConcatenator2.getAudio(selectedUnits2);
-		} catch (IOException ioe) {
-			StringWriter sw = new StringWriter();
-			PrintWriter pw = new PrintWriter(sw);
-			for (Iterator selIt = selectedUnits2.iterator(); selIt.hasNext();)
-				pw.println(selIt.next());
-			throw new SynthesisException("For voice " + voice2.getName() + ", problems generating audio for unit chain: "
-					+ sw.toString(), ioe);
+			data2 = usv2.acquireData();
+			UnitSelector unitSel1 = data1.getUnitSelector();
+			selectedUnits1 = unitSel1.selectUnits(tokensAndBoundaries, voice);
+			UnitSelector unitSel2 = data2.getUnitSelector();
+			selectedUnits2 = unitSel2.selectUnits(tokensAndBoundaries, voice);
+			assert selectedUnits1.size() == selectedUnits2.size() : "Unexpected difference in number of units: "
+					+ selectedUnits1.size() + " vs. " + selectedUnits2.size();
+
+			// 3. do unit concatenation with each, retrieve actual unit durations from list of units;
+			UnitConcatenator unitConcatenator1 = data1.getConcatenator();
+			try {
+				audio1 = unitConcatenator1.getAudio(selectedUnits1);
+			} catch (IOException ioe) {
+				StringWriter sw = new StringWriter();
+				PrintWriter pw = new PrintWriter(sw);
+				for (Iterator selIt = selectedUnits1.iterator(); selIt.hasNext();)
+					pw.println(selIt.next());
+				throw new SynthesisException("For voice " + voice1.getName() + ", problems generating audio for unit chain: "
+						+ sw.toString(), ioe);
+			}
+			audioSource1 = new AudioDoubleDataSource(audio1);
+			UnitConcatenator unitConcatenator2 = data2.getConcatenator();
+			try {
+				audio2 = unitConcatenator2.getAudio(selectedUnits2);
+			} catch (IOException ioe) {
+				StringWriter sw = new StringWriter();
+				PrintWriter pw = new PrintWriter(sw);
+				for (Iterator selIt = selectedUnits2.iterator(); selIt.hasNext();)
+					pw.println(selIt.next());
+				throw new SynthesisException("For voice " + voice2.getName() + ", problems generating audio for unit chain: "
+						+ sw.toString(), ioe);
+			}
+			audioSource2 = new AudioDoubleDataSource(audio2);
+		} finally {
+			if (data2 != null) {
+				usv2.releaseData(data2);
+			}
+			usv1.releaseData(data1);
 		}
-		DoubleDataSource audioSource2 = new AudioDoubleDataSource(audio2);
+		int numUnits = selectedUnits1.size();
 		// Retrieve actual durations from list of units:
 		int sampleRate1 = (int) usv1.dbAudioFormat().getSampleRate();
 		double[] label1 = new double[numUnits];
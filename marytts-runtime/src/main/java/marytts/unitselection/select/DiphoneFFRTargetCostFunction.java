@@ -26,6 +26,7 @@ import marytts.exceptions.MaryConfigurationException;
 import marytts.features.FeatureDefinition;
 import marytts.features.FeatureProcessorManager;
 import marytts.features.FeatureVector;
+import marytts.server.MaryProperties;
 import marytts.unitselection.data.DiphoneUnit;
 import marytts.unitselection.data.FeatureFileReader;
 import marytts.unitselection.data.HalfPhoneFeatureFileReader;
@@ -54,7 +55,8 @@ public class DiphoneFFRTargetCostFunction implements TargetCostFunction {
 	@Override
 	public void load(String featureFileName, InputStream weightsStream, FeatureProcessorManager featProc) throws IOException,
 			MaryConfigurationException {
-		FeatureFileReader ffr = FeatureFileReader.getFeatureFileReader(featureFileName);
+		FeatureFileReader ffr = FeatureFileReader.getFeatureFileReader(featureFileName,
+				MaryProperties.getBoolean("unitselection.mapfiles", false));
 		load(ffr, weightsStream, featProc);
 	}
 
@@ -93,7 +95,7 @@ public class DiphoneFFRTargetCostFunction implements TargetCostFunction {
 	}
 
 	public FeatureVector getFeatureVector(Unit unit) {
-		return tcfForHalfphones.featureVectors[unit.index];
+		return tcfForHalfphones.getFeatureVector(unit);
 	}
 
 	/**
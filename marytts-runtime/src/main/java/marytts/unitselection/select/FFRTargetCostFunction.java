@@ -40,7 +40,8 @@ import marytts.util.MaryUtils;
 public class FFRTargetCostFunction implements TargetCostFunction {
 	protected WeightFunc[] weightFunction;
 	protected TargetFeatureComputer targetFeatureComputer;
-	protected FeatureVector[] featureVectors;
+	protected FeatureVector[] featureVectors; // null if the feature file is mapped
+	protected FeatureFileReader featureFileReader;
 	protected FeatureDefinition featureDefinition;
 	protected boolean[] weightsNonZero;
 
@@ -68,7 +69,7 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 		nCostComputations++; // for debug
 		FeatureVector targetFeatures = target.getFeatureVector();
 		assert targetFeatures != null : "Target " + target + " does not have pre-computed feature vector";
-		FeatureVector unitFeatures = featureVectors[unit.index];
+		FeatureVector unitFeatures = getFeatureVector(unit);
 		int nBytes = targetFeatures.byteValuedDiscreteFeatures.length;
 		int nShorts = targetFeatures.shortValuedDiscreteFeatures.length;
 		int nFloats = targetFeatures.continuousFeatures.length;
@@ -164,7 +165,7 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 
 		FeatureVector targetFeatures = target.getFeatureVector();
 		assert targetFeatures != null : "Target " + target + " does not have pre-computed feature vector";
-		FeatureVector unitFeatures = featureVectors[unit.index];
+		FeatureVector unitFeatures = getFeatureVector(unit);
 		int nBytes = targetFeatures.byteValuedDiscreteFeatures.length;
 		int nShorts = targetFeatures.shortValuedDiscreteFeatures.length;
 		int nFloats = targetFeatures.continuousFeatures.length;
@@ -244,14 +245,16 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 	@Override
 	public void load(String featureFileName, InputStream weightsStream, FeatureProcessorManager featProc) throws IOException,
 			MaryConfigurationException {
-		FeatureFileReader ffr = FeatureFileReader.getFeatureFileReader(featureFileName);
+		FeatureFileReader ffr = FeatureFileReader.getFeatureFileReader(featureFileName,
+				MaryProperties.getBoolean("unitselection.mapfiles", false));
 		load(ffr, weightsStream, featProc);
 	}
 
 	@Override
 	public void load(FeatureFileReader ffr, InputStream weightsStream, FeatureProcessorManager featProc) throws IOException {
 		this.featureDefinition = ffr.getFeatureDefinition();
-		this.featureVectors = ffr.getFeatureVectors();
+		this.featureFileReader = ffr;
+		this.featureVectors = ffr.isMapped() ? null : ffr.getFeatureVectors();
 		if (weightsStream != null) {
 			MaryUtils.getLogger("TargetCostFeatures").debug("Overwriting target cost weights from file");
 			// overwrite weights from file
@@ -315,7 +318,7 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 	 * @return the FeatureVector for target cost computation associated to this unit
 	 */
 	public FeatureVector getFeatureVector(Unit unit) {
-		return featureVectors[unit.index];
+		return featureVectors != null ? featureVectors[unit.index] : featureFileReader.getFeatureVector(unit.index);
 	}
 
 	/**
@@ -332,13 +335,13 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 	public String getFeature(Unit unit, String featureName) {
 		int featureIndex = featureDefinition.getFeatureIndex(featureName);
 		if (featureDefinition.isByteFeature(featureIndex)) {
-			byte value = featureVectors[unit.index].getByteFeature(featureIndex);
+			byte value = getFeatureVector(unit).getByteFeature(featureIndex);
 			return featureDefinition.getFeatureValueAsString(featureIndex, value);
 		} else if (featureDefinition.isShortFeature(featureIndex)) {
-			short value = featureVectors[unit.index].getShortFeature(featureIndex);
+			short value = getFeatureVector(unit).getShortFeature(featureIndex);
 			return featureDefinition.getFeatureValueAsString(featureIndex, value);
 		} else { // continuous -- return float as string
-			float value = featureVectors[unit.index].getContinuousFeature(featureIndex);
+			float value = getFeatureVector(unit).getContinuousFeature(featureIndex);
 			return String.valueOf(value);
 		}
 	}
@@ -383,6 +386,11 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 		}
 	}
 
+	/**
+	 * Get the feature vectors of all units.
+	 * 
+	 * @return the feature vectors, or null if the feature file is mapped; use {@link #getFeatureVector(Unit)} then.
+	 */
 	public FeatureVector[] getFeatureVectors() {
 		return featureVectors;
 	}
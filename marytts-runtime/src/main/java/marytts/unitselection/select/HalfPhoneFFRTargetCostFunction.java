@@ -86,7 +86,8 @@ public class HalfPhoneFFRTargetCostFunction extends FFRTargetCostFunction {
 	 */
 	public void load(String featureFileName, String weightsFile, FeatureProcessorManager featProc) throws IOException,
 			MaryConfigurationException {
-		HalfPhoneFeatureFileReader ffr = new HalfPhoneFeatureFileReader(featureFileName);
+		HalfPhoneFeatureFileReader ffr = new HalfPhoneFeatureFileReader(featureFileName, MaryProperties.getBoolean(
+				"unitselection.mapfiles", false));
 		load(ffr, weightsFile, featProc);
 	}
 
@@ -98,7 +99,8 @@ public class HalfPhoneFFRTargetCostFunction extends FFRTargetCostFunction {
 		this.leftWeights = ffr.getLeftWeights();
 		this.featureDefinition = this.leftWeights;
 		this.rightWeights = ffr.getRightWeights();
-		this.featureVectors = ffr.getFeatureVectors();
+		this.featureFileReader = ffr;
+		this.featureVectors = ffr.isMapped() ? null : ffr.getFeatureVectors();
 
 		if (weightsFile != null) {
 			MaryUtils.getLogger("TargetCostFeatures").debug("Overwriting target cost weights from file " + weightsFile);
@@ -182,7 +184,7 @@ public class HalfPhoneFFRTargetCostFunction extends FFRTargetCostFunction {
 	 * @return the FeatureVector for target cost computation associated to this unit
 	 */
 	public FeatureVector getUnitFeatures(Unit unit) {
-		return featureVectors[unit.index];
+		return getFeatureVector(unit);
 	}
 
 	/**
@@ -199,13 +201,13 @@ public class HalfPhoneFFRTargetCostFunction extends FFRTargetCostFunction {
 	public String getFeature(Unit unit, String featureName) {
 		int featureIndex = featureDefinition.getFeatureIndex(featureName);
 		if (featureDefinition.isByteFeature(featureIndex)) {
-			byte value = featureVectors[unit.index].getByteFeature(featureIndex);
+			byte value = getFeatureVector(unit).getByteFeature(featureIndex);
 			return featureDefinition.getFeatureValueAsString(featureIndex, value);
 		} else if (featureDefinition.isShortFeature(featureIndex)) {
-			short value = featureVectors[unit.index].getShortFeature(featureIndex);
+			short value = getFeatureVector(unit).getShortFeature(featureIndex);
 			return featureDefinition.getFeatureValueAsString(featureIndex, value);
 		} else { // continuous -- return float as string
-			float value = featureVectors[unit.index].getContinuousFeature(featureIndex);
+			float value = getFeatureVector(unit).getContinuousFeature(featureIndex);
 			return String.valueOf(value);
 		}
 	}
@@ -34,6 +34,7 @@ import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.Vector;
 
 import marytts.exceptions.MaryConfigurationException;
@@ -50,7 +51,17 @@ import marytts.util.MaryUtils;
 import marytts.util.data.MaryHeader;
 import marytts.util.io.StreamUtils;
 
+/**
+ * Join cost function computed from acoustic join features stored for the left and right edge of each unit.
+ * <p>
+ * The features of all units are kept in two flat arrays (one for the left, one for the right edges), one unit after the other.
+ * Within each unit, the features with a linear weighting function come first, so that their costs can be computed in a tight
+ * loop without dispatching to the weighting function; the remaining features follow. Computed costs are remembered in a small
+ * per-thread cache, so that unit pairs recurring in the same request are not computed twice.
+ */
 public class JoinCostFeatures implements JoinCostFunction {
+	/** Default number of entries in the per-thread join cost cache. */
+	public static final int DEFAULT_CACHE_SIZE = 4096;
 
 	protected float wSignal;
 	protected float wPhonetic;
@@ -72,8 +83,20 @@ public class JoinCostFeatures implements JoinCostFunction {
 	private WeightFunc[] weightFunction = null;
 	private boolean[] isLinear = null; // wether the i'th weight function is a linear function
 
-	private float[][] leftJCF = null;
-	private float[][] rightJCF = null;
+	private int numberOfFeatures;
+	private int numberOfUnits;
+	// The features in the order in which they are stored: first the linear ones, then the others.
+	private int numLinear;
+	private int[] featureOrder = null; // featureOrder[k] is the index in the join cost file of the k'th stored feature
+	private float[] storedWeight = null;
+	private WeightFunc[] storedFunction = null;
+
+	// numberOfUnits * numberOfFeatures values each, unit by unit:
+	private float[] leftJCF = null;
+	private float[] rightJCF = null;
+
+	private int cacheSize = DEFAULT_CACHE_SIZE;
+	private ThreadLocal<CostCache> costCache = null;
 
 	/****************/
 	/* CONSTRUCTORS */
@@ -114,6 +137,7 @@ public class JoinCostFeatures implements JoinCostFunction {
 		String joinFileName = MaryProperties.needFilename(configPrefix + ".joinCostFile");
 		String precomputedJoinCostFileName = MaryProperties.getFilename(configPrefix + ".precomputedJoinCostFile");
 		float wSignal = Float.parseFloat(MaryProperties.getProperty(configPrefix + ".joincostfunction.wSignal", "1.0"));
+		cacheSize = MaryProperties.getInteger(configPrefix + ".joincostfunction.cacheSize", DEFAULT_CACHE_SIZE);
 		try {
 			InputStream joinWeightStream = MaryProperties.getStream(configPrefix + ".joinCostWeights");
 			load(joinFileName, joinWeightStream, precomputedJoinCostFileName, wSignal);
@@ -170,6 +194,7 @@ public class JoinCostFeatures implements JoinCostFunction {
 		FileInputStream fis = new FileInputStream(joinFileName);
 		FileChannel fc = fis.getChannel();
 		ByteBuffer bb = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+		fis.close();
 		/* Read the Mary header */
 		hdr = new MaryHeader(bb);
 		if (hdr.getType() != MaryHeader.JOINFEATS) {
@@ -177,7 +202,7 @@ public class JoinCostFeatures implements JoinCostFunction {
 		}
 		try {
 			/* Read the feature weights and feature processors */
-			int numberOfFeatures = bb.getInt();
+			numberOfFeatures = bb.getInt();
 			featureWeight = new float[numberOfFeatures];
 			weightFunction = new WeightFunc[numberOfFeatures];
 			isLinear = new boolean[numberOfFeatures];
@@ -208,17 +233,18 @@ public class JoinCostFeatures implements JoinCostFunction {
 				isLinear[i] = weightFunction[i].whoAmI().equals("linear");
 			}
 
+			setFeatureOrder();
+
 			/* Read the left and right Join Cost Features */
-			int numberOfUnits = bb.getInt();
+			allocateFeatures(bb.getInt());
 			FloatBuffer fb = bb.asFloatBuffer();
-			leftJCF = new float[numberOfUnits][];
-			rightJCF = new float[numberOfUnits][];
+			float[] left = new float[numberOfFeatures];
+			float[] right = new float[numberOfFeatures];
 			for (int i = 0; i < numberOfUnits; i++) {
 				// System.out.println("Reading join features for unit "+i+" out of "+numberOfUnits);
-				leftJCF[i] = new float[numberOfFeatures];
-				fb.get(leftJCF[i]);
-				rightJCF[i] = new float[numberOfFeatures];
-				fb.get(rightJCF[i]);
+				fb.get(left);
+				fb.get(right);
+				setFeatures(i, left, right);
 			}
 		} catch (EOFException e) {
 			IOException ioe = new IOException("The currently read Join Cost File has prematurely reached EOF.");
@@ -233,7 +259,7 @@ public class JoinCostFeatures implements JoinCostFunction {
 			jcr.showInJFrame("Average signal join costs", false, false);
 			jcr.start();
 		}
-
+		createCostCache();
 	}
 
 	/**
@@ -269,7 +295,7 @@ public class JoinCostFeatures implements JoinCostFunction {
 		}
 		try {
 			/* Read the feature weights and feature processors */
-			int numberOfFeatures = raf.readInt();
+			numberOfFeatures = raf.readInt();
 			featureWeight = new float[numberOfFeatures];
 			weightFunction = new WeightFunc[numberOfFeatures];
 			isLinear = new boolean[numberOfFeatures];
@@ -300,20 +326,21 @@ public class JoinCostFeatures implements JoinCostFunction {
 				isLinear[i] = weightFunction[i].whoAmI().equals("linear");
 			}
 
+			setFeatureOrder();
+
 			/* Read the left and right Join Cost Features */
-			int numberOfUnits = raf.readInt();
-			leftJCF = new float[numberOfUnits][];
-			rightJCF = new float[numberOfUnits][];
+			allocateFeatures(raf.readInt());
+			float[] left = new float[numberOfFeatures];
+			float[] right = new float[numberOfFeatures];
 			for (int i = 0; i < numberOfUnits; i++) {
 				// System.out.println("Reading join features for unit "+i+" out of "+numberOfUnits);
-				leftJCF[i] = new float[numberOfFeatures];
 				for (int j = 0; j < numberOfFeatures; j++) {
-					leftJCF[i][j] = raf.readFloat();
+					left[j] = raf.readFloat();
 				}
-				rightJCF[i] = new float[numberOfFeatures];
 				for (int j = 0; j < numberOfFeatures; j++) {
-					rightJCF[i][j] = raf.readFloat();
+					right[j] = raf.readFloat();
 				}
+				setFeatures(i, left, right);
 			}
 		} catch (EOFException e) {
 			IOException ioe = new IOException("The currently read Join Cost File has prematurely reached EOF.");
@@ -328,7 +355,67 @@ public class JoinCostFeatures implements JoinCostFunction {
 			jcr.showInJFrame("Average signal join costs", false, false);
 			jcr.start();
 		}
+		createCostCache();
+	}
+
+	/**
+	 * Determine the order in which features are stored, linear ones first, from isLinear.
+	 */
+	private void setFeatureOrder() {
+		featureOrder = new int[numberOfFeatures];
+		numLinear = 0;
+		for (int i = 0; i < numberOfFeatures; i++) {
+			if (isLinear[i]) {
+				featureOrder[numLinear++] = i;
+			}
+		}
+		int k = numLinear;
+		for (int i = 0; i < numberOfFeatures; i++) {
+			if (!isLinear[i]) {
+				featureOrder[k++] = i;
+			}
+		}
+		storedWeight = new float[numberOfFeatures];
+		storedFunction = new WeightFunc[numberOfFeatures];
+		for (k = 0; k < numberOfFeatures; k++) {
+			storedWeight[k] = featureWeight[featureOrder[k]];
+			storedFunction[k] = weightFunction[featureOrder[k]];
+		}
+	}
+
+	private void allocateFeatures(int nUnits) {
+		numberOfUnits = nUnits;
+		leftJCF = new float[nUnits * numberOfFeatures];
+		rightJCF = new float[nUnits * numberOfFeatures];
+	}
+
+	/**
+	 * Store the join features of one unit, given in the order of the join cost file.
+	 */
+	private void setFeatures(int u, float[] left, float[] right) {
+		int offset = u * numberOfFeatures;
+		for (int k = 0; k < numberOfFeatures; k++) {
+			leftJCF[offset + k] = left[featureOrder[k]];
+			rightJCF[offset + k] = right[featureOrder[k]];
+		}
+	}
 
+	private void createCostCache() {
+		if (cacheSize <= 0) {
+			costCache = null;
+			return;
+		}
+		int size = 1;
+		while (size < cacheSize) {
+			size <<= 1;
+		}
+		final int tableSize = size;
+		costCache = new ThreadLocal<CostCache>() {
+			@Override
+			protected CostCache initialValue() {
+				return new CostCache(tableSize);
+			}
+		};
 	}
 
 	/**
@@ -407,16 +494,16 @@ public class JoinCostFeatures implements JoinCostFunction {
 	 * @return (featureWeight.length)
 	 */
 	public int getNumberOfFeatures() {
-		return (featureWeight.length);
+		return (numberOfFeatures);
 	}
 
 	/**
 	 * Get the number of units.
 	 * 
-	 * @return (leftJCF.length)
+	 * @return the number of units
 	 */
 	public int getNumberOfUnits() {
-		return (leftJCF.length);
+		return (numberOfUnits);
 	}
 
 	/**
@@ -425,17 +512,11 @@ public class JoinCostFeatures implements JoinCostFunction {
 	 * @param u
 	 *            The index of the considered unit.
 	 * 
-	 * @return The array of left join cost features for the given unit.
+	 * @return A new array holding the left join cost features for the given unit, in the order of the join cost file.
 	 */
 	public float[] getLeftJCF(int u) {
-		if (u < 0) {
-			throw new RuntimeException("The unit index [" + u + "] is out of range: a unit index can't be negative.");
-		}
-		if (u > getNumberOfUnits()) {
-			throw new RuntimeException("The unit index [" + u + "] is out of range: this file contains [" + getNumberOfUnits()
-					+ "] units.");
-		}
-		return (leftJCF[u]);
+		checkUnitIndex(u);
+		return getFeatures(leftJCF, u);
 	}
 
 	/**
@@ -444,17 +525,52 @@ public class JoinCostFeatures implements JoinCostFunction {
 	 * @param u
 	 *            The index of the considered unit.
 	 * 
-	 * @return The array of right join cost features for the given unit.
+	 * @return A new array holding the right join cost features for the given unit, in the order of the join cost file.
 	 */
 	public float[] getRightJCF(int u) {
+		checkUnitIndex(u);
+		return getFeatures(rightJCF, u);
+	}
+
+	/**
+	 * Compute the difference between the right join cost features of one unit and the left join cost features of another,
+	 * directly from the stored features, without copying them.
+	 * 
+	 * @param u1
+	 *            The index of the left unit.
+	 * @param u2
+	 *            The index of the right unit.
+	 * @param diff
+	 *            An array of at least {@link #getNumberOfFeatures()} values, which receives the differences (right features of u1
+	 *            minus left features of u2) in the order of the join cost file.
+	 */
+	public void getJoinFeatureDifference(int u1, int u2, double[] diff) {
+		checkUnitIndex(u1);
+		checkUnitIndex(u2);
+		int offset1 = u1 * numberOfFeatures;
+		int offset2 = u2 * numberOfFeatures;
+		for (int k = 0; k < numberOfFeatures; k++) {
+			diff[featureOrder[k]] = (double) rightJCF[offset1 + k] - leftJCF[offset2 + k];
+		}
+	}
+
+	private void checkUnitIndex(int u) {
 		if (u < 0) {
 			throw new RuntimeException("The unit index [" + u + "] is out of range: a unit index can't be negative.");
 		}
-		if (u > getNumberOfUnits()) {
+		if (u >= getNumberOfUnits()) {
 			throw new RuntimeException("The unit index [" + u + "] is out of range: this file contains [" + getNumberOfUnits()
 					+ "] units.");
 		}
-		return (rightJCF[u]);
+	}
+
+	private float[] getFeatures(float[] jcf, int u) {
+		float[] features = new float[numberOfFeatures];
+		int offset = u * numberOfFeatures;
+		for (int k = 0; k < numberOfFeatures; k++) {
+			features[featureOrder[k]] = jcf[offset + k];
+		}
+		return features;
 	}
 
 	/*****************/
@@ -477,44 +593,87 @@ public class JoinCostFeatures implements JoinCostFunction {
 		if (u1 < 0) {
 			throw new RuntimeException("The left unit index [" + u1 + "] is out of range: a unit index can't be negative.");
 		}
-		// if ( u1 > getNumberOfUnits() ) {
-		if (u1 > leftJCF.length) {
+		if (u1 >= numberOfUnits) {
 			throw new RuntimeException("The left unit index [" + u1 + "] is out of range: this file contains ["
 					+ getNumberOfUnits() + "] units.");
 		}
 		if (u2 < 0) {
 			throw new RuntimeException("The right unit index [" + u2 + "] is out of range: a unit index can't be negative.");
 		}
-		// if ( u2 > getNumberOfUnits() ) {
-		if (u2 > leftJCF.length) {
+		if (u2 >= numberOfUnits) {
 			throw new RuntimeException("The right unit index [" + u2 + "] is out of range: this file contains ["
 					+ getNumberOfUnits() + "] units.");
 		}
 		if (debugShowCostGraph) {
 			jcr.tick();
+			return computeCostWithStatistics(u1, u2);
+		}
+		if (costCache == null) {
+			return computeCost(u1, u2);
+		}
+		CostCache cache = costCache.get();
+		long key = ((long) u1 << 32) | u2;
+		int slot = cache.slot(u1, u2);
+		if (cache.keys[slot] == key) {
+			return cache.costs[slot];
 		}
-		/* Cumulate the join costs for each feature */
+		double cost = computeCost(u1, u2);
+		cache.keys[slot] = key;
+		cache.costs[slot] = cost;
+		return cost;
+	}
+
+	/**
+	 * Cumulate the join costs for each feature; if anything is NaN, count the cost as 0.
+	 */
+	private double computeCost(int u1, int u2) {
+		final int n = numberOfFeatures;
+		final float[] v1 = rightJCF;
+		final float[] v2 = leftJCF;
+		final float[] w = storedWeight;
+		final int o1 = u1 * n;
+		final int o2 = u2 * n;
 		double res = 0.0;
-		float[] v1 = rightJCF[u1];
-		float[] v2 = leftJCF[u2];
-		for (int i = 0; i < v1.length; i++) {
-			float a = v1[i];
-			float b = v2[i];
-			// if (!Float.isNaN(v1[i]) && !Float.isNaN(v2[i])) {
-			if (!(a != a) && !(b != b)) {
+		// Linear features: weighted absolute difference
+		for (int k = 0; k < numLinear; k++) {
+			float a = v1[o1 + k];
+			float b = v2[o2 + k];
+			if (a == a && b == b) {
+				res += w[k] * Math.abs(a - b);
+			}
+		}
+		// All other features need their weighting function
+		for (int k = numLinear; k < n; k++) {
+			float a = v1[o1 + k];
+			float b = v2[o2 + k];
+			if (a == a && b == b) {
+				res += w[k] * storedFunction[k].cost(a, b);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Same as {@link #computeCost(int, int)}, but also cumulate the weighted costs per feature for the cost graph.
+	 */
+	private double computeCostWithStatistics(int u1, int u2) {
+		final int n = numberOfFeatures;
+		double res = 0.0;
+		for (int k = 0; k < n; k++) {
+			float a = rightJCF[u1 * n + k];
+			float b = leftJCF[u2 * n + k];
+			if (a == a && b == b) {
 				double c;
-				if (isLinear[i]) {
-					c = featureWeight[i] * (a > b ? (a - b) : (b - a));
+				if (k < numLinear) {
+					c = storedWeight[k] * Math.abs(a - b);
 				} else {
-					c = featureWeight[i] * weightFunction[i].cost(a, b);
+					c = storedWeight[k] * storedFunction[k].cost(a, b);
 				}
 				res += c;
-				if (debugShowCostGraph) {
-					cumulWeightedSignalCosts[i] += wSignal * c;
-				}
-			} // if anything is NaN, count the cost as 0.
+				cumulWeightedSignalCosts[featureOrder[k]] += wSignal * c;
+			}
 		}
-		return (res);
+		return res;
 	}
 
 	/**
@@ -611,6 +770,28 @@ public class JoinCostFeatures implements JoinCostFunction {
 		return cost;
 	}
 
+	/**
+	 * A direct-mapped table of recently computed join costs; a new entry replaces whatever was stored in its slot. Join costs
+	 * never change, so entries stay valid across requests.
+	 */
+	private static final class CostCache {
+		final long[] keys;
+		final double[] costs;
+		final int mask;
+
+		CostCache(int size) {
+			keys = new long[size];
+			Arrays.fill(keys, -1L);
+			costs = new double[size];
+			mask = size - 1;
+		}
+
+		int slot(int u1, int u2) {
+			int h = u1 * 0x9E3779B1 + u2;
+			return (h ^ (h >>> 16)) & mask;
+		}
+	}
+
 	public static class JoinCostReporter extends Histogram {
 		private double[] data;
 		private int lastN = 0;
@@ -45,6 +45,14 @@ public class JoinModelCost implements JoinCostFunction {
 	/****************/
 	private JoinCostFeatures jcf = null;
 
+	// Per-thread buffer for the difference of the join features, so that computing a cost allocates nothing:
+	private final ThreadLocal<double[]> featureDifference = new ThreadLocal<double[]>() {
+		@Override
+		protected double[] initialValue() {
+			return new double[jcf.getNumberOfFeatures()];
+		}
+	};
+
 	CART[] joinTree = null; // an array of carts, one per HMM state.
 
 	private float f0Weight;
@@ -179,16 +187,8 @@ public class JoinModelCost implements JoinCostFunction {
 			return 0;
 		double cost = 1; // basic penalty for joins of non-contiguous units.
 
-		float[] v1 = jcf.getRightJCF(u1.index);
-		float[] v2 = jcf.getLeftJCF(u2.index);
-		// double[] diff = new double[v1.length];
-		// for ( int i = 0; i < v1.length; i++ ) {
-		// diff[i] = (double)v1[i] - v2[i];
-		// }
-		double[] diff = new double[v1.length];
-		for (int i = 0; i < v1.length; i++) {
-			diff[i] = (double) v1[i] - v2[i];
-		}
+		double[] diff = featureDifference.get();
+		jcf.getJoinFeatureDifference(u1.index, u2.index, diff);
 
 		// Now evaluate likelihood of the diff under the join model
 		// Compute the model name:
@@ -24,7 +24,9 @@ import java.util.List;
 
 import marytts.datatypes.MaryXML;
 import marytts.exceptions.SynthesisException;
+import marytts.server.MaryProperties;
 import marytts.unitselection.data.UnitDatabase;
+import marytts.unitselection.select.viterbi.LatticeViterbi;
 import marytts.unitselection.select.viterbi.Viterbi;
 import marytts.util.MaryUtils;
 
@@ -106,7 +108,14 @@ public class UnitSelector {
 
 		Viterbi viterbi;
 		// Select the best candidates using Viterbi and the join cost function.
-		if (sCostWeight < 0) {
+		// The lattice implementation selects the same units; the original one is kept for comparison.
+		if (MaryProperties.getBoolean("unitselection.viterbi.lattice", true)) {
+			if (sCostWeight < 0) {
+				viterbi = new LatticeViterbi(targets, database, targetCostWeight, beamSize);
+			} else {
+				viterbi = new LatticeViterbi(targets, database, targetCostWeight, sCostWeight, beamSize);
+			}
+		} else if (sCostWeight < 0) {
 			viterbi = new Viterbi(targets, database, targetCostWeight, beamSize);
 		} else {
 			viterbi = new Viterbi(targets, database, targetCostWeight, sCostWeight, beamSize);
@@ -0,0 +1,366 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.select.viterbi;
+
+import java.util.Arrays;
+import java.util.List;
+
+import marytts.exceptions.SynthesisException;
+import marytts.unitselection.data.UnitDatabase;
+import marytts.unitselection.select.DiphoneTarget;
+import marytts.unitselection.select.Target;
+
+/**
+ * A Viterbi search which keeps its lattice in primitive arrays instead of one {@link ViterbiPath} object per tentative path.
+ * <p>
+ * For each point, the beam of candidates with the lowest target costs is found by partial selection with a bounded heap, rather
+ * than by sorting all candidates. Scores, back-pointers and the order in which paths were last improved are kept in flat arrays
+ * that are reused across searches carried out by the same thread. Only for the best path, ViterbiPath objects are created at
+ * the end, so that {@link #getSelectedUnits()} works as in {@link Viterbi}.
+ * <p>
+ * The search visits paths and candidates in the same order as {@link Viterbi} and breaks ties in the same way, so both
+ * implementations select the same units.
+ *
+ * @author agent
+ */
+public class LatticeViterbi extends Viterbi {
+
+	private static final ThreadLocal<Lattice> lattices = new ThreadLocal<Lattice>() {
+		@Override
+		protected Lattice initialValue() {
+			return new Lattice();
+		}
+	};
+
+	/**
+	 * Create a lattice Viterbi search for the given targets.
+	 *
+	 * @param targets
+	 *            targets
+	 * @param database
+	 *            database
+	 * @param wTargetCosts
+	 *            wTargetCosts
+	 * @param beamSize
+	 *            beamSize
+	 * @see Viterbi#Viterbi(List, UnitDatabase, float, int)
+	 */
+	public LatticeViterbi(List<Target> targets, UnitDatabase database, float wTargetCosts, int beamSize) {
+		super(targets, database, wTargetCosts, beamSize);
+	}
+
+	/**
+	 * Create a lattice Viterbi search for the given targets.
+	 *
+	 * @param targets
+	 *            targets
+	 * @param database
+	 *            database
+	 * @param wTargetCosts
+	 *            wTargetCosts
+	 * @param wSCosts
+	 *            wSCosts
+	 * @param beamSize
+	 *            beamSize
+	 * @see Viterbi#Viterbi(List, UnitDatabase, float, float, int)
+	 */
+	public LatticeViterbi(List<Target> targets, UnitDatabase database, float wTargetCosts, float wSCosts, int beamSize) {
+		super(targets, database, wTargetCosts, wSCosts, beamSize);
+	}
+
+	@Override
+	public void apply() throws SynthesisException {
+		logger.debug("Lattice Viterbi running with beam size " + beamSize);
+		Lattice lattice = lattices.get();
+		lattice.used = 0;
+		try {
+			search(lattice);
+		} finally {
+			// do not keep units alive between searches
+			Arrays.fill(lattice.candidates, 0, lattice.used, null);
+		}
+	}
+
+	private void search(Lattice lattice) throws SynthesisException {
+		int seqCounter = 0;
+		// The paths leading to the current point, i.e. the slots of the previous point's candidates, in the order in which
+		// they were last improved. At the first point, there is only the dummy start path (slot -1).
+		int numPrevPaths = 1;
+		lattice.ensureOrderCapacity(1);
+		lattice.order[0] = -1;
+
+		for (ViterbiPoint point = firstPoint; point.next != null; point = point.next) {
+			List<ViterbiCandidate> candidates = getCandidates(point);
+			int numCandidates = candidates.size();
+			int beam = (beamSize == -1 || beamSize > numCandidates) ? numCandidates : beamSize;
+			int base = lattice.allocate(beam);
+			selectBeam(candidates, beam, lattice, base);
+
+			int nPaths = numPrevPaths;
+			if (beamSize != -1 && beamSize < nPaths) {
+				nPaths = beamSize;
+			}
+			ViterbiCandidate[] cands = lattice.candidates;
+			double[] scores = lattice.scores;
+			int[] back = lattice.back;
+			int[] seq = lattice.seq;
+			for (int i = 0; i < nPaths; i++) {
+				int prevSlot = lattice.order[i];
+				ViterbiCandidate prevCandidate = prevSlot >= 0 ? cands[prevSlot] : null;
+				double prevScore = prevSlot >= 0 ? scores[prevSlot] : 0;
+				for (int slot = base, end = base + beam; slot < end; slot++) {
+					double cost = pathCost(prevCandidate, prevScore, cands[slot]);
+					if (seq[slot] < 0 || cost < scores[slot]) {
+						scores[slot] = cost;
+						back[slot] = prevSlot;
+						seq[slot] = seqCounter++;
+					}
+				}
+			}
+
+			// The paths to this point's candidates, in the order in which they were last improved, are the paths to extend at
+			// the next point:
+			lattice.ensureOrderCapacity(beam);
+			long[] keys = lattice.keys;
+			for (int j = 0; j < beam; j++) {
+				keys[j] = ((long) seq[base + j] << 32) | j;
+			}
+			Arrays.sort(keys, 0, beam);
+			for (int j = 0; j < beam; j++) {
+				lattice.order[j] = base + (int) keys[j];
+			}
+			numPrevPaths = beam;
+		}
+
+		// Best path: the first one with the lowest score, in path order
+		int best = -1;
+		for (int i = 0; i < numPrevPaths; i++) {
+			int slot = lattice.order[i];
+			if (slot >= 0 && (best < 0 || Double.compare(lattice.scores[slot], lattice.scores[best]) < 0)) {
+				best = slot;
+			}
+		}
+		List<ViterbiPath> lastPaths = lastPoint.getPaths();
+		lastPaths.clear();
+		if (best >= 0) {
+			lastPaths.add(buildPath(lattice, best));
+		}
+	}
+
+	/**
+	 * Get the candidates for the target of the given point, replacing a diphone target by two halfphone targets if there are
+	 * no candidates for it, as in {@link Viterbi#apply()}.
+	 */
+	private List<ViterbiCandidate> getCandidates(ViterbiPoint point) throws SynthesisException {
+		Target target = point.target;
+		List<ViterbiCandidate> candidates = database.getCandidates(target);
+		if (candidates.size() == 0) {
+			if (target instanceof DiphoneTarget) {
+				logger.debug("No diphone '" + target.getName() + "' -- will build from halfphones");
+				DiphoneTarget dt = (DiphoneTarget) target;
+				Target left = dt.left;
+				Target right = dt.right;
+				point.setTarget(left);
+				ViterbiPoint newP = new ViterbiPoint(right);
+				newP.next = point.next;
+				point.next = newP;
+				candidates = database.getCandidates(left);
+				if (candidates.size() == 0)
+					throw new SynthesisException("Cannot even find any halfphone unit for target " + left);
+			} else {
+				throw new SynthesisException("Cannot find any units for target " + target);
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Put the <code>beam</code> candidates with the lowest target costs into the lattice at <code>base</code>, in ascending
+	 * order of target cost; candidates with equal target costs keep their original order, as with a stable sort.
+	 */
+	private static void selectBeam(List<ViterbiCandidate> candidates, int beam, Lattice lattice, int base) {
+		int n = candidates.size();
+		lattice.ensureHeapCapacity(n);
+		ViterbiCandidate[] all = lattice.heapCandidates;
+		int[] heap = lattice.heap;
+		for (int i = 0; i < n; i++) {
+			all[i] = candidates.get(i);
+		}
+		// Max-heap of the best candidate indices seen so far, with the worst candidate at the root:
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			if (size < beam) {
+				heap[size] = i;
+				siftUp(all, heap, size);
+				size++;
+			} else if (isBefore(all, i, heap[0])) {
+				heap[0] = i;
+				siftDown(all, heap, 0, size);
+			}
+		}
+		// Heap sort: repeatedly move the worst remaining candidate to the end
+		for (int end = size - 1; end >= 0; end--) {
+			lattice.candidates[base + end] = all[heap[0]];
+			heap[0] = heap[end];
+			siftDown(all, heap, 0, end);
+		}
+		Arrays.fill(all, 0, n, null);
+	}
+
+	/**
+	 * Whether candidate i comes before candidate j: lower target cost first, and in the original order for equal costs.
+	 */
+	private static boolean isBefore(ViterbiCandidate[] all, int i, int j) {
+		int c = all[i].compareTo(all[j]);
+		return c < 0 || (c == 0 && i < j);
+	}
+
+	private static void siftUp(ViterbiCandidate[] all, int[] heap, int pos) {
+		int item = heap[pos];
+		while (pos > 0) {
+			int parent = (pos - 1) >>> 1;
+			if (!isBefore(all, heap[parent], item)) {
+				break;
+			}
+			heap[pos] = heap[parent];
+			pos = parent;
+		}
+		heap[pos] = item;
+	}
+
+	private static void siftDown(ViterbiCandidate[] all, int[] heap, int pos, int size) {
+		int item = heap[pos];
+		while (true) {
+			int child = 2 * pos + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && isBefore(all, heap[child], heap[child + 1])) {
+				child++;
+			}
+			if (!isBefore(all, item, heap[child])) {
+				break;
+			}
+			heap[pos] = heap[child];
+			pos = child;
+		}
+		heap[pos] = item;
+	}
+
+	/**
+	 * The score of the path extending a path with the given score by the candidate, computed in exactly the same way as by
+	 * {@link Viterbi}.
+	 */
+	private double pathCost(ViterbiCandidate prevCandidate, double prevScore, ViterbiCandidate candidate) {
+		double joinCost;
+		double sCost = 0;
+		double targetCost = candidate.targetCost;
+		if (prevCandidate == null) {
+			joinCost = 0;
+		} else {
+			joinCost = joinCostFunction.cost(prevCandidate.target, prevCandidate.unit, candidate.target, candidate.unit);
+			if (sCostFunction != null)
+				sCost = sCostFunction.cost(prevCandidate.unit, candidate.unit);
+		}
+		targetCost *= wTargetCosts;
+		joinCost *= wJoinCosts;
+		sCost *= wSCosts;
+		double cost = joinCost + targetCost + sCost;
+		if (joinCost < Float.POSITIVE_INFINITY)
+			cumulJoinCosts += joinCost;
+		nJoinCosts++;
+		cumulTargetCosts += targetCost;
+		nTargetCosts++;
+		return cost + prevScore;
+	}
+
+	/**
+	 * Follow the back-pointers from the given slot and create the corresponding chain of ViterbiPath objects, starting with the
+	 * dummy start path of the first point.
+	 */
+	private ViterbiPath buildPath(Lattice lattice, int lastSlot) {
+		int length = 0;
+		for (int slot = lastSlot; slot >= 0; slot = lattice.back[slot]) {
+			length++;
+		}
+		int[] slots = new int[length];
+		for (int slot = lastSlot, i = length - 1; slot >= 0; slot = lattice.back[slot], i--) {
+			slots[i] = slot;
+		}
+		ViterbiPath path = firstPoint.getPaths().get(0);
+		for (int slot : slots) {
+			path = new ViterbiPath(lattice.candidates[slot], path, lattice.scores[slot]);
+		}
+		return path;
+	}
+
+	/**
+	 * The arrays holding the lattice of one search. Each point uses a contiguous range of slots, one per candidate in its beam.
+	 */
+	private static final class Lattice {
+		ViterbiCandidate[] candidates = new ViterbiCandidate[1024];
+		double[] scores = new double[1024];
+		int[] back = new int[1024];
+		/** The number of the update which set the current best path to each slot, or -1 if there is no path yet. */
+		int[] seq = new int[1024];
+		int used;
+
+		int[] order = new int[128];
+		long[] keys = new long[128];
+
+		ViterbiCandidate[] heapCandidates = new ViterbiCandidate[1024];
+		int[] heap = new int[1024];
+
+		/**
+		 * Reserve n slots for a new point.
+		 *
+		 * @return the first slot
+		 */
+		int allocate(int n) {
+			int base = used;
+			if (base + n > candidates.length) {
+				int capacity = Math.max(base + n, 2 * candidates.length);
+				candidates = Arrays.copyOf(candidates, capacity);
+				scores = Arrays.copyOf(scores, capacity);
+				back = Arrays.copyOf(back, capacity);
+				seq = Arrays.copyOf(seq, capacity);
+			}
+			Arrays.fill(seq, base, base + n, -1);
+			used = base + n;
+			return base;
+		}
+
+		void ensureOrderCapacity(int n) {
+			if (order.length < n) {
+				int capacity = Math.max(n, 2 * order.length);
+				order = Arrays.copyOf(order, capacity);
+				keys = new long[capacity];
+			}
+		}
+
+		void ensureHeapCapacity(int n) {
+			if (heap.length < n) {
+				int capacity = Math.max(n, 2 * heap.length);
+				heap = new int[capacity];
+				heapCandidates = new ViterbiCandidate[capacity];
+			}
+		}
+	}
+}
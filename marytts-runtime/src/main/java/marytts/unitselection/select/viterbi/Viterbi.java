@@ -86,7 +86,7 @@ public class Viterbi {
 
 	protected ViterbiPoint firstPoint = null;
 	protected ViterbiPoint lastPoint = null;
-	private UnitDatabase database;
+	protected UnitDatabase database;
 	protected TargetCostFunction targetCostFunction;
 	protected JoinCostFunction joinCostFunction;
 	protected StatisticalCostFunction sCostFunction;
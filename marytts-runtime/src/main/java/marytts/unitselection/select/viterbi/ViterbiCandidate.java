@@ -51,6 +51,22 @@ public class ViterbiCandidate implements Comparable<ViterbiCandidate> {
 		this.targetCost = tcf.cost(target, unit);
 	}
 
+	/**
+	 * Create a candidate whose target cost is already known.
+	 * 
+	 * @param target
+	 *            target
+	 * @param unit
+	 *            unit
+	 * @param targetCost
+	 *            the cost of realising the target with the unit
+	 */
+	public ViterbiCandidate(Target target, Unit unit, double targetCost) {
+		this.target = target;
+		this.unit = unit;
+		this.targetCost = targetCost;
+	}
+
 	/**
 	 * Calculates and returns the target cost for this candidate
 	 * 
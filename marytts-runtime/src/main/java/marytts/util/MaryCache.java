@@ -31,12 +31,16 @@ import java.sql.SQLException;
 import java.sql.Statement;
 
 import marytts.server.MaryProperties;
+import marytts.util.cache.SynthesisCache;
 
 /**
+ * A synthesis cache stored in an HSQLDB database. This is used instead of the default {@link marytts.util.cache.SegmentCache}
+ * if the property <code>cache.engine</code> is set to <code>hsqldb</code>.
+ * 
  * @author marc
  * 
  */
-public class MaryCache {
+public class MaryCache implements SynthesisCache {
 	private static MaryCache maryCache;
 
 	/**
@@ -46,12 +46,16 @@ import marytts.fst.FSTLookup;
 import marytts.htsengine.HMMVoice;
 import marytts.modules.phonemiser.AllophoneSet;
 import marytts.modules.synthesis.Voice;
+import marytts.modules.synthesis.VoiceManager;
 import marytts.server.Mary;
 import marytts.server.MaryProperties;
+import marytts.server.SynthesisScheduler;
 import marytts.signalproc.effects.AudioEffect;
 import marytts.signalproc.effects.AudioEffects;
 import marytts.unitselection.UnitSelectionVoice;
+import marytts.unitselection.data.CandidateCache;
 import marytts.unitselection.interpolation.InterpolatingVoice;
+import marytts.util.cache.SegmentCache;
 import marytts.util.data.audio.AudioDestination;
 import marytts.util.data.audio.MaryAudioUtils;
 import marytts.util.dom.MaryDomUtils;
@@ -195,6 +199,32 @@ public class MaryRuntimeUtils {
 		return output.toString();
 	}
 
+	/**
+	 * Runtime statistics of the server, such as the number of requests waiting and running.
+	 * 
+	 * @return a multi-line string, one "name value" pair per line.
+	 */
+	public static String getStatistics() {
+		StringBuilder output = new StringBuilder();
+		if (SynthesisScheduler.haveScheduler()) {
+			output.append(SynthesisScheduler.getScheduler().getStatistics());
+		}
+		if (SegmentCache.haveCache()) {
+			output.append(SegmentCache.getCache().getStatistics());
+		}
+		output.append(VoiceManager.getStatistics());
+		for (Voice v : Voice.getAvailableVoices()) {
+			// do not load a voice just to report on it:
+			if (v instanceof UnitSelectionVoice && VoiceManager.isLoaded(v)) {
+				CandidateCache candidateCache = ((UnitSelectionVoice) v).getDatabase().getCandidateCache();
+				if (candidateCache != null) {
+					output.append(candidateCache.getStatistics("candidates." + v.getName() + "."));
+				}
+			}
+		}
+		return output.toString();
+	}
+
 	/**
 	 * Determine whether conversion to mp3 is possible.
 	 * 
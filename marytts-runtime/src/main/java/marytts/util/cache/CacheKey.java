@@ -0,0 +1,118 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A fixed-size key for a cache record: the first 128 bits of the SHA-256 hash over all lookup fields. Each field is hashed
+ * together with its length, so that different field combinations cannot produce the same byte sequence.
+ *
+ * @author agent
+ */
+public final class CacheKey {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final ThreadLocal<MessageDigest> digests = new ThreadLocal<MessageDigest>() {
+		@Override
+		protected MessageDigest initialValue() {
+			try {
+				return MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new AssertionError("SHA-256 is always supported");
+			}
+		}
+	};
+
+	/**
+	 * Compute the key for the given fields; null fields are allowed and are distinct from empty strings.
+	 *
+	 * @param fields
+	 *            the lookup fields, in a fixed order
+	 * @return the key
+	 */
+	public static CacheKey of(String... fields) {
+		MessageDigest digest = digests.get();
+		digest.reset();
+		for (String field : fields) {
+			if (field == null) {
+				updateInt(digest, -1);
+			} else {
+				byte[] bytes = field.getBytes(UTF8);
+				updateInt(digest, bytes.length);
+				digest.update(bytes);
+			}
+		}
+		byte[] hash = digest.digest();
+		return new CacheKey(toLong(hash, 0), toLong(hash, 8));
+	}
+
+	private static void updateInt(MessageDigest digest, int value) {
+		digest.update((byte) (value >>> 24));
+		digest.update((byte) (value >>> 16));
+		digest.update((byte) (value >>> 8));
+		digest.update((byte) value);
+	}
+
+	private static long toLong(byte[] bytes, int offset) {
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | (bytes[offset + i] & 0xFF);
+		}
+		return value;
+	}
+
+	private final long high;
+	private final long low;
+
+	public CacheKey(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	public long getHigh() {
+		return high;
+	}
+
+	public long getLow() {
+		return low;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (low ^ (low >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof CacheKey)) {
+			return false;
+		}
+		CacheKey other = (CacheKey) obj;
+		return high == other.high && low == other.low;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", high, low);
+	}
+}
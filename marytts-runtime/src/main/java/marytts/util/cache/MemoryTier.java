@@ -0,0 +1,142 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory LRU map from cache keys to byte arrays, limited by the total number of bytes held. The map is split into
+ * independently locked stripes, selected by key hash, so that concurrent requests rarely wait for each other; each stripe
+ * holds an equal share of the byte budget and evicts its least recently used entries.
+ *
+ * @author agent
+ */
+class MemoryTier {
+	/** Approximate heap cost of one entry besides its data: map entry, key object and array header. */
+	private static final int ENTRY_OVERHEAD = 96;
+
+	private final Stripe[] stripes;
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param maxBytes
+	 *            the total byte budget
+	 * @param numStripes
+	 *            the number of stripes, will be rounded up to a power of two
+	 */
+	MemoryTier(long maxBytes, int numStripes) {
+		int n = 1;
+		while (n < numStripes) {
+			n <<= 1;
+		}
+		stripes = new Stripe[n];
+		for (int i = 0; i < n; i++) {
+			stripes[i] = new Stripe(maxBytes / n);
+		}
+	}
+
+	private Stripe stripeFor(CacheKey key) {
+		return stripes[(int) key.getHigh() & (stripes.length - 1)];
+	}
+
+	byte[] get(CacheKey key) {
+		Stripe stripe = stripeFor(key);
+		synchronized (stripe) {
+			return stripe.entries.get(key);
+		}
+	}
+
+	/**
+	 * Store the value, evicting least recently used entries of the same stripe if the budget is exceeded. Values larger than a
+	 * stripe's budget are not stored.
+	 *
+	 * @param key
+	 *            key
+	 * @param value
+	 *            value
+	 */
+	void put(CacheKey key, byte[] value) {
+		long cost = value.length + ENTRY_OVERHEAD;
+		Stripe stripe = stripeFor(key);
+		if (cost > stripe.maxBytes) {
+			return;
+		}
+		synchronized (stripe) {
+			byte[] previous = stripe.entries.put(key, value);
+			if (previous != null) {
+				stripe.bytes -= previous.length + ENTRY_OVERHEAD;
+			}
+			stripe.bytes += cost;
+			Iterator<Map.Entry<CacheKey, byte[]>> it = stripe.entries.entrySet().iterator();
+			while (stripe.bytes > stripe.maxBytes && it.hasNext()) {
+				Map.Entry<CacheKey, byte[]> eldest = it.next();
+				stripe.bytes -= eldest.getValue().length + ENTRY_OVERHEAD;
+				it.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	void clear() {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				stripe.entries.clear();
+				stripe.bytes = 0;
+			}
+		}
+	}
+
+	long getBytes() {
+		long bytes = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				bytes += stripe.bytes;
+			}
+		}
+		return bytes;
+	}
+
+	int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.entries.size();
+			}
+		}
+		return size;
+	}
+
+	long getEvictions() {
+		return evictions.get();
+	}
+
+	private static class Stripe {
+		final LinkedHashMap<CacheKey, byte[]> entries = new LinkedHashMap<CacheKey, byte[]>(16, 0.75f, true);
+		final long maxBytes;
+		long bytes;
+
+		Stripe(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import marytts.server.MaryProperties;
+import marytts.util.MaryUtils;
+
+/**
+ * A synthesis cache made of two tiers: a lock-striped in-memory LRU tier with a byte budget, in front of a persistent store of
+ * memory-mapped, append-only segment files (see {@link SegmentStore}). Records are identified by a 128-bit hash of all lookup
+ * fields (see {@link CacheKey}), so that neither lookups nor inserts need to compare the full input text.
+ * <p>
+ * The following properties are read by {@link #getCache()}:
+ * <ul>
+ * <li><code>cache.directory</code> -- the directory for the segment files;</li>
+ * <li><code>cache.clearOnStart</code> -- whether to delete all records when starting;</li>
+ * <li><code>cache.memory.megabytes</code> -- budget of the in-memory tier (default: 64);</li>
+ * <li><code>cache.disk.megabytes</code> -- budget of the segment files (default: 1024);</li>
+ * <li><code>cache.segment.megabytes</code> -- size of one segment file (default: 64).</li>
+ * </ul>
+ *
+ * @author agent
+ */
+public class SegmentCache implements SynthesisCache {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final long MB = 1024 * 1024;
+
+	private static SegmentCache segmentCache;
+
+	/**
+	 * Try to get the SegmentCache object. This will either return the previously created SegmentCache, or if none exists, it
+	 * will try to create one.
+	 * <p>
+	 * To the extent possible this method gives the no-throw guarantee: if the cache cannot be created, null will be returned and
+	 * any exception will be logged.
+	 *
+	 * @return the SegmentCache singleton object, or null if none could be created.
+	 */
+	public static synchronized SegmentCache getCache() {
+		if (segmentCache == null) {
+			try {
+				File directory = new File(MaryProperties.getFilename("cache.directory", "maryCache"));
+				segmentCache = new SegmentCache(directory, MaryProperties.getBoolean("cache.clearOnStart", false),
+						MaryProperties.getInteger("cache.memory.megabytes", 64) * MB,
+						MaryProperties.getInteger("cache.disk.megabytes", 1024) * MB,
+						MaryProperties.getInteger("cache.segment.megabytes", 64) * MB);
+			} catch (Exception e) {
+				MaryUtils.getLogger(SegmentCache.class).warn("Cannot set up cache", e);
+			}
+		}
+		return segmentCache;
+	}
+
+	/**
+	 * Indicate whether there is a SegmentCache currently available.
+	 *
+	 * @return true if there is a SegmentCache, false otherwise.
+	 */
+	public static synchronized boolean haveCache() {
+		return segmentCache != null;
+	}
+
+	// //////////////////////////// non-static code /////////////////////////////
+
+	private MemoryTier memory;
+	private SegmentStore disk;
+
+	private AtomicLong memoryHits = new AtomicLong();
+	private AtomicLong diskHits = new AtomicLong();
+	private AtomicLong misses = new AtomicLong();
+	private AtomicLong inserts = new AtomicLong();
+
+	/**
+	 * Create a SegmentCache in the given directory. This constructor is public only for tests; user code should call
+	 * {@link #getCache()} instead.
+	 *
+	 * @param directory
+	 *            the directory for the segment files; will be created if necessary.
+	 * @param clearCache
+	 *            if true, clear the cache; if false, keep it.
+	 * @param memoryBytes
+	 *            the budget of the in-memory tier, in bytes
+	 * @param diskBytes
+	 *            the budget of the segment files, in bytes
+	 * @param segmentBytes
+	 *            the size of one segment file, in bytes
+	 * @throws IOException
+	 *             if the segment files cannot be read or created
+	 */
+	public SegmentCache(File directory, boolean clearCache, long memoryBytes, long diskBytes, long segmentBytes)
+			throws IOException {
+		memory = new MemoryTier(memoryBytes, 16);
+		disk = new SegmentStore(directory, segmentBytes, diskBytes, clearCache);
+	}
+
+	public void insertText(String inputtype, String outputtype, String locale, String voice, String outputparams, String style,
+			String effects, String inputtext, String outputtext) throws IOException {
+		if (inputtype == null || outputtype == null || locale == null || inputtext == null || outputtext == null) {
+			throw new NullPointerException("Null argument");
+		}
+		insert(CacheKey.of(inputtype, outputtype, locale, voice, outputparams, style, effects, inputtext),
+				outputtext.getBytes(UTF8));
+	}
+
+	public void insertAudio(String inputtype, String locale, String voice, String outputparams, String style, String effects,
+			String inputtext, byte[] audio) throws IOException {
+		if (inputtype == null || locale == null || inputtext == null || audio == null) {
+			throw new NullPointerException("Null argument");
+		}
+		insert(CacheKey.of(inputtype, "AUDIO", locale, voice, outputparams, style, effects, inputtext), audio);
+	}
+
+	public String lookupText(String inputtype, String outputtype, String locale, String voice, String outputparams,
+			String style, String effects, String inputtext) throws IOException {
+		if (inputtype == null || outputtype == null || locale == null || inputtext == null) {
+			throw new NullPointerException("Null argument");
+		}
+		byte[] data = lookup(CacheKey.of(inputtype, outputtype, locale, voice, outputparams, style, effects, inputtext));
+		return data != null ? new String(data, UTF8) : null;
+	}
+
+	public byte[] lookupAudio(String inputtype, String locale, String voice, String outputparams, String style,
+			String effects, String inputtext) throws IOException {
+		if (inputtype == null || locale == null || inputtext == null) {
+			throw new NullPointerException("Null argument");
+		}
+		return lookup(CacheKey.of(inputtype, "AUDIO", locale, voice, outputparams, style, effects, inputtext));
+	}
+
+	private void insert(CacheKey key, byte[] data) throws IOException {
+		if (disk.put(key, data)) {
+			inserts.incrementAndGet();
+		}
+		memory.put(key, data);
+	}
+
+	/**
+	 * Look up the key in memory first, then on disk. Records found on disk are promoted to the memory tier; records found in
+	 * memory are marked as in use on disk, so that compaction keeps them. The returned array is shared with the memory tier and
+	 * must not be modified.
+	 */
+	private byte[] lookup(CacheKey key) throws IOException {
+		byte[] data = memory.get(key);
+		if (data != null) {
+			memoryHits.incrementAndGet();
+			disk.touch(key);
+			return data;
+		}
+		data = disk.get(key);
+		if (data != null) {
+			diskHits.incrementAndGet();
+			memory.put(key, data);
+			return data;
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	public void shutdown() throws IOException {
+		memory.clear();
+		disk.close();
+	}
+
+	public long getMemoryHits() {
+		return memoryHits.get();
+	}
+
+	public long getDiskHits() {
+		return diskHits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getInserts() {
+		return inserts.get();
+	}
+
+	public long getMemoryEvictions() {
+		return memory.getEvictions();
+	}
+
+	public long getDiskEvictions() {
+		return disk.getEvictions();
+	}
+
+	/**
+	 * A human-readable summary of the cache's counters, one item per line.
+	 *
+	 * @return the statistics
+	 */
+	public String getStatistics() {
+		StringBuilder buf = new StringBuilder();
+		buf.append("cache.hits.memory ").append(memoryHits.get()).append("\n");
+		buf.append("cache.hits.disk ").append(diskHits.get()).append("\n");
+		buf.append("cache.misses ").append(misses.get()).append("\n");
+		buf.append("cache.inserts ").append(inserts.get()).append("\n");
+		buf.append("cache.memory.entries ").append(memory.size()).append("\n");
+		buf.append("cache.memory.bytes ").append(memory.getBytes()).append("\n");
+		buf.append("cache.memory.evictions ").append(memory.getEvictions()).append("\n");
+		buf.append("cache.disk.entries ").append(disk.size()).append("\n");
+		buf.append("cache.disk.bytes ").append(disk.getBytes()).append("\n");
+		buf.append("cache.disk.evictions ").append(disk.getEvictions()).append("\n");
+		buf.append("cache.disk.compactions ").append(disk.getCompactions()).append("\n");
+		return buf.toString();
+	}
+}
@@ -0,0 +1,417 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A persistent key-value store made of append-only segment files.
+ * <p>
+ * Records are appended to the active segment; when it is full, it is sealed, memory-mapped read-only, and a new active segment
+ * is started. An in-memory index maps each key to the location of its record, and is rebuilt by scanning the segments when the
+ * store is opened. Readers never take a lock: they read sealed segments through the mapping and the active segment through
+ * positional reads.
+ * <p>
+ * When the total size exceeds the disk budget, the oldest segment is compacted: records that were read since they were
+ * written are copied to the active segment, all others are evicted, and the segment file is deleted.
+ * <p>
+ * On disk, each record consists of the data length (int), the two halves of the key (long, long) and the data.
+ *
+ * @author agent
+ */
+class SegmentStore {
+	private static final int HEADER_SIZE = 4 + 8 + 8;
+	private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.dat");
+
+	private final File directory;
+	private final long segmentSize;
+	private final long maxBytes;
+	private final ConcurrentHashMap<CacheKey, Location> index = new ConcurrentHashMap<CacheKey, Location>();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong compactions = new AtomicLong();
+
+	// The following fields are guarded by "this":
+	private final LinkedList<Segment> sealed = new LinkedList<Segment>();
+	private Segment active;
+	private long totalBytes;
+	private int nextSegmentId;
+	/** Set by close(), so that the active segment is not reopened afterwards */
+	private boolean closed;
+
+	/**
+	 * Open the store in the given directory, creating it if necessary.
+	 *
+	 * @param directory
+	 *            the directory holding the segment files
+	 * @param segmentSize
+	 *            the maximum size of one segment file, in bytes; must be less than 2 GB.
+	 * @param maxBytes
+	 *            the disk budget, in bytes; will be raised to at least two segments.
+	 * @param clear
+	 *            if true, delete any existing records
+	 * @throws IOException
+	 *             if the segment files cannot be read or created
+	 */
+	SegmentStore(File directory, long segmentSize, long maxBytes, boolean clear) throws IOException {
+		if (segmentSize <= HEADER_SIZE || segmentSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxBytes = Math.max(maxBytes, 2 * segmentSize);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create cache directory " + directory);
+		}
+		File[] files = listSegmentFiles();
+		if (clear) {
+			for (File f : files) {
+				if (!f.delete()) {
+					throw new IOException("Cannot delete cache segment " + f);
+				}
+			}
+			files = new File[0];
+		}
+		for (int i = 0; i < files.length; i++) {
+			int id = segmentId(files[i]);
+			nextSegmentId = id + 1;
+			boolean isLast = i == files.length - 1;
+			Segment segment = new Segment(files[i]);
+			scan(segment, isLast);
+			totalBytes += segment.size;
+			if (isLast && segment.size < segmentSize) {
+				active = segment;
+			} else {
+				if (segment.channel != null) {
+					seal(segment);
+				}
+				sealed.addLast(segment);
+			}
+		}
+		if (active == null) {
+			active = newSegment();
+		}
+		enforceBudget();
+	}
+
+	private File[] listSegmentFiles() {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return new File[0];
+		}
+		int n = 0;
+		for (File f : files) {
+			if (SEGMENT_NAME.matcher(f.getName()).matches()) {
+				files[n++] = f;
+			}
+		}
+		files = Arrays.copyOf(files, n);
+		Arrays.sort(files, new Comparator<File>() {
+			public int compare(File f1, File f2) {
+				int id1 = segmentId(f1);
+				int id2 = segmentId(f2);
+				return id1 < id2 ? -1 : (id1 == id2 ? 0 : 1);
+			}
+		});
+		return files;
+	}
+
+	private static int segmentId(File f) {
+		Matcher m = SEGMENT_NAME.matcher(f.getName());
+		if (!m.matches()) {
+			throw new IllegalArgumentException("Not a segment file: " + f);
+		}
+		return Integer.parseInt(m.group(1));
+	}
+
+	/**
+	 * Read all complete records of the segment into the index. A truncated record at the end, left over from a crash, is cut
+	 * off if the segment is to become the active one, and ignored otherwise.
+	 */
+	private void scan(Segment segment, boolean willBeActive) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(segment.file, "rw");
+		FileChannel channel = raf.getChannel();
+		long fileLength = channel.size();
+		MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
+		int pos = 0;
+		while (pos + HEADER_SIZE <= fileLength) {
+			int length = buf.getInt(pos);
+			if (length < 0 || pos + HEADER_SIZE + (long) length > fileLength) {
+				break;
+			}
+			CacheKey key = new CacheKey(buf.getLong(pos + 4), buf.getLong(pos + 12));
+			index.put(key, new Location(segment, pos + HEADER_SIZE, length));
+			pos += HEADER_SIZE + length;
+		}
+		segment.size = pos;
+		if (willBeActive) {
+			if (pos < fileLength) {
+				channel.truncate(pos);
+			}
+			segment.channel = channel;
+		} else {
+			segment.mapped = buf;
+			channel.close();
+		}
+	}
+
+	private Segment newSegment() throws IOException {
+		int id = nextSegmentId++;
+		Segment segment = new Segment(new File(directory, String.format("segment-%06d.dat", id)));
+		segment.channel = new RandomAccessFile(segment.file, "rw").getChannel();
+		segment.channel.truncate(0);
+		return segment;
+	}
+
+	private void seal(Segment segment) throws IOException {
+		segment.mapped = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+		FileChannel channel = segment.channel;
+		segment.channel = null;
+		channel.close();
+	}
+
+	/**
+	 * Look up the data stored for the given key.
+	 *
+	 * @param key
+	 *            key
+	 * @return a copy of the data, or null if there is no record for the key
+	 * @throws IOException
+	 *             if the record cannot be read
+	 */
+	byte[] get(CacheKey key) throws IOException {
+		Location location = index.get(key);
+		if (location == null) {
+			return null;
+		}
+		location.referenced = true;
+		return read(location.segment, location.offset, location.length);
+	}
+
+	/**
+	 * Mark the record for the given key as in use, so that it survives the next compaction, without reading it.
+	 *
+	 * @param key
+	 *            key
+	 */
+	void touch(CacheKey key) {
+		Location location = index.get(key);
+		if (location != null) {
+			location.referenced = true;
+		}
+	}
+
+	private byte[] read(Segment segment, int offset, int length) throws IOException {
+		byte[] data = new byte[length];
+		FileChannel channel = segment.channel;
+		while (segment.mapped == null && channel != null) {
+			try {
+				ByteBuffer dst = ByteBuffer.wrap(data);
+				long pos = offset;
+				while (dst.hasRemaining()) {
+					int n = channel.read(dst, pos);
+					if (n < 0) {
+						throw new IOException("Unexpected end of cache segment " + segment.file);
+					}
+					pos += n;
+				}
+				return data;
+			} catch (ClosedByInterruptException e) {
+				// interrupting a reading thread closes the channel for everybody -- reopen it for the other threads
+				reopen(segment, channel);
+				throw e;
+			} catch (ClosedChannelException e) {
+				// sealed, or closed by another thread's interrupt, while we were reading -- retry, or use the mapping
+				channel = reopen(segment, channel);
+			}
+		}
+		ByteBuffer src = segment.mapped.duplicate();
+		src.position(offset);
+		src.get(data);
+		return data;
+	}
+
+	/**
+	 * Replace the channel of the active segment if it is the given channel, which was closed by an interrupt.
+	 *
+	 * @return the channel to use now, or null if the segment has been sealed.
+	 */
+	private synchronized FileChannel reopen(Segment segment, FileChannel closedChannel) throws IOException {
+		if (closed) {
+			throw new ClosedChannelException();
+		}
+		if (segment.channel == closedChannel && segment.channel != null && !closedChannel.isOpen()) {
+			segment.channel = new RandomAccessFile(segment.file, "rw").getChannel();
+		}
+		return segment.channel;
+	}
+
+	/**
+	 * Store the data for the given key, unless a record for the key exists already or the data does not fit into one segment.
+	 *
+	 * @param key
+	 *            key
+	 * @param data
+	 *            data
+	 * @return true if a new record was written, false otherwise.
+	 * @throws IOException
+	 *             if the record cannot be written
+	 */
+	synchronized boolean put(CacheKey key, byte[] data) throws IOException {
+		if (index.containsKey(key) || HEADER_SIZE + (long) data.length > segmentSize) {
+			return false;
+		}
+		index.put(key, append(key, data));
+		enforceBudget();
+		return true;
+	}
+
+	private Location append(CacheKey key, byte[] data) throws IOException {
+		int recordSize = HEADER_SIZE + data.length;
+		reopen(active, active.channel);
+		if (active.size + recordSize > segmentSize) {
+			seal(active);
+			sealed.addLast(active);
+			active = newSegment();
+		}
+		ByteBuffer record = ByteBuffer.allocate(recordSize);
+		record.putInt(data.length).putLong(key.getHigh()).putLong(key.getLow()).put(data);
+		record.flip();
+		long pos = active.size;
+		while (record.hasRemaining()) {
+			FileChannel channel = active.channel;
+			try {
+				pos += channel.write(record, pos);
+			} catch (ClosedByInterruptException e) {
+				reopen(active, channel);
+				throw e;
+			} catch (AsynchronousCloseException e) {
+				// closed by an interrupted reader -- write the whole record again
+				reopen(active, channel);
+				record.rewind();
+				pos = active.size;
+			}
+		}
+		Location location = new Location(active, (int) active.size + HEADER_SIZE, data.length);
+		active.size += recordSize;
+		totalBytes += recordSize;
+		return location;
+	}
+
+	private void enforceBudget() throws IOException {
+		while (totalBytes > maxBytes && !sealed.isEmpty()) {
+			compact(sealed.removeFirst());
+		}
+	}
+
+	/**
+	 * Move the recently read records of a sealed segment to the active segment, evict all other records, and delete the
+	 * segment.
+	 */
+	private void compact(Segment segment) throws IOException {
+		MappedByteBuffer buf = segment.mapped;
+		int pos = 0;
+		while (pos < segment.size) {
+			int length = buf.getInt(pos);
+			CacheKey key = new CacheKey(buf.getLong(pos + 4), buf.getLong(pos + 12));
+			Location location = index.get(key);
+			if (location != null && location.segment == segment && location.offset == pos + HEADER_SIZE) {
+				if (location.referenced) {
+					index.replace(key, location, append(key, read(segment, location.offset, length)));
+				} else {
+					index.remove(key, location);
+					evictions.incrementAndGet();
+				}
+			}
+			pos += HEADER_SIZE + length;
+		}
+		totalBytes -= segment.size;
+		compactions.incrementAndGet();
+		// Readers may still use the mapping; on POSIX systems it remains valid after the file is deleted.
+		if (!segment.file.delete()) {
+			segment.file.deleteOnExit();
+		}
+	}
+
+	int size() {
+		return index.size();
+	}
+
+	synchronized long getBytes() {
+		return totalBytes;
+	}
+
+	long getEvictions() {
+		return evictions.get();
+	}
+
+	long getCompactions() {
+		return compactions.get();
+	}
+
+	synchronized void close() throws IOException {
+		closed = true;
+		if (active.channel != null && active.channel.isOpen()) {
+			active.channel.force(false);
+			active.channel.close();
+		}
+	}
+
+	private static final class Segment {
+		final File file;
+		/** Open for appending while this is the active segment, null when sealed. */
+		volatile FileChannel channel;
+		/** Read-only mapping, set when the segment is sealed. */
+		volatile MappedByteBuffer mapped;
+		long size;
+
+		Segment(File file) {
+			this.file = file;
+		}
+	}
+
+	private static final class Location {
+		final Segment segment;
+		final int offset;
+		final int length;
+		/** Whether the record was read since it was written; such records survive compaction. */
+		volatile boolean referenced;
+
+		Location(Segment segment, int offset, int length) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+/**
+ * A cache for the results of processing one chunk of a MARY request, as used by
+ * {@link marytts.server.Request#process()}. A record is identified by the request's input type, output type, locale, voice,
+ * output parameters, style, effects and input text; its value is either the output text or, for output type AUDIO, the
+ * audio data as a WAVE file.
+ * <p>
+ * Implementations must be safe for use by concurrent requests.
+ *
+ * @author agent
+ */
+public interface SynthesisCache {
+
+	/**
+	 * Insert a record of a MARY request producing data of type text into the cache. If a record with the same lookup keys
+	 * exists already, this call does nothing.
+	 *
+	 * @param inputtype
+	 *            the request's input type. Must not be null.
+	 * @param outputtype
+	 *            the request's output type, which must be a text type. Must not be null.
+	 * @param locale
+	 *            the locale of the request. Must not be null.
+	 * @param voice
+	 *            the voice of the request. Can be null.
+	 * @param outputparams
+	 *            optionally, any output parameters. Can be null.
+	 * @param style
+	 *            optionally, any style. Can be null.
+	 * @param effects
+	 *            optionally, any effects. Can be null.
+	 * @param inputtext
+	 *            the request's input text. Must not be null.
+	 * @param outputtext
+	 *            the request's output text. Must not be null.
+	 * @throws NullPointerException
+	 *             if one of the fields is null which must be non-null.
+	 * @throws Exception
+	 *             if the record could not be entered into the cache.
+	 */
+	public void insertText(String inputtype, String outputtype, String locale, String voice, String outputparams, String style,
+			String effects, String inputtext, String outputtext) throws Exception;
+
+	/**
+	 * Insert a record of a MARY request producing data of output type AUDIO into the cache. If a record with the same lookup
+	 * keys exists already, this call does nothing.
+	 *
+	 * @param inputtype
+	 *            the request's input type. Must not be null.
+	 * @param locale
+	 *            the locale of the request. Must not be null.
+	 * @param voice
+	 *            the voice of the request. Can be null.
+	 * @param outputparams
+	 *            optionally, any output parameters. Can be null.
+	 * @param style
+	 *            optionally, any style. Can be null.
+	 * @param effects
+	 *            optionally, any effects. Can be null.
+	 * @param inputtext
+	 *            the request's input text. Must not be null.
+	 * @param audio
+	 *            the request's output data. Must not be null.
+	 * @throws NullPointerException
+	 *             if one of the fields is null which must be non-null.
+	 * @throws Exception
+	 *             if the record could not be entered into the cache.
+	 */
+	public void insertAudio(String inputtype, String locale, String voice, String outputparams, String style, String effects,
+			String inputtext, byte[] audio) throws Exception;
+
+	/**
+	 * Carry out a lookup in the cache with the given parameters.
+	 *
+	 * @param inputtype
+	 *            the request's input type. Must not be null.
+	 * @param outputtype
+	 *            the request's output type, which must be a text type. Must not be null.
+	 * @param locale
+	 *            the locale of the request. Must not be null.
+	 * @param voice
+	 *            the voice of the request. Can be null.
+	 * @param outputparams
+	 *            optionally, any output parameters. Can be null.
+	 * @param style
+	 *            optionally, any style. Can be null.
+	 * @param effects
+	 *            optionally, any effects. Can be null.
+	 * @param inputtext
+	 *            the request's input text. Must not be null.
+	 * @return the output text associated with the with the given record, or null if the cache does not contain a record with
+	 *         these keys.
+	 * @throws NullPointerException
+	 *             if one of the fields is null which must be non-null.
+	 * @throws Exception
+	 *             if there is a problem querying the cache.
+	 */
+	public String lookupText(String inputtype, String outputtype, String locale, String voice, String outputparams,
+			String style, String effects, String inputtext) throws Exception;
+
+	/**
+	 * Carry out a lookup in the cache with the given parameters, for a request with output type AUDIO.
+	 *
+	 * @param inputtype
+	 *            the request's input type. Must not be null.
+	 * @param locale
+	 *            the locale of the request. Must not be null.
+	 * @param voice
+	 *            the voice of the request. Can be null.
+	 * @param outputparams
+	 *            optionally, any output parameters. Can be null.
+	 * @param style
+	 *            optionally, any style. Can be null.
+	 * @param effects
+	 *            optionally, any effects. Can be null.
+	 * @param inputtext
+	 *            the request's input text. Must not be null.
+	 * @return the audio data associated with the with the given record, or null if the cache does not contain a record with
+	 *         these keys.
+	 * @throws NullPointerException
+	 *             if one of the fields is null which must be non-null.
+	 * @throws Exception
+	 *             if there is a problem querying the cache.
+	 */
+	public byte[] lookupAudio(String inputtype, String locale, String voice, String outputparams, String style,
+			String effects, String inputtext) throws Exception;
+
+	/**
+	 * Shut down the cache. After this has been called, any further calls to the object will throw exceptions.
+	 *
+	 * @throws Exception
+	 *             if the cache cannot be shut down cleanly.
+	 */
+	public void shutdown() throws Exception;
+}
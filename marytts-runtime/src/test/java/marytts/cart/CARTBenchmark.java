@@ -0,0 +1,106 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.cart;
+
+import java.util.Random;
+
+import marytts.cart.io.MaryCARTReader;
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+
+/**
+ * Compares the time needed to interpret a CART by walking its nodes and in its compiled form. The CART is either read from a file
+ * in MARY format (such as an LTS or duration tree), or a random tree is used; the feature vectors are random.
+ * <p>
+ * Usage, with the runtime's classes and test classes on the classpath: <code>java marytts.cart.CARTBenchmark [cart file]
+ * [seconds]</code>
+ *
+ * @author agent
+ *
+ */
+public class CARTBenchmark {
+	private static final int NUM_VECTORS = 10000;
+
+	/**
+	 * Interpret all feature vectors a number of times.
+	 *
+	 * @return a checksum over the nodes reached
+	 */
+	private static long run(CART cart, FeatureVector[] vectors, int repetitions) {
+		long sum = 0;
+		for (int r = 0; r < repetitions; r++) {
+			for (FeatureVector fv : vectors) {
+				sum += System.identityHashCode(cart.interpretToNode(fv, 0));
+			}
+		}
+		return sum;
+	}
+
+	private static double nanosPerLookup(CART cart, FeatureVector[] vectors, double seconds) {
+		int repetitions = 1;
+		long time;
+		// find the number of repetitions for the given time, which also warms up the JIT
+		while (true) {
+			time = System.nanoTime();
+			run(cart, vectors, repetitions);
+			time = System.nanoTime() - time;
+			if (time > seconds * 1e9 / 4) {
+				break;
+			}
+			repetitions *= 2;
+		}
+		time = System.nanoTime();
+		run(cart, vectors, repetitions);
+		time = System.nanoTime() - time;
+		return (double) time / ((long) repetitions * vectors.length);
+	}
+
+	public static void main(String[] args) throws Exception {
+		double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+		Random random = new Random(1);
+		CART cart;
+		if (args.length > 0) {
+			cart = new MaryCARTReader().load(args[0]);
+		} else {
+			FeatureDefinition featureDefinition = RandomCARTs.randomFeatureDefinition();
+			Node root;
+			do {
+				root = RandomCARTs.randomTree(featureDefinition, random, 20);
+			} while (root.getNumberOfNodes() < 5000);
+			cart = new CART(root, featureDefinition);
+		}
+		Node rootNode = cart.getRootNode();
+		FeatureVector[] vectors = new FeatureVector[NUM_VECTORS];
+		for (int i = 0; i < vectors.length; i++) {
+			vectors[i] = RandomCARTs.randomFeatureVector(cart.getFeatureDefinition(), random);
+		}
+		System.out.println("CART with " + cart.getNumNodes() + " nodes, " + vectors.length + " random feature vectors");
+
+		cart.setRootNode(rootNode);
+		double walk = nanosPerLookup(cart, vectors, seconds);
+		System.out.printf("node walk:     %8.1f ns per lookup%n", walk);
+		if (!cart.compile()) {
+			System.out.println("CART cannot be compiled");
+			return;
+		}
+		double compiled = nanosPerLookup(cart, vectors, seconds);
+		System.out.printf("compiled walk: %8.1f ns per lookup (%.2f times faster)%n", compiled, walk / compiled);
+	}
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.cart;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import marytts.features.FeatureColumns;
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+
+import org.junit.Test;
+
+/**
+ * Checks that a compiled CART reaches the same nodes as walking the nodes of the tree.
+ *
+ * @author agent
+ */
+public class CompiledCARTTest {
+
+	@Test
+	public void compiledWalkReachesSameNodes() throws Exception {
+		FeatureDefinition featureDefinition = RandomCARTs.randomFeatureDefinition();
+		Random random = new Random(5);
+		for (int t = 0; t < 20; t++) {
+			Node root = RandomCARTs.randomTree(featureDefinition, random, 12);
+			CART walked = new CART(root, featureDefinition);
+			CART compiled = new CART(root, featureDefinition);
+			assertTrue(compiled.compile());
+			for (int i = 0; i < 500; i++) {
+				FeatureVector fv = RandomCARTs.randomFeatureVector(featureDefinition, random);
+				for (int min = 0; min < 5; min++) {
+					assertSame(walked.interpretToNode(fv, min), compiled.interpretToNode(fv, min));
+				}
+				Object expected = walked.interpret(fv);
+				Object actual = compiled.interpret(fv);
+				if (expected == null) {
+					assertNull(actual);
+				} else {
+					assertArrayEquals((int[]) expected, (int[]) actual);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void columnsReachSameLeaves() throws Exception {
+		FeatureDefinition featureDefinition = RandomCARTs.randomFeatureDefinition();
+		Random random = new Random(6);
+		FeatureVector[] vectors = new FeatureVector[300];
+		FeatureColumns columns = new FeatureColumns(featureDefinition.getNumberOfByteFeatures(),
+				featureDefinition.getNumberOfShortFeatures(), featureDefinition.getNumberOfContinuousFeatures(), 10);
+		columns.reset(vectors.length);
+		for (int i = 0; i < vectors.length; i++) {
+			vectors[i] = RandomCARTs.randomFeatureVector(featureDefinition, random);
+			for (int f = 0; f < vectors[i].getLength(); f++) {
+				if (f < featureDefinition.getNumberOfByteFeatures()) {
+					columns.setByteFeature(i, f, vectors[i].getByteFeature(f));
+				} else if (f < featureDefinition.getNumberOfByteFeatures() + featureDefinition.getNumberOfShortFeatures()) {
+					columns.setShortFeature(i, f, vectors[i].getShortFeature(f));
+				} else {
+					columns.setContinuousFeature(i, f, vectors[i].getContinuousFeature(f));
+				}
+			}
+		}
+		for (int t = 0; t < 10; t++) {
+			Node root = RandomCARTs.randomTree(featureDefinition, random, 12);
+			CART walked = new CART(root, featureDefinition);
+			CART compiled = new CART(root, featureDefinition);
+			assertTrue(compiled.compile());
+			Object[] fromWalked = walked.interpret(columns);
+			Object[] fromCompiled = compiled.interpret(columns);
+			for (int i = 0; i < vectors.length; i++) {
+				Object expected = walked.interpret(vectors[i]);
+				if (expected == null) {
+					assertNull(fromWalked[i]);
+					assertNull(fromCompiled[i]);
+				} else {
+					assertArrayEquals((int[]) expected, (int[]) fromWalked[i]);
+					assertArrayEquals((int[]) expected, (int[]) fromCompiled[i]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void columnsReachSameNodes() throws Exception {
+		FeatureDefinition featureDefinition = RandomCARTs.randomFeatureDefinition();
+		Random random = new Random(7);
+		FeatureVector[] vectors = new FeatureVector[200];
+		FeatureColumns columns = new FeatureColumns(featureDefinition.getNumberOfByteFeatures(),
+				featureDefinition.getNumberOfShortFeatures(), featureDefinition.getNumberOfContinuousFeatures(), vectors.length);
+		columns.reset(vectors.length);
+		for (int i = 0; i < vectors.length; i++) {
+			vectors[i] = RandomCARTs.randomFeatureVector(featureDefinition, random);
+			columns.setFeatureVector(i, vectors[i]);
+			assertEquals(vectors[i].toString(), columns.toString(i));
+		}
+		for (int t = 0; t < 10; t++) {
+			Node root = RandomCARTs.randomTree(featureDefinition, random, 12);
+			CART walked = new CART(root, featureDefinition);
+			CART compiled = new CART(root, featureDefinition);
+			assertTrue(compiled.compile());
+			for (int min : new int[] { 0, 1, 5 }) {
+				Node[] fromWalked = walked.interpretToNodes(columns, min);
+				Node[] fromCompiled = compiled.interpretToNodes(columns, min);
+				for (int i = 0; i < vectors.length; i++) {
+					Node expected = walked.interpretToNode(vectors[i], min);
+					assertSame(expected, fromWalked[i]);
+					assertSame(expected, fromCompiled[i]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void outOfRangeValuesFailAsBefore() throws Exception {
+		FeatureDefinition featureDefinition = RandomCARTs.randomFeatureDefinition();
+		DecisionNode root = new DecisionNode.ByteDecisionNode(0, 3, featureDefinition);
+		for (int d = 0; d < 3; d++) {
+			root.addDaughter(new LeafNode.IntArrayLeafNode(new int[] { d }));
+		}
+		root.countData();
+		CART cart = new CART(root, featureDefinition);
+		assertTrue(cart.compile());
+		// feature byte0 has more values than the node has daughters
+		FeatureVector fv = RandomCARTs.randomFeatureVector(featureDefinition, new Random(1));
+		fv.byteValuedDiscreteFeatures[0] = 4;
+		try {
+			cart.interpretToNode(fv, 0);
+			assertTrue("expected exception", false);
+		} catch (ArrayIndexOutOfBoundsException e) {
+			// as for the node walk
+		}
+	}
+
+	@Test
+	public void newRootDiscardsCompiledTree() throws Exception {
+		FeatureDefinition featureDefinition = RandomCARTs.randomFeatureDefinition();
+		Random random = new Random(7);
+		CART cart = new CART(RandomCARTs.randomTree(featureDefinition, random, 5), featureDefinition);
+		assertTrue(cart.compile());
+		Node leaf = new LeafNode.IntArrayLeafNode(new int[] { 1, 2 });
+		cart.setRootNode(leaf);
+		assertFalse(cart.isCompiled());
+		assertSame(leaf, cart.interpretToNode(RandomCARTs.randomFeatureVector(featureDefinition, random), 0));
+	}
+
+	@Test
+	public void unknownNodeTypesAreNotCompiled() throws Exception {
+		FeatureDefinition featureDefinition = RandomCARTs.randomFeatureDefinition();
+		DecisionNode root = new DecisionNode.BinaryByteDecisionNode(0, (byte) 1, featureDefinition) {
+			@Override
+			public Node getNextNode(FeatureVector featureVector) {
+				return daughters[1];
+			}
+		};
+		root.addDaughter(new LeafNode.IntArrayLeafNode(new int[] { 0 }));
+		root.addDaughter(new LeafNode.IntArrayLeafNode(new int[] { 1 }));
+		root.countData();
+		CART cart = new CART(root, featureDefinition);
+		assertFalse(cart.compile());
+		assertSame(root.getDaughter(1), cart.interpretToNode(RandomCARTs.randomFeatureVector(featureDefinition, new Random(1)), 0));
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.cart;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+
+/**
+ * Random feature definitions, trees and feature vectors for testing CARTs.
+ *
+ * @author agent
+ *
+ */
+public class RandomCARTs {
+
+	/**
+	 * A feature definition with byte, short and continuous features, for random trees.
+	 *
+	 * @return the feature definition
+	 * @throws IOException
+	 *             IOException
+	 */
+	static FeatureDefinition randomFeatureDefinition() throws IOException {
+		StringBuilder def = new StringBuilder("ByteValuedFeatureProcessors\n");
+		for (int i = 0; i < 8; i++) {
+			def.append("0 | byte").append(i).append(" 0 a b c d e f\n");
+		}
+		def.append("ShortValuedFeatureProcessors\n");
+		for (int i = 0; i < 4; i++) {
+			def.append("0 | short").append(i);
+			for (int v = 0; v < 20; v++) {
+				def.append(" v").append(v);
+			}
+			def.append("\n");
+		}
+		def.append("ContinuousFeatureProcessors\n");
+		for (int i = 0; i < 4; i++) {
+			def.append("0 linear | float").append(i).append("\n");
+		}
+		return new FeatureDefinition(new BufferedReader(new StringReader(def.toString())), true);
+	}
+
+	/**
+	 * Build a random tree using all decision node types, with some empty daughters.
+	 *
+	 * @param featureDefinition
+	 *            the feature definition
+	 * @param random
+	 *            random
+	 * @param depth
+	 *            the maximum depth of the tree
+	 * @return the root node, on which {@link DecisionNode#countData()} has been called
+	 */
+	static Node randomTree(FeatureDefinition featureDefinition, Random random, int depth) {
+		Node root = randomNode(featureDefinition, random, depth);
+		if (root instanceof DecisionNode) {
+			((DecisionNode) root).countData();
+		}
+		return root;
+	}
+
+	private static Node randomNode(FeatureDefinition featureDefinition, Random random, int depth) {
+		if (depth == 0 || random.nextInt(8) == 0) {
+			int[] data = new int[random.nextInt(5)];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = random.nextInt(1000);
+			}
+			return new LeafNode.IntArrayLeafNode(data);
+		}
+		int numBytes = featureDefinition.getNumberOfByteFeatures();
+		int numShorts = featureDefinition.getNumberOfShortFeatures();
+		int numFloats = featureDefinition.getNumberOfContinuousFeatures();
+		DecisionNode node;
+		int type = random.nextInt(10);
+		if (type < 4 || numShorts + numFloats == 0) {
+			int index = random.nextInt(numBytes);
+			byte value = (byte) random.nextInt(featureDefinition.getNumberOfValues(index));
+			node = new DecisionNode.BinaryByteDecisionNode(index, value, featureDefinition);
+		} else if (type < 5 && numShorts > 0) {
+			int index = numBytes + random.nextInt(numShorts);
+			short value = (short) random.nextInt(featureDefinition.getNumberOfValues(index));
+			node = new DecisionNode.BinaryShortDecisionNode(index, value, featureDefinition);
+		} else if (type < 6) {
+			// pseudo-float test on a byte feature
+			int index = random.nextInt(numBytes);
+			node = new DecisionNode.BinaryFloatDecisionNode(index, random.nextInt(6) + 0.5f, featureDefinition);
+		} else if (type < 8 && numFloats > 0) {
+			int index = numBytes + numShorts + random.nextInt(numFloats);
+			node = new DecisionNode.BinaryFloatDecisionNode(index, random.nextFloat(), featureDefinition);
+		} else if (type < 9 || numShorts == 0) {
+			int index = random.nextInt(numBytes);
+			node = new DecisionNode.ByteDecisionNode(index, featureDefinition.getNumberOfValues(index), featureDefinition);
+		} else {
+			int index = numBytes + random.nextInt(numShorts);
+			node = new DecisionNode.ShortDecisionNode(index, featureDefinition.getNumberOfValues(index), featureDefinition);
+		}
+		for (int d = node.getNumberOfDaugthers(); d > 0; d--) {
+			// multi-way nodes get smaller subtrees, and some empty daughters
+			if (node.getNumberOfDaugthers() > 2 && random.nextInt(3) == 0) {
+				node.addDaughter(null);
+			} else {
+				int subDepth = node.getNumberOfDaugthers() > 2 ? Math.min(depth - 1, 2) : depth - 1;
+				node.addDaughter(randomNode(featureDefinition, random, subDepth));
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * A feature vector with random values in the range of each feature.
+	 *
+	 * @param featureDefinition
+	 *            the feature definition
+	 * @param random
+	 *            random
+	 * @return the feature vector
+	 */
+	static FeatureVector randomFeatureVector(FeatureDefinition featureDefinition, Random random) {
+		byte[] bytes = new byte[featureDefinition.getNumberOfByteFeatures()];
+		short[] shorts = new short[featureDefinition.getNumberOfShortFeatures()];
+		float[] floats = new float[featureDefinition.getNumberOfContinuousFeatures()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) random.nextInt(featureDefinition.getNumberOfValues(i));
+		}
+		for (int i = 0; i < shorts.length; i++) {
+			shorts[i] = (short) random.nextInt(featureDefinition.getNumberOfValues(bytes.length + i));
+		}
+		for (int i = 0; i < floats.length; i++) {
+			floats[i] = random.nextFloat();
+		}
+		return featureDefinition.toFeatureVector(0, bytes, shorts, floats);
+	}
+}
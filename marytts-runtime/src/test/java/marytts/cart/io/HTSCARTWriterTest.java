@@ -0,0 +1,111 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.cart.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import marytts.cart.CART;
+import marytts.cart.LeafNode.PdfLeafNode;
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+import marytts.htsengine.HMMData.PdfFileFormat;
+import marytts.htsengine.PhoneTranslator;
+
+import org.junit.Test;
+
+/**
+ * Checks that HTS trees written in binary form are read back as they were loaded from the text and pdf files.
+ *
+ * @author agent
+ */
+public class HTSCARTWriterTest {
+	private static final String FEATURES = "ByteValuedFeatureProcessors\n" + "0 | phone 0 a b c\n" + "0 | stress 0 1\n"
+			+ "ShortValuedFeatureProcessors\n" + "ContinuousFeatureProcessors\n";
+
+	// two states; in HTS tree files, the NO daughter comes before the YES daughter
+	private static final String TREES = "QS phone=a { \"*-a+*\" }\n" + "QS stress=1 { \"*/stress:1*\" }\n" + "\n" + "{*}[2]\n"
+			+ "{\n" + " 0 phone=a\t\t-1\t\"mgc_s2_1\"\n" + " -1 stress=1\t\t\"mgc_s2_2\"\t\"mgc_s2_3\"\n" + "}\n" + "\n"
+			+ "{*}[3]\n" + "{\n" + " 0 stress=1\t\t\"mgc_s3_1\"\t\"mgc_s3_2\"\n" + "}\n";
+
+	private static final int VECTOR_SIZE = 2;
+	private static final int[] NUM_PDFS = { 3, 2 };
+
+	private static byte[] pdfs() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0);
+		out.writeInt(1);
+		out.writeInt(VECTOR_SIZE);
+		for (int numPdf : NUM_PDFS) {
+			out.writeInt(numPdf);
+		}
+		float value = 0.1f;
+		for (int numPdf : NUM_PDFS) {
+			for (int i = 0; i < 2 * VECTOR_SIZE * numPdf; i++) {
+				out.writeFloat(value);
+				value += 0.37f;
+			}
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void binaryTreesAreTheLoadedTrees() throws Exception {
+		FeatureDefinition featureDefinition = new FeatureDefinition(new BufferedReader(new StringReader(FEATURES)), true);
+		HTSCARTReader reader = new HTSCARTReader();
+		CART[] trees = reader.load(2, new ByteArrayInputStream(TREES.getBytes("UTF-8")), new ByteArrayInputStream(pdfs()),
+				PdfFileFormat.mgc, featureDefinition, new PhoneTranslator(null));
+		assertEquals(VECTOR_SIZE, reader.getVectorSize());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new HTSCARTWriter().dumpBinary(trees, reader.getVectorSize(), new DataOutputStream(bytes));
+		ByteBuffer bb = ByteBuffer.wrap(bytes.toByteArray());
+		HTSCARTReader binaryReader = new HTSCARTReader();
+		CART[] binaryTrees = binaryReader.loadBinary(bb, featureDefinition);
+		assertFalse(bb.hasRemaining());
+		assertEquals(VECTOR_SIZE, binaryReader.getVectorSize());
+		assertEquals(trees.length, binaryTrees.length);
+
+		for (int s = 0; s < trees.length; s++) {
+			assertEquals(trees[s].getNumNodes(), binaryTrees[s].getNumNodes());
+			for (byte phone = 0; phone < 3; phone++) {
+				for (byte stress = 0; stress < 2; stress++) {
+					FeatureVector fv = featureDefinition.toFeatureVector(0, new byte[] { phone, stress }, null, null);
+					PdfLeafNode expected = (PdfLeafNode) trees[s].interpretToNode(fv, 1);
+					PdfLeafNode actual = (PdfLeafNode) binaryTrees[s].interpretToNode(fv, 1);
+					assertEquals(expected.getUniqueLeafId(), actual.getUniqueLeafId());
+					assertArrayEquals(expected.getMean(), actual.getMean(), 0);
+					assertArrayEquals(expected.getVariance(), actual.getVariance(), 0);
+					assertEquals(expected.getVectorSize(), actual.getVectorSize());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.features;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import marytts.datatypes.MaryXML;
+import marytts.unitselection.select.Target;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that feature columns computed in batch hold the same features as feature vectors computed one target at a time.
+ *
+ * @author agent
+ */
+public class FeatureColumnsTest {
+	private TargetFeatureComputer computer;
+	private List<Target> targets;
+
+	@Before
+	@SuppressWarnings("deprecation")
+	public void setUp() {
+		FeatureProcessorManager manager = new FeatureProcessorManager();
+		computer = new TargetFeatureComputer(manager, manager.listByteValuedFeatureProcessorNames());
+		targets = new ArrayList<Target>();
+		Random random = new Random(4);
+		for (int s = 0; s < 5; s++) {
+			targets.addAll(SyntheticSentences.createTargets(SyntheticSentences.createSentence(
+					MaryXML.newDocument(), 5 + 10 * s, random)));
+		}
+	}
+
+	private void assertSameFeatures(FeatureColumns columns) {
+		assertEquals(targets.size(), columns.getNumberOfTargets());
+		for (int t = 0; t < targets.size(); t++) {
+			FeatureVector expected = computer.computeFeatureVector(targets.get(t));
+			assertEquals(expected.toString(), columns.toString(t));
+			assertEquals(expected.toString(), columns.getFeatureVector(t).toString());
+			assertEquals(computer.toStringValues(expected), computer.toStringValues(columns, t));
+		}
+	}
+
+	@Test
+	public void batchEqualsFeatureVectors() {
+		assertSameFeatures(computer.computeFeatures(targets));
+	}
+
+	@Test
+	public void columnsAreReused() {
+		FeatureColumns columns = computer.createFeatureColumns(targets.size());
+		byte[] bytes = columns.getByteColumns();
+		computer.computeFeatures(targets.subList(0, 10), columns);
+		computer.computeFeatures(targets, columns);
+		assertSame(bytes, columns.getByteColumns());
+		assertSameFeatures(columns);
+	}
+
+	@Test
+	public void parallelEqualsFeatureVectors() throws Exception {
+		FeatureColumns columns = computer.createFeatureColumns(1);
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			computer.computeFeatures(targets, columns, executor);
+		} finally {
+			executor.shutdown();
+		}
+		assertSameFeatures(columns);
+	}
+
+	@Test
+	public void interleavedDocumentsAreProcessedOneTaskEach() throws Exception {
+		// the first half of each sentence's targets, then the second half of each
+		List<Target> interleaved = new ArrayList<Target>();
+		List<Target> secondHalves = new ArrayList<Target>();
+		Random random = new Random(5);
+		for (int s = 0; s < 4; s++) {
+			List<Target> sentence = SyntheticSentences.createTargets(SyntheticSentences.createSentence(MaryXML.newDocument(),
+					10, random));
+			interleaved.addAll(sentence.subList(0, sentence.size() / 2));
+			secondHalves.addAll(sentence.subList(sentence.size() / 2, sentence.size()));
+		}
+		interleaved.addAll(secondHalves);
+		targets = interleaved;
+		final AtomicInteger tasks = new AtomicInteger();
+		ExecutorService executor = new ThreadPoolExecutor(3, 3, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>()) {
+			@Override
+			protected void beforeExecute(Thread t, Runnable r) {
+				tasks.incrementAndGet();
+			}
+		};
+		FeatureColumns columns = computer.createFeatureColumns(1);
+		try {
+			computer.computeFeatures(targets, columns, executor);
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(4, tasks.get());
+		assertSameFeatures(columns);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void mismatchingColumnsAreRejected() {
+		computer.computeFeatures(targets, new FeatureColumns(1, 0, 0, targets.size()));
+	}
+}
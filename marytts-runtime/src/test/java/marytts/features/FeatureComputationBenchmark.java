@@ -0,0 +1,96 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.features;
+
+import java.util.List;
+import java.util.Random;
+
+import marytts.datatypes.MaryXML;
+import marytts.unitselection.select.Target;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Measures how many target features per second the generic feature processors compute, for sentences of increasing length. The
+ * sentences are made by {@link SyntheticSentences}, so that no voice or language module is needed.
+ * <p>
+ * Usage: <code>java marytts.features.FeatureComputationBenchmark [seconds] [words...]</code>, where seconds is the measuring
+ * time per sentence length (default 2) and words are the sentence lengths in words (default 10 100 1000).
+ *
+ * @author agent
+ */
+public class FeatureComputationBenchmark {
+
+	private static long run(TargetFeatureComputer computer, List<Target> targets, int repetitions) {
+		long sum = 0;
+		for (int r = 0; r < repetitions; r++) {
+			for (Target t : targets) {
+				sum += computer.computeFeatureVector(t).getByteFeature(0);
+			}
+		}
+		return sum;
+	}
+
+	private static double featuresPerSecond(TargetFeatureComputer computer, List<Target> targets, double seconds) {
+		int repetitions = 1;
+		long time;
+		// find the number of repetitions for the given time, which also warms up the JIT
+		while (true) {
+			time = System.nanoTime();
+			run(computer, targets, repetitions);
+			time = System.nanoTime() - time;
+			if (time > seconds * 1e9 / 4) {
+				break;
+			}
+			repetitions *= 2;
+		}
+		time = System.nanoTime();
+		run(computer, targets, repetitions);
+		time = System.nanoTime() - time;
+		int numFeatures = computer.getByteValuedFeatureProcessors().length;
+		return (double) repetitions * targets.size() * numFeatures / (time * 1e-9);
+	}
+
+	@SuppressWarnings("deprecation")
+	public static void main(String[] args) throws Exception {
+		double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+		int[] lengths;
+		if (args.length > 1) {
+			lengths = new int[args.length - 1];
+			for (int i = 1; i < args.length; i++) {
+				lengths[i - 1] = Integer.parseInt(args[i]);
+			}
+		} else {
+			lengths = new int[] { 10, 100, 1000 };
+		}
+		// only the generic feature processors, which need no allophone set:
+		FeatureProcessorManager manager = new FeatureProcessorManager();
+		TargetFeatureComputer computer = new TargetFeatureComputer(manager, manager.listByteValuedFeatureProcessorNames());
+		System.out.println(computer.getByteValuedFeatureProcessors().length + " byte-valued features per target");
+		for (int numWords : lengths) {
+			Document doc = MaryXML.newDocument();
+			Element sentence = SyntheticSentences.createSentence(doc, numWords, new Random(1));
+			List<Target> targets = SyntheticSentences.createTargets(sentence);
+			double fps = featuresPerSecond(computer, targets, seconds);
+			System.out.printf("%5d words, %6d targets: %12.0f features per second%n", numWords, targets.size(), fps);
+		}
+	}
+}
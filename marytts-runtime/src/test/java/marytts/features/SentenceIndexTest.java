@@ -0,0 +1,129 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.features;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import marytts.datatypes.MaryXML;
+import marytts.util.dom.MaryDomUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.traversal.TreeWalker;
+
+/**
+ * @author agent
+ *
+ */
+public class SentenceIndexTest {
+	private static final String[][] CATEGORY_TAGS = new String[][] { { MaryXML.PHONE, MaryXML.BOUNDARY }, { MaryXML.PHONE },
+			{ MaryXML.SYLLABLE }, { MaryXML.TOKEN }, { MaryXML.TOKEN }, { MaryXML.PHRASE },
+			{ MaryXML.SYLLABLE, MaryXML.BOUNDARY }, { MaryXML.TOKEN, MaryXML.BOUNDARY }, { MaryXML.TOKEN, MaryXML.BOUNDARY } };
+
+	private Element sentence;
+
+	@Before
+	public void setUp() {
+		Document doc = MaryXML.newDocument();
+		sentence = SyntheticSentences.createSentence(doc, 40, new Random(3));
+	}
+
+	private static boolean accept(Element e, int category) {
+		if (category == SentenceIndex.WORDS || category == SentenceIndex.WORDS_AND_BOUNDARIES) {
+			return !e.getTagName().equals(MaryXML.TOKEN) || e.hasAttribute("ph");
+		}
+		return true;
+	}
+
+	private static Element walk(Element root, Element current, int category, boolean forward) {
+		TreeWalker tw = MaryDomUtils.createTreeWalker(root, CATEGORY_TAGS[category]);
+		tw.setCurrentNode(current);
+		Element e;
+		while ((e = (Element) (forward ? tw.nextNode() : tw.previousNode())) != null) {
+			if (accept(e, category)) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	private static int count(Element root, int category) {
+		TreeWalker tw = MaryDomUtils.createTreeWalker(root, CATEGORY_TAGS[category]);
+		int count = 0;
+		Element e;
+		while ((e = (Element) tw.nextNode()) != null) {
+			if (accept(e, category)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void agreesWithTreeWalker() {
+		SentenceIndex index = SentenceIndex.get((Element) sentence.getFirstChild());
+		NodeList all = sentence.getElementsByTagName("*");
+		for (int i = 0; i < all.getLength(); i++) {
+			Element e = (Element) all.item(i);
+			for (int c = 0; c < CATEGORY_TAGS.length; c++) {
+				String where = e.getTagName() + " " + i + ", category " + c;
+				assertSame(where, walk(sentence, e, c, false), index.previous(e, c, 1));
+				assertSame(where, walk(sentence, e, c, true), index.next(e, c, 1));
+				assertEquals(where, count(e, c), index.count(e, c));
+			}
+		}
+		assertEquals(count(sentence, SentenceIndex.WORDS), index.count(sentence, SentenceIndex.WORDS));
+	}
+
+	@Test
+	public void attributeChangesKeepIndex() {
+		Element phone = (Element) sentence.getElementsByTagName(MaryXML.PHONE).item(0);
+		SentenceIndex index = SentenceIndex.get(phone);
+		assertSame(index, SentenceIndex.get(phone));
+		phone.setAttribute("d", "123");
+		assertSame(index, SentenceIndex.get(phone));
+	}
+
+	@Test
+	public void structuralChangesRebuildIndex() {
+		Element phone = (Element) sentence.getElementsByTagName(MaryXML.PHONE).item(0);
+		SentenceIndex index = SentenceIndex.get(phone);
+		int numSegments = index.size(SentenceIndex.SEGMENTS);
+		Element other = (Element) sentence.getElementsByTagName(MaryXML.PHONE).item(1);
+		other.getParentNode().removeChild(other);
+		SentenceIndex changed = SentenceIndex.get(phone);
+		assertNotSame(index, changed);
+		assertEquals(numSegments - 1, changed.size(SentenceIndex.SEGMENTS));
+
+		Element token = (Element) MaryDomUtils.getAncestor(phone, MaryXML.TOKEN);
+		int numWords = changed.size(SentenceIndex.WORDS);
+		token.removeAttribute("ph");
+		SentenceIndex withoutWord = SentenceIndex.get(phone);
+		assertNotSame(changed, withoutWord);
+		assertEquals(numWords - 1, withoutWord.size(SentenceIndex.WORDS));
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.features;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import marytts.datatypes.MaryXML;
+import marytts.unitselection.select.Target;
+import marytts.util.dom.MaryDomUtils;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.traversal.NodeIterator;
+
+/**
+ * Synthetic MaryXML sentences with phrases, words, punctuation, syllables, phones and boundaries, and targets for them, for
+ * testing and measuring feature computation without a voice or language module.
+ *
+ * @author agent
+ *
+ */
+public class SyntheticSentences {
+
+	/**
+	 * Append a synthetic sentence to the given document.
+	 *
+	 * @param doc
+	 *            a MaryXML document
+	 * @param numWords
+	 *            the number of words in the sentence
+	 * @param random
+	 *            random
+	 * @return the sentence element
+	 */
+	static Element createSentence(Document doc, int numWords, Random random) {
+		Element paragraph = MaryXML.appendChildElement(doc.getDocumentElement(), MaryXML.PARAGRAPH);
+		Element sentence = MaryXML.appendChildElement(paragraph, MaryXML.SENTENCE);
+		Element phrase = null;
+		int wordsInPhrase = 0;
+		for (int w = 0; w < numWords; w++) {
+			if (phrase == null) {
+				phrase = MaryXML.appendChildElement(sentence, MaryXML.PHRASE);
+				wordsInPhrase = 3 + random.nextInt(10);
+			}
+			// some words are in an mtu, as for expanded numbers
+			Element parent = random.nextInt(10) == 0 ? MaryXML.appendChildElement(phrase, MaryXML.MTU) : phrase;
+			Element token = MaryXML.appendChildElement(parent, MaryXML.TOKEN);
+			token.setTextContent("w" + w);
+			StringBuilder ph = new StringBuilder();
+			int numSyllables = 1 + random.nextInt(3);
+			for (int s = 0; s < numSyllables; s++) {
+				Element syllable = MaryXML.appendChildElement(token, MaryXML.SYLLABLE);
+				if (random.nextInt(3) == 0) {
+					syllable.setAttribute("stress", "1");
+					if (random.nextBoolean()) {
+						syllable.setAttribute("accent", random.nextBoolean() ? "H*" : "L+H*");
+					}
+				}
+				int numPhones = 1 + random.nextInt(4);
+				for (int p = 0; p < numPhones; p++) {
+					Element phone = MaryXML.appendChildElement(syllable, MaryXML.PHONE);
+					String symbol = String.valueOf((char) ('a' + random.nextInt(26)));
+					phone.setAttribute("p", symbol);
+					phone.setAttribute("d", String.valueOf(40 + random.nextInt(80)));
+					ph.append(symbol).append(p == numPhones - 1 ? " - " : " ");
+				}
+			}
+			token.setAttribute("ph", ph.substring(0, ph.length() - 3));
+			if (--wordsInPhrase == 0 || w == numWords - 1) {
+				Element punctuation = MaryXML.appendChildElement(phrase, MaryXML.TOKEN);
+				punctuation.setTextContent(w == numWords - 1 ? "." : ",");
+				Element boundary = MaryXML.appendChildElement(phrase, MaryXML.BOUNDARY);
+				boundary.setAttribute("breakindex", w == numWords - 1 ? "5" : "4");
+				boundary.setAttribute("tone", random.nextBoolean() ? "H-%" : "L-L%");
+				boundary.setAttribute("duration", "200");
+				phrase = null;
+			}
+		}
+		return sentence;
+	}
+
+	/**
+	 * One target for each phone and boundary in the given element.
+	 *
+	 * @param root
+	 *            root
+	 * @return the targets, in document order
+	 */
+	static List<Target> createTargets(Element root) {
+		List<Target> targets = new ArrayList<Target>();
+		NodeIterator it = MaryDomUtils.createNodeIterator(root, MaryXML.PHONE, MaryXML.BOUNDARY);
+		Element e;
+		while ((e = (Element) it.nextNode()) != null) {
+			targets.add(new Target(e.getTagName().equals(MaryXML.PHONE) ? e.getAttribute("p") : "_", e));
+		}
+		return targets;
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.htsengine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Checks that generating the dimensions of a parameter stream concurrently gives exactly the parameters of sequential
+ * generation.
+ *
+ * @author agent
+ */
+public class HTSPStreamTest {
+	private static final int ORDER = 25;
+
+	private static HTSPStream stream(long seed, int numFrames) throws Exception {
+		Random random = new Random(seed);
+		HTSPStream pst = new HTSPStream(3 * ORDER, numFrames, HMMData.FeatureType.MGC, 50);
+		for (int t = 0; t < numFrames; t++) {
+			double[] mean = new double[3 * ORDER];
+			double[] variance = new double[3 * ORDER];
+			for (int i = 0; i < mean.length; i++) {
+				mean[i] = random.nextGaussian();
+				variance[i] = 0.01 + random.nextDouble();
+			}
+			pst.setMseq(t, mean);
+			pst.setVseq(t, variance);
+			if (t % 17 == 3) {
+				pst.setGvSwitch(t, false);
+			}
+		}
+		pst.fixDynFeatOnBoundaries();
+		double[] gvMean = new double[ORDER];
+		double[] gvCovInv = new double[ORDER];
+		for (int i = 0; i < ORDER; i++) {
+			gvMean[i] = 0.5 + random.nextDouble();
+			gvCovInv[i] = 1 + 10 * random.nextDouble();
+		}
+		pst.setGvMeanVar(gvMean, gvCovInv);
+		return pst;
+	}
+
+	private static void assertSameParameters(HTSPStream expected, HTSPStream actual) {
+		for (int t = 0; t < expected.getT(); t++) {
+			for (int m = 0; m < ORDER; m++) {
+				assertEquals(Double.doubleToLongBits(expected.getPar(t, m)), Double.doubleToLongBits(actual.getPar(t, m)));
+			}
+		}
+	}
+
+	private static void assertParallelSameAsSequential(HMMData htsData) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			// different lengths, so that the workspaces of the pool threads are reused with smaller and larger streams
+			for (int numFrames : new int[] { 400, 50, 1000 }) {
+				HTSPStream sequential = stream(numFrames, numFrames);
+				sequential.mlpg(htsData, true);
+				HTSPStream parallel = stream(numFrames, numFrames);
+				List<Callable<Void>> tasks = parallel.getMlpgTasks(htsData, true, 7);
+				assertEquals(7, tasks.size());
+				Collections.reverse(tasks);
+				for (Future<Void> result : executor.invokeAll(tasks)) {
+					result.get();
+				}
+				assertSameParameters(sequential, parallel);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void parallelGradientGVIsBitIdentical() throws Exception {
+		HMMData htsData = new HMMData();
+		htsData.setGvMethod("gradient");
+		assertParallelSameAsSequential(htsData);
+	}
+
+	@Test
+	public void parallelDerivativeGVIsBitIdentical() throws Exception {
+		HMMData htsData = new HMMData();
+		htsData.setGvMethod("derivative");
+		assertParallelSameAsSequential(htsData);
+	}
+
+	@Test
+	public void noMoreTasksThanDimensions() throws Exception {
+		HTSPStream lf0 = new HTSPStream(3, 10, HMMData.FeatureType.LF0, 0);
+		assertEquals(1, lf0.getMlpgTasks(new HMMData(), false, 8).size());
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.htsengine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the real-time factor of the HTS vocoder, i.e. the time needed to synthesise one second of audio, on one or more
+ * threads. The parameters are synthetic ({@link VocoderTestData}), so that no voice is needed.
+ * <p>
+ * Usage, with the runtime's classes and test classes on the classpath:
+ * <code>java marytts.htsengine.HTSVocoderBenchmark [threads] [seconds] [mixed]</code>, where threads is the number of threads
+ * vocoding at the same time (default 1), seconds the length of the synthesised utterance (default 10), and mixed whether to use
+ * mixed excitation (default true). Each thread vocodes the utterance repeatedly for a few seconds after a
+ * warm-up, and the real-time factor per thread is reported.
+ *
+ * @author agent
+ */
+public class HTSVocoderBenchmark {
+	private static final long WARMUP_MILLIS = 3000;
+	private static final long MEASURE_MILLIS = 5000;
+
+	private final VocoderTestData data;
+
+	HTSVocoderBenchmark(int numFrames, boolean mixedExcitation, double beta) throws Exception {
+		data = new VocoderTestData(numFrames, mixedExcitation, beta);
+	}
+
+	/**
+	 * Vocode the utterance, keeping only the number of samples.
+	 * 
+	 * @param vocoder
+	 *            the vocoder to use
+	 * @return the number of samples synthesised
+	 * @throws Exception
+	 *             if vocoding fails
+	 */
+	long vocode(HTSVocoder vocoder) throws Exception {
+		final long[] numSamples = new long[1];
+		vocoder.vocode(data.lf0Pst, data.mcepPst, data.strPst, null, data.voiced, data.htsData, new HTSVocoder.AudioSink() {
+			public void putAudio(double[] samples, int len) {
+				numSamples[0] += len;
+			}
+		});
+		return numSamples[0];
+	}
+
+	/**
+	 * Vocode repeatedly for the given time.
+	 * 
+	 * @return the real-time factor, i.e. the time spent divided by the duration of the audio synthesised
+	 */
+	private double run(long millis) throws Exception {
+		HTSVocoder vocoder = new HTSVocoder();
+		long start = System.nanoTime();
+		long end = start + millis * 1000000L;
+		long now;
+		long numSamples = 0;
+		do {
+			numSamples += vocode(vocoder);
+			now = System.nanoTime();
+		} while (now < end);
+		return (now - start) / 1e9 / ((double) numSamples / VocoderTestData.RATE);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int numThreads = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+		double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+		boolean mixed = args.length > 2 ? Boolean.parseBoolean(args[2]) : true;
+		final HTSVocoderBenchmark benchmark = new HTSVocoderBenchmark((int) (seconds * VocoderTestData.RATE / VocoderTestData.FPERIOD), mixed, 0.1);
+		System.out.println("Vocoding " + seconds + " s of audio " + (mixed ? "with" : "without") + " mixed excitation on "
+				+ numThreads + " thread(s)");
+
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			for (final long millis : new long[] { WARMUP_MILLIS, MEASURE_MILLIS }) {
+				List<Future<Double>> results = new ArrayList<Future<Double>>();
+				for (int i = 0; i < numThreads; i++) {
+					results.add(executor.submit(new Callable<Double>() {
+						public Double call() throws Exception {
+							return benchmark.run(millis);
+						}
+					}));
+				}
+				double sum = 0;
+				for (Future<Double> result : results) {
+					sum += result.get();
+				}
+				double rtf = sum / numThreads;
+				System.out.printf("%s: real-time factor per thread %.4f (%.1f times faster than real time), "
+						+ "%.1f s of audio per second in total%n", millis == WARMUP_MILLIS ? "warm-up" : "measured", rtf, 1 / rtf,
+						numThreads / rtf);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.htsengine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ *
+ */
+public class HTSVocoderTest {
+
+	private static HTSUttModel utterance(String phones, int framesPerState) {
+		HTSUttModel um = new HTSUttModel();
+		for (String phone : phones.split(" ")) {
+			HTSModel m = new HTSModel(2);
+			m.setPhoneName(phone);
+			for (int state = 0; state < 2; state++) {
+				m.setDur(state, framesPerState);
+				m.setVoiced(state, state == 1 && !phone.equals("_"));
+				m.incrTotalDur(framesPerState);
+			}
+			um.addUttModel(m);
+			um.setNumModel(um.getNumModel() + 1);
+			um.setNumState(um.getNumState() + 2);
+			um.setTotalFrame(um.getTotalFrame() + m.getTotalDur());
+			um.setLf0Frame(um.getLf0Frame() + m.getNumVoiced());
+		}
+		return um;
+	}
+
+	private static final int NUM_STATES = 5;
+	private static final int MCEP_ORDER = 13;
+
+	/**
+	 * A synthetic HMM voice: model set sizes and pdf streams as far as parameter generation and vocoding need them.
+	 */
+	private static HMMData syntheticVoice() {
+		HMMData htsData = new HMMData();
+		htsData.setRate(16000);
+		htsData.setFperiod(80);
+		htsData.setAlpha(0.42);
+		htsData.setBeta(0.1);
+		htsData.setStage(0);
+		htsData.setUseGV(false);
+		htsData.setUseMixExc(false);
+		htsData.setUseFourierMag(false);
+		htsData.setPdfLf0Stream(new ByteArrayInputStream(new byte[0]));
+		htsData.setPdfMgcStream(new ByteArrayInputStream(new byte[0]));
+		CartTreeSet ms = htsData.getCartTreeSet();
+		ms.setTrees(HMMData.FeatureType.DUR, null, NUM_STATES);
+		ms.setTrees(HMMData.FeatureType.LF0, null, 3);
+		ms.setTrees(HMMData.FeatureType.MGC, null, 3 * MCEP_ORDER);
+		return htsData;
+	}
+
+	/**
+	 * An utterance of models with the given phone names, whose state durations and pdfs are as if they had been looked up in
+	 * the trees of {@link #syntheticVoice()}: static means varying from state to state, zero means for the dynamic features.
+	 */
+	private static HTSUttModel syntheticUtterance(String phones) {
+		HTSUttModel um = new HTSUttModel();
+		Random random = new Random(7);
+		for (String phone : phones.split(" ")) {
+			HTSModel m = new HTSModel(NUM_STATES);
+			m.setPhoneName(phone);
+			for (int state = 0; state < NUM_STATES; state++) {
+				m.setDur(state, 2 + random.nextInt(6));
+				m.incrTotalDur(m.getDur(state));
+				m.setVoiced(state, !phone.equals("_") && state > 0 && state < NUM_STATES - 1);
+				double[] mean = new double[3 * MCEP_ORDER];
+				double[] variance = new double[3 * MCEP_ORDER];
+				mean[0] = phone.equals("_") ? -4 : -1 + 0.5 * random.nextGaussian();
+				for (int i = 0; i < 3 * MCEP_ORDER; i++) {
+					if (i > 0 && i < MCEP_ORDER) {
+						mean[i] = 0.3 / i * random.nextGaussian();
+					}
+					variance[i] = i < MCEP_ORDER ? 0.01 : 0.001;
+				}
+				m.setMcepMean(state, mean);
+				m.setMcepVariance(state, variance);
+				m.setLf0Mean(state, new double[] { Math.log(100 + 50 * random.nextDouble()), 0, 0 });
+				m.setLf0Variance(state, new double[] { 0.01, 0.001, 0.001 });
+			}
+			um.addUttModel(m);
+			um.setNumModel(um.getNumModel() + 1);
+			um.setNumState(um.getNumState() + NUM_STATES);
+			um.setTotalFrame(um.getTotalFrame() + m.getTotalDur());
+			um.setLf0Frame(um.getLf0Frame() + m.getNumVoiced());
+		}
+		return um;
+	}
+
+	private static class ArraySink implements HTSVocoder.AudioSink {
+		final double[] audio;
+		int pos = 0;
+
+		ArraySink(int length) {
+			audio = new double[length];
+		}
+
+		public void putAudio(double[] samples, int len) {
+			System.arraycopy(samples, 0, audio, pos, len);
+			pos += len;
+		}
+	}
+
+	@Test
+	public void streamingMatchesNonStreaming() throws Exception {
+		HMMData htsData = syntheticVoice();
+		HTSUttModel um = syntheticUtterance("_ h a l o _ t h i s i s a l o n g e r p h r a s e _ b y e _");
+		int fperiod = htsData.getFperiod();
+		int maxWindowFrames = 60;
+
+		HTSParameterGeneration pdf2par = new HTSParameterGeneration();
+		pdf2par.htsMaximumLikelihoodParameterGeneration(um, htsData);
+		ArraySink whole = new ArraySink(um.getTotalFrame() * fperiod);
+		new HTSVocoder().vocode(pdf2par.getlf0Pst(), pdf2par.getMcepPst(), null, null, pdf2par.getVoicedArray(), htsData, whole);
+
+		HTSParameterGeneration lf0Par = new HTSParameterGeneration();
+		lf0Par.htsMaximumLikelihoodParameterGeneration(um, htsData, false, true);
+		ArraySink streamed = new ArraySink(um.getTotalFrame() * fperiod);
+		new HTSVocoder().vocodeStreaming(um, lf0Par.getlf0Pst(), lf0Par.getVoicedArray(), htsData, 2, maxWindowFrames, streamed);
+
+		assertEquals(whole.audio.length, streamed.pos);
+		double maxAmplitude = 0;
+		double maxStep = 0; // the largest difference between neighbouring samples
+		for (int i = 0; i < whole.audio.length; i++) {
+			maxAmplitude = Math.max(maxAmplitude, Math.abs(whole.audio[i]));
+			if (i > 0) {
+				maxStep = Math.max(maxStep, Math.abs(whole.audio[i] - whole.audio[i - 1]));
+			}
+		}
+		assertTrue(maxAmplitude > 0);
+		for (int i = 0; i < whole.audio.length; i++) {
+			assertEquals("sample " + i, whole.audio[i], streamed.audio[i], 1e-3 * maxAmplitude);
+		}
+
+		// no discontinuities where one window ends and the next begins
+		List<int[]> windows = HTSVocoder.getWindows(um, maxWindowFrames);
+		assertTrue(windows.size() > 4);
+		int frame = 0;
+		for (int i = 0; i < um.getNumUttModel(); i++) {
+			frame += um.getUttModel(i).getTotalDur();
+			for (int[] window : windows) {
+				if (window[1] == i + 1 && i + 1 < um.getNumUttModel()) {
+					int sample = frame * fperiod;
+					double step = streamed.audio[sample] - streamed.audio[sample - 1];
+					double expectedStep = whole.audio[sample] - whole.audio[sample - 1];
+					assertTrue("step at sample " + sample, Math.abs(step) <= maxStep);
+					assertEquals("step at sample " + sample, expectedStep, step, 1e-3 * maxAmplitude);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void windowsEndAfterPauses() {
+		List<int[]> windows = HTSVocoder.getWindows(utterance("_ h e l o _ w o r l d _", 5), 1000);
+		assertEquals(3, windows.size());
+		assertArrayEquals(new int[] { 0, 1 }, windows.get(0));
+		assertArrayEquals(new int[] { 1, 6 }, windows.get(1));
+		assertArrayEquals(new int[] { 6, 12 }, windows.get(2));
+	}
+
+	@Test
+	public void longPhrasesAreSplit() {
+		// each model has 10 frames
+		List<int[]> windows = HTSVocoder.getWindows(utterance("a b c d e f g", 5), 25);
+		assertEquals(4, windows.size());
+		int next = 0;
+		for (int[] window : windows) {
+			assertEquals(next, window[0]);
+			next = window[1];
+		}
+		assertEquals(7, next);
+		// a single model longer than the maximum still makes a window
+		assertEquals(7, HTSVocoder.getWindows(utterance("a b c d e f g", 5), 3).size());
+	}
+
+	@Test
+	public void subUtteranceCountsFrames() {
+		HTSUttModel um = utterance("_ a b _", 3);
+		HTSUttModel sub = um.getSubUttModel(1, 3);
+		assertEquals(2, sub.getNumUttModel());
+		assertEquals(12, sub.getTotalFrame());
+		assertEquals(6, sub.getLf0Frame());
+		assertEquals(4, sub.getNumState());
+	}
+
+	@Test
+	public void noiseIsTheSequenceOfJavaUtilRandom() throws Exception {
+		VocoderTestData data = new VocoderTestData(10, false, 0);
+		HTSVocoder vocoder = new HTSVocoder();
+		// an unvoiced utterance takes one noise value per sample
+		vocoder.vocode(data.lf0Pst, data.mcepPst, null, null, new boolean[10], data.htsData, new HTSVocoder.AudioSink() {
+			public void putAudio(double[] samples, int len) {
+			}
+		});
+		Random random = new Random(HTSVocoder.SEED);
+		for (int i = 0; i < 10 * 80; i++) {
+			random.nextBoolean();
+		}
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(random.nextBoolean() ? 1.0 : -1.0, vocoder.uniformRand(), 0);
+		}
+	}
+
+	/**
+	 * The output of the vocoder before it was changed to synthesise frame blocks, for the parameters of
+	 * <code>new VocoderTestData(120, mixed, mixed ? 0.1 : 0)</code>, as float values.
+	 */
+	private static double[] baselineAudio(boolean mixed) throws Exception {
+		String name = "htsvocoder-" + (mixed ? "mixed" : "plain") + ".bin";
+		DataInputStream in = new DataInputStream(new BufferedInputStream(HTSVocoderTest.class.getResourceAsStream(name)));
+		try {
+			double[] audio = new double[120 * VocoderTestData.FPERIOD];
+			for (int i = 0; i < audio.length; i++) {
+				audio[i] = in.readFloat();
+			}
+			assertEquals(-1, in.read());
+			return audio;
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void audioMatchesBaseline() throws Exception {
+		for (boolean mixed : new boolean[] { false, true }) {
+			double[] expected = baselineAudio(mixed);
+			VocoderTestData data = new VocoderTestData(120, mixed, mixed ? 0.1 : 0);
+			double[] array = new HTSVocoder().htsMLSAVocoder(data.lf0Pst, data.mcepPst, data.strPst, null, data.voiced,
+					data.htsData, null);
+			assertEquals(expected.length, array.length);
+			final double[] streamed = new double[expected.length];
+			new HTSVocoder().vocode(data.lf0Pst, data.mcepPst, data.strPst, null, data.voiced, data.htsData,
+					new HTSVocoder.AudioSink() {
+						private int pos = 0;
+
+						public void putAudio(double[] samples, int len) {
+							assertEquals(VocoderTestData.FPERIOD, len);
+							System.arraycopy(samples, 0, streamed, pos, len);
+							pos += len;
+						}
+					});
+			for (int i = 0; i < expected.length; i++) {
+				// the baseline is stored with float precision
+				double tolerance = 1e-6 * Math.max(1, Math.abs(expected[i]));
+				assertEquals("sample " + i, expected[i], array[i], tolerance);
+				assertEquals("sample " + i, expected[i], streamed[i], tolerance);
+			}
+		}
+	}
+}
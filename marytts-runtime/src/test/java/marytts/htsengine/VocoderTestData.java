@@ -0,0 +1,102 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.htsengine;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+
+/**
+ * Synthetic vocoder parameters, so that the HTS vocoder can be run without a voice: smoothly varying mel-cepstra and log F0,
+ * with voiced and unvoiced stretches, and optionally mixed excitation with five bands.
+ *
+ * @author agent
+ */
+public class VocoderTestData {
+	static final int RATE = 16000;
+	static final int FPERIOD = 80;
+	private static final int MCEP_ORDER = 25;
+	private static final int NUM_FILTERS = 5;
+
+	final HMMData htsData;
+	final HTSPStream lf0Pst;
+	final HTSPStream mcepPst;
+	final HTSPStream strPst;
+	final boolean[] voiced;
+
+	/**
+	 * Create synthetic vocoder parameters.
+	 * 
+	 * @param numFrames
+	 *            the number of frames, of 5 ms each
+	 * @param mixedExcitation
+	 *            whether to use mixed excitation
+	 * @param beta
+	 *            the postfilter coefficient, 0 for no postfiltering
+	 * @throws Exception
+	 *             if the parameter streams cannot be created
+	 */
+	VocoderTestData(int numFrames, boolean mixedExcitation, double beta) throws Exception {
+		htsData = new HMMData();
+		htsData.setRate(RATE);
+		htsData.setFperiod(FPERIOD);
+		htsData.setAlpha(0.42);
+		htsData.setBeta(beta);
+		htsData.setStage(0);
+		htsData.setUseFourierMag(false);
+		htsData.setUseMixExc(mixedExcitation);
+		if (mixedExcitation) {
+			Random random = new Random(5);
+			StringBuilder taps = new StringBuilder();
+			for (int i = 0; i < NUM_FILTERS * 48; i++) {
+				taps.append(0.1 * random.nextGaussian()).append(' ');
+			}
+			htsData.setNumFilters(NUM_FILTERS);
+			htsData.readMixedExcitationFilters(new ByteArrayInputStream(taps.toString().getBytes("UTF-8")));
+			htsData.setPdfStrStream(new ByteArrayInputStream(new byte[0]));
+		}
+
+		voiced = new boolean[numFrames];
+		int numVoiced = 0;
+		for (int t = 0; t < numFrames; t++) {
+			voiced[t] = (t / 37) % 4 != 3;
+			if (voiced[t]) {
+				numVoiced++;
+			}
+		}
+		lf0Pst = new HTSPStream(3, numVoiced, HMMData.FeatureType.LF0, 0);
+		mcepPst = new HTSPStream(3 * MCEP_ORDER, numFrames, HMMData.FeatureType.MGC, 0);
+		strPst = mixedExcitation ? new HTSPStream(3 * NUM_FILTERS, numFrames, HMMData.FeatureType.STR, 0) : null;
+		int lf0frame = 0;
+		for (int t = 0; t < numFrames; t++) {
+			if (voiced[t]) {
+				lf0Pst.setPar(lf0frame++, 0, Math.log(120 + 40 * Math.sin(t / 31.0)));
+			}
+			mcepPst.setPar(t, 0, 0.5 * Math.sin(t / 20.0) - 1);
+			for (int i = 1; i < MCEP_ORDER; i++) {
+				mcepPst.setPar(t, i, 0.4 / i * Math.sin(t / (7.0 + i) + i));
+			}
+			if (mixedExcitation) {
+				for (int i = 0; i < NUM_FILTERS; i++) {
+					strPst.setPar(t, i, 0.5 + 0.5 * Math.sin(t / (11.0 + i)));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.modules.synthesis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import marytts.features.FeatureProcessorManager;
+import marytts.features.FeatureRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ *
+ */
+public class VoiceManagerTest {
+	private static final long MEGABYTE = 1024 * 1024;
+
+	private List<String> evicted;
+	private VoiceManager.Listener listener;
+
+	private static class ClosingObject implements Closeable {
+		boolean closed = false;
+
+		public void close() {
+			closed = true;
+		}
+	}
+
+	private static class CountingData extends LazyVoiceData<Object> {
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch release;
+
+		CountingData(String name, CountDownLatch release) throws Exception {
+			super(new Voice(name, Locale.US, Voice.AF16000, null, Voice.FEMALE));
+			this.release = release;
+		}
+
+		protected Object load() throws Exception {
+			loads.incrementAndGet();
+			release.await();
+			return new ClosingObject();
+		}
+
+		protected long estimateSize() {
+			return 2 * MEGABYTE;
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		// what the test voices need from the configuration:
+		System.setProperty("en_US.allophoneset", "jar:/marytts/features/allophones.ROOT.xml");
+		if (FeatureRegistry.getFeatureProcessorManager(Locale.US) == null) {
+			FeatureRegistry.setFeatureProcessorManager(Locale.US, new FeatureProcessorManager(Locale.US));
+		}
+		System.setProperty("voice.lazyloading", "true");
+		System.setProperty("voice.lazyloading.budget.megabytes", "3");
+		System.setProperty("voice.lazyloading.minidle.seconds", "0");
+		evicted = new ArrayList<String>();
+		listener = new VoiceManager.Listener() {
+			public void voiceLoaded(Voice voice, long size, long loadTime) {
+			}
+
+			public void voiceEvicted(Voice voice, long size, long idleTime) {
+				evicted.add(voice.getName());
+			}
+		};
+		VoiceManager.addListener(listener);
+	}
+
+	@After
+	public void tearDown() {
+		VoiceManager.removeListener(listener);
+		System.clearProperty("en_US.allophoneset");
+		System.clearProperty("voice.lazyloading");
+		System.clearProperty("voice.lazyloading.budget.megabytes");
+		System.clearProperty("voice.lazyloading.minidle.seconds");
+	}
+
+	@Test
+	public void concurrentRequestsShareOneLoad() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		final CountingData data = new CountingData("concurrent", release);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for (int i = 0; i < 4; i++) {
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() {
+						return data.get();
+					}
+				}));
+			}
+			Thread.sleep(50);
+			release.countDown();
+			Object first = futures.get(0).get();
+			for (Future<Object> f : futures) {
+				assertSame(first, f.get());
+			}
+			assertEquals(1, data.loads.get());
+		} finally {
+			executor.shutdown();
+			data.unload();
+		}
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedOverBudget() throws Exception {
+		CountDownLatch released = new CountDownLatch(0);
+		CountingData a = new CountingData("a", released);
+		CountingData b = new CountingData("b", released);
+		try {
+			a.get();
+			Thread.sleep(5);
+			b.get();
+			assertFalse(a.isLoaded());
+			assertTrue(b.isLoaded());
+			assertEquals(1, evicted.size());
+			assertEquals("a", evicted.get(0));
+
+			a.get();
+			assertEquals(2, a.loads.get());
+			assertFalse(b.isLoaded());
+		} finally {
+			a.unload();
+			b.unload();
+		}
+	}
+
+	@Test
+	public void evictedDataIsClosed() throws Exception {
+		CountDownLatch released = new CountDownLatch(0);
+		CountingData a = new CountingData("closed", released);
+		CountingData b = new CountingData("evicting", released);
+		try {
+			ClosingObject first = (ClosingObject) a.get();
+			Thread.sleep(5);
+			b.get();
+			assertFalse(a.isLoaded());
+			assertTrue(first.closed);
+		} finally {
+			a.unload();
+			b.unload();
+		}
+	}
+
+	@Test
+	public void heldDataIsClosedWhenReleased() throws Exception {
+		CountDownLatch released = new CountDownLatch(0);
+		CountingData a = new CountingData("held", released);
+		CountingData b = new CountingData("evicting", released);
+		try {
+			ClosingObject held = (ClosingObject) a.acquire();
+			assertSame(held, a.acquire());
+			Thread.sleep(5);
+			b.get();
+			assertFalse(a.isLoaded());
+			assertFalse(held.closed);
+			a.release(held);
+			assertFalse(held.closed);
+			a.release(held);
+			assertTrue(held.closed);
+
+			// data which was not evicted stays open when it is released
+			ClosingObject reloaded = (ClosingObject) a.acquire();
+			assertTrue(reloaded != held);
+			a.release(reloaded);
+			assertFalse(reloaded.closed);
+		} finally {
+			a.unload();
+			b.unload();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void releaseWithoutAcquireFails() throws Exception {
+		CountingData a = new CountingData("unheld", new CountDownLatch(0));
+		try {
+			a.release(a.get());
+		} finally {
+			a.unload();
+		}
+	}
+}
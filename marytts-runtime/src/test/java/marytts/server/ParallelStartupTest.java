@@ -0,0 +1,85 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ *
+ */
+public class ParallelStartupTest {
+
+	private static Callable<String> task(final String result, final long sleep, final AtomicInteger done) {
+		return new Callable<String>() {
+			public String call() throws Exception {
+				Thread.sleep(sleep);
+				done.incrementAndGet();
+				return result;
+			}
+		};
+	}
+
+	@Test
+	public void returnsResultsInTaskOrder() throws Exception {
+		AtomicInteger done = new AtomicInteger();
+		List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+		tasks.add(task("a", 50, done));
+		tasks.add(task("b", 0, done));
+		tasks.add(task("c", 20, done));
+		List<String> results = ParallelStartup.run("test", Arrays.asList("a", "b", "c"), tasks);
+		assertEquals(Arrays.asList("a", "b", "c"), results);
+		assertEquals(3, done.get());
+	}
+
+	@Test
+	public void reportsFirstFailureAfterAllTasks() throws Exception {
+		AtomicInteger done = new AtomicInteger();
+		List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+		tasks.add(task("a", 0, done));
+		tasks.add(new Callable<String>() {
+			public String call() throws Exception {
+				throw new IllegalStateException("b");
+			}
+		});
+		tasks.add(new Callable<String>() {
+			public String call() throws Exception {
+				throw new IllegalArgumentException("c");
+			}
+		});
+		tasks.add(task("d", 50, done));
+		try {
+			ParallelStartup.run("test", Arrays.asList("a", "b", "c", "d"), tasks);
+			fail("Expected the failure of task b to be reported");
+		} catch (Exception e) {
+			assertEquals(IllegalStateException.class, e.getCause().getClass());
+		}
+		assertEquals(2, done.get());
+	}
+}
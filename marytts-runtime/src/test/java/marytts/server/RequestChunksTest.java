@@ -0,0 +1,173 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the in-order processing of a request's paragraphs in parallel.
+ *
+ * @author agent
+ */
+public class RequestChunksTest {
+	private ExecutorService executor;
+
+	@After
+	public void tearDown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Paragraphs whose task returns the paragraph text after the given delay; a negative delay means an empty paragraph.
+	 */
+	private static class Paragraphs extends Request.ChunkSequence<String> {
+		final long[] delays;
+		final List<Integer> started = Collections.synchronizedList(new ArrayList<Integer>());
+		final List<String> integrated = new ArrayList<String>();
+
+		Paragraphs(long... delays) {
+			super(delays.length);
+			this.delays = delays;
+		}
+
+		Callable<String> prepare(final int i) {
+			if (delays[i] < 0) {
+				return null;
+			}
+			return new Callable<String>() {
+				public String call() throws Exception {
+					started.add(i);
+					return process(i);
+				}
+			};
+		}
+
+		String process(int i) throws Exception {
+			Thread.sleep(delays[i]);
+			return "p" + i;
+		}
+
+		void integrate(int i, String result) {
+			integrated.add(i + ":" + result);
+		}
+	}
+
+	@Test
+	public void integratesInDocumentOrder() throws Exception {
+		executor = Executors.newFixedThreadPool(4);
+		Paragraphs paragraphs = new Paragraphs(200, 0, 100, -1, 50, 0, 10);
+		Request.processInOrder(executor, 3, paragraphs);
+		assertEquals(Arrays.asList("0:p0", "1:p1", "2:p2", "3:null", "4:p4", "5:p5", "6:p6"), paragraphs.integrated);
+	}
+
+	@Test
+	public void failingParagraphCancelsTheRest() throws Exception {
+		// one thread, which holds back the paragraphs after the failing one until the request has given up:
+		final CountDownLatch failed = new CountDownLatch(1);
+		executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>()) {
+			private int numTasks;
+
+			protected void beforeExecute(Thread t, Runnable r) {
+				if (++numTasks > 2) {
+					try {
+						failed.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		};
+		final IOException failure = new IOException("paragraph 1 failed");
+		Paragraphs paragraphs = new Paragraphs(0, 0, 0, 0, 0) {
+			String process(int i) throws Exception {
+				if (i == 1) {
+					throw failure;
+				}
+				return super.process(i);
+			}
+		};
+		try {
+			Request.processInOrder(executor, 4, paragraphs);
+			fail("expected the paragraph's exception");
+		} catch (IOException e) {
+			assertSame(failure, e);
+		}
+		failed.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(0, 1), paragraphs.started);
+		assertEquals(Arrays.asList("0:p0"), paragraphs.integrated);
+	}
+
+	@Test
+	public void runningParagraphsAreNotInterrupted() throws Exception {
+		executor = Executors.newFixedThreadPool(2);
+		final CountDownLatch secondStarted = new CountDownLatch(1);
+		final boolean[] interrupted = new boolean[1];
+		Paragraphs paragraphs = new Paragraphs(0, 0) {
+			String process(int i) throws Exception {
+				if (i == 0) {
+					secondStarted.await();
+					throw new IOException("paragraph 0 failed");
+				}
+				secondStarted.countDown();
+				long end = System.currentTimeMillis() + 200;
+				while (System.currentTimeMillis() < end) {
+					if (Thread.currentThread().isInterrupted()) {
+						interrupted[0] = true;
+					}
+				}
+				return super.process(i);
+			}
+		};
+		try {
+			Request.processInOrder(executor, 2, paragraphs);
+			fail("expected the paragraph's exception");
+		} catch (IOException e) {
+			// expected
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertFalse(interrupted[0]);
+		assertTrue(paragraphs.integrated.isEmpty());
+	}
+}
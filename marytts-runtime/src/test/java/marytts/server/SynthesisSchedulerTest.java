@@ -0,0 +1,115 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ *
+ */
+public class SynthesisSchedulerTest {
+	private SynthesisScheduler scheduler;
+	private CountDownLatch release;
+
+	@Before
+	public void setUp() {
+		scheduler = new SynthesisScheduler(1, 1, 0);
+		release = new CountDownLatch(1);
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		scheduler.shutdown();
+	}
+
+	private Runnable blockingTask() {
+		return new Runnable() {
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		};
+	}
+
+	@Test
+	public void rejectsWhenQueueIsFull() throws Exception {
+		Future<?> running = scheduler.submit(null, blockingTask());
+		Future<?> waiting = scheduler.submit(null, blockingTask());
+		try {
+			scheduler.submit(null, blockingTask());
+			fail("Expected the third request to be rejected");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+		assertEquals(2, scheduler.getNumSubmitted());
+		assertEquals(1, scheduler.getNumRejected());
+		release.countDown();
+		running.get();
+		waiting.get();
+	}
+
+	@Test
+	public void acceptsAgainWhenCapacityIsFree() throws Exception {
+		Future<?> first = scheduler.submit(null, blockingTask());
+		release.countDown();
+		first.get();
+		Future<String> second = scheduler.submit(null, new Callable<String>() {
+			public String call() {
+				return "done";
+			}
+		});
+		assertEquals("done", second.get());
+	}
+
+	@Test
+	public void reportsTaskExceptions() throws Exception {
+		Future<Object> failing = scheduler.submit(null, new Callable<Object>() {
+			public Object call() throws Exception {
+				throw new IllegalStateException("test");
+			}
+		});
+		try {
+			failing.get();
+			fail("Expected an ExecutionException");
+		} catch (ExecutionException e) {
+			assertEquals(IllegalStateException.class, e.getCause().getClass());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsInvalidPoolSize() {
+		new SynthesisScheduler(0, 1, 0);
+	}
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.server.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import marytts.util.http.Address;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.entity.ConsumingNHttpEntity;
+import org.apache.http.nio.protocol.NHttpResponseTrigger;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Checks that a request handler can complete its response in another thread after the server thread has returned, and that
+ * request bodies are limited in size.
+ *
+ * @author agent
+ */
+public class BaseHttpRequestHandlerTest {
+	private static class RecordingTrigger implements NHttpResponseTrigger {
+		private final CountDownLatch submitted = new CountDownLatch(1);
+		private volatile HttpResponse response;
+
+		public void submitResponse(HttpResponse aResponse) {
+			response = aResponse;
+			submitted.countDown();
+		}
+
+		public void handleException(HttpException ex) {
+		}
+
+		public void handleException(IOException ex) {
+		}
+	}
+
+	private static class TestHandler extends BaseHttpRequestHandler {
+		private final boolean defer;
+		private final CountDownLatch proceed = new CountDownLatch(1);
+		private Map<String, String> queryItems;
+
+		TestHandler(boolean defer) {
+			this.defer = defer;
+		}
+
+		@Override
+		protected void handleClientRequest(String absPath, Map<String, String> queryItems, final HttpResponse response,
+				Address serverAddressAtClient) throws IOException {
+			this.queryItems = queryItems;
+			if (!defer) {
+				response.setStatusCode(HttpStatus.SC_NO_CONTENT);
+				return;
+			}
+			final NHttpResponseTrigger trigger = deferResponse();
+			new Thread() {
+				public void run() {
+					try {
+						proceed.await();
+					} catch (InterruptedException e) {
+					}
+					response.setStatusCode(HttpStatus.SC_NO_CONTENT);
+					trigger.submitResponse(response);
+				}
+			}.start();
+		}
+	}
+
+	/**
+	 * Delivers the given bytes in small pieces, as a connection would.
+	 */
+	private static class BytesDecoder implements ContentDecoder {
+		private final ByteBuffer src;
+
+		BytesDecoder(byte[] bytes) {
+			src = ByteBuffer.wrap(bytes);
+		}
+
+		public int read(ByteBuffer dst) {
+			if (!src.hasRemaining()) {
+				return -1;
+			}
+			int n = Math.min(Math.min(dst.remaining(), src.remaining()), 64);
+			ByteBuffer piece = src.duplicate();
+			piece.limit(piece.position() + n);
+			dst.put(piece);
+			src.position(src.position() + n);
+			return n;
+		}
+
+		public boolean isCompleted() {
+			return !src.hasRemaining();
+		}
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty("server.http.maxrequestbytes");
+	}
+
+	private static HttpResponse post(TestHandler handler, String body, boolean withContentLength) throws Exception {
+		BasicHttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest("POST", "/process");
+		request.addHeader("Host", "localhost:59125");
+		BasicHttpEntity entity = new BasicHttpEntity();
+		byte[] bytes = body.getBytes("US-ASCII");
+		entity.setContentLength(withContentLength ? bytes.length : -1);
+		request.setEntity(entity);
+		ConsumingNHttpEntity consuming = handler.entityRequest(request, new BasicHttpContext());
+		request.setEntity(consuming);
+		BytesDecoder decoder = new BytesDecoder(bytes);
+		while (!decoder.isCompleted()) {
+			consuming.consumeContent(decoder, null);
+		}
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		handler.handle(request, response, new BasicHttpContext());
+		return response;
+	}
+
+	private static String longText(int length) {
+		char[] text = new char[length];
+		Arrays.fill(text, 'x');
+		return "INPUT_TEXT=" + new String(text);
+	}
+
+	private static BasicHttpRequest createRequest() {
+		BasicHttpRequest request = new BasicHttpRequest("GET", "/process?INPUT_TEXT=x");
+		request.addHeader("Host", "localhost:59125");
+		return request;
+	}
+
+	@Test
+	public void responseIsSentOnReturn() throws Exception {
+		RecordingTrigger trigger = new RecordingTrigger();
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		new TestHandler(false).handle(createRequest(), response, trigger, new BasicHttpContext());
+		assertSame(response, trigger.response);
+		assertEquals(HttpStatus.SC_NO_CONTENT, response.getStatusLine().getStatusCode());
+	}
+
+	@Test
+	public void deferredResponseIsSentLater() throws Exception {
+		RecordingTrigger trigger = new RecordingTrigger();
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		TestHandler handler = new TestHandler(true);
+		handler.handle(createRequest(), response, trigger, new BasicHttpContext());
+		assertNull(trigger.response);
+		handler.proceed.countDown();
+		trigger.submitted.await(10, TimeUnit.SECONDS);
+		assertSame(response, trigger.response);
+		assertEquals(HttpStatus.SC_NO_CONTENT, response.getStatusLine().getStatusCode());
+	}
+
+	@Test
+	public void blockingUseCannotDefer() throws Exception {
+		final NHttpResponseTrigger[] trigger = new NHttpResponseTrigger[1];
+		BaseHttpRequestHandler handler = new BaseHttpRequestHandler() {
+			@Override
+			protected void handleClientRequest(String absPath, Map<String, String> queryItems, HttpResponse response,
+					Address serverAddressAtClient) {
+				trigger[0] = deferResponse();
+			}
+		};
+		handler.handle(createRequest(), new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK"),
+				new BasicHttpContext());
+		assertNull(trigger[0]);
+	}
+
+	@Test
+	public void smallBodyIsRead() throws Exception {
+		System.setProperty("server.http.maxrequestbytes", "100");
+		TestHandler handler = new TestHandler(false);
+		HttpResponse response = post(handler, longText(89), false);
+		assertEquals(HttpStatus.SC_NO_CONTENT, response.getStatusLine().getStatusCode());
+		assertEquals(89, handler.queryItems.get("INPUT_TEXT").length());
+	}
+
+	@Test
+	public void largeBodyIsRejected() throws Exception {
+		System.setProperty("server.http.maxrequestbytes", "100");
+		TestHandler handler = new TestHandler(false);
+		HttpResponse response = post(handler, longText(5000), false);
+		assertEquals(HttpStatus.SC_REQUEST_TOO_LONG, response.getStatusLine().getStatusCode());
+		assertNull(handler.queryItems);
+	}
+
+	@Test
+	public void largeContentLengthIsRejectedBeforeReading() throws Exception {
+		System.setProperty("server.http.maxrequestbytes", "100");
+		TestHandler handler = new TestHandler(false);
+		BasicHttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest("POST", "/process");
+		BasicHttpEntity entity = new BasicHttpEntity();
+		entity.setContentLength(101);
+		request.setEntity(entity);
+		BaseHttpRequestHandler.LimitedBufferingNHttpEntity consuming = (BaseHttpRequestHandler.LimitedBufferingNHttpEntity) handler
+				.entityRequest(request, new BasicHttpContext());
+		assertTrue(consuming.isTooLarge());
+		entity.setContentLength(100);
+		consuming = (BaseHttpRequestHandler.LimitedBufferingNHttpEntity) handler.entityRequest(request, new BasicHttpContext());
+		assertFalse(consuming.isTooLarge());
+		assertEquals(HttpStatus.SC_REQUEST_TOO_LONG, post(handler, longText(200), true).getStatusLine().getStatusCode());
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.server.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import org.junit.Test;
+
+/**
+ * Checks that streamed audio files can be read back with the audio formats and samples they were made from.
+ *
+ * @author agent
+ */
+public class PCMStreamEncoderTest {
+	private static final AudioFormat PCM = new AudioFormat(16000, 16, 1, true, false);
+
+	private static byte[] createPCM(int samples) {
+		byte[] pcm = new byte[2 * samples];
+		for (int i = 0; i < samples; i++) {
+			short sample = (short) (20000 * Math.sin(i * 0.03) * Math.sin(i * 0.0007));
+			pcm[2 * i] = (byte) sample;
+			pcm[2 * i + 1] = (byte) (sample >> 8);
+		}
+		return pcm;
+	}
+
+	/**
+	 * Audio which, like synthesized audio arriving bit by bit, is read in pieces smaller than the encoder asks for.
+	 */
+	private static AudioInputStream trickle(byte[] pcm, AudioFormat format) {
+		InputStream in = new ByteArrayInputStream(pcm) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 333));
+			}
+		};
+		return new AudioInputStream(in, format, AudioSystem.NOT_SPECIFIED);
+	}
+
+	private static byte[] readAll(AudioInputStream ais) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[1024];
+		int n;
+		while ((n = ais.read(buf)) != -1) {
+			out.write(buf, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	private static AudioInputStream encodeAndReadBack(AudioFileFormat.Type type, AudioInputStream source) throws Exception {
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		new PCMStreamEncoder(type).encode(source, file);
+		return AudioSystem.getAudioInputStream(new ByteArrayInputStream(file.toByteArray()));
+	}
+
+	@Test
+	public void wavePCM() throws Exception {
+		byte[] pcm = createPCM(10001);
+		AudioInputStream result = encodeAndReadBack(AudioFileFormat.Type.WAVE, trickle(pcm, PCM));
+		assertEquals(AudioFormat.Encoding.PCM_SIGNED, result.getFormat().getEncoding());
+		assertEquals(16000, result.getFormat().getSampleRate(), 0);
+		assertArrayEquals(pcm, readAll(result));
+	}
+
+	@Test
+	public void auPCM() throws Exception {
+		byte[] pcm = createPCM(10001);
+		AudioInputStream result = encodeAndReadBack(AudioFileFormat.Type.AU, trickle(pcm, PCM));
+		assertEquals(AudioSystem.NOT_SPECIFIED, result.getFrameLength());
+		// AU audio is big-endian:
+		byte[] expected = readAll(AudioSystem.getAudioInputStream(new AudioFormat(16000, 16, 1, true, true), trickle(pcm, PCM)));
+		assertArrayEquals(expected, readAll(result));
+	}
+
+	@Test
+	public void waveFromBigEndianPCM() throws Exception {
+		byte[] pcm = createPCM(10001);
+		AudioFormat bigEndian = new AudioFormat(16000, 16, 1, true, true);
+		byte[] swapped = readAll(AudioSystem.getAudioInputStream(bigEndian, trickle(pcm, PCM)));
+		AudioInputStream result = encodeAndReadBack(AudioFileFormat.Type.WAVE, trickle(swapped, bigEndian));
+		assertArrayEquals(pcm, readAll(result));
+	}
+
+	@Test
+	public void onlyWaveAndAUWith16BitPCM() {
+		assertTrue(PCMStreamEncoder.canProduce(AudioFileFormat.Type.WAVE, PCM));
+		assertTrue(PCMStreamEncoder.canProduce(AudioFileFormat.Type.AU, PCM));
+		assertFalse(PCMStreamEncoder.canProduce(AudioFileFormat.Type.AIFF, PCM));
+		assertFalse(PCMStreamEncoder.canProduce(AudioFileFormat.Type.WAVE, new AudioFormat(AudioFormat.Encoding.ULAW, 16000, 8,
+				1, 1, 16000, false)));
+	}
+}
@@ -1,5 +1,11 @@
 package marytts.signalproc.effects;
 
+import java.io.ByteArrayOutputStream;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -33,4 +39,14 @@ public class AudioEffectsTest {
 		assertEquals(expected, params);
 	}
 
+	@Test
+	public void effectsKeepLengthWhileStreaming() throws Exception {
+		double[] signal = SyntheticAudio.createSignal(12345);
+		AudioInputStream input = SyntheticAudio.createInput(signal);
+		AudioInputStream output = new EffectsApplier().apply(input, "Robot(amount:100)+Volume(amount:2.0)");
+		// known before reading, i.e. not materialized first:
+		assertEquals(signal.length, output.getFrameLength());
+		assertEquals(2 * signal.length, AudioSystem.write(output, AudioFileFormat.Type.WAVE, new ByteArrayOutputStream()) - 44);
+	}
+
 }
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.signalproc.effects;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.sampled.AudioInputStream;
+
+/**
+ * Measures, for each audio effect, how fast it processes audio and how long it takes until the first audio comes out of
+ * {@link EffectsApplier#apply(AudioInputStream, String)}, i.e. the latency the effect adds to streaming output. The input is a
+ * synthetic voiced signal, so that no voice is needed.
+ * <p>
+ * Usage, with the runtime's classes and test classes on the classpath: <code>java marytts.signalproc.effects.EffectsBenchmark
+ * [seconds] [effects...]</code>, where seconds is the length of the input signal (default 5) and effects are effect names with
+ * parameters, such as <code>Robot(amount:100)</code> (default: all effects which work for any voice, with their example
+ * parameters).
+ *
+ * @author agent
+ */
+public class EffectsBenchmark {
+	/** 64 ms of 16-bit audio */
+	private static final int FIRST_BYTES = 2048;
+	private static final int REPETITIONS = 10;
+
+	private static int readFully(AudioInputStream ais, byte[] buf, int len) throws IOException {
+		int total = 0;
+		int nRead;
+		while (total < len && (nRead = ais.read(buf, total, len - total)) > 0) {
+			total += nRead;
+		}
+		return total;
+	}
+
+	public static void main(String[] args) throws Exception {
+		double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 5;
+		List<String> effects = new ArrayList<String>();
+		for (int i = 1; i < args.length; i++) {
+			effects.add(args[i]);
+		}
+		if (effects.isEmpty()) {
+			for (AudioEffect effect : AudioEffects.getEffects()) {
+				if (!effect.isHMMEffect()) {
+					effects.add(effect.getFullEffectWithExampleParametersAsString());
+				}
+			}
+		}
+		double[] signal = SyntheticAudio.createSignal((int) (seconds * SyntheticAudio.RATE));
+		byte[] buf = new byte[2 * signal.length + FIRST_BYTES];
+		System.out.printf("%-60s %12s %12s%n", "effect", "x real time", "latency ms");
+		for (String effect : effects) {
+			double totalTime = 0;
+			double firstTime = 0;
+			for (int r = -REPETITIONS; r < REPETITIONS; r++) { // the first half is the warm-up
+				long start = System.nanoTime();
+				AudioInputStream output = new EffectsApplier().apply(SyntheticAudio.createInput(signal), effect);
+				int first = readFully(output, buf, FIRST_BYTES);
+				long firstAudio = System.nanoTime();
+				int rest = readFully(output, buf, buf.length - first);
+				long end = System.nanoTime();
+				if (first + rest != 2 * signal.length) {
+					throw new IllegalStateException(effect + " produced " + (first + rest) / 2 + " samples instead of "
+							+ signal.length);
+				}
+				if (r >= 0) {
+					firstTime += firstAudio - start;
+					totalTime += end - start;
+				}
+			}
+			System.out.printf("%-60s %12.1f %12.2f%n", effect, seconds * REPETITIONS / (totalTime * 1e-9), firstTime
+					/ REPETITIONS * 1e-6);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.signalproc.effects;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+import marytts.util.data.BufferedDoubleDataSource;
+import marytts.util.data.audio.DDSAudioInputStream;
+
+/**
+ * Synthetic audio for testing and measuring audio effects without a voice.
+ *
+ * @author agent
+ *
+ */
+public class SyntheticAudio {
+	static final int RATE = 16000;
+
+	/**
+	 * A signal with a varying pitch and its harmonics, somewhat like a vowel.
+	 *
+	 * @param numSamples
+	 *            the length of the signal, at {@link #RATE}
+	 * @return the signal
+	 */
+	static double[] createSignal(int numSamples) {
+		double[] signal = new double[numSamples];
+		double phase = 0;
+		for (int i = 0; i < signal.length; i++) {
+			double f0 = 120 + 30 * Math.sin(2 * Math.PI * i / RATE);
+			phase += 2 * Math.PI * f0 / RATE;
+			for (int h = 1; h <= 10; h++) {
+				signal[i] += 0.05 / h * Math.sin(h * phase);
+			}
+		}
+		return signal;
+	}
+
+	/**
+	 * A 16-bit audio stream of the given signal, which is not modified by reading the stream.
+	 *
+	 * @param signal
+	 *            the signal, at {@link #RATE}
+	 * @return the stream
+	 */
+	static AudioInputStream createInput(double[] signal) {
+		AudioFormat format = new AudioFormat(RATE, 16, 1, true, false);
+		return new DDSAudioInputStream(new BufferedDoubleDataSource(signal.clone()), format);
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import marytts.cart.CART;
+import marytts.cart.DecisionNode;
+import marytts.cart.LeafNode;
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+import marytts.unitselection.select.HalfPhoneTarget;
+import marytts.unitselection.select.Target;
+import marytts.unitselection.select.TargetCostFunction;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ *
+ */
+public class CandidateCacheTest {
+	// "stress" has no weight but is tested by the CART; "other" is neither weighted nor tested.
+	private static final String FEATURES = "ByteValuedFeatureProcessors\n" + "1 | phone 0 a b\n" + "0 | stress 0 1\n"
+			+ "0 | other 0 x y\n" + "ShortValuedFeatureProcessors\n" + "ContinuousFeatureProcessors\n" + "1 linear | dur\n";
+
+	private FeatureDefinition featureDefinition;
+	private CART cart;
+	private TargetCostFunction tcf;
+
+	@Before
+	public void setUp() throws Exception {
+		featureDefinition = new FeatureDefinition(new BufferedReader(new StringReader(FEATURES)), true);
+		DecisionNode root = new DecisionNode.BinaryByteDecisionNode("stress", "1", featureDefinition);
+		root.addDaughter(new LeafNode.IntArrayLeafNode(new int[] { 1, 2 }));
+		root.addDaughter(new LeafNode.IntArrayLeafNode(new int[] { 3 }));
+		cart = new CART(root, featureDefinition);
+		tcf = (TargetCostFunction) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { TargetCostFunction.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (method.getName().equals("getFeatureDefinition")) {
+							return featureDefinition;
+						}
+						return null;
+					}
+				});
+	}
+
+	private static Target target(Target t, int phone, int stress, int other, float dur) {
+		t.setFeatureVector(new FeatureVector(new byte[] { (byte) phone, (byte) stress, (byte) other }, new short[0],
+				new float[] { dur }, 0));
+		return t;
+	}
+
+	private static Target target(int phone, int stress, int other, float dur) {
+		return target(new Target("t", null), phone, stress, other, dur);
+	}
+
+	@Test
+	public void keyDependsOnlyOnRelevantFeatures() {
+		CandidateCache cache = new CandidateCache(cart, tcf, 1024 * 1024);
+		assertEquals(cache.getKey(target(1, 1, 1, 0.1f)), cache.getKey(target(1, 1, 2, 0.1f)));
+		assertFalse(cache.getKey(target(1, 1, 1, 0.1f)).equals(cache.getKey(target(1, 2, 1, 0.1f))));
+		assertFalse(cache.getKey(target(1, 1, 1, 0.1f)).equals(cache.getKey(target(2, 1, 1, 0.1f))));
+		assertFalse(cache.getKey(target(1, 1, 1, 0.1f)).equals(cache.getKey(target(1, 1, 1, 0.2f))));
+		assertFalse(cache.getKey(target(1, 1, 1, 0.1f)).equals(
+				cache.getKey(target(new HalfPhoneTarget("t_L", null, true), 1, 1, 1, 0.1f))));
+	}
+
+	@Test
+	public void countsHitsAndMisses() {
+		CandidateCache cache = new CandidateCache(cart, tcf, 1024 * 1024);
+		CandidateCache.Key key = cache.getKey(target(1, 1, 1, 0.1f));
+		assertNull(cache.get(key));
+		cache.put(key, new int[] { 1, 2 }, new double[] { 0.5, 0.25 });
+		CandidateCache.Entry entry = cache.get(cache.getKey(target(1, 1, 2, 0.1f)));
+		assertNotNull(entry);
+		assertEquals(2, entry.size());
+		assertEquals(2, entry.getUnitIndex(1));
+		assertEquals(0.25, entry.getTargetCost(1), 0);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0.5, cache.getHitRate(), 1e-9);
+		assertFalse(cache.getStatistics("candidates.test.").isEmpty());
+	}
+
+	@Test
+	public void staysWithinBudget() {
+		long budget = 64 * 1024;
+		CandidateCache cache = new CandidateCache(cart, tcf, budget);
+		for (int i = 0; i < 10000; i++) {
+			cache.put(cache.getKey(target(1, 1, 1, i)), new int[10], new double[10]);
+		}
+		assertTrue(cache.getBytes() <= budget);
+		assertTrue(cache.getEvictions() > 0);
+		assertNotNull(cache.get(cache.getKey(target(1, 1, 1, 9999))));
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.StringReader;
+import java.util.Random;
+
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+import marytts.util.data.MaryHeader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that mapped unit and feature file readers deliver the same data as the readers that load the files into memory.
+ *
+ * @author agent
+ */
+public class MappedFileReadersTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static final String FEATURES = "ByteValuedFeatureProcessors\n" + "phone 0 a b c\n" + "stress 0 1\n"
+			+ "ShortValuedFeatureProcessors\n" + "word 0 w1 w2 w3 w4\n" + "ContinuousFeatureProcessors\n" + "dur\n" + "f0\n";
+	private static final int NUM_UNITS = 50;
+
+	private File writeFeatureFile() throws Exception {
+		FeatureDefinition def = new FeatureDefinition(new BufferedReader(new StringReader(FEATURES)), false);
+		Random random = new Random(3);
+		File file = tmp.newFile("features.mry");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		new MaryHeader(MaryHeader.UNITFEATS).writeTo(out);
+		def.writeBinaryTo(out);
+		out.writeInt(NUM_UNITS);
+		for (int i = 0; i < NUM_UNITS; i++) {
+			new FeatureVector(new byte[] { (byte) random.nextInt(4), (byte) random.nextInt(2) },
+					new short[] { (short) random.nextInt(5) }, new float[] { random.nextFloat(), -random.nextFloat() }, i)
+					.writeTo(out);
+		}
+		out.close();
+		return file;
+	}
+
+	private File writeUnitFile() throws Exception {
+		File file = tmp.newFile("units.mry");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		new MaryHeader(MaryHeader.UNITS).writeTo(out);
+		out.writeInt(NUM_UNITS);
+		out.writeInt(16000);
+		for (int i = 0; i < NUM_UNITS; i++) {
+			out.writeLong(1000L * i + (1L << 33));
+			out.writeInt(i % 7 == 0 ? 0 : 100 + i);
+		}
+		out.close();
+		return file;
+	}
+
+	@Test
+	public void mappedFeatureFileReaderDeliversSameFeatures() throws Exception {
+		File file = writeFeatureFile();
+		FeatureFileReader loaded = FeatureFileReader.getFeatureFileReader(file.getPath(), false);
+		FeatureFileReader mapped = FeatureFileReader.getFeatureFileReader(file.getPath(), true);
+		assertFalse(loaded.isMapped());
+		assertTrue(mapped.isMapped());
+		assertEquals(NUM_UNITS, mapped.getNumberOfUnits());
+		for (int i = 0; i < NUM_UNITS; i++) {
+			FeatureVector expected = loaded.getFeatureVector(i);
+			FeatureVector actual = mapped.getFeatureVector(i);
+			assertEquals(i, actual.getUnitIndex());
+			assertArrayEquals(expected.byteValuedDiscreteFeatures, actual.byteValuedDiscreteFeatures);
+			assertArrayEquals(expected.shortValuedDiscreteFeatures, actual.shortValuedDiscreteFeatures);
+			assertArrayEquals(expected.continuousFeatures, actual.continuousFeatures, 0);
+			for (int f = 0; f < expected.getLength(); f++) {
+				assertEquals(expected.getFeatureAsInt(f), mapped.getFeatureAsInt(i, f));
+			}
+			assertEquals(expected.getContinuousFeature(4), mapped.getContinuousFeature(i, 4), 0);
+		}
+		assertEquals(NUM_UNITS, mapped.getFeatureVectors().length);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void mappedFeatureFileReaderChecksUnitIndex() throws Exception {
+		FeatureFileReader.getFeatureFileReader(writeFeatureFile().getPath(), true).getByteFeature(NUM_UNITS, 0);
+	}
+
+	@Test
+	public void mappedUnitFileReaderDeliversSameUnits() throws Exception {
+		File file = writeUnitFile();
+		UnitFileReader loaded = new UnitFileReader(file.getPath());
+		UnitFileReader mapped = new UnitFileReader(file.getPath(), true);
+		assertTrue(mapped.isMapped());
+		assertEquals(loaded.getNumberOfUnits(), mapped.getNumberOfUnits());
+		assertEquals(loaded.getSampleRate(), mapped.getSampleRate());
+		for (int i = 0; i < NUM_UNITS; i++) {
+			Unit expected = loaded.getUnit(i);
+			Unit actual = mapped.getUnit(i);
+			assertEquals(expected, actual);
+			assertEquals(expected.startTime, actual.startTime);
+			assertEquals(expected.duration, actual.duration);
+			assertEquals(loaded.isEdgeUnit(i), mapped.isEdgeUnit(i));
+		}
+		assertNull(mapped.getNextUnit(mapped.getUnit(NUM_UNITS - 1)));
+		assertEquals(1, mapped.getNextUnit(mapped.getUnit(0)).index);
+	}
+}
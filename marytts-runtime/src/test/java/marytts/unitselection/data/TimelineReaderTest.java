@@ -0,0 +1,169 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import marytts.util.data.Datagram;
+import marytts.util.data.MaryHeader;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that mapping a timeline in several segments and reading it piecewise, with or without cache, deliver the datagrams
+ * that were written.
+ *
+ * @author agent
+ */
+public class TimelineReaderTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static final int NUM_DATAGRAMS = 2000;
+	private static final int SAMPLE_RATE = 16000;
+	private static final int IDX_INTERVAL = 50;
+	private static final int GB = 1024 * 1024 * 1024;
+
+	private Datagram[] datagrams = new Datagram[NUM_DATAGRAMS];
+	private long[] startTimes = new long[NUM_DATAGRAMS];
+	private long totalDuration;
+	private String fileName;
+
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(11);
+		File file = tmp.newFile("timeline.mry");
+		fileName = file.getPath();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		new MaryHeader(MaryHeader.TIMELINE).writeTo(raf);
+		new TimelineReader.ProcHeader("test").dump(raf);
+		raf.writeInt(SAMPLE_RATE);
+		raf.writeLong(NUM_DATAGRAMS);
+		long datagramsBytePos = raf.getFilePointer() + 16;
+		raf.writeLong(datagramsBytePos);
+		raf.writeLong(0); // time index position, filled in below
+		long[] bytePositions = new long[NUM_DATAGRAMS];
+		long time = 0;
+		for (int i = 0; i < NUM_DATAGRAMS; i++) {
+			// a few datagrams are larger than the 64 kB read size
+			byte[] data = new byte[i % 500 == 7 ? 70000 + i : random.nextInt(200) + 1];
+			random.nextBytes(data);
+			datagrams[i] = new Datagram(random.nextInt(20) + 1, data);
+			startTimes[i] = time;
+			bytePositions[i] = raf.getFilePointer();
+			datagrams[i].write(raf);
+			time += datagrams[i].getDuration();
+		}
+		totalDuration = time;
+		Vector<TimelineReader.IdxField> fields = new Vector<TimelineReader.IdxField>();
+		int i = 0;
+		for (long idxTime = 0; idxTime < totalDuration; idxTime += IDX_INTERVAL) {
+			while (i + 1 < NUM_DATAGRAMS && startTimes[i + 1] <= idxTime) {
+				i++;
+			}
+			fields.add(new TimelineReader.IdxField(bytePositions[i], startTimes[i]));
+		}
+		long timeIdxBytePos = raf.getFilePointer();
+		new TimelineReader.Index(IDX_INTERVAL, fields).dump(raf);
+		raf.seek(datagramsBytePos - 8);
+		raf.writeLong(timeIdxBytePos);
+		raf.close();
+	}
+
+	private int datagramAt(long time) {
+		int i = 0;
+		while (i + 1 < NUM_DATAGRAMS && startTimes[i + 1] <= time) {
+			i++;
+		}
+		return i;
+	}
+
+	private void assertReadsSameDatagrams(TimelineReader reader, long seed) throws Exception {
+		Random random = new Random(seed);
+		for (int n = 0; n < 300; n++) {
+			long time = (long) (random.nextDouble() * totalDuration);
+			long span = random.nextInt(400) + 1;
+			long[] offset = new long[1];
+			Datagram[] read = reader.getDatagrams(time, span, SAMPLE_RATE, offset);
+			int first = datagramAt(time);
+			assertEquals(time - startTimes[first], offset[0]);
+			for (int i = 0; i < read.length; i++) {
+				assertEquals(datagrams[first + i], read[i]);
+			}
+			long end = startTimes[first + read.length - 1] + read[read.length - 1].getDuration();
+			assertTrue(end >= time + span || first + read.length == NUM_DATAGRAMS);
+		}
+		assertEquals(datagrams[NUM_DATAGRAMS - 1], reader.getDatagram(totalDuration - 1));
+	}
+
+	@Test
+	public void segmentedMappingDeliversSameDatagrams() throws Exception {
+		assertReadsSameDatagrams(new TimelineReader(fileName, true, GB, 0), 1);
+		// segments smaller than some datagrams: these must still be found in the overlapping part of a segment
+		assertReadsSameDatagrams(new TimelineReader(fileName, true, 200000, 0), 2);
+		assertReadsSameDatagrams(new TimelineReader(fileName, true, 400000, 0), 3);
+	}
+
+	@Test
+	public void piecewiseReadingDeliversSameDatagrams() throws Exception {
+		assertReadsSameDatagrams(new TimelineReader(fileName, false, GB, 0), 4);
+		// a cache of two blocks must evict blocks all the time
+		assertReadsSameDatagrams(new TimelineReader(fileName, false, GB, 2 * 0x10000), 5);
+		assertReadsSameDatagrams(new TimelineReader(fileName, false, GB, 64 * 0x10000), 6);
+	}
+
+	@Test
+	public void concurrentPiecewiseReading() throws Exception {
+		final TimelineReader reader = new TimelineReader(fileName, false, GB, 4 * 0x10000);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (int t = 0; t < 8; t++) {
+				final long seed = 100 + t;
+				results.add(executor.submit(new Callable<Void>() {
+					public Void call() throws Exception {
+						assertReadsSameDatagrams(reader, seed);
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
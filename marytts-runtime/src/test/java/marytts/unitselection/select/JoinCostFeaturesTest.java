@@ -0,0 +1,136 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.select;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+
+import marytts.unitselection.weightingfunctions.WeightFunc;
+import marytts.unitselection.weightingfunctions.WeightFunctionManager;
+import marytts.util.data.MaryHeader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compares the join costs with a straightforward computation over the features in file order.
+ *
+ * @author agent
+ */
+public class JoinCostFeaturesTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	// The weight function manager shares one instance per function type, so all step functions use the same parameter
+	private static final String[] FUNCTIONS = { "step 20%", "linear", "linear", "step 20%", "linear" };
+	private static final float[] WEIGHTS = { 0.1f, 0.3f, 0.2f, 0.15f, 0.25f };
+	private static final int NUM_UNITS = 20;
+
+	private float[][] left = new float[NUM_UNITS][FUNCTIONS.length];
+	private float[][] right = new float[NUM_UNITS][FUNCTIONS.length];
+
+	private JoinCostFeatures load() throws Exception {
+		Random random = new Random(7);
+		File file = tmp.newFile("joinCostFeatures.mry");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		new MaryHeader(MaryHeader.JOINFEATS).writeTo(out);
+		out.writeInt(FUNCTIONS.length);
+		for (int i = 0; i < FUNCTIONS.length; i++) {
+			out.writeFloat(WEIGHTS[i]);
+			out.writeUTF(FUNCTIONS[i]);
+		}
+		out.writeInt(NUM_UNITS);
+		for (int u = 0; u < NUM_UNITS; u++) {
+			for (int i = 0; i < FUNCTIONS.length; i++) {
+				left[u][i] = random.nextInt(10) == 0 ? Float.NaN : random.nextFloat() * 100;
+				out.writeFloat(left[u][i]);
+			}
+			for (int i = 0; i < FUNCTIONS.length; i++) {
+				right[u][i] = random.nextInt(10) == 0 ? Float.NaN : random.nextFloat() * 100;
+				out.writeFloat(right[u][i]);
+			}
+		}
+		out.close();
+		return new JoinCostFeatures(file.getPath());
+	}
+
+	private double expectedCost(int u1, int u2) {
+		WeightFunctionManager wfm = new WeightFunctionManager();
+		double res = 0;
+		for (int i = 0; i < FUNCTIONS.length; i++) {
+			float a = right[u1][i];
+			float b = left[u2][i];
+			if (!Float.isNaN(a) && !Float.isNaN(b)) {
+				WeightFunc wf = wfm.getWeightFunction(FUNCTIONS[i]);
+				res += WEIGHTS[i] * wf.cost(a, b);
+			}
+		}
+		return res;
+	}
+
+	@Test
+	public void computesSameCostsAsPerFeatureLoop() throws Exception {
+		JoinCostFeatures jcf = load();
+		assertEquals(FUNCTIONS.length, jcf.getNumberOfFeatures());
+		assertEquals(NUM_UNITS, jcf.getNumberOfUnits());
+		for (int round = 0; round < 2; round++) { // second round is answered from the cache
+			for (int u1 = 0; u1 < NUM_UNITS; u1++) {
+				for (int u2 = 0; u2 < NUM_UNITS; u2++) {
+					assertEquals(expectedCost(u1, u2), jcf.cost(u1, u2), 1e-4);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void returnsFeaturesInFileOrder() throws Exception {
+		JoinCostFeatures jcf = load();
+		for (int u = 0; u < NUM_UNITS; u++) {
+			assertArrayEquals(left[u], jcf.getLeftJCF(u), 0);
+			assertArrayEquals(right[u], jcf.getRightJCF(u), 0);
+		}
+	}
+
+	@Test
+	public void computesFeatureDifferenceInFileOrder() throws Exception {
+		JoinCostFeatures jcf = load();
+		double[] diff = new double[jcf.getNumberOfFeatures()];
+		for (int u1 = 0; u1 < NUM_UNITS; u1++) {
+			for (int u2 = 0; u2 < NUM_UNITS; u2++) {
+				jcf.getJoinFeatureDifference(u1, u2, diff);
+				for (int i = 0; i < FUNCTIONS.length; i++) {
+					assertEquals((double) right[u1][i] - left[u2][i], diff[i], 0);
+				}
+			}
+		}
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void rejectsUnitIndexOutOfRange() throws Exception {
+		load().cost(0, NUM_UNITS);
+	}
+}
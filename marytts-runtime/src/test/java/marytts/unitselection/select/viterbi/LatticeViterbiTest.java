@@ -0,0 +1,143 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.select.viterbi;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import marytts.unitselection.data.Unit;
+import marytts.unitselection.data.UnitDatabase;
+import marytts.unitselection.select.JoinCostFunction;
+import marytts.unitselection.select.SelectedUnit;
+import marytts.unitselection.select.Target;
+import marytts.unitselection.select.TargetCostFunction;
+
+import org.junit.Test;
+
+/**
+ * Compares the units selected by {@link LatticeViterbi} with those selected by {@link Viterbi}. Costs are small integers, so
+ * that there are many ties between candidates and between paths.
+ *
+ * @author agent
+ */
+public class LatticeViterbiTest {
+
+	@Test
+	public void selectsSameUnitsWithBeam() throws Exception {
+		compare(1, 40, 30, 5);
+		compare(2, 40, 30, 10);
+		compare(3, 20, 5, 100);
+	}
+
+	@Test
+	public void selectsSameUnitsWithoutBeam() throws Exception {
+		compare(4, 30, 20, -1);
+	}
+
+	@Test
+	public void selectsSameUnitsWithBeamOfOne() throws Exception {
+		compare(5, 30, 20, 1);
+	}
+
+	private void compare(long seed, int numTargets, int maxCandidates, int beamSize) throws Exception {
+		for (int run = 0; run < 10; run++) {
+			TestDatabase db = new TestDatabase(seed * 100 + run, numTargets, maxCandidates);
+			Viterbi original = new Viterbi(db.targets, db, 0.5f, beamSize);
+			original.apply();
+			Viterbi lattice = new LatticeViterbi(db.targets, db, 0.5f, beamSize);
+			lattice.apply();
+			assertEquals(unitIndices(original.getSelectedUnits()), unitIndices(lattice.getSelectedUnits()));
+		}
+	}
+
+	private static List<Integer> unitIndices(List<SelectedUnit> units) {
+		List<Integer> indices = new ArrayList<Integer>();
+		for (SelectedUnit u : units) {
+			indices.add(u.getUnit().index);
+		}
+		return indices;
+	}
+
+	private static class TestDatabase extends UnitDatabase {
+		List<Target> targets = new ArrayList<Target>();
+		Map<Target, List<Unit>> units = new HashMap<Target, List<Unit>>();
+		final Map<Unit, Integer> targetCosts = new HashMap<Unit, Integer>();
+
+		TestDatabase(long seed, int numTargets, int maxCandidates) {
+			Random random = new Random(seed);
+			int index = 0;
+			for (int t = 0; t < numTargets; t++) {
+				Target target = new Target("p" + t, null);
+				targets.add(target);
+				List<Unit> list = new ArrayList<Unit>();
+				int n = 1 + random.nextInt(maxCandidates);
+				for (int i = 0; i < n; i++) {
+					Unit u = new Unit(index, 1, index);
+					index++;
+					targetCosts.put(u, random.nextInt(4));
+					list.add(u);
+				}
+				units.put(target, list);
+			}
+			targetCostFunction = (TargetCostFunction) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { TargetCostFunction.class }, new InvocationHandler() {
+						public Object invoke(Object proxy, Method method, Object[] args) {
+							if (method.getName().equals("cost")) {
+								return (double) targetCosts.get(args[1]);
+							}
+							return null;
+						}
+					});
+			joinCostFunction = (JoinCostFunction) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { JoinCostFunction.class }, new InvocationHandler() {
+						public Object invoke(Object proxy, Method method, Object[] args) {
+							if (method.getName().equals("cost")) {
+								int u1 = ((Unit) args[1]).index;
+								int u2 = ((Unit) args[3]).index;
+								return (double) (u1 + 1 == u2 ? 0 : (u1 * 31 + u2 * 17) % 5);
+							}
+							return null;
+						}
+					});
+		}
+
+		@Override
+		public List<ViterbiCandidate> getCandidates(Target target) {
+			List<ViterbiCandidate> candidates = new ArrayList<ViterbiCandidate>();
+			for (Unit u : units.get(target)) {
+				candidates.add(new ViterbiCandidate(target, u, targetCostFunction));
+			}
+			return candidates;
+		}
+
+		@Override
+		public String getFilenameAndTime(Unit unit) {
+			return "";
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.channels.ClosedByInterruptException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author agent
+ *
+ */
+public class SegmentCacheTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static final long KB = 1024;
+
+	private SegmentCache open(File dir, boolean clear) throws Exception {
+		return new SegmentCache(dir, clear, 1024 * KB, 1024 * KB, 64 * KB);
+	}
+
+	@Test
+	public void canLookUpTextAndAudio() throws Exception {
+		SegmentCache c = open(tmp.newFolder(), true);
+		byte[] audio = new byte[12345];
+		audio[100] = 42;
+		c.insertText("TEXT", "RAWMARYXML", "de", "de1", null, null, null, "Hallo Welt", "<rawmaryxml/>");
+		c.insertAudio("TEXT", "de", "de1", null, null, null, "Hallo Welt", audio);
+		assertEquals("<rawmaryxml/>", c.lookupText("TEXT", "RAWMARYXML", "de", "de1", null, null, null, "Hallo Welt"));
+		assertArrayEquals(audio, c.lookupAudio("TEXT", "de", "de1", null, null, null, "Hallo Welt"));
+		assertNull(c.lookupText("TEXT", "RAWMARYXML", "de", "de1", null, null, null, "Hallo"));
+		assertNull(c.lookupText("TEXT", "RAWMARYXML", "de", "de1", null, "", null, "Hallo Welt"));
+		assertEquals(2, c.getMemoryHits());
+		assertEquals(2, c.getMisses());
+		c.shutdown();
+	}
+
+	@Test
+	public void keepsRecordsAcrossRestart() throws Exception {
+		File dir = tmp.newFolder();
+		SegmentCache c = open(dir, true);
+		c.insertText("TEXT", "ALLOPHONES", "en_US", null, null, null, null, "one", "Two\nlines");
+		c.shutdown();
+		c = open(dir, false);
+		assertEquals("Two\nlines", c.lookupText("TEXT", "ALLOPHONES", "en_US", null, null, null, null, "one"));
+		assertEquals(1, c.getDiskHits());
+		c.shutdown();
+		c = open(dir, true);
+		assertNull(c.lookupText("TEXT", "ALLOPHONES", "en_US", null, null, null, null, "one"));
+		c.shutdown();
+	}
+
+	@Test
+	public void ignoresDuplicateInserts() throws Exception {
+		SegmentCache c = open(tmp.newFolder(), true);
+		c.insertText("TEXT", "RAWMARYXML", "de", "de1", null, null, null, "x", "first");
+		c.insertText("TEXT", "RAWMARYXML", "de", "de1", null, null, null, "x", "second");
+		assertEquals(1, c.getInserts());
+		c.shutdown();
+	}
+
+	@Test
+	public void staysWithinDiskBudget() throws Exception {
+		File dir = tmp.newFolder();
+		SegmentCache c = open(dir, true);
+		byte[] audio = new byte[10 * (int) KB];
+		for (int i = 0; i < 500; i++) {
+			c.insertAudio("TEXT", "de", "de1", null, null, null, "text " + i, audio);
+			// keep the first record in use, so that compaction retains it
+			assertTrue(c.lookupAudio("TEXT", "de", "de1", null, null, null, "text 0") != null);
+		}
+		long diskBytes = 0;
+		for (File f : dir.listFiles()) {
+			diskBytes += f.length();
+		}
+		assertTrue("disk usage " + diskBytes, diskBytes <= 1024 * KB + 64 * KB);
+		assertTrue(c.getDiskEvictions() > 0);
+		assertTrue(c.getMemoryEvictions() > 0);
+		assertArrayEquals(audio, c.lookupAudio("TEXT", "de", "de1", null, null, null, "text 0"));
+		assertArrayEquals(audio, c.lookupAudio("TEXT", "de", "de1", null, null, null, "text 499"));
+		c.shutdown();
+		c = open(dir, false);
+		assertArrayEquals(audio, c.lookupAudio("TEXT", "de", "de1", null, null, null, "text 0"));
+		assertNull(c.lookupAudio("TEXT", "de", "de1", null, null, null, "text 1"));
+		assertFalse(c.getStatistics().isEmpty());
+		c.shutdown();
+	}
+
+	@Test
+	public void survivesInterruptedReader() throws Exception {
+		File dir = tmp.newFolder();
+		SegmentCache c = open(dir, true);
+		c.insertText("TEXT", "ALLOPHONES", "en_US", null, null, null, null, "one", "1");
+		c.shutdown();
+		// after a restart, the record is read from the active segment's channel:
+		c = open(dir, false);
+		Thread.currentThread().interrupt();
+		try {
+			c.lookupText("TEXT", "ALLOPHONES", "en_US", null, null, null, null, "one");
+			fail("expected the interrupt to abort the read");
+		} catch (ClosedByInterruptException e) {
+			// expected
+		} finally {
+			Thread.interrupted();
+		}
+		assertEquals("1", c.lookupText("TEXT", "ALLOPHONES", "en_US", null, null, null, null, "one"));
+		c.insertText("TEXT", "ALLOPHONES", "en_US", null, null, null, null, "two", "2");
+		c.shutdown();
+		c = open(dir, false);
+		assertEquals("1", c.lookupText("TEXT", "ALLOPHONES", "en_US", null, null, null, null, "one"));
+		assertEquals("2", c.lookupText("TEXT", "ALLOPHONES", "en_US", null, null, null, null, "two"));
+		assertEquals(2, c.getDiskHits());
+		c.shutdown();
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void rejectsNullInput() throws Exception {
+		SegmentCache c = open(tmp.newFolder(), true);
+		try {
+			c.lookupText("TEXT", "RAWMARYXML", "de", "de1", null, null, null, null);
+		} finally {
+			c.shutdown();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.data;
+
+import java.util.Arrays;
+
+/**
+ * A double data source which delivers exactly a given number of doubles from its input source: any data beyond that length is
+ * discarded, and if the input source ends early, the rest is filled with zeroes. This makes the length of a processed signal
+ * known in advance when the processing is known to preserve the length of its input, without reading the signal first.
+ *
+ * @author agent
+ */
+public class FixedLengthDoubleDataSource extends BaseDoubleDataSource {
+	protected long remaining;
+
+	/**
+	 * @param inputSource
+	 *            the source to read from
+	 * @param length
+	 *            the number of doubles that can be read from this source
+	 */
+	public FixedLengthDoubleDataSource(DoubleDataSource inputSource, long length) {
+		super(inputSource);
+		this.dataLength = length;
+		this.remaining = length;
+	}
+
+	public boolean hasMoreData() {
+		return remaining > 0;
+	}
+
+	public int available() {
+		return (int) Math.min(remaining, Math.max(inputSource.available(), 0));
+	}
+
+	public int getData(double[] target, int targetPos, int length) {
+		if (target.length - targetPos < length) {
+			throw new IllegalArgumentException("Target array cannot hold enough data (" + (target.length - targetPos)
+					+ " left, but " + length + " requested)");
+		}
+		int toDeliver = (int) Math.min(length, remaining);
+		int nRead = 0;
+		if (inputSource.hasMoreData()) {
+			nRead = inputSource.getData(target, targetPos, toDeliver);
+		}
+		if (nRead < toDeliver) {
+			Arrays.fill(target, targetPos + nRead, targetPos + toDeliver, 0.);
+		}
+		remaining -= toDeliver;
+		return toDeliver;
+	}
+}
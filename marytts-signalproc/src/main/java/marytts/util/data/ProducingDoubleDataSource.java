@@ -20,20 +20,51 @@
 
 package marytts.util.data;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
 
 import marytts.signalproc.process.InlineDataProcessor;
 
 /**
+ * A double data source whose data is produced by a separate thread. Producer and reader exchange the data through a
+ * single-producer, single-consumer ring buffer of primitive doubles: the producer blocks when the ring is full, the reader
+ * blocks when it is empty, and neither takes a lock otherwise. Producers should hand over their data in blocks, using
+ * {@link #putData(double[], int, int)}.
+ * 
  * @author marc
  *
  */
 public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource implements Runnable {
-	private static final Double END_OF_STREAM = Double.NEGATIVE_INFINITY;
+	/** Size of the ring buffer; must be a power of two. */
+	private static final int RING_SIZE = 4096;
 
-	protected ArrayBlockingQueue<Double> queue = new ArrayBlockingQueue<Double>(1024);
-	private Thread dataProducingThread = null;
-	private boolean hasSentEndOfStream = false;
+	private static Executor producerExecutor = null;
+
+	/**
+	 * Set the executor on which {@link #start()} runs data producers. If no executor is set, each producer gets a new daemon
+	 * thread of its own. Servers set this to a shared pool so that producers do not create a thread per request.
+	 * <p>
+	 * The executor must not limit the number of producers running concurrently: a producer only finishes when its data has
+	 * been read, so producers waiting for a free thread could block the readers of running producers.
+	 * 
+	 * @param executor
+	 *            the executor to use, or null to use a new thread per producer.
+	 */
+	public static void setProducerExecutor(Executor executor) {
+		producerExecutor = executor;
+	}
+
+	private final double[] ring = new double[RING_SIZE];
+	private final int ringMask = RING_SIZE - 1;
+	/** Number of data points ever put into the ring; written only by the producer. */
+	private volatile long numWritten = 0;
+	/** Number of data points ever taken from the ring; written only by the reader. */
+	private volatile long numRead = 0;
+	/** Set by the producer after its last data point has been published. */
+	private volatile boolean hasSentEndOfStream = false;
+	private volatile Thread waitingProducer = null;
+	private volatile Thread waitingReader = null;
+	private boolean started = false;
 	private boolean hasReceivedEndOfStream = false;
 
 	protected ProducingDoubleDataSource() {
@@ -54,36 +85,130 @@ public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource
 	}
 
 	public void start() {
-		dataProducingThread = new Thread(this);
-		dataProducingThread.setDaemon(true);
-		dataProducingThread.start();
+		started = true;
+		Executor executor = producerExecutor;
+		if (executor != null) {
+			executor.execute(this);
+		} else {
+			Thread dataProducingThread = new Thread(this);
+			dataProducingThread.setDaemon(true);
+			dataProducingThread.start();
+		}
 	}
 
 	/**
-	 * Subclasses must implement this method such that it produces data and sends it through {@link #putOneDataPoint(double)}.
-	 * When all data is sent, the subclass must call {@link #putEndOfStream()} exactly once.
+	 * Subclasses must implement this method such that it produces data and sends it through {@link #putData(double[], int, int)}
+	 * or {@link #putOneDataPoint(double)}. When all data is sent, the subclass must call {@link #putEndOfStream()} exactly once.
 	 */
 	public abstract void run();
 
 	/**
-	 * The producing thread tries to put ont data item into the queue.
+	 * The producing thread tries to put one data item into the ring buffer. Prefer {@link #putData(double[], int, int)} where
+	 * the data is available in blocks.
 	 * 
 	 * @param value
 	 *            value
 	 * @throws RuntimeException
-	 *             runtime exception
+	 *             if the producing thread is interrupted while waiting for space in the buffer
 	 */
 	public void putOneDataPoint(double value) {
-		try {
-			queue.put(value);
-		} catch (InterruptedException e) {
-			throw new RuntimeException("Unexpected interruption", e);
+		long written = numWritten;
+		awaitSpace(written);
+		ring[(int) written & ringMask] = value;
+		numWritten = written + 1;
+		wakeUp(waitingReader);
+	}
+
+	/**
+	 * The producing thread puts a block of data into the ring buffer, waiting for the reader to make space as necessary.
+	 * 
+	 * @param data
+	 *            the array holding the data
+	 * @param off
+	 *            the position of the first data point in data
+	 * @param len
+	 *            the number of data points to put
+	 * @throws RuntimeException
+	 *             if the producing thread is interrupted while waiting for space in the buffer
+	 */
+	public void putData(double[] data, int off, int len) {
+		if (off < 0 || len < 0 || off + len > data.length) {
+			throw new IndexOutOfBoundsException("Cannot put " + len + " data points from position " + off + " of an array of length "
+					+ data.length);
+		}
+		long written = numWritten;
+		while (len > 0) {
+			int space = awaitSpace(written);
+			int pos = (int) written & ringMask;
+			int n = Math.min(Math.min(len, space), RING_SIZE - pos);
+			System.arraycopy(data, off, ring, pos, n);
+			off += n;
+			len -= n;
+			written += n;
+			numWritten = written;
+			wakeUp(waitingReader);
 		}
 	}
 
 	protected void putEndOfStream() {
-		putOneDataPoint(END_OF_STREAM);
 		hasSentEndOfStream = true;
+		wakeUp(waitingReader);
+	}
+
+	/**
+	 * Block the producing thread until the ring has space.
+	 * 
+	 * @param written
+	 *            the number of data points written so far
+	 * @return the number of data points that can be put without waiting
+	 */
+	private int awaitSpace(long written) {
+		int space;
+		while ((space = RING_SIZE - (int) (written - numRead)) == 0) {
+			waitingProducer = Thread.currentThread();
+			// Check again after announcing that we wait, so that the reader cannot miss us:
+			if (RING_SIZE - (int) (written - numRead) == 0) {
+				LockSupport.park(this);
+			}
+			waitingProducer = null;
+			checkInterrupted();
+		}
+		return space;
+	}
+
+	/**
+	 * Block the reading thread until the ring holds data or the end of the stream has been sent.
+	 * 
+	 * @return the number of data points that can be read without waiting; 0 means the stream has ended.
+	 */
+	private int awaitData() {
+		long read = numRead;
+		while (true) {
+			// Read the end-of-stream flag before the count, so that once it is set, the count is final:
+			boolean ended = hasSentEndOfStream;
+			int available = (int) (numWritten - read);
+			if (available > 0 || ended) {
+				return available;
+			}
+			waitingReader = Thread.currentThread();
+			if (numWritten == read && !hasSentEndOfStream) {
+				LockSupport.park(this);
+			}
+			waitingReader = null;
+			checkInterrupted();
+		}
+	}
+
+	private static void wakeUp(Thread waiting) {
+		if (waiting != null) {
+			LockSupport.unpark(waiting);
+		}
+	}
+
+	private static void checkInterrupted() {
+		if (Thread.interrupted()) {
+			throw new RuntimeException("Unexpected interruption", new InterruptedException());
+		}
 	}
 
 	@Override
@@ -102,11 +227,7 @@ public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource
 		if (isAllProductionDataRead()) {
 			return 0;
 		}
-		int inQueue = queue.size();
-		if (hasSentEndOfStream && !hasReceivedEndOfStream) {
-			inQueue -= 1;
-		}
-		return inQueue;
+		return (int) (numWritten - numRead);
 	}
 
 	@Override
@@ -124,15 +245,21 @@ public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource
 		}
 		// Now we have a buffer that can hold at least minLength new data points
 		int readSum = 0;
+		long read = numRead;
 		while (readSum < minLength) {
-			double data = getOneDataPoint();
-			if (data == END_OF_STREAM) {
+			int available = awaitData();
+			if (available == 0) {
 				hasReceivedEndOfStream = true;
 				break;
 			}
-			buf[writePos] = data;
-			writePos++;
-			readSum++;
+			int pos = (int) read & ringMask;
+			int n = Math.min(Math.min(available, minLength - readSum), RING_SIZE - pos);
+			System.arraycopy(ring, pos, buf, writePos, n);
+			writePos += n;
+			readSum += n;
+			read += n;
+			numRead = read;
+			wakeUp(waitingProducer);
 		}
 		if (dataProcessor != null) {
 			dataProcessor.applyInline(buf, writePos - readSum, readSum);
@@ -140,19 +267,6 @@ public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource
 		return readSum == minLength;
 	}
 
-	/**
-	 * The reading thread tries to get one data item from the queue.
-	 * 
-	 * @return queue.take
-	 */
-	private double getOneDataPoint() {
-		try {
-			return queue.take();
-		} catch (InterruptedException e) {
-			throw new RuntimeException("Unexpected interruption", e);
-		}
-	}
-
 	/**
 	 * @throws IllegalStateException
 	 */
@@ -163,7 +277,7 @@ public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource
 	}
 
 	private boolean isStarted() {
-		return dataProducingThread != null;
+		return started;
 	}
 
 	private boolean isAllProductionDataRead() {
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2026 DFKI GmbH.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.data;
+
+import marytts.util.math.FFTTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ *
+ */
+public class FixedLengthDoubleDataSourceTest {
+	@Test
+	public void truncatesLongerInput() {
+		double[] signal = FFTTest.getSampleSignal(10000);
+		FixedLengthDoubleDataSource source = new FixedLengthDoubleDataSource(new BufferedDoubleDataSource(signal), 7000);
+		Assert.assertEquals(7000, source.getDataLength());
+		double[] result = source.getAllData();
+		Assert.assertEquals(7000, result.length);
+		for (int i = 0; i < result.length; i++) {
+			Assert.assertEquals(signal[i], result[i], 0);
+		}
+		Assert.assertFalse(source.hasMoreData());
+	}
+
+	@Test
+	public void padsShorterInput() {
+		double[] signal = FFTTest.getSampleSignal(10000);
+		FixedLengthDoubleDataSource source = new FixedLengthDoubleDataSource(new BufferedDoubleDataSource(signal), 12345);
+		double[] result = source.getAllData();
+		Assert.assertEquals(12345, result.length);
+		for (int i = 0; i < signal.length; i++) {
+			Assert.assertEquals(signal[i], result[i], 0);
+		}
+		for (int i = signal.length; i < result.length; i++) {
+			Assert.assertEquals(0, result[i], 0);
+		}
+	}
+}
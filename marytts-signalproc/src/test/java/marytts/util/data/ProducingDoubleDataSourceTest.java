@@ -103,6 +103,69 @@ public class ProducingDoubleDataSourceTest {
 		}
 	}
 
+	@Test
+	public void canReadBlocksInOrder() {
+		int numDoubles = 100000;
+		BlockProducer producer = new BlockProducer(numDoubles, 777);
+		producer.start();
+		double[] data = producer.getAllData();
+		assertEquals(numDoubles, data.length);
+		for (int i = 0; i < numDoubles; i++) {
+			assertEquals(i, data[i], 0);
+		}
+	}
+
+	@Test
+	public void canReadBlocksInSmallPieces() {
+		int numDoubles = 10000;
+		BlockProducer producer = new BlockProducer(numDoubles, 5000);
+		producer.start();
+		double[] piece = new double[13];
+		int total = 0;
+		while (producer.hasMoreData()) {
+			int n = producer.getData(piece, 0, piece.length);
+			for (int i = 0; i < n; i++) {
+				assertEquals(total + i, piece[i], 0);
+			}
+			total += n;
+		}
+		assertEquals(numDoubles, total);
+	}
+
+	@Test
+	public void canTransmitNegativeInfinity() {
+		TestProducer producer = new TestProducer(10);
+		producer.DUMMY = Double.NEGATIVE_INFINITY;
+		producer.start();
+		double[] data = producer.getAllData();
+		assertEquals(10, data.length);
+		assertEquals(Double.NEGATIVE_INFINITY, data[9], 0);
+	}
+
+	private static class BlockProducer extends ProducingDoubleDataSource {
+		private int blockSize;
+
+		public BlockProducer(int numToSend, int blockSize) {
+			super(numToSend);
+			this.blockSize = blockSize;
+		}
+
+		public void run() {
+			int numToSend = (int) getDataLength();
+			double[] block = new double[blockSize];
+			int sent = 0;
+			while (sent < numToSend) {
+				int n = Math.min(blockSize, numToSend - sent);
+				for (int i = 0; i < n; i++) {
+					block[i] = sent + i;
+				}
+				putData(block, 0, n);
+				sent += n;
+			}
+			putEndOfStream();
+		}
+	}
+
 	private static class TestProducer extends ProducingDoubleDataSource {
 		double DUMMY = 0.23;
 